@@ -0,0 +1,134 @@
+package org.deeplearning4j.datasets.cifar;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory-mapped reader for the CIFAR-10 binary format (data_batch_1.bin etc). Each record is one label byte followed
+ * by 32x32x3 pixel bytes, in channels (R, G, B), rows, columns order.<br>
+ * The set of files is treated as one contiguous sequence of records. Records are available as slices of the mapped
+ * buffers (see {@link #getRecord(int)}), and minibatches are converted from unsigned bytes to floats in bulk
+ * (see {@link #read(int, int, float[], float[])}).
+ */
+public class MappedCifarFile {
+    public static final int HEIGHT = 32;
+    public static final int WIDTH = 32;
+    public static final int CHANNELS = 3;
+    public static final int NUM_LABELS = 10;
+    public static final int IMAGE_LENGTH = HEIGHT * WIDTH * CHANNELS;
+    public static final int RECORD_LENGTH = IMAGE_LENGTH + 1;
+
+    private static final float[] NORMALIZE_TABLE = new float[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            NORMALIZE_TABLE[i] = i / 255.0f;
+        }
+    }
+
+    private final List<MappedByteBuffer> buffers = new ArrayList<>();
+    private final int[] fileStart;
+    @Getter
+    private final int count;
+
+    /**
+     * @param files CIFAR-10 binary files, in the order they should be read
+     */
+    public MappedCifarFile(@NonNull List<File> files) throws IOException {
+        fileStart = new int[files.size() + 1];
+        for (int i = 0; i < files.size(); i++) {
+            File f = files.get(i);
+            try (RandomAccessFile raf = new RandomAccessFile(f, "r"); FileChannel channel = raf.getChannel()) {
+                long size = channel.size();
+                if (size % RECORD_LENGTH != 0) {
+                    throw new IOException("Invalid CIFAR-10 binary file " + f + ": length " + size
+                                    + " is not a multiple of the record length " + RECORD_LENGTH);
+                }
+                buffers.add(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+                fileStart[i + 1] = fileStart[i] + (int) (size / RECORD_LENGTH);
+            }
+        }
+        count = fileStart[files.size()];
+    }
+
+    /**
+     * Get the raw data for one record (label byte, then pixel bytes) as a read-only slice of the mapped buffer.
+     * No data is copied.
+     */
+    public ByteBuffer getRecord(int idx) {
+        checkRange(idx, 1);
+        int file = fileIndex(idx);
+        ByteBuffer dup = buffers.get(file).asReadOnlyBuffer();
+        int start = (idx - fileStart[file]) * RECORD_LENGTH;
+        dup.position(start);
+        dup.limit(start + RECORD_LENGTH);
+        return dup.slice();
+    }
+
+    /**
+     * @return The label of the specified record
+     */
+    public int getLabel(int idx) {
+        checkRange(idx, 1);
+        int file = fileIndex(idx);
+        return buffers.get(file).get((idx - fileStart[file]) * RECORD_LENGTH) & 0xFF;
+    }
+
+    /**
+     * Read and convert a contiguous range of records. Pixel values are normalized to the range 0 to 1.
+     *
+     * @param first    First record
+     * @param num      Number of records
+     * @param features Output for the features, of length at least num*3072, in [example, channel, row, column] order
+     * @param labels   Output for the one-hot labels, of length at least num*10 (set to 1.0 only - should be zeroed)
+     */
+    public void read(int first, int num, float[] features, float[] labels) {
+        checkRange(first, num);
+        int done = 0;
+        while (done < num) {
+            int idx = first + done;
+            int file = fileIndex(idx);
+            int inFile = Math.min(num - done, fileStart[file + 1] - idx);
+
+            byte[] raw = new byte[inFile * RECORD_LENGTH];
+            ByteBuffer dup = buffers.get(file).duplicate();
+            dup.position((idx - fileStart[file]) * RECORD_LENGTH);
+            dup.get(raw);
+
+            for (int i = 0; i < inFile; i++) {
+                int r = i * RECORD_LENGTH;
+                int ex = done + i;
+                labels[ex * NUM_LABELS + (raw[r] & 0xFF)] = 1.0f;
+                int outOffset = ex * IMAGE_LENGTH;
+                for (int j = 0; j < IMAGE_LENGTH; j++) {
+                    features[outOffset + j] = NORMALIZE_TABLE[raw[r + 1 + j] & 0xFF];
+                }
+            }
+            done += inFile;
+        }
+    }
+
+    private int fileIndex(int idx) {
+        int file = 0;
+        while (idx >= fileStart[file + 1]) {
+            file++;
+        }
+        return file;
+    }
+
+    private void checkRange(int first, int num) {
+        if (first < 0 || num < 0 || first + num > count) {
+            throw new IllegalArgumentException("Invalid range: records " + first + " to " + (first + num - 1)
+                            + " requested, files have " + count + " records");
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package org.deeplearning4j.datasets.datavec;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.split.CollectionInputSplit;
+import org.datavec.api.split.InputSplit;
+import org.deeplearning4j.exception.DL4JInvalidInputException;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base class for iterators that read and vectorize records in parallel, using multiple reader threads.<br>
+ * The locations of the {@link InputSplit} are split into chunks of batchSize locations, and the chunks are assigned
+ * to the reader threads in a round-robin fashion. Each reader thread has its own {@link RecordReader} (created by a
+ * {@link RecordReaderFactory}) for its shard of the data, and its own iterator that builds minibatches from it.
+ * <br>
+ * Ordering: if ordered mode is enabled, minibatches are returned in a fixed, round-robin order over the reader
+ * threads. When each location contains a single record (for example, one image per file), this is the same order
+ * as with a single-threaded iterator over the full split. If ordered mode is disabled, minibatches are returned in
+ * the order they become available, which maximizes throughput when the cost per minibatch varies.<br>
+ * ETL timing statistics for the different stages are available via {@link #getEtlStats()}.
+ *
+ * @param <T> Type of minibatch (DataSet or MultiDataSet)
+ */
+@Slf4j
+public abstract class BaseParallelRecordReaderIterator<T> {
+
+    protected final InputSplit inputSplit;
+    protected final RecordReaderFactory readerFactory;
+    protected final int batchSize;
+    protected final int numThreads;
+    protected final boolean ordered;
+    protected final int queueSizePerThread;
+
+    private List<ReaderThread> threads;
+    private List<BlockingQueue<Item<T>>> queues;
+    private boolean[] threadDone;
+    private int nextThread;
+    private int threadsRemaining;
+    private Item<T> nextItem;
+    private boolean exhausted;
+
+    private final Object labelsLock = new Object();
+    private List<String> labels;
+
+    private final AtomicLong readerInitNanos = new AtomicLong();
+    private final AtomicLong producerNanos = new AtomicLong();
+    private final AtomicLong producerBlockedNanos = new AtomicLong();
+    private long consumerWaitNanos;
+    private long minibatchCount;
+
+    protected BaseParallelRecordReaderIterator(@NonNull InputSplit inputSplit,
+                    @NonNull RecordReaderFactory readerFactory, int batchSize, int numThreads, boolean ordered,
+                    int queueSizePerThread) {
+        if (batchSize <= 0 || numThreads <= 0 || queueSizePerThread <= 0) {
+            throw new DL4JInvalidInputException("Batch size, number of threads and queue size must be positive: got "
+                            + batchSize + ", " + numThreads + ", " + queueSizePerThread);
+        }
+        this.inputSplit = inputSplit;
+        this.readerFactory = readerFactory;
+        this.batchSize = batchSize;
+        this.numThreads = numThreads;
+        this.ordered = ordered;
+        this.queueSizePerThread = queueSizePerThread;
+    }
+
+    /**
+     * Create the iterator used by one reader thread
+     *
+     * @param reader    Record reader for the shard of the data for one reader thread
+     * @param batchSize Minibatch size
+     */
+    protected abstract Iterator<T> createIterator(RecordReader reader, int batchSize);
+
+    /**
+     * Apply the preprocessor (if any) to a minibatch. Called from the reader threads.
+     */
+    protected abstract void preProcess(T minibatch);
+
+    public boolean hasNext() {
+        if (threads == null) {
+            start();
+        }
+        if (nextItem == null && !exhausted) {
+            nextItem = take();
+            exhausted = (nextItem == null);
+        }
+        return nextItem != null;
+    }
+
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No next element");
+        }
+        T out = nextItem.value;
+        nextItem = null;
+        minibatchCount++;
+        return out;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("Remove not supported");
+    }
+
+    public boolean resetSupported() {
+        return true;
+    }
+
+    public boolean asyncSupported() {
+        //Already parallel and asynchronous
+        return false;
+    }
+
+    public void reset() {
+        shutdown();
+    }
+
+    /**
+     * @return The labels from the record readers, if any. Only available once iteration has started.
+     */
+    public List<String> getLabels() {
+        synchronized (labelsLock) {
+            return labels;
+        }
+    }
+
+    /**
+     * Stop all reader threads. Iteration will restart from the beginning of the data on the next call to hasNext()
+     */
+    public void shutdown() {
+        if (threads != null) {
+            for (ReaderThread t : threads) {
+                t.stopped = true;
+                t.interrupt();
+            }
+            for (ReaderThread t : threads) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        threads = null;
+        queues = null;
+        nextItem = null;
+        exhausted = false;
+    }
+
+    /**
+     * @return ETL timing statistics, accumulated since this iterator was created
+     */
+    public EtlStats getEtlStats() {
+        return new EtlStats(threads == null ? 0 : threads.size(), minibatchCount, readerInitNanos.get() / 1000000,
+                        producerNanos.get() / 1000000, producerBlockedNanos.get() / 1000000,
+                        consumerWaitNanos / 1000000);
+    }
+
+    private void start() {
+        URI[] locations = inputSplit.locations();
+        int numChunks = (locations.length + batchSize - 1) / batchSize;
+        int numReaders = Math.max(1, Math.min(numThreads, numChunks));
+
+        List<List<URI>> shards = new ArrayList<>(numReaders);
+        for (int i = 0; i < numReaders; i++) {
+            shards.add(new ArrayList<URI>());
+        }
+        for (int c = 0; c < numChunks; c++) {
+            List<URI> shard = shards.get(c % numReaders);
+            int end = Math.min(locations.length, (c + 1) * batchSize);
+            for (int i = c * batchSize; i < end; i++) {
+                shard.add(locations[i]);
+            }
+        }
+
+        queues = new ArrayList<>();
+        if (ordered) {
+            for (int i = 0; i < numReaders; i++) {
+                queues.add(new ArrayBlockingQueue<Item<T>>(queueSizePerThread));
+            }
+        } else {
+            queues.add(new ArrayBlockingQueue<Item<T>>(queueSizePerThread * numReaders));
+        }
+        threadDone = new boolean[numReaders];
+        threadsRemaining = numReaders;
+        nextThread = 0;
+
+        Integer deviceId = Nd4j.getAffinityManager().getDeviceForCurrentThread();
+        threads = new ArrayList<>(numReaders);
+        for (int i = 0; i < numReaders; i++) {
+            ReaderThread t = new ReaderThread(i, new CollectionInputSplit(shards.get(i)),
+                            queues.get(ordered ? i : 0));
+            Nd4j.getAffinityManager().attachThreadToDevice(t, deviceId);
+            threads.add(t);
+        }
+        log.debug("Starting {} reader threads for {} locations, ordered={}", numReaders, locations.length, ordered);
+        for (ReaderThread t : threads) {
+            t.start();
+        }
+    }
+
+    private Item<T> take() {
+        long start = System.nanoTime();
+        try {
+            while (threadsRemaining > 0) {
+                Item<T> item;
+                if (ordered) {
+                    while (threadDone[nextThread]) {
+                        nextThread = (nextThread + 1) % threadDone.length;
+                    }
+                    item = queues.get(nextThread).take();
+                    if (item.isEnd()) {
+                        threadDone[nextThread] = true;
+                    }
+                    nextThread = (nextThread + 1) % threadDone.length;
+                } else {
+                    item = queues.get(0).take();
+                }
+
+                if (item.error != null) {
+                    shutdown();
+                    throw new RuntimeException("Error in record reader thread", item.error);
+                }
+                if (item.isEnd()) {
+                    threadsRemaining--;
+                    continue;
+                }
+                return item;
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for next minibatch", e);
+        } finally {
+            consumerWaitNanos += System.nanoTime() - start;
+        }
+    }
+
+    private void checkLabels(List<String> readerLabels) {
+        if (readerLabels == null) {
+            return;
+        }
+        synchronized (labelsLock) {
+            if (labels == null) {
+                labels = new ArrayList<>(readerLabels);
+            } else if (!labels.equals(readerLabels)) {
+                throw new DL4JInvalidInputException("Record readers for different shards of the data have different "
+                                + "labels: " + labels + " vs. " + readerLabels + ". Label classes should not be "
+                                + "inferred separately for each shard - use a RecordReaderFactory that configures the "
+                                + "labels explicitly");
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Item<T> {
+        private final T value;
+        private final Throwable error;
+
+        private boolean isEnd() {
+            return value == null && error == null;
+        }
+    }
+
+    private class ReaderThread extends Thread {
+        private final InputSplit split;
+        private final BlockingQueue<Item<T>> queue;
+        private volatile boolean stopped;
+
+        private ReaderThread(int index, InputSplit split, BlockingQueue<Item<T>> queue) {
+            this.split = split;
+            this.queue = queue;
+            setName("ParallelRecordReader-" + index);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            RecordReader reader = null;
+            try {
+                long start = System.nanoTime();
+                reader = readerFactory.create(split);
+                checkLabels(reader.getLabels());
+                Iterator<T> iter = createIterator(reader, batchSize);
+                readerInitNanos.addAndGet(System.nanoTime() - start);
+
+                while (!stopped) {
+                    long t0 = System.nanoTime();
+                    if (!iter.hasNext()) {
+                        break;
+                    }
+                    T next = iter.next();
+                    preProcess(next);
+                    long t1 = System.nanoTime();
+                    producerNanos.addAndGet(t1 - t0);
+
+                    queue.put(new Item<>(next, null));
+                    producerBlockedNanos.addAndGet(System.nanoTime() - t1);
+                }
+                //Close before signalling the end, so that any error on close is reported to the consumer
+                RecordReader toClose = reader;
+                reader = null;
+                toClose.close();
+                if (!stopped) {
+                    queue.put(new Item<T>(null, null));
+                }
+            } catch (InterruptedException e) {
+                //Shut down: no op
+            } catch (Throwable t) {
+                if (!stopped) {
+                    try {
+                        queue.put(new Item<T>(null, t));
+                    } catch (InterruptedException e) {
+                        //Shut down: no op
+                    }
+                }
+            } finally {
+                //Stopped, interrupted or failed before the reader was closed
+                if (reader != null) {
+                    try {
+                        reader.close();
+                    } catch (Throwable t) {
+                        log.warn("Error closing record reader in thread {}", getName(), t);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * ETL timing statistics for a parallel record reader iterator. All times are totals in milliseconds; times for
+     * the reader threads are summed over all threads.
+     */
+    @AllArgsConstructor
+    @Getter
+    public static class EtlStats {
+        /** Number of reader threads in the current epoch */
+        private final int numReaderThreads;
+        /** Number of minibatches returned */
+        private final long minibatches;
+        /** Time spent creating and initializing record readers */
+        private final long readerInitMs;
+        /** Time spent by the reader threads reading, parsing, vectorizing and preprocessing minibatches */
+        private final long readerMs;
+        /** Time the reader threads were blocked on a full queue: if large, the consumer is the bottleneck */
+        private final long readerBlockedMs;
+        /** Time the consumer was blocked waiting for the next minibatch: if large, ETL is the bottleneck */
+        private final long consumerWaitMs;
+
+        @Override
+        public String toString() {
+            return "EtlStats(readerThreads=" + numReaderThreads + ", minibatches=" + minibatches + ", readerInitMs="
+                            + readerInitMs + ", readerMs=" + readerMs + ", readerBlockedMs=" + readerBlockedMs
+                            + ", consumerWaitMs=" + consumerWaitMs + ")";
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.deeplearning4j.datasets.datavec;
+
+import lombok.NonNull;
+import org.apache.commons.lang3.SerializationUtils;
+import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.split.InputSplit;
+
+import java.io.IOException;
+
+/**
+ * A {@link RecordReaderFactory} that creates each new record reader as a (serialization-based) copy of a template
+ * record reader, which is then initialized with the specified split.<br>
+ * The template record reader should not be initialized. Note also that any state that a record reader infers from
+ * its input split (such as the set of label classes for an ImageRecordReader with a label generator) is inferred
+ * from each shard separately; if this is not appropriate, use a custom {@link RecordReaderFactory} instead.
+ */
+public class CloningRecordReaderFactory implements RecordReaderFactory {
+
+    private final RecordReader template;
+
+    /**
+     * @param template Template record reader (not initialized) to copy
+     */
+    public CloningRecordReaderFactory(@NonNull RecordReader template) {
+        this.template = template;
+    }
+
+    @Override
+    public RecordReader create(InputSplit split) throws IOException, InterruptedException {
+        RecordReader copy;
+        synchronized (template) {
+            copy = SerializationUtils.clone(template);
+        }
+        copy.initialize(split);
+        return copy;
+    }
+}
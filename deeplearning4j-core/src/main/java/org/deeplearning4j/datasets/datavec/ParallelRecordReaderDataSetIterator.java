@@ -0,0 +1,231 @@
+package org.deeplearning4j.datasets.datavec;
+
+import lombok.NonNull;
+import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.split.InputSplit;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+
+import java.io.Serializable;
+import java.util.Iterator;
+
+/**
+ * A parallel version of {@link RecordReaderDataSetIterator}: records are read, parsed and vectorized by multiple
+ * reader threads, each with its own RecordReader for a shard of the {@link InputSplit}. This is useful when record
+ * parsing or image decoding is the bottleneck - {@link org.deeplearning4j.datasets.iterator.AsyncDataSetIterator}
+ * only prefetches minibatches on a single thread.<br>
+ * See {@link BaseParallelRecordReaderIterator} for details on sharding and ordering, and use the {@link Builder} to
+ * create instances. For example, for CSV classification data:
+ * <pre>
+ * {@code
+ * DataSetIterator iter = new ParallelRecordReaderDataSetIterator.Builder(split, batchSize)
+ *          .recordReader(new CSVRecordReader()).classification(labelIndex, numClasses).numThreads(8).build();
+ * }
+ * </pre>
+ * Note that the preprocessor (if any) is applied in the reader threads, and hence must be thread safe.
+ */
+public class ParallelRecordReaderDataSetIterator extends BaseParallelRecordReaderIterator<DataSet>
+                implements DataSetIterator {
+
+    /**
+     * Creates the DataSetIterator for each reader thread
+     */
+    public interface IteratorFactory extends Serializable {
+
+        DataSetIterator create(RecordReader reader, int batchSize);
+    }
+
+    private final IteratorFactory iteratorFactory;
+    private volatile DataSetPreProcessor preProcessor;
+
+    private ParallelRecordReaderDataSetIterator(Builder builder) {
+        super(builder.inputSplit, builder.readerFactory, builder.batchSize, builder.numThreads, builder.ordered,
+                        builder.queueSizePerThread);
+        this.iteratorFactory = builder.iteratorFactory;
+    }
+
+    @Override
+    protected Iterator<DataSet> createIterator(RecordReader reader, int batchSize) {
+        return iteratorFactory.create(reader, batchSize);
+    }
+
+    @Override
+    protected void preProcess(DataSet minibatch) {
+        DataSetPreProcessor p = preProcessor;
+        if (p != null) {
+            p.preProcess(minibatch);
+        }
+    }
+
+    @Override
+    public DataSet next(int num) {
+        throw new UnsupportedOperationException("Not supported: minibatch size is fixed for parallel iteration");
+    }
+
+    @Override
+    public int totalExamples() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int inputColumns() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int totalOutcomes() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int batch() {
+        return batchSize;
+    }
+
+    @Override
+    public int cursor() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int numExamples() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public DataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+
+    public static class Builder {
+        private final InputSplit inputSplit;
+        private final int batchSize;
+        private RecordReaderFactory readerFactory;
+        private IteratorFactory iteratorFactory = new DefaultIteratorFactory(-1, -1, -1, false);
+        private int numThreads = Runtime.getRuntime().availableProcessors();
+        private boolean ordered = true;
+        private int queueSizePerThread = 4;
+
+        /**
+         * @param inputSplit Input split with the data. Locations are sharded across the reader threads
+         * @param batchSize  Minibatch size
+         */
+        public Builder(@NonNull InputSplit inputSplit, int batchSize) {
+            this.inputSplit = inputSplit;
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * Template record reader: each reader thread uses its own copy of this reader. The template should not be
+         * initialized. See {@link CloningRecordReaderFactory}
+         */
+        public Builder recordReader(@NonNull RecordReader template) {
+            return recordReaderFactory(new CloningRecordReaderFactory(template));
+        }
+
+        /**
+         * Factory to create the record reader for each reader thread
+         */
+        public Builder recordReaderFactory(@NonNull RecordReaderFactory readerFactory) {
+            this.readerFactory = readerFactory;
+            return this;
+        }
+
+        /**
+         * Classification, as per
+         * {@link RecordReaderDataSetIterator#RecordReaderDataSetIterator(RecordReader, int, int, int)}
+         *
+         * @param labelIndex        Index of the label writable
+         * @param numPossibleLabels Number of classes
+         */
+        public Builder classification(int labelIndex, int numPossibleLabels) {
+            this.iteratorFactory = new DefaultIteratorFactory(labelIndex, labelIndex, numPossibleLabels, false);
+            return this;
+        }
+
+        /**
+         * Multi-output regression, as per
+         * {@link RecordReaderDataSetIterator#RecordReaderDataSetIterator(RecordReader, int, int, int, boolean)}
+         *
+         * @param labelIndexFrom Index of the first regression target
+         * @param labelIndexTo   Index of the last regression target, inclusive
+         */
+        public Builder regression(int labelIndexFrom, int labelIndexTo) {
+            this.iteratorFactory = new DefaultIteratorFactory(labelIndexFrom, labelIndexTo, -1, true);
+            return this;
+        }
+
+        /**
+         * Custom factory for the DataSetIterator used by each reader thread. If not set (and neither classification
+         * nor regression is set), {@link RecordReaderDataSetIterator#RecordReaderDataSetIterator(RecordReader, int)}
+         * is used - for example, for image data with labels generated by the record reader.
+         */
+        public Builder iteratorFactory(@NonNull IteratorFactory iteratorFactory) {
+            this.iteratorFactory = iteratorFactory;
+            return this;
+        }
+
+        /**
+         * Number of reader threads. Default: number of processors
+         */
+        public Builder numThreads(int numThreads) {
+            this.numThreads = numThreads;
+            return this;
+        }
+
+        /**
+         * If true (default): minibatches are returned in a fixed order. If false: minibatches are returned as soon as
+         * they are available. See {@link BaseParallelRecordReaderIterator}
+         */
+        public Builder ordered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        /**
+         * Maximum number of minibatches to prefetch for each reader thread. Default: 4
+         */
+        public Builder queueSizePerThread(int queueSizePerThread) {
+            this.queueSizePerThread = queueSizePerThread;
+            return this;
+        }
+
+        public ParallelRecordReaderDataSetIterator build() {
+            if (readerFactory == null) {
+                throw new IllegalStateException("Record reader or record reader factory must be set");
+            }
+            return new ParallelRecordReaderDataSetIterator(this);
+        }
+    }
+
+    private static class DefaultIteratorFactory implements IteratorFactory {
+        private final int labelIndexFrom;
+        private final int labelIndexTo;
+        private final int numPossibleLabels;
+        private final boolean regression;
+
+        private DefaultIteratorFactory(int labelIndexFrom, int labelIndexTo, int numPossibleLabels,
+                        boolean regression) {
+            this.labelIndexFrom = labelIndexFrom;
+            this.labelIndexTo = labelIndexTo;
+            this.numPossibleLabels = numPossibleLabels;
+            this.regression = regression;
+        }
+
+        @Override
+        public DataSetIterator create(RecordReader reader, int batchSize) {
+            if (regression) {
+                return new RecordReaderDataSetIterator(reader, batchSize, labelIndexFrom, labelIndexTo, true);
+            } else if (labelIndexFrom >= 0) {
+                return new RecordReaderDataSetIterator(reader, batchSize, labelIndexFrom, numPossibleLabels);
+            }
+            return new RecordReaderDataSetIterator(reader, batchSize);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.deeplearning4j.datasets.datavec;
+
+import lombok.NonNull;
+import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.split.InputSplit;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
+
+import java.io.Serializable;
+import java.util.Iterator;
+
+/**
+ * A parallel version of {@link RecordReaderMultiDataSetIterator}, for a single record reader: records are read,
+ * parsed and vectorized by multiple reader threads, each with its own RecordReader for a shard of the
+ * {@link InputSplit}. See {@link BaseParallelRecordReaderIterator} for details on sharding and ordering.<br>
+ * The MultiDataSetIterator for each reader thread is created by an {@link IteratorFactory}, for example:
+ * <pre>
+ * {@code
+ * new ParallelRecordReaderMultiDataSetIterator.IteratorFactory() {
+ *     public MultiDataSetIterator create(RecordReader reader, int batchSize) {
+ *         return new RecordReaderMultiDataSetIterator.Builder(batchSize).addReader("rr", reader)
+ *                  .addInput("rr", 0, 3).addOutputOneHot("rr", 4, 3).build();
+ *     }
+ * }
+ * }
+ * </pre>
+ * Note that the preprocessor (if any) is applied in the reader threads, and hence must be thread safe.
+ */
+public class ParallelRecordReaderMultiDataSetIterator extends BaseParallelRecordReaderIterator<MultiDataSet>
+                implements MultiDataSetIterator {
+
+    /**
+     * Creates the MultiDataSetIterator for each reader thread
+     */
+    public interface IteratorFactory extends Serializable {
+
+        MultiDataSetIterator create(RecordReader reader, int batchSize);
+    }
+
+    private final IteratorFactory iteratorFactory;
+    private volatile MultiDataSetPreProcessor preProcessor;
+
+    /**
+     * @param inputSplit      Input split with the data. Locations are sharded across the reader threads
+     * @param readerFactory   Factory to create the record reader for each reader thread
+     * @param iteratorFactory Factory to create the MultiDataSetIterator for each reader thread
+     * @param batchSize       Minibatch size
+     * @param numThreads      Number of reader threads
+     * @param ordered         If true: return minibatches in a fixed order. If false: return minibatches as soon as
+     *                        they are available
+     */
+    public ParallelRecordReaderMultiDataSetIterator(@NonNull InputSplit inputSplit,
+                    @NonNull RecordReaderFactory readerFactory, @NonNull IteratorFactory iteratorFactory,
+                    int batchSize, int numThreads, boolean ordered) {
+        this(inputSplit, readerFactory, iteratorFactory, batchSize, numThreads, ordered, 4);
+    }
+
+    /**
+     * @param inputSplit         Input split with the data. Locations are sharded across the reader threads
+     * @param readerFactory      Factory to create the record reader for each reader thread
+     * @param iteratorFactory    Factory to create the MultiDataSetIterator for each reader thread
+     * @param batchSize          Minibatch size
+     * @param numThreads         Number of reader threads
+     * @param ordered            If true: return minibatches in a fixed order. If false: return minibatches as soon as
+     *                           they are available
+     * @param queueSizePerThread Maximum number of minibatches to prefetch for each reader thread
+     */
+    public ParallelRecordReaderMultiDataSetIterator(@NonNull InputSplit inputSplit,
+                    @NonNull RecordReaderFactory readerFactory, @NonNull IteratorFactory iteratorFactory,
+                    int batchSize, int numThreads, boolean ordered, int queueSizePerThread) {
+        super(inputSplit, readerFactory, batchSize, numThreads, ordered, queueSizePerThread);
+        this.iteratorFactory = iteratorFactory;
+    }
+
+    @Override
+    protected Iterator<MultiDataSet> createIterator(RecordReader reader, int batchSize) {
+        return iteratorFactory.create(reader, batchSize);
+    }
+
+    @Override
+    protected void preProcess(MultiDataSet minibatch) {
+        MultiDataSetPreProcessor p = preProcessor;
+        if (p != null) {
+            p.preProcess(minibatch);
+        }
+    }
+
+    @Override
+    public MultiDataSet next(int num) {
+        throw new UnsupportedOperationException("Not supported: minibatch size is fixed for parallel iteration");
+    }
+
+    @Override
+    public void setPreProcessor(MultiDataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public MultiDataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+}
@@ -0,0 +1,27 @@
+package org.deeplearning4j.datasets.datavec;
+
+import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.split.InputSplit;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Creates new, initialized {@link RecordReader} instances for a given {@link InputSplit}. Used by the parallel
+ * record reader iterators, where each reader thread needs its own RecordReader for its own shard of the data.
+ *
+ * @see CloningRecordReaderFactory
+ * @see ParallelRecordReaderDataSetIterator
+ * @see ParallelRecordReaderMultiDataSetIterator
+ */
+public interface RecordReaderFactory extends Serializable {
+
+    /**
+     * Create a new record reader, initialized with the specified split. This method may be called concurrently
+     * from multiple threads.
+     *
+     * @param split Input split (shard of the full data) for the new record reader
+     * @return The new record reader
+     */
+    RecordReader create(InputSplit split) throws IOException, InterruptedException;
+}
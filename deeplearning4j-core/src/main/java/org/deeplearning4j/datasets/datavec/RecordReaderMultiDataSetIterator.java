@@ -29,10 +29,14 @@ import org.datavec.api.records.metadata.RecordMetaDataComposableMap;
 import org.datavec.api.records.reader.RecordReader;
 import org.datavec.api.records.reader.SequenceRecordReader;
 import org.datavec.api.util.ndarray.RecordConverter;
+import org.datavec.api.writable.DoubleWritable;
+import org.datavec.api.writable.FloatWritable;
+import org.datavec.api.writable.IntWritable;
 import org.datavec.api.writable.NDArrayWritable;
 import org.datavec.api.writable.Writable;
 import org.deeplearning4j.datasets.datavec.exception.ZeroLengthSequenceException;
 import org.deeplearning4j.exception.DL4JException;
+import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.api.MultiDataSet;
 import org.nd4j.linalg.dataset.api.MultiDataSetPreProcessor;
@@ -365,7 +369,81 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
         return length;
     }
 
+    private boolean containsNDArrayWritable(List<Writable> list, int from, int to) {
+        for (int i = from; i <= to && i < list.size(); i++) {
+            if (list.get(i) instanceof NDArrayWritable) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return True if any of the first minValues records contains an NDArrayWritable in the given column range
+     */
+    private boolean containsNDArrayWritable(List<List<Writable>> list, int minValues, int from, int to) {
+        for (int i = 0; i < minValues; i++) {
+            if (containsNDArrayWritable(list.get(i), from, to)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return True if any time step of the first minValues sequences contains an NDArrayWritable in the subset columns
+     */
+    private boolean sequenceContainsNDArrayWritable(List<List<List<Writable>>> list, int minValues,
+                    SubsetDetails details) {
+        for (int i = 0; i < minValues; i++) {
+            for (List<Writable> timeStep : list.get(i)) {
+                int from = (details.entireReader ? 0 : details.subsetStart);
+                int to = (details.entireReader ? timeStep.size() - 1 : details.subsetEndInclusive);
+                if (containsNDArrayWritable(timeStep, from, to)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     private INDArray convertWritables(List<List<Writable>> list, int minValues, SubsetDetails details) {
+        if (details.oneHot) {
+            //Convert a single column to a one-hot representation
+            StagingBuffer buffer = new StagingBuffer(minValues * details.oneHotNumClasses);
+            for (int i = 0; i < minValues; i++) {
+                //Index of class
+                int classIdx = list.get(i).get(details.subsetStart).toInt();
+                if (classIdx < 0 || classIdx >= details.oneHotNumClasses) {
+                    throw new DL4JException("Cannot convert sequence writables to one-hot: class index " + classIdx
+                                    + " is negative or >= numClass (" + details.oneHotNumClasses
+                                    + "). (Note that classes are zero-indexed, thus only values 0 to nClasses-1 "
+                                    + "are valid)");
+                }
+                buffer.put(i * details.oneHotNumClasses + classIdx, 1.0);
+            }
+            return buffer.toArray(new int[] {minValues, details.oneHotNumClasses}, 'c');
+        }
+
+        int from = (details.entireReader ? 0 : details.subsetStart);
+        int to = (details.entireReader ? list.get(0).size() - 1 : details.subsetEndInclusive);
+        if (!containsNDArrayWritable(list, minValues, from, to)) {
+            //Fast path for the common case of scalar writables only (CSV etc): write all values to a primitive
+            // staging buffer, and create the array in one operation (instead of one putScalar call per value)
+            int length = to - from + 1;
+            StagingBuffer buffer = new StagingBuffer(minValues * length);
+            for (int i = 0; i < minValues; i++) {
+                List<Writable> c = list.get(i);
+                if (c.size() <= to || (details.entireReader && c.size() != length)) {
+                    throw new DL4JException("Invalid record: record " + i + " in minibatch has " + c.size()
+                                    + " values, inconsistent with first record (" + list.get(0).size()
+                                    + " values) for reader \"" + details.readerName + "\"");
+                }
+                buffer.put(i * length, details.entireReader ? c : c.subList(from, to + 1));
+            }
+            return buffer.toArray(new int[] {minValues, length}, 'c');
+        }
+
         INDArray arr;
         if (details.entireReader) {
             if (list.get(0).size() == 1 && list.get(0).get(0) instanceof NDArrayWritable) {
@@ -377,8 +455,6 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
             } else {
                 arr = Nd4j.create(minValues, countLength(list.get(0)));
             }
-        } else if (details.oneHot) {
-            arr = Nd4j.zeros(minValues, details.oneHotNumClasses);
         } else {
             if (details.subsetStart == details.subsetEndInclusive
                             && list.get(0).get(details.subsetStart) instanceof NDArrayWritable) {
@@ -400,17 +476,6 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
                 //Convert entire reader contents, without modification
                 INDArray converted = RecordConverter.toArray(c);
                 putExample(arr, converted, i);
-            } else if (details.oneHot) {
-                //Convert a single column to a one-hot representation
-                Writable w = c.get(details.subsetStart);
-                //Index of class
-                int classIdx = w.toInt();
-                if (classIdx >= details.oneHotNumClasses) {
-                    throw new DL4JException("Cannot convert sequence writables to one-hot: class index " + classIdx
-                                    + " >= numClass (" + details.oneHotNumClasses + "). (Note that classes are zero-" +
-                            "indexed, thus only values 0 to nClasses-1 are valid)");
-                }
-                arr.putScalar(i, w.toInt(), 1.0);
             } else {
                 //Convert a subset of the columns
 
@@ -500,7 +565,16 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
                 }
             }
         }
-        arr = Nd4j.create(new int[] {minValues, size, maxTSLength}, 'f');
+        //Fast path for scalar writables only: values are written to a primitive staging buffer ('f' order, same
+        // as the returned array), and the array is created in one operation at the end
+        boolean bulk = details.oneHot || !sequenceContainsNDArrayWritable(list, minValues, details);
+        StagingBuffer buffer = null;
+        if (bulk) {
+            buffer = new StagingBuffer(minValues * size * maxTSLength);
+            arr = null;
+        } else {
+            arr = Nd4j.create(new int[] {minValues, size, maxTSLength}, 'f');
+        }
 
         boolean needMaskArray = false;
         for (List<List<Writable>> c : list) {
@@ -514,11 +588,12 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
                                             + "encountered. Use AlignmentMode.ALIGN_START or AlignmentMode.ALIGN_END with variable length data");
         }
 
-        INDArray maskArray;
+        StagingBuffer maskBuffer;
         if (needMaskArray) {
-            maskArray = Nd4j.ones(minValues, maxTSLength);
+            maskBuffer = new StagingBuffer(minValues * maxTSLength);
+            maskBuffer.fill(1.0);
         } else {
-            maskArray = null;
+            maskBuffer = null;
         }
 
         //Don't use the global RNG as we need repeatability for each subset (i.e., features and labels must be aligned)
@@ -551,13 +626,22 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
                 k = startOffset + t++;
 
                 if (details.entireReader) {
+                    if (bulk && timeStep.size() != size) {
+                        throw new DL4JException("Invalid sequence: time step " + (t - 1) + " of sequence " + i
+                                        + " in minibatch has " + timeStep.size() + " values, inconsistent with first "
+                                        + "time step of first sequence (" + size + " values) for reader \""
+                                        + details.readerName + "\"");
+                    }
                     //Convert entire reader contents, without modification
                     Iterator<Writable> iter = timeStep.iterator();
                     int j = 0;
                     while (iter.hasNext()) {
                         Writable w = iter.next();
 
-                        if (w instanceof NDArrayWritable) {
+                        if (bulk) {
+                            buffer.put(i + minValues * (j + size * k), w);
+                            j++;
+                        } else if (w instanceof NDArrayWritable) {
                             INDArray row = ((NDArrayWritable) w).get();
 
                             arr.put(new INDArrayIndex[] {NDArrayIndex.point(i),
@@ -579,19 +663,22 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
                             w = iter.next();
                     }
                     int classIdx = w.toInt();
-                    if (classIdx >= details.oneHotNumClasses) {
+                    if (classIdx < 0 || classIdx >= details.oneHotNumClasses) {
                         throw new DL4JException("Cannot convert sequence writables to one-hot: class index " + classIdx
-                                        + " >= numClass (" + details.oneHotNumClasses + "). (Note that classes are zero-" +
-                                "indexed, thus only values 0 to nClasses-1 are valid)");
+                                        + " is negative or >= numClass (" + details.oneHotNumClasses
+                                        + "). (Note that classes are zero-indexed, thus only values 0 to nClasses-1 "
+                                        + "are valid)");
                     }
-                    arr.putScalar(i, classIdx, k, 1.0);
+                    buffer.put(i + minValues * (classIdx + size * k), 1.0);
                 } else {
                     //Convert a subset of the columns...
                     int l = 0;
                     for (int j = details.subsetStart; j <= details.subsetEndInclusive; j++) {
                         Writable w = timeStep.get(j);
 
-                        if (w instanceof NDArrayWritable) {
+                        if (bulk) {
+                            buffer.put(i + minValues * (l++ + size * k), w);
+                        } else if (w instanceof NDArrayWritable) {
                             INDArray row = ((NDArrayWritable) w).get();
                             arr.put(new INDArrayIndex[] {NDArrayIndex.point(i),
                                             NDArrayIndex.interval(l, l + row.length()), NDArrayIndex.point(k)}, row);
@@ -609,7 +696,7 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
                 //Masking array entries at start (for align end)
                 if (timeSeriesRandomOffset || alignmentMode == AlignmentMode.ALIGN_END) {
                     for (int t2 = 0; t2 < startOffset; t2++) {
-                        maskArray.putScalar(i, t2, 0.0);
+                        maskBuffer.put(i * maxTSLength + t2, 0.0);
                     }
                 }
 
@@ -617,15 +704,82 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
                 int lastStep = startOffset + sequence.size();
                 if (timeSeriesRandomOffset || alignmentMode == AlignmentMode.ALIGN_START || lastStep < maxTSLength) {
                     for (int t2 = lastStep; t2 < maxTSLength; t2++) {
-                        maskArray.putScalar(i, t2, 0.0);
+                        maskBuffer.put(i * maxTSLength + t2, 0.0);
                     }
                 }
             }
         }
 
+        if (bulk) {
+            arr = buffer.toArray(new int[] {minValues, size, maxTSLength}, 'f');
+        }
+        INDArray maskArray = (needMaskArray ? maskBuffer.toArray(new int[] {minValues, maxTSLength}, 'c') : null);
         return new Pair<>(arr, maskArray);
     }
 
+    /**
+     * Primitive staging buffer for bulk Writable to INDArray conversion: values are written to a float or double
+     * array (depending on the global data type), which is then copied to a new INDArray in a single operation.
+     */
+    private static class StagingBuffer {
+        private final float[] floats;
+        private final double[] doubles;
+
+        private StagingBuffer(int length) {
+            if (Nd4j.dataType() == DataBuffer.Type.DOUBLE) {
+                floats = null;
+                doubles = new double[length];
+            } else {
+                floats = new float[length];
+                doubles = null;
+            }
+        }
+
+        private void fill(double value) {
+            if (floats != null) {
+                Arrays.fill(floats, (float) value);
+            } else {
+                Arrays.fill(doubles, value);
+            }
+        }
+
+        private void put(int idx, double value) {
+            if (floats != null) {
+                floats[idx] = (float) value;
+            } else {
+                doubles[idx] = value;
+            }
+        }
+
+        private void put(int idx, Writable w) {
+            //Fast path for the most common numerical writables, avoiding the generic toDouble() conversion
+            double value;
+            if (w instanceof DoubleWritable) {
+                value = ((DoubleWritable) w).get();
+            } else if (w instanceof FloatWritable) {
+                value = ((FloatWritable) w).get();
+            } else if (w instanceof IntWritable) {
+                value = ((IntWritable) w).get();
+            } else {
+                value = w.toDouble();
+            }
+            put(idx, value);
+        }
+
+        private void put(int idx, List<Writable> writables) {
+            for (Writable w : writables) {
+                put(idx++, w);
+            }
+        }
+
+        private INDArray toArray(int[] shape, char order) {
+            if (floats != null) {
+                return Nd4j.create(floats, shape, order);
+            }
+            return Nd4j.create(doubles, shape, order);
+        }
+    }
+
     @Override
     public void setPreProcessor(MultiDataSetPreProcessor preProcessor) {
         this.preProcessor = preProcessor;
@@ -21,7 +21,6 @@ package org.deeplearning4j.datasets.fetchers;
 import org.apache.commons.io.FileUtils;
 import org.deeplearning4j.base.EmnistFetcher;
 import org.deeplearning4j.datasets.iterator.impl.EmnistDataSetIterator;
-import org.deeplearning4j.datasets.mnist.MnistManager;
 
 import java.io.File;
 import java.io.IOException;
@@ -41,6 +40,15 @@ public class EmnistDataFetcher extends MnistDataFetcher {
 
     public EmnistDataFetcher(EmnistDataSetIterator.Set dataSet, boolean binarize, boolean train, boolean shuffle,
                     long rngSeed) throws IOException {
+        this(dataSet, binarize, train, shuffle, rngSeed, false);
+    }
+
+    /**
+     * @param memoryMapped If true: memory map the EMNIST files and convert minibatches in bulk (see
+     *                     {@link org.deeplearning4j.datasets.mnist.MappedMnistFile})
+     */
+    public EmnistDataFetcher(EmnistDataSetIterator.Set dataSet, boolean binarize, boolean train, boolean shuffle,
+                    long rngSeed, boolean memoryMapped) throws IOException {
         fetcher = new EmnistFetcher(dataSet);
         if (!emnistExists(fetcher)) {
             fetcher.downloadAndUntar();
@@ -58,18 +66,17 @@ public class EmnistDataFetcher extends MnistDataFetcher {
         }
 
         try {
-            man = new MnistManager(images, labels, totalExamples);
+            init(images, labels, totalExamples, memoryMapped);
         } catch (Exception e) {
             e.printStackTrace();
             FileUtils.deleteDirectory(new File(EMNIST_ROOT));
             new EmnistFetcher(dataSet).downloadAndUntar();
-            man = new MnistManager(images, labels, totalExamples);
+            init(images, labels, totalExamples, memoryMapped);
         }
 
         numOutcomes = EmnistDataSetIterator.numLabels(dataSet);
         this.binarize = binarize;
         cursor = 0;
-        inputColumns = man.getImages().getEntryLength();
         this.train = train;
         this.shuffle = shuffle;
 
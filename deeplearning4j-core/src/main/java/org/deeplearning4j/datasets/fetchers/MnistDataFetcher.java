@@ -20,6 +20,7 @@ package org.deeplearning4j.datasets.fetchers;
 
 import org.apache.commons.io.FileUtils;
 import org.deeplearning4j.base.MnistFetcher;
+import org.deeplearning4j.datasets.mnist.MappedMnistFile;
 import org.deeplearning4j.datasets.mnist.MnistManager;
 import org.deeplearning4j.util.MathUtils;
 import org.nd4j.linalg.api.ndarray.INDArray;
@@ -44,6 +45,8 @@ public class MnistDataFetcher extends BaseDataFetcher {
     protected static final String MNIST_ROOT = TEMP_ROOT + File.separator + "MNIST" + File.separator;
 
     protected transient MnistManager man;
+    protected transient MappedMnistFile mappedImages;
+    protected transient MappedMnistFile mappedLabels;
     protected boolean binarize = true;
     protected boolean train;
     protected int[] order;
@@ -63,6 +66,19 @@ public class MnistDataFetcher extends BaseDataFetcher {
     }
 
     public MnistDataFetcher(boolean binarize, boolean train, boolean shuffle, long rngSeed) throws IOException {
+        this(binarize, train, shuffle, rngSeed, false);
+    }
+
+    /**
+     * @param binarize     Whether to binarize the data or not (if false: normalize in range 0 to 1)
+     * @param train        Train vs. test set
+     * @param shuffle      Whether to shuffle the examples
+     * @param rngSeed      Random number generator seed to use when shuffling examples
+     * @param memoryMapped If true: memory map the MNIST files and convert minibatches in bulk (see
+     *                     {@link MappedMnistFile}) instead of loading each image separately
+     */
+    public MnistDataFetcher(boolean binarize, boolean train, boolean shuffle, long rngSeed, boolean memoryMapped)
+                    throws IOException {
         if (!mnistExists()) {
             new MnistFetcher().downloadAndUntar();
         }
@@ -79,17 +95,16 @@ public class MnistDataFetcher extends BaseDataFetcher {
         }
 
         try {
-            man = new MnistManager(images, labels, train);
+            init(images, labels, totalExamples, memoryMapped);
         } catch (Exception e) {
             FileUtils.deleteDirectory(new File(MNIST_ROOT));
             new MnistFetcher().downloadAndUntar();
-            man = new MnistManager(images, labels, train);
+            init(images, labels, totalExamples, memoryMapped);
         }
 
         numOutcomes = 10;
         this.binarize = binarize;
         cursor = 0;
-        inputColumns = man.getImages().getEntryLength();
         this.train = train;
         this.shuffle = shuffle;
 
@@ -104,6 +119,24 @@ public class MnistDataFetcher extends BaseDataFetcher {
         reset(); //Shuffle order
     }
 
+    /**
+     * Open the images and labels files, and set the number of input columns
+     */
+    protected void init(String images, String labels, int numExamples, boolean memoryMapped) throws IOException {
+        if (memoryMapped) {
+            mappedImages = new MappedMnistFile(new File(images));
+            mappedLabels = new MappedMnistFile(new File(labels));
+            if (mappedImages.getCount() < numExamples || mappedLabels.getCount() < numExamples) {
+                throw new IOException("Expected at least " + numExamples + " examples: got " + mappedImages.getCount()
+                                + " images and " + mappedLabels.getCount() + " labels");
+            }
+            inputColumns = mappedImages.getEntryLength();
+        } else {
+            man = new MnistManager(images, labels, numExamples);
+            inputColumns = man.getImages().getEntryLength();
+        }
+    }
+
     private boolean mnistExists() {
         //Check 4 files:
         File f = new File(MNIST_ROOT, MnistFetcher.trainingFilesFilename_unzipped);
@@ -130,6 +163,10 @@ public class MnistDataFetcher extends BaseDataFetcher {
         if (!hasMore()) {
             throw new IllegalStateException("Unable to getFromOrigin more; there are no more images");
         }
+        if (mappedImages != null) {
+            fetchMapped(numExamples);
+            return;
+        }
 
         float[][] featureData = new float[numExamples][0];
         float[][] labelData = new float[numExamples][0];
@@ -192,6 +229,30 @@ public class MnistDataFetcher extends BaseDataFetcher {
         curr = new DataSet(features, labels);
     }
 
+    /**
+     * Fetch a minibatch from the memory-mapped files: images are converted to one flat float array in bulk, and
+     * (without shuffling) read from the file in a single contiguous read
+     */
+    protected void fetchMapped(int numExamples) {
+        int n = Math.min(numExamples, totalExamples - cursor);
+        float[] featureData = new float[n * inputColumns];
+        float[] labelData = new float[n * numOutcomes];
+
+        mappedImages.readImages(shuffle ? order : null, cursor, n, featureData, binarize, fOrder);
+        for (int i = 0; i < n; i++) {
+            int label = mappedLabels.getLabel(order[cursor + i]);
+            if (oneIndexed) {
+                label--;
+            }
+            labelData[i * numOutcomes + label] = 1.0f;
+        }
+        cursor += n;
+
+        INDArray features = Nd4j.create(featureData, new int[] {n, inputColumns}, 'c');
+        INDArray labels = Nd4j.create(labelData, new int[] {n, numOutcomes}, 'c');
+        curr = new DataSet(features, labels);
+    }
+
     @Override
     public void reset() {
         cursor = 0;
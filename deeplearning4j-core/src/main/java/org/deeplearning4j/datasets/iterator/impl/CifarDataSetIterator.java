@@ -1,10 +1,18 @@
 package org.deeplearning4j.datasets.iterator.impl;
 
+import org.apache.commons.io.FileUtils;
 import org.datavec.image.loader.CifarLoader;
 import org.datavec.image.transform.ImageTransform;
+import org.deeplearning4j.datasets.cifar.MappedCifarFile;
 import org.deeplearning4j.datasets.datavec.RecordReaderDataSetIterator;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -20,6 +28,8 @@ public class CifarDataSetIterator extends RecordReaderDataSetIterator {
     protected static final int CHANNELS = 3;
 
     protected final CifarLoader loader;
+    protected final MappedCifarFile mappedFile;
+    protected List<String> mappedLabels;
     protected final int numExamples;
     protected final boolean useSpecialPreProcessCifar;
     protected final boolean train;
@@ -87,6 +97,7 @@ public class CifarDataSetIterator extends RecordReaderDataSetIterator {
         super(null, batchSize, 1, numExamples);
         this.loader = new CifarLoader(imgDim[0], imgDim[1], imgDim[2], imageTransform, train,
                         useSpecialPreProcessCifar);
+        this.mappedFile = null;
         int totalExamples = train ? CifarLoader.NUM_TRAIN_IMAGES : CifarLoader.NUM_TEST_IMAGES;
         this.numExamples = numExamples > totalExamples ? totalExamples : numExamples;
         this.numPossibleLabels = numPossibleLables;
@@ -95,12 +106,56 @@ public class CifarDataSetIterator extends RecordReaderDataSetIterator {
         this.train = train;
     }
 
+    /**
+     * Create a Cifar data iterator that reads the CIFAR-10 binary files directly, using memory-mapped files and bulk
+     * conversion of each minibatch. This is considerably faster than the default (CifarLoader based) iterator when
+     * iterating many times, but supports only the original image size, with no image transform or special
+     * preprocessing: features have shape [minibatch, 3, 32, 32] with RGB channels and values normalized to 0 to 1.
+     *
+     * @param batchSize   the batch size of the examples
+     * @param numExamples the overall number of examples
+     * @param train       true if use training set (data_batch_1.bin to data_batch_5.bin) and false for test
+     *                    (test_batch.bin)
+     * @param cifarDir    directory containing the (extracted) CIFAR-10 binary files
+     */
+    public CifarDataSetIterator(int batchSize, int numExamples, boolean train, File cifarDir) throws IOException {
+        super(null, batchSize, 1, numExamples);
+        List<File> files = new ArrayList<>();
+        if (train) {
+            for (int i = 1; i <= 5; i++) {
+                files.add(new File(cifarDir, "data_batch_" + i + ".bin"));
+            }
+        } else {
+            files.add(new File(cifarDir, "test_batch.bin"));
+        }
+        this.loader = null;
+        this.mappedFile = new MappedCifarFile(files);
+        this.numExamples = Math.min(numExamples, mappedFile.getCount());
+        this.numPossibleLabels = MappedCifarFile.NUM_LABELS;
+        this.imageTransform = null;
+        this.useSpecialPreProcessCifar = false;
+        this.train = train;
+
+        File meta = new File(cifarDir, "batches.meta.txt");
+        if (meta.exists()) {
+            mappedLabels = new ArrayList<>();
+            for (String line : FileUtils.readLines(meta, StandardCharsets.UTF_8)) {
+                if (!line.trim().isEmpty()) {
+                    mappedLabels.add(line.trim());
+                }
+            }
+        }
+    }
+
     @Override
     public DataSet next(int batchSize) {
         if (useCurrent) {
             useCurrent = false;
             return last;
         }
+        if (mappedFile != null) {
+            return nextMapped(batchSize);
+        }
         DataSet result;
         if (useSpecialPreProcessCifar) {
             result = loader.next(batchSize, exampleCount);
@@ -123,6 +178,26 @@ public class CifarDataSetIterator extends RecordReaderDataSetIterator {
         return result;
     }
 
+    protected DataSet nextMapped(int batchSize) {
+        int n = Math.min(batchSize, numExamples - exampleCount);
+        float[] featureData = new float[n * MappedCifarFile.IMAGE_LENGTH];
+        float[] labelData = new float[n * MappedCifarFile.NUM_LABELS];
+        mappedFile.read(exampleCount, n, featureData, labelData);
+        exampleCount += n;
+        batchNum++;
+
+        INDArray features = Nd4j.create(featureData,
+                        new int[] {n, MappedCifarFile.CHANNELS, MappedCifarFile.HEIGHT, MappedCifarFile.WIDTH}, 'c');
+        INDArray labels = Nd4j.create(labelData, new int[] {n, MappedCifarFile.NUM_LABELS}, 'c');
+        DataSet result = new DataSet(features, labels);
+        if (preProcessor != null)
+            preProcessor.preProcess(result);
+        last = result;
+        if (mappedLabels != null)
+            result.setLabelNames(mappedLabels);
+        return result;
+    }
+
     @Override
     public boolean hasNext() {
         return exampleCount < numExamples && (maxNumBatches == -1 || batchNum < maxNumBatches) && !overshot;
@@ -138,7 +213,8 @@ public class CifarDataSetIterator extends RecordReaderDataSetIterator {
         exampleCount = 0;
         overshot = false;
         batchNum = 0;
-        loader.reset();
+        if (loader != null)
+            loader.reset();
     }
 
     @Override
@@ -148,6 +224,8 @@ public class CifarDataSetIterator extends RecordReaderDataSetIterator {
 
     @Override
     public List<String> getLabels() {
+        if (mappedFile != null)
+            return mappedLabels;
         return loader.getLabels();
     }
 
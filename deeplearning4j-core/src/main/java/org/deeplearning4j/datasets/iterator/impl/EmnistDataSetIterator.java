@@ -118,7 +118,22 @@ public class EmnistDataSetIterator extends BaseDatasetIterator {
      */
     public EmnistDataSetIterator(Set dataSet, int batch, boolean binarize, boolean train, boolean shuffle, long rngSeed)
                     throws IOException {
-        super(batch, numExamples(train, dataSet), new EmnistDataFetcher(dataSet, binarize, train, shuffle, rngSeed));
+        this(dataSet, batch, binarize, train, shuffle, rngSeed, false);
+    }
+
+    /**Get the specified number of MNIST examples (test or train set), with optional shuffling and binarization.
+     * @param batch Size of each patch
+     * @param binarize whether to binarize the data or not (if false: normalize in range 0 to 1)
+     * @param train Train vs. test set
+     * @param shuffle whether to shuffle the examples
+     * @param rngSeed random number generator seed to use when shuffling examples
+     * @param memoryMapped if true: memory map the EMNIST files and convert each minibatch in bulk, instead of loading
+     *                     and converting each image separately. Recommended when iterating many times
+     */
+    public EmnistDataSetIterator(Set dataSet, int batch, boolean binarize, boolean train, boolean shuffle, long rngSeed,
+                    boolean memoryMapped) throws IOException {
+        super(batch, numExamples(train, dataSet),
+                        new EmnistDataFetcher(dataSet, binarize, train, shuffle, rngSeed, memoryMapped));
         this.dataSet = dataSet;
     }
 
@@ -64,6 +64,21 @@ public class MnistDataSetIterator extends BaseDatasetIterator {
      */
     public MnistDataSetIterator(int batch, int numExamples, boolean binarize, boolean train, boolean shuffle,
                     long rngSeed) throws IOException {
-        super(batch, numExamples, new MnistDataFetcher(binarize, train, shuffle, rngSeed));
+        this(batch, numExamples, binarize, train, shuffle, rngSeed, false);
+    }
+
+    /**Get the specified number of MNIST examples (test or train set), with optional shuffling and binarization.
+     * @param batch Size of each patch
+     * @param numExamples total number of examples to load
+     * @param binarize whether to binarize the data or not (if false: normalize in range 0 to 1)
+     * @param train Train vs. test set
+     * @param shuffle whether to shuffle the examples
+     * @param rngSeed random number generator seed to use when shuffling examples
+     * @param memoryMapped if true: memory map the MNIST files and convert each minibatch in bulk, instead of loading
+     *                     and converting each image separately. Recommended when iterating many times
+     */
+    public MnistDataSetIterator(int batch, int numExamples, boolean binarize, boolean train, boolean shuffle,
+                    long rngSeed, boolean memoryMapped) throws IOException {
+        super(batch, numExamples, new MnistDataFetcher(binarize, train, shuffle, rngSeed, memoryMapped));
     }
 }
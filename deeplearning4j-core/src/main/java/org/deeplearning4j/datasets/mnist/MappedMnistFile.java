@@ -0,0 +1,176 @@
+package org.deeplearning4j.datasets.mnist;
+
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Memory-mapped MNIST database file (images or labels, in the idx format used by MNIST and EMNIST).<br>
+ * Unlike {@link MnistImageFile} and {@link MnistLabelFile}, no per-entry reads are done: the whole file is mapped
+ * once, minibatches are available as slices of the mapped buffer (see {@link #getSlice(int, int)}) and images are
+ * converted from unsigned bytes to floats in bulk (see {@link #readImages(int[], int, int, float[], boolean, boolean)}).
+ */
+public class MappedMnistFile {
+    public static final int IMAGES_MAGIC_NUMBER = 2051;
+    public static final int LABELS_MAGIC_NUMBER = 2049;
+
+    private static final float[] NORMALIZE_TABLE = new float[256];
+    private static final float[] BINARIZE_TABLE = new float[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            NORMALIZE_TABLE[i] = i / 255.0f;
+            BINARIZE_TABLE[i] = (i > 30 ? 1.0f : 0.0f);
+        }
+    }
+
+    private final MappedByteBuffer buffer;
+    @Getter
+    private final boolean images;
+    @Getter
+    private final int count;
+    @Getter
+    private final int rows;
+    @Getter
+    private final int cols;
+    private final int headerSize;
+    @Getter
+    private final int entryLength;
+
+    /**
+     * @param file MNIST/EMNIST images or labels file (uncompressed)
+     */
+    public MappedMnistFile(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            //The mapping remains valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        int magic = buffer.getInt(0);
+        if (magic == IMAGES_MAGIC_NUMBER) {
+            images = true;
+            count = buffer.getInt(4);
+            rows = buffer.getInt(8);
+            cols = buffer.getInt(12);
+            headerSize = 16;
+        } else if (magic == LABELS_MAGIC_NUMBER) {
+            images = false;
+            count = buffer.getInt(4);
+            rows = 1;
+            cols = 1;
+            headerSize = 8;
+        } else {
+            throw new IOException("This MNIST DB file " + file + " should start with the number "
+                            + IMAGES_MAGIC_NUMBER + " or " + LABELS_MAGIC_NUMBER + ": got " + magic);
+        }
+        entryLength = rows * cols;
+
+        long expectedLength = headerSize + (long) count * entryLength;
+        if (buffer.capacity() < expectedLength) {
+            throw new IOException("MNIST DB file " + file + " is truncated: expected " + expectedLength
+                            + " bytes, got " + buffer.capacity());
+        }
+    }
+
+    /**
+     * Get the raw (unsigned byte) data for a contiguous range of entries, as a read-only slice of the mapped buffer.
+     * No data is copied.
+     *
+     * @param first First entry
+     * @param num   Number of entries
+     */
+    public ByteBuffer getSlice(int first, int num) {
+        checkRange(first, num);
+        ByteBuffer dup = buffer.asReadOnlyBuffer();
+        int start = headerSize + first * entryLength;
+        dup.position(start);
+        dup.limit(start + num * entryLength);
+        return dup.slice();
+    }
+
+    /**
+     * @param idx Index of the entry
+     * @return The label (for labels files)
+     */
+    public int getLabel(int idx) {
+        if (images) {
+            throw new IllegalStateException("Cannot get label: this is an images file");
+        }
+        checkRange(idx, 1);
+        return buffer.get(headerSize + idx) & 0xFF;
+    }
+
+    /**
+     * Read and convert a set of images to float values, as a row vector per image.
+     *
+     * @param order     Order of the entries. If null: read entries {@code from} to {@code from+num-1} (a single
+     *                  contiguous read). Otherwise read entries {@code order[from]} to {@code order[from+num-1]}
+     * @param from      Offset of the first entry
+     * @param num       Number of images to read
+     * @param out       Output array, of length at least num*rows*cols
+     * @param binarize  If true: binarize the pixel values (value > 30 -> 1.0, otherwise 0.0). If false: normalize the
+     *                  pixel values to the range 0 to 1
+     * @param transpose If true: transpose each image (column-major to row-major order, as required for EMNIST)
+     */
+    public void readImages(int[] order, int from, int num, float[] out, boolean binarize, boolean transpose) {
+        if (!images) {
+            throw new IllegalStateException("Cannot read images: this is a labels file");
+        }
+        if (transpose && rows != cols) {
+            throw new IllegalStateException("Transpose is only supported for square images: got " + rows + "x" + cols);
+        }
+        float[] table = (binarize ? BINARIZE_TABLE : NORMALIZE_TABLE);
+        ByteBuffer dup = buffer.duplicate();
+
+        if (order == null) {
+            checkRange(from, num);
+            byte[] raw = new byte[num * entryLength];
+            dup.position(headerSize + from * entryLength);
+            dup.get(raw);
+            if (!transpose) {
+                for (int i = 0; i < raw.length; i++) {
+                    out[i] = table[raw[i] & 0xFF];
+                }
+            } else {
+                for (int i = 0; i < num; i++) {
+                    convertTransposed(raw, i * entryLength, table, out, i * entryLength);
+                }
+            }
+            return;
+        }
+
+        byte[] raw = new byte[entryLength];
+        for (int i = 0; i < num; i++) {
+            int idx = order[from + i];
+            checkRange(idx, 1);
+            dup.position(headerSize + idx * entryLength);
+            dup.get(raw);
+            int outOffset = i * entryLength;
+            if (transpose) {
+                convertTransposed(raw, 0, table, out, outOffset);
+            } else {
+                for (int j = 0; j < entryLength; j++) {
+                    out[outOffset + j] = table[raw[j] & 0xFF];
+                }
+            }
+        }
+    }
+
+    private void convertTransposed(byte[] raw, int rawOffset, float[] table, float[] out, int outOffset) {
+        for (int j = 0; j < entryLength; j++) {
+            out[outOffset + j] = table[raw[rawOffset + cols * (j % cols) + j / cols] & 0xFF];
+        }
+    }
+
+    private void checkRange(int first, int num) {
+        if (first < 0 || num < 0 || first + num > count) {
+            throw new IllegalArgumentException("Invalid range: entries " + first + " to " + (first + num - 1)
+                            + " requested, file has " + count + " entries");
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.deeplearning4j.datasets.datavec;
+
+import org.apache.commons.io.FileUtils;
+import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.records.reader.impl.csv.CSVRecordReader;
+import org.datavec.api.split.CollectionInputSplit;
+import org.datavec.api.split.InputSplit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelRecordReaderDataSetIteratorTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    private InputSplit createData(int numFiles) throws Exception {
+        //One record per file: first column is the record index
+        File dir = testDir.newFolder();
+        List<URI> uris = new ArrayList<>();
+        for (int i = 0; i < numFiles; i++) {
+            File f = new File(dir, "record_" + i + ".csv");
+            FileUtils.writeStringToFile(f, i + "," + (i * 0.5) + "," + (i % 3), StandardCharsets.UTF_8);
+            uris.add(f.toURI());
+        }
+        return new CollectionInputSplit(uris);
+    }
+
+    @Test
+    public void testOrderedMatchesSingleThreaded() throws Exception {
+        InputSplit split = createData(22);
+        int batchSize = 4;
+
+        RecordReader rr = new CSVRecordReader();
+        rr.initialize(split);
+        RecordReaderDataSetIterator expIter = new RecordReaderDataSetIterator(rr, batchSize, 2, 3);
+        List<DataSet> expected = new ArrayList<>();
+        while (expIter.hasNext()) {
+            expected.add(expIter.next());
+        }
+        assertEquals(6, expected.size());
+
+        ParallelRecordReaderDataSetIterator iter = new ParallelRecordReaderDataSetIterator.Builder(split, batchSize)
+                        .recordReader(new CSVRecordReader()).classification(2, 3).numThreads(3).ordered(true)
+                        .queueSizePerThread(1).build();
+
+        for (int epoch = 0; epoch < 2; epoch++) {
+            List<DataSet> actual = new ArrayList<>();
+            while (iter.hasNext()) {
+                actual.add(iter.next());
+            }
+            assertEquals(expected, actual);
+            iter.reset();
+        }
+
+        ParallelRecordReaderDataSetIterator.EtlStats stats = iter.getEtlStats();
+        assertEquals(12, stats.getMinibatches());
+        assertTrue(stats.getReaderMs() >= 0);
+    }
+
+    @Test
+    public void testUnordered() throws Exception {
+        InputSplit split = createData(30);
+        ParallelRecordReaderDataSetIterator iter = new ParallelRecordReaderDataSetIterator.Builder(split, 5)
+                        .recordReader(new CSVRecordReader()).classification(2, 3).numThreads(4).ordered(false)
+                        .build();
+
+        boolean[] seen = new boolean[30];
+        int count = 0;
+        while (iter.hasNext()) {
+            DataSet ds = iter.next();
+            INDArray f = ds.getFeatures();
+            for (int i = 0; i < f.rows(); i++) {
+                int idx = f.getInt(i, 0);
+                assertFalse(seen[idx]);
+                seen[idx] = true;
+                assertEquals(idx * 0.5, f.getDouble(i, 1), 1e-6);
+                assertEquals(1.0, ds.getLabels().getDouble(i, idx % 3), 0.0);
+                count++;
+            }
+        }
+        assertEquals(30, count);
+    }
+
+    @Test
+    public void testMultiDataSet() throws Exception {
+        InputSplit split = createData(10);
+        ParallelRecordReaderMultiDataSetIterator iter = new ParallelRecordReaderMultiDataSetIterator(split,
+                        new CloningRecordReaderFactory(new CSVRecordReader()),
+                        new ParallelRecordReaderMultiDataSetIterator.IteratorFactory() {
+                            @Override
+                            public MultiDataSetIterator create(RecordReader reader, int batchSize) {
+                                return new RecordReaderMultiDataSetIterator.Builder(batchSize).addReader("rr", reader)
+                                                .addInput("rr", 0, 1).addOutputOneHot("rr", 2, 3).build();
+                            }
+                        }, 3, 2, true);
+
+        int expIdx = 0;
+        while (iter.hasNext()) {
+            MultiDataSet mds = iter.next();
+            INDArray f = mds.getFeatures(0);
+            for (int i = 0; i < f.rows(); i++) {
+                assertEquals(expIdx++, f.getInt(i, 0));
+            }
+        }
+        assertEquals(10, expIdx);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testReaderErrorPropagated() throws Exception {
+        InputSplit split = createData(10);
+        ParallelRecordReaderDataSetIterator iter = new ParallelRecordReaderDataSetIterator.Builder(split, 2)
+                        .recordReader(new CSVRecordReader()).classification(2, 2).numThreads(2).build();
+        //Class index 2 is invalid for 2 classes
+        while (iter.hasNext()) {
+            iter.next();
+        }
+    }
+}
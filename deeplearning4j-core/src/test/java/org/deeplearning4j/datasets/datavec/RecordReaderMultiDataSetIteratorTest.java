@@ -2,12 +2,14 @@ package org.deeplearning4j.datasets.datavec;
 
 
 import com.google.common.io.Files;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.compress.utils.IOUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.datavec.api.io.labels.ParentPathLabelGenerator;
 import org.datavec.api.records.metadata.RecordMetaData;
 import org.datavec.api.records.reader.RecordReader;
 import org.datavec.api.records.reader.SequenceRecordReader;
+import org.datavec.api.records.reader.impl.collection.CollectionRecordReader;
 import org.datavec.api.records.reader.impl.collection.CollectionSequenceRecordReader;
 import org.datavec.api.records.reader.impl.csv.CSVRecordReader;
 import org.datavec.api.records.reader.impl.csv.CSVSequenceRecordReader;
@@ -15,9 +17,14 @@ import org.datavec.api.split.CollectionInputSplit;
 import org.datavec.api.split.FileSplit;
 import org.datavec.api.split.NumberedFileInputSplit;
 import org.datavec.api.writable.DoubleWritable;
+import org.datavec.api.writable.FloatWritable;
 import org.datavec.api.writable.IntWritable;
+import org.datavec.api.writable.NDArrayWritable;
+import org.datavec.api.writable.Text;
 import org.datavec.api.writable.Writable;
 import org.datavec.image.recordreader.ImageRecordReader;
+import org.deeplearning4j.exception.DL4JException;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
@@ -36,6 +43,7 @@ import static org.junit.Assert.*;
 import static org.nd4j.linalg.indexing.NDArrayIndex.all;
 import static org.nd4j.linalg.indexing.NDArrayIndex.point;
 
+@Slf4j
 public class RecordReaderMultiDataSetIteratorTest {
 
     @Test
@@ -741,6 +749,139 @@ public class RecordReaderMultiDataSetIteratorTest {
         assertEquals(l, ds.getLabels());
     }
 
+    @Test
+    public void testMixedScalarWritableTypes() {
+        //Bulk conversion: Double/Float/Int fast path, and generic toDouble() for other types
+        List<List<Writable>> data = new ArrayList<>();
+        data.add(l(new DoubleWritable(1.5), new FloatWritable(2.5f), new IntWritable(3), new Text("4.5"),
+                        new IntWritable(1)));
+        data.add(l(new IntWritable(-1), new DoubleWritable(-2.5), new Text("-3"), new FloatWritable(-4.5f),
+                        new IntWritable(0)));
+
+        MultiDataSetIterator iter = new RecordReaderMultiDataSetIterator.Builder(2)
+                        .addReader("rr", new CollectionRecordReader(data))
+                        .addInput("rr").addInput("rr", 1, 3).addOutputOneHot("rr", 4, 3).build();
+        MultiDataSet mds = iter.next();
+
+        INDArray expAll = Nd4j.create(new double[][] {{1.5, 2.5, 3, 4.5, 1}, {-1, -2.5, -3, -4.5, 0}});
+        INDArray expSubset = Nd4j.create(new double[][] {{2.5, 3, 4.5}, {-2.5, -3, -4.5}});
+        INDArray expOneHot = Nd4j.create(new double[][] {{0, 1, 0}, {1, 0, 0}});
+        assertEquals(expAll, mds.getFeatures(0));
+        assertEquals(expSubset, mds.getFeatures(1));
+        assertEquals(expOneHot, mds.getLabels(0));
+
+        //Same thing for sequences, with variable length (masking)
+        List<List<List<Writable>>> seqData = new ArrayList<>();
+        seqData.add(data);
+        seqData.add(data.subList(1, 2));
+        MultiDataSetIterator seqIter = new RecordReaderMultiDataSetIterator.Builder(2)
+                        .addSequenceReader("rr", new CollectionSequenceRecordReader(seqData))
+                        .addInput("rr", 1, 3).addOutputOneHot("rr", 4, 3).build();
+        MultiDataSet seqMds = seqIter.next();
+
+        INDArray f = seqMds.getFeatures(0);
+        assertArrayEquals(new int[] {2, 3, 2}, f.shape());
+        assertEquals(expSubset.getRow(0), f.get(point(0), all(), point(0)).reshape(1, 3));
+        assertEquals(expSubset.getRow(1), f.get(point(0), all(), point(1)).reshape(1, 3));
+        assertEquals(expSubset.getRow(1), f.get(point(1), all(), point(0)).reshape(1, 3));
+        assertEquals(Nd4j.zeros(1, 3), f.get(point(1), all(), point(1)).reshape(1, 3));
+        assertEquals(expOneHot.getRow(1), seqMds.getLabels(0).get(point(1), all(), point(0)).reshape(1, 3));
+        assertEquals(Nd4j.create(new double[][] {{1, 1}, {1, 0}}), seqMds.getFeaturesMaskArray(0));
+    }
+
+    @Test
+    public void testNDArrayWritableAfterFirstRecord() {
+        //Bulk conversion must not be selected based on the first record only
+        List<List<Writable>> data = new ArrayList<>();
+        data.add(l(new DoubleWritable(1), new DoubleWritable(2), new DoubleWritable(3)));
+        data.add(l(new DoubleWritable(4), new NDArrayWritable(Nd4j.create(new double[] {5, 6}))));
+
+        MultiDataSetIterator iter = new RecordReaderMultiDataSetIterator.Builder(2)
+                        .addReader("rr", new CollectionRecordReader(data)).addInput("rr").build();
+        assertEquals(Nd4j.create(new double[][] {{1, 2, 3}, {4, 5, 6}}), iter.next().getFeatures(0));
+
+        List<List<List<Writable>>> seqData = new ArrayList<>();
+        seqData.add(Arrays.asList(data.get(0), data.get(0)));
+        seqData.add(Arrays.asList(data.get(0), data.get(1)));
+        MultiDataSetIterator seqIter = new RecordReaderMultiDataSetIterator.Builder(2)
+                        .addSequenceReader("rr", new CollectionSequenceRecordReader(seqData)).addInput("rr").build();
+        INDArray f = seqIter.next().getFeatures(0);
+        assertEquals(Nd4j.create(new double[] {1, 2, 3}), f.get(point(1), all(), point(0)).reshape(1, 3));
+        assertEquals(Nd4j.create(new double[] {4, 5, 6}), f.get(point(1), all(), point(1)).reshape(1, 3));
+    }
+
+    @Test
+    public void testInvalidRecords() {
+        //Negative class index, for both standard and sequence readers
+        List<List<Writable>> data = new ArrayList<>();
+        data.add(l(new DoubleWritable(1), new IntWritable(1)));
+        data.add(l(new DoubleWritable(2), new IntWritable(-1)));
+        try {
+            new RecordReaderMultiDataSetIterator.Builder(2).addReader("rr", new CollectionRecordReader(data))
+                            .addInput("rr", 0, 0).addOutputOneHot("rr", 1, 3).build().next();
+            fail("Expected exception");
+        } catch (DL4JException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("class index -1"));
+        }
+
+        List<List<List<Writable>>> seqData = new ArrayList<>();
+        seqData.add(data);
+        try {
+            new RecordReaderMultiDataSetIterator.Builder(1)
+                            .addSequenceReader("rr", new CollectionSequenceRecordReader(seqData)).addInput("rr", 0, 0)
+                            .addOutputOneHot("rr", 1, 3).build().next();
+            fail("Expected exception");
+        } catch (DL4JException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("class index -1"));
+        }
+
+        //Inconsistent number of values between time steps, when converting the entire reader
+        seqData.clear();
+        seqData.add(Arrays.asList(l(new DoubleWritable(1), new DoubleWritable(2)), l(new DoubleWritable(3))));
+        try {
+            new RecordReaderMultiDataSetIterator.Builder(1)
+                            .addSequenceReader("rr", new CollectionSequenceRecordReader(seqData)).addInput("rr")
+                            .build().next();
+            fail("Expected exception");
+        } catch (DL4JException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("time step 1"));
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark - run manually")
+    public void benchmarkWritableConversion() {
+        //Wide (few rows, many columns) and tall (many rows, few columns) tabular data
+        int[][] rowsCols = new int[][] {{1000, 2000}, {100000, 10}};
+        int batchSize = 128;
+        for (int[] rc : rowsCols) {
+            Random r = new Random(12345);
+            List<List<Writable>> data = new ArrayList<>(rc[0]);
+            for (int i = 0; i < rc[0]; i++) {
+                List<Writable> row = new ArrayList<>(rc[1] + 1);
+                for (int j = 0; j < rc[1]; j++) {
+                    row.add(new DoubleWritable(r.nextDouble()));
+                }
+                row.add(new IntWritable(r.nextInt(10)));
+                data.add(row);
+            }
+
+            for (int rep = 0; rep < 3; rep++) {
+                MultiDataSetIterator iter = new RecordReaderMultiDataSetIterator.Builder(batchSize)
+                                .addReader("rr", new CollectionRecordReader(data)).addInput("rr", 0, rc[1] - 1)
+                                .addOutputOneHot("rr", rc[1], 10).build();
+                long start = System.nanoTime();
+                int count = 0;
+                while (iter.hasNext()) {
+                    count += iter.next().getFeatures(0).size(0);
+                }
+                long ms = (System.nanoTime() - start) / 1000000;
+                log.info("{} rows x {} columns: {} ms, {} rows/sec", rc[0], rc[1], ms,
+                                count * 1000L / Math.max(1, ms));
+            }
+        }
+    }
+
     private static List<Writable> l(Writable... in){
         return Arrays.asList(in);
     }
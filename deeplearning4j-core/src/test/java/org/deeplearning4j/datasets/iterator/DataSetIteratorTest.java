@@ -20,7 +20,9 @@ import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.weights.WeightInit;
 import org.deeplearning4j.optimize.api.IterationListener;
 import org.deeplearning4j.optimize.listeners.ScoreIterationListener;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
@@ -29,6 +31,9 @@ import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.io.ClassPathResource;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -38,6 +43,9 @@ import static org.junit.Assert.*;
 
 public class DataSetIteratorTest {
 
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
     @Test
     public void testBatchSizeOfOneIris() throws Exception {
         //Test for (a) iterators returning correct number of examples, and
@@ -94,6 +102,65 @@ public class DataSetIteratorTest {
         assertFalse(iter.hasNext());
     }
 
+    @Test
+    public void testMnistMemoryMapped() throws Exception {
+        for (boolean binarize : new boolean[] {false, true}) {
+            for (boolean shuffle : new boolean[] {false, true}) {
+                MnistDataSetIterator expIter = new MnistDataSetIterator(32, 1000, binarize, true, shuffle, 12345);
+                MnistDataSetIterator actIter = new MnistDataSetIterator(32, 1000, binarize, true, shuffle, 12345, true);
+
+                int count = 0;
+                while (expIter.hasNext()) {
+                    assertTrue(actIter.hasNext());
+                    DataSet exp = expIter.next();
+                    DataSet act = actIter.next();
+                    assertEquals(exp.getFeatures(), act.getFeatures());
+                    assertEquals(exp.getLabels(), act.getLabels());
+                    count += act.numExamples();
+                }
+                assertFalse(actIter.hasNext());
+                assertEquals(1000, count);
+            }
+        }
+    }
+
+    @Test
+    public void testCifarMemoryMapped() throws Exception {
+        //Synthetic CIFAR-10 binary files: 7 + 5 records, label = record % 10, pixel value = (record + position) % 256
+        File dir = testDir.newFolder();
+        int[] recordsPerFile = {7, 5};
+        int record = 0;
+        for (int f = 0; f < recordsPerFile.length; f++) {
+            String name = (f == 0 ? "data_batch_1.bin" : "data_batch_2.bin");
+            try (OutputStream os = new FileOutputStream(new File(dir, name))) {
+                for (int i = 0; i < recordsPerFile[f]; i++, record++) {
+                    os.write(record % 10);
+                    for (int j = 0; j < 3 * 32 * 32; j++) {
+                        os.write((record + j) % 256);
+                    }
+                }
+            }
+        }
+        //Remaining training files: empty
+        for (int f = 3; f <= 5; f++) {
+            new File(dir, "data_batch_" + f + ".bin").createNewFile();
+        }
+
+        CifarDataSetIterator iter = new CifarDataSetIterator(5, 100, true, dir);
+        int idx = 0;
+        while (iter.hasNext()) {
+            DataSet ds = iter.next();
+            assertArrayEquals(new int[] {ds.numExamples(), 3, 32, 32}, ds.getFeatures().shape());
+            for (int i = 0; i < ds.numExamples(); i++, idx++) {
+                assertEquals(1.0, ds.getLabels().getDouble(i, idx % 10), 0.0);
+                assertEquals(1.0, ds.getLabels().getRow(i).sumNumber().doubleValue(), 0.0);
+                assertEquals(idx / 255.0, ds.getFeatures().getDouble(i, 0, 0, 0), 1e-6);
+                assertEquals(((idx + 2 * 1024 + 31) % 256) / 255.0, ds.getFeatures().getDouble(i, 2, 0, 31), 1e-6);
+            }
+        }
+        assertEquals(12, idx);
+    }
+
     @Test
     public void testLfwIterator() throws Exception {
         int numExamples = 1;
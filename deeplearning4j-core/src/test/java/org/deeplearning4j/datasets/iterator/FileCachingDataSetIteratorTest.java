@@ -0,0 +1,159 @@
+package org.deeplearning4j.datasets.iterator;
+
+import org.deeplearning4j.datasets.iterator.impl.MultiDataSetIteratorAdapter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.dataset.api.preprocessor.NormalizerMinMaxScaler;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FileCachingDataSetIteratorTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    private static List<DataSet> createData(int numMinibatches) {
+        Nd4j.getRandom().setSeed(12345);
+        List<DataSet> list = new ArrayList<>();
+        for (int i = 0; i < numMinibatches; i++) {
+            list.add(new DataSet(Nd4j.rand(3, 4).addi(i), Nd4j.rand(3, 2)));
+        }
+        return list;
+    }
+
+    private static List<DataSet> collect(FileCachingDataSetIterator iter) {
+        List<DataSet> out = new ArrayList<>();
+        while (iter.hasNext()) {
+            out.add(iter.next());
+        }
+        return out;
+    }
+
+    @Test
+    public void testCacheAndReplay() throws Exception {
+        File dir = testDir.newFolder();
+        List<DataSet> data = createData(5);
+
+        FileCachingDataSetIterator iter = new FileCachingDataSetIterator(new ExistingDataSetIterator(data), dir, "test");
+        assertFalse(iter.isCached());
+        assertEquals(data, collect(iter));
+        assertTrue(iter.isCached());
+        assertFalse(iter.hasNext());
+
+        for (int epoch = 0; epoch < 2; epoch++) {
+            iter.reset();
+            assertEquals(data, collect(iter));
+        }
+
+        //New iterator, same key: should replay the cache without using the source iterator
+        List<DataSet> empty = Collections.emptyList();
+        FileCachingDataSetIterator iter2 =
+                        new FileCachingDataSetIterator(new ExistingDataSetIterator(empty), dir, "test");
+        assertEquals(iter.getCacheKey(), iter2.getCacheKey());
+        assertEquals(data, collect(iter2));
+
+        //Different description: different key, so no cache yet
+        FileCachingDataSetIterator iter3 =
+                        new FileCachingDataSetIterator(new ExistingDataSetIterator(empty), dir, "test2");
+        assertNotEquals(iter.getCacheKey(), iter3.getCacheKey());
+        assertFalse(iter3.isCached());
+        assertTrue(collect(iter3).isEmpty());
+
+        iter.invalidate();
+        assertFalse(iter.isCached());
+    }
+
+    @Test
+    public void testSourcePreProcessorInKey() throws Exception {
+        File dir = testDir.newFolder();
+        List<DataSet> data = createData(3);
+
+        ExistingDataSetIterator source = new ExistingDataSetIterator(data);
+        String keyNoNorm = new FileCachingDataSetIterator(source, dir, "test").getCacheKey();
+
+        NormalizerMinMaxScaler norm = new NormalizerMinMaxScaler();
+        norm.fit(source);
+        source.reset();
+        source.setPreProcessor(norm);
+        String keyNorm1 = new FileCachingDataSetIterator(source, dir, "test").getCacheKey();
+
+        NormalizerMinMaxScaler norm2 = new NormalizerMinMaxScaler(-1, 1);
+        norm2.fit(source);
+        source.reset();
+        source.setPreProcessor(norm2);
+        String keyNorm2 = new FileCachingDataSetIterator(source, dir, "test").getCacheKey();
+
+        assertNotEquals(keyNoNorm, keyNorm1);
+        assertNotEquals(keyNorm1, keyNorm2);
+    }
+
+    @Test
+    public void testResetDuringFirstEpoch() throws Exception {
+        File dir = testDir.newFolder();
+        List<DataSet> data = createData(5);
+
+        FileCachingDataSetIterator iter = new FileCachingDataSetIterator(new ExistingDataSetIterator(data), dir, "test");
+        iter.next();
+        iter.next();
+        iter.reset();
+        assertFalse(iter.isCached());
+
+        assertEquals(data, collect(iter));
+        assertTrue(iter.isCached());
+        iter.reset();
+        assertEquals(data, collect(iter));
+    }
+
+    @Test
+    public void testShuffle() throws Exception {
+        File dir = testDir.newFolder();
+        List<DataSet> data = createData(10);
+
+        FileCachingDataSetIterator iter =
+                        new FileCachingDataSetIterator(new ExistingDataSetIterator(data), dir, "test", true, 12345, 2);
+        //First epoch: source order
+        assertEquals(data, collect(iter));
+
+        iter.reset();
+        List<DataSet> epoch2 = collect(iter);
+        iter.reset();
+        List<DataSet> epoch3 = collect(iter);
+
+        assertEquals(data.size(), epoch2.size());
+        assertTrue(epoch2.containsAll(data));
+        assertEquals(data.size(), epoch3.size());
+        assertTrue(epoch3.containsAll(data));
+        assertNotEquals(data, epoch2);
+        assertNotEquals(epoch2, epoch3);
+    }
+
+    @Test
+    public void testMultiDataSet() throws Exception {
+        File dir = testDir.newFolder();
+        List<DataSet> data = createData(4);
+
+        FileCachingMultiDataSetIterator iter = new FileCachingMultiDataSetIterator(
+                        new MultiDataSetIteratorAdapter(new ExistingDataSetIterator(data)), dir, "test");
+        for (int epoch = 0; epoch < 3; epoch++) {
+            int i = 0;
+            while (iter.hasNext()) {
+                MultiDataSet mds = iter.next();
+                assertEquals(data.get(i).getFeatures(), mds.getFeatures(0));
+                assertEquals(data.get(i).getLabels(), mds.getLabels(0));
+                i++;
+            }
+            assertEquals(4, i);
+            assertTrue(iter.isCached());
+            iter.reset();
+        }
+    }
+}
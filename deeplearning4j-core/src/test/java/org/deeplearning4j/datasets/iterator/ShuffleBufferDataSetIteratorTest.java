@@ -0,0 +1,110 @@
+package org.deeplearning4j.datasets.iterator;
+
+import org.deeplearning4j.datasets.iterator.impl.MultiDataSetIteratorAdapter;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ShuffleBufferDataSetIteratorTest {
+
+    /**
+     * Source iterator with numBatches minibatches of size batchSize; feature value = global example index
+     */
+    private static DataSetIterator source(int first, int numBatches, int batchSize) {
+        List<DataSet> list = new ArrayList<>();
+        for (int b = 0; b < numBatches; b++) {
+            INDArray f = Nd4j.create(batchSize, 2);
+            INDArray l = Nd4j.create(batchSize, 1);
+            for (int i = 0; i < batchSize; i++) {
+                int idx = first + b * batchSize + i;
+                f.putScalar(i, 0, idx);
+                f.putScalar(i, 1, -idx);
+                l.putScalar(i, 0, idx);
+            }
+            list.add(new DataSet(f, l));
+        }
+        return new ExistingDataSetIterator(list);
+    }
+
+    private static List<DataSetIterator> sources() {
+        return Arrays.asList(source(0, 10, 5), source(50, 6, 5), source(80, 4, 5));
+    }
+
+    private static List<Integer> collect(ShuffleBufferDataSetIterator iter) {
+        List<Integer> out = new ArrayList<>();
+        while (iter.hasNext()) {
+            DataSet ds = iter.next();
+            assertTrue(ds.numExamples() <= 8);
+            for (int i = 0; i < ds.numExamples(); i++) {
+                int idx = ds.getFeatures().getInt(i, 0);
+                assertEquals(-idx, ds.getFeatures().getInt(i, 1));
+                assertEquals(idx, ds.getLabels().getInt(i, 0));
+                out.add(idx);
+            }
+        }
+        return out;
+    }
+
+    @Test
+    public void testAllExamplesReturnedOnce() {
+        ShuffleBufferDataSetIterator iter = new ShuffleBufferDataSetIterator(sources(), 8, 30, 12345);
+
+        for (int epoch = 0; epoch < 2; epoch++) {
+            List<Integer> order = collect(iter);
+            assertEquals(100, order.size());
+            boolean[] seen = new boolean[100];
+            for (int idx : order) {
+                assertFalse(seen[idx]);
+                seen[idx] = true;
+            }
+
+            List<Integer> sorted = new ArrayList<>(order);
+            Collections.sort(sorted);
+            assertNotEquals(sorted, order);
+            iter.reset();
+        }
+
+        BaseShuffleBufferIterator.ShuffleBufferStats stats = iter.getStats();
+        assertEquals(200, stats.getExamples());
+        assertEquals(0, stats.getBufferedExamples());
+        assertTrue(stats.getPeakBufferedBytes() > 0);
+    }
+
+    @Test
+    public void testDeterministic() {
+        List<Integer> first = collect(new ShuffleBufferDataSetIterator(sources(), 8, 30, 12345));
+        List<Integer> second = collect(new ShuffleBufferDataSetIterator(sources(), 8, 30, 12345));
+        List<Integer> other = collect(new ShuffleBufferDataSetIterator(sources(), 8, 30, 54321));
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+    }
+
+    @Test
+    public void testMultiDataSet() {
+        ShuffleBufferMultiDataSetIterator iter = new ShuffleBufferMultiDataSetIterator(
+                        new MultiDataSetIteratorAdapter(source(0, 10, 5)), 8, 20, 12345);
+        boolean[] seen = new boolean[50];
+        int count = 0;
+        while (iter.hasNext()) {
+            MultiDataSet mds = iter.next();
+            for (int i = 0; i < mds.getFeatures(0).rows(); i++) {
+                int idx = mds.getFeatures(0).getInt(i, 0);
+                assertEquals(idx, mds.getLabels(0).getInt(i, 0));
+                assertFalse(seen[idx]);
+                seen[idx] = true;
+                count++;
+            }
+        }
+        assertEquals(50, count);
+    }
+}
@@ -769,10 +769,10 @@ public class ROCTest {
             double threshold = thr_skl[i] - 1e-6; //Subtract a bit, so we get the correct point (rounded up on the get op)
             threshold = Math.max(0.0, threshold);
             PrecisionRecallCurve.Confusion c = prc.getConfusionMatrixAtThreshold(threshold);
-            int tp = c.getTpCount();
-            int fp = c.getFpCount();
-            int tn = c.getTnCount();
-            int fn = c.getFnCount();
+            long tp = c.getTpCount();
+            long fp = c.getFpCount();
+            long tn = c.getTnCount();
+            long fn = c.getFnCount();
 
             assertEquals(30, tp + fp + tn + fn);
 
@@ -876,9 +876,9 @@ public class ROCTest {
                 PrecisionRecallCurve.Confusion c = prc.getConfusionMatrixAtPoint(i);
                 PrecisionRecallCurve.Point p = c.getPoint();
 
-                int tp = c.getTpCount();
-                int fp = c.getFpCount();
-                int fn = c.getFnCount();
+                long tp = c.getTpCount();
+                long fp = c.getFpCount();
+                long fn = c.getFnCount();
 
                 double prec = tp / (double) (tp + fp);
                 double rec = tp / (double) (tp + fn);
@@ -1033,4 +1033,125 @@ public class ROCTest {
         }
     }
 
+    @Test
+    public void testRocSketchVsExact() {
+        Nd4j.getRandom().setSeed(12345);
+        Random r = new Random(12345);
+        int n = 5000;
+
+        //Very skewed predictions: most are close to 0.0 or 1.0, where thresholded ROC is inaccurate
+        INDArray labels = Nd4j.zeros(n, 1);
+        INDArray predictions = Nd4j.zeros(n, 1);
+        for (int i = 0; i < n; i++) {
+            boolean positive = r.nextBoolean();
+            double p = Math.pow(r.nextDouble(), 6);
+            labels.putScalar(i, 0, positive ? 1.0 : 0.0);
+            predictions.putScalar(i, 0, positive ? 1.0 - p : p);
+        }
+        //Some overlap between the classes
+        for (int i = 0; i < n; i += 7) {
+            predictions.putScalar(i, 0, r.nextDouble());
+        }
+
+        ROC exact = new ROC(0);
+        ROC sketch = new ROC(0.001);
+        ROC sketch1 = new ROC(0.001);
+        ROC sketch2 = new ROC(0.001);
+        for (int i = 0; i < n; i += 100) {
+            INDArray l = labels.get(NDArrayIndex.interval(i, i + 100), NDArrayIndex.all());
+            INDArray p = predictions.get(NDArrayIndex.interval(i, i + 100), NDArrayIndex.all());
+            exact.eval(l, p);
+            sketch.eval(l, p);
+            if (i % 200 == 0) {
+                sketch1.eval(l, p);
+            } else {
+                sketch2.eval(l, p);
+            }
+        }
+
+        assertTrue(sketch.isSketch());
+        assertEquals(exact.getCountActualPositive(), sketch.getCountActualPositive());
+        assertEquals(exact.getCountActualNegative(), sketch.getCountActualNegative());
+
+        double errorBound = sketch.calculateAUCErrorBound();
+        assertTrue(errorBound < 0.01);
+        assertEquals(exact.calculateAUC(), sketch.calculateAUC(), errorBound + 1e-6);
+        assertEquals(exact.calculateAUCPR(), sketch.calculateAUCPR(), 0.01);
+
+        //Merging is exact
+        sketch1.merge(sketch2);
+        assertEquals(sketch, sketch1);
+        assertEquals(sketch.calculateAUC(), sketch1.calculateAUC(), 1e-10);
+
+        //JSON round trip
+        ROC fromJson = BaseEvaluation.fromJson(sketch.toJson(), ROC.class);
+        assertEquals(sketch, fromJson);
+        assertEquals(sketch.calculateAUC(), fromJson.calculateAUC(), 1e-10);
+        assertEquals(sketch.calculateAUCPR(), fromJson.calculateAUCPR(), 1e-10);
+
+        sketch.reset();
+        assertEquals(0, sketch.getPositiveSketch().getTotalCount());
+        assertTrue(Double.isNaN(sketch.calculateAUC()));
+    }
+
+    @Test
+    public void testSketchCountsExceedingIntRange() {
+        ROC roc = new ROC(0.01);
+        INDArray labels = Nd4j.create(new double[] {1, 0}, new int[] {2, 1});
+        INDArray probs = Nd4j.create(new double[] {0.9, 0.2}, new int[] {2, 1});
+        roc.eval(labels, probs);
+
+        //Stand-in for a very long stream of predictions: more examples per class than fit in an int
+        long large = 3000000000L;
+        roc.getPositiveSketch().add(0.9, large);
+        roc.getNegativeSketch().add(0.2, large);
+        roc.eval(labels, probs);
+
+        long countPerClass = large + 2;
+        assertEquals(countPerClass, roc.getCountActualPositive());
+        assertEquals(countPerClass, roc.getCountActualNegative());
+
+        PrecisionRecallCurve prc = roc.getPrecisionRecallCurve();
+        assertEquals(2 * countPerClass, prc.getTotalCount());
+
+        long maxTp = 0;
+        for (int i = 0; i < prc.numPoints(); i++) {
+            long tp = prc.getTpCount()[i];
+            long fp = prc.getFpCount()[i];
+            long fn = prc.getFnCount()[i];
+            assertTrue(tp >= 0 && fp >= 0 && fn >= 0);
+            assertEquals(countPerClass, tp + fn);
+            assertTrue(tp + fp + fn <= prc.getTotalCount());
+            maxTp = Math.max(maxTp, tp);
+        }
+        assertEquals(countPerClass, maxTp);
+        assertTrue(maxTp > Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testProbabilitySketchBins() {
+        ProbabilitySketch sketch = new ProbabilitySketch(0.01);
+        double[] values = {0.0, 1e-12, 1e-6, 0.01, 0.3, 0.5, 0.5000001, 0.7, 0.99, 1.0 - 1e-6, 1.0};
+        int lastBin = -1;
+        for (double v : values) {
+            int bin = sketch.binIndex(v);
+            //Bins are ordered by value, and the value is not below the lower bound of its bin
+            assertTrue(bin >= lastBin);
+            assertTrue(v >= sketch.binLowerBound(bin));
+            if (bin < sketch.numBins() - 1) {
+                assertTrue(v < sketch.binLowerBound(bin + 1));
+            }
+            lastBin = bin;
+            sketch.add(v);
+        }
+        assertEquals(0, sketch.binIndex(0.0));
+        assertEquals(sketch.numBins() - 1, sketch.binIndex(1.0));
+        assertEquals(values.length, sketch.getTotalCount());
+
+        //Each bin contains its lower bound
+        for (int b = 0; b < sketch.numBins(); b++) {
+            assertEquals(b, sketch.binIndex(sketch.binLowerBound(b)));
+        }
+        assertEquals(0.5, sketch.binLowerBound(sketch.binIndex(0.5)), 0.0);
+    }
 }
@@ -0,0 +1,219 @@
+package org.deeplearning4j.eval;
+
+import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
+import org.deeplearning4j.eval.curves.RocCurve;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link ShardedEvaluator}, and for the batched accumulation in {@link Evaluation} and {@link ROC}
+ */
+public class ShardedEvaluatorTest {
+
+    private static INDArray randomOneHot(int rows, int cols, Random r) {
+        INDArray out = Nd4j.zeros(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            out.putScalar(i, r.nextInt(cols), 1.0);
+        }
+        return out;
+    }
+
+    @Test
+    public void testEvaluationMatchesSingleExample() {
+        Nd4j.getRandom().setSeed(12345);
+        Random r = new Random(12345);
+        int nOut = 7;
+        int n = 200;
+        INDArray labels = randomOneHot(n, nOut, r);
+        INDArray predictions = Nd4j.rand(n, nOut);
+
+        Evaluation batched = new Evaluation(nOut);
+        batched.eval(labels, predictions);
+
+        Evaluation single = new Evaluation(nOut);
+        INDArray predIdx = Nd4j.argMax(predictions, 1);
+        INDArray actualIdx = Nd4j.argMax(labels, 1);
+        for (int i = 0; i < n; i++) {
+            single.eval(predIdx.getInt(i), actualIdx.getInt(i));
+        }
+
+        for (int i = 0; i < nOut; i++) {
+            for (int j = 0; j < nOut; j++) {
+                assertEquals(single.getConfusionMatrix().getCount(i, j),
+                                batched.getConfusionMatrix().getCount(i, j));
+            }
+            assertEquals(single.truePositives().get(i), batched.truePositives().get(i));
+            assertEquals(single.falsePositives().get(i), batched.falsePositives().get(i));
+            assertEquals(single.falseNegatives().get(i), batched.falseNegatives().get(i));
+            assertEquals(single.trueNegatives().get(i), batched.trueNegatives().get(i));
+        }
+        assertEquals(single.accuracy(), batched.accuracy(), 1e-10);
+        assertEquals(single.f1(), batched.f1(), 1e-10);
+    }
+
+    @Test
+    public void testEvaluationTopN() {
+        Nd4j.getRandom().setSeed(12345);
+        Random r = new Random(12345);
+        int nOut = 5;
+        int n = 100;
+        INDArray labels = randomOneHot(n, nOut, r);
+        INDArray predictions = Nd4j.rand(n, nOut);
+
+        Evaluation e = new Evaluation(null, 3);
+        e.eval(labels, predictions);
+
+        int expCorrect = 0;
+        for (int i = 0; i < n; i++) {
+            int actual = Nd4j.argMax(labels.getRow(i), 1).getInt(0);
+            double actualProb = predictions.getDouble(i, actual);
+            int countGreater = 0;
+            for (int j = 0; j < nOut; j++) {
+                if (predictions.getDouble(i, j) > actualProb) {
+                    countGreater++;
+                }
+            }
+            if (countGreater < 3) {
+                expCorrect++;
+            }
+        }
+        assertEquals(expCorrect / (double) n, e.topNAccuracy(), 1e-10);
+    }
+
+    @Test
+    public void testRocThresholdedMatchesBruteForce() {
+        Nd4j.getRandom().setSeed(12345);
+        Random r = new Random(12345);
+        int n = 500;
+        int steps = 20;
+        INDArray labels = Nd4j.zeros(n, 1);
+        INDArray predictions = Nd4j.rand(n, 1);
+        for (int i = 0; i < n; i++) {
+            if (r.nextBoolean()) {
+                labels.putScalar(i, 0, 1.0);
+            }
+        }
+
+        ROC roc = new ROC(steps, false);
+        roc.eval(labels, predictions);
+        RocCurve curve = roc.getRocCurve();
+
+        int numPositive = labels.sumNumber().intValue();
+        int numNegative = n - numPositive;
+        assertEquals(steps + 1, curve.numPoints());
+        for (int t = 0; t < curve.numPoints(); t++) {
+            float threshold = (float) curve.getThreshold(t);
+            int tp = 0;
+            int fp = 0;
+            for (int i = 0; i < n; i++) {
+                float p = predictions.getFloat(i, 0);
+                if (p >= threshold && threshold < 1.0f) {
+                    if (labels.getDouble(i, 0) == 1.0) {
+                        tp++;
+                    } else {
+                        fp++;
+                    }
+                }
+            }
+            assertEquals(tp / (double) numPositive, curve.getTruePositiveRate(t), 1e-6);
+            assertEquals(fp / (double) numNegative, curve.getFalsePositiveRate(t), 1e-6);
+        }
+    }
+
+    @Test
+    public void testShardedMatchesSingleThreaded() {
+        Nd4j.getRandom().setSeed(12345);
+        Random r = new Random(12345);
+        int nOut = 4;
+
+        Evaluation expEval = new Evaluation();
+        ROCMultiClass expRoc = new ROCMultiClass(10);
+
+        Evaluation eval = new Evaluation();
+        ROCMultiClass roc = new ROCMultiClass(10);
+        ShardedEvaluator<IEvaluation> evaluator = new ShardedEvaluator<>(new IEvaluation[] {eval, roc}, 3, 2);
+
+        for (int i = 0; i < 20; i++) {
+            INDArray labels = randomOneHot(16, nOut, r);
+            INDArray predictions = Nd4j.rand(16, nOut);
+            expEval.eval(labels, predictions);
+            expRoc.eval(labels, predictions);
+            evaluator.eval(labels, predictions, null);
+        }
+        evaluator.finish();
+
+        assertEquals(expEval.getConfusionMatrix(), eval.getConfusionMatrix());
+        assertEquals(expEval.stats(), eval.stats());
+        for (int i = 0; i < nOut; i++) {
+            assertEquals(expRoc.calculateAUC(i), roc.calculateAUC(i), 1e-10);
+        }
+    }
+
+    @Test
+    public void testShutdownWithoutFinish() throws Exception {
+        Random r = new Random(12345);
+        ShardedEvaluator<Evaluation> evaluator = new ShardedEvaluator<>(new Evaluation[] {new Evaluation()}, 2);
+        evaluator.eval(randomOneHot(16, 3, r), Nd4j.rand(16, 3), null);
+
+        //Simulates an exception before finish() is reached
+        evaluator.shutdown();
+
+        long end = System.currentTimeMillis() + 10000;
+        while (countEvaluatorThreads() > 0 && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, countEvaluatorThreads());
+    }
+
+    private static int countEvaluatorThreads() {
+        int count = 0;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.isAlive() && t.getName().startsWith("ShardedEvaluator-")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testDoEvaluationMultiThreaded() {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).weightInit(WeightInit.XAVIER)
+                        .list()
+                        .layer(0, new DenseLayer.Builder().nIn(4).nOut(10).activation(Activation.TANH).build())
+                        .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(10).nOut(3)
+                                        .activation(Activation.SOFTMAX).build())
+                        .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        DataSetIterator iter = new IrisDataSetIterator(10, 150);
+
+        Evaluation expEval = new Evaluation();
+        ROCMultiClass expRoc = new ROCMultiClass(10);
+        net.doEvaluation(iter, expEval, expRoc);
+
+        iter.reset();
+        Evaluation eval = new Evaluation();
+        ROCMultiClass roc = new ROCMultiClass(10);
+        net.doEvaluation(iter, 2, eval, roc);
+
+        assertEquals(expEval.stats(), eval.stats());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(expRoc.calculateAUC(i), roc.calculateAUC(i), 1e-10);
+        }
+    }
+}
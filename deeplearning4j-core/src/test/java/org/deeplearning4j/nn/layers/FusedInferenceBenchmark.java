@@ -0,0 +1,80 @@
+package org.deeplearning4j.nn.layers;
+
+import org.deeplearning4j.nn.api.layers.FusedInferenceLayer;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the fused inference path for DenseLayer ({@link FusedInferenceLayer#activateFused(INDArray,
+ * INDArray)}, with a reused output buffer) against the standard path (preOutput, then a separate activation function
+ * pass), at small minibatch sizes.<br>
+ * Not run as part of the unit tests: run the main method (from the IDE, or with the test classpath).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class FusedInferenceBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int minibatch;
+
+    @Param({"RELU", "TANH", "SIGMOID"})
+    public String activation;
+
+    @Param({"256"})
+    public int layerSize;
+
+    private BaseLayer<?> layer;
+    private INDArray input;
+    private INDArray buffer;
+
+    @Setup
+    public void setup() {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).list()
+                        .layer(0, new DenseLayer.Builder().nIn(layerSize).nOut(layerSize)
+                                        .activation(Activation.valueOf(activation)).build())
+                        .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(layerSize)
+                                        .nOut(10).activation(Activation.SOFTMAX).build())
+                        .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        layer = (BaseLayer<?>) net.getLayer(0);
+        input = Nd4j.rand(minibatch, layerSize);
+        buffer = Nd4j.createUninitialized(new int[] {minibatch, layerSize}, 'f');
+    }
+
+    @Benchmark
+    public INDArray standard() {
+        layer.setInput(input);
+        INDArray z = layer.preOutput(false);
+        return layer.layerConf().getActivationFn().getActivation(z, false);
+    }
+
+    @Benchmark
+    public INDArray fused() {
+        return ((FusedInferenceLayer) layer).activateFused(input, buffer);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(FusedInferenceBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
+}
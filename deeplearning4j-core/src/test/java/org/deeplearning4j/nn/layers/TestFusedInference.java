@@ -0,0 +1,93 @@
+package org.deeplearning4j.nn.layers;
+
+import org.deeplearning4j.nn.api.layers.FusedInferenceLayer;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.params.DefaultParamInitializer;
+import org.deeplearning4j.nn.plan.ExecutionPlanCache;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestFusedInference {
+
+    @Test
+    public void testFusedMatchesReference() {
+        for (Activation a : new Activation[] {Activation.RELU, Activation.TANH, Activation.SIGMOID,
+                        Activation.IDENTITY}) {
+            MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).list()
+                            .layer(0, new DenseLayer.Builder().nIn(6).nOut(5).activation(a).build())
+                            .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(5).nOut(3)
+                                            .activation(Activation.SOFTMAX).build())
+                            .build();
+            MultiLayerNetwork net = new MultiLayerNetwork(conf);
+            net.init();
+
+            for (int mb : new int[] {1, 4, 16}) {
+                INDArray in = Nd4j.rand(mb, 6);
+
+                INDArray W0 = net.getLayer(0).getParam(DefaultParamInitializer.WEIGHT_KEY);
+                INDArray b0 = net.getLayer(0).getParam(DefaultParamInitializer.BIAS_KEY);
+                INDArray W1 = net.getLayer(1).getParam(DefaultParamInitializer.WEIGHT_KEY);
+                INDArray b1 = net.getLayer(1).getParam(DefaultParamInitializer.BIAS_KEY);
+
+                INDArray z0 = in.mmul(W0).addiRowVector(b0);
+                INDArray a0 = a.getActivationFunction().getActivation(z0, false);
+                INDArray z1 = a0.mmul(W1).addiRowVector(b1);
+                INDArray expOut = Nd4j.getExecutioner().execAndReturn(
+                                new org.nd4j.linalg.api.ops.impl.transforms.SoftMax(z1));
+
+                assertEquals(expOut, net.output(in));
+
+                FusedInferenceLayer l0 = (FusedInferenceLayer) net.getLayer(0);
+                assertTrue(l0.canActivateFused(in));
+                for (char order : new char[] {'c', 'f'}) {
+                    INDArray buffer = Nd4j.create(new int[] {mb, 5}, order);
+                    INDArray out0 = l0.activateFused(in, buffer);
+                    assertSame(buffer, out0);
+                    assertEquals(a0, out0);
+                }
+
+                //View of a larger array: not contiguous, so the result is computed elsewhere and assigned
+                INDArray full = Nd4j.create(new int[] {mb, 8}, 'f');
+                INDArray view = full.get(NDArrayIndex.all(), NDArrayIndex.interval(1, 6));
+                INDArray outView = l0.activateFused(in, view);
+                assertSame(view, outView);
+                assertEquals(a0, outView);
+                assertEquals(Nd4j.zeros(mb, 1), full.getColumn(0));
+                assertEquals(Nd4j.zeros(mb, 2), full.get(NDArrayIndex.all(), NDArrayIndex.interval(6, 8)));
+            }
+        }
+    }
+
+    @Test
+    public void testFusedWithExecutionPlan() {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).list()
+                        .layer(0, new DenseLayer.Builder().nIn(6).nOut(5).activation(Activation.RELU).build())
+                        .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(5).nOut(3)
+                                        .activation(Activation.SOFTMAX).build())
+                        .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        INDArray in1 = Nd4j.rand(8, 6);
+        INDArray in2 = Nd4j.rand(8, 6);
+        List<INDArray> exp1 = net.feedForward(in1, false);
+        List<INDArray> exp2 = net.feedForward(in2, false);
+
+        net.setExecutionPlanCache(new ExecutionPlanCache());
+        assertEquals(exp1, net.feedForward(in1, false));
+        //Second call: layers write directly into the plan buffers
+        assertEquals(exp2, net.feedForward(in2, false));
+    }
+}
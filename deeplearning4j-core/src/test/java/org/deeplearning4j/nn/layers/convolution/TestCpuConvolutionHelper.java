@@ -0,0 +1,155 @@
+package org.deeplearning4j.nn.layers.convolution;
+
+import org.deeplearning4j.nn.conf.ConvolutionMode;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.inputs.InputType;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.layers.convolution.CpuConvolutionHelper.Algorithm;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.NoOp;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestCpuConvolutionHelper {
+
+    private static MultiLayerNetwork getNet(int[] kernel, int[] stride, int[] padding, ConvolutionMode cm,
+                    boolean hasBias, int inH, int inW, ConvolutionHelper helper) {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).updater(new NoOp())
+                        .convolutionMode(cm).list()
+                        .layer(0, new ConvolutionLayer.Builder().kernelSize(kernel).stride(stride).padding(padding)
+                                        .nOut(6).hasBias(hasBias).activation(Activation.TANH).build())
+                        .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MSE).nOut(3)
+                                        .activation(Activation.IDENTITY).build())
+                        .setInputType(InputType.convolutional(inH, inW, 4)).build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        ((org.deeplearning4j.nn.layers.convolution.ConvolutionLayer) net.getLayer(0)).helper = helper;
+        return net;
+    }
+
+    @Test
+    public void testAlgorithmsMatchIm2col() {
+        //kernel, stride, padding, mode
+        Object[][] configs = new Object[][] {
+                        {new int[] {3, 3}, new int[] {1, 1}, new int[] {0, 0}, ConvolutionMode.Same},
+                        {new int[] {3, 3}, new int[] {1, 1}, new int[] {1, 1}, ConvolutionMode.Truncate},
+                        {new int[] {3, 3}, new int[] {1, 1}, new int[] {0, 0}, ConvolutionMode.Truncate},
+                        {new int[] {1, 1}, new int[] {1, 1}, new int[] {0, 0}, ConvolutionMode.Truncate},
+                        {new int[] {1, 1}, new int[] {2, 2}, new int[] {0, 0}, ConvolutionMode.Same}};
+
+        for (Object[] c : configs) {
+            int[] kernel = (int[]) c[0];
+            int[] stride = (int[]) c[1];
+            int[] padding = (int[]) c[2];
+            ConvolutionMode cm = (ConvolutionMode) c[3];
+            Algorithm a = (kernel[0] == 3 ? Algorithm.WINOGRAD : Algorithm.DIRECT_1X1);
+
+            //Odd and even input sizes: odd output sizes for Winograd need partial tiles
+            for (int[] inSize : new int[][] {{8, 8}, {7, 9}}) {
+                for (boolean hasBias : new boolean[] {true, false}) {
+                    String msg = a + ", kernel=" + kernel[0] + ", stride=" + stride[0] + ", padding=" + padding[0]
+                                    + ", " + cm + ", in=" + inSize[0] + "x" + inSize[1] + ", bias=" + hasBias;
+
+                    MultiLayerNetwork reference = getNet(kernel, stride, padding, cm, hasBias, inSize[0], inSize[1],
+                                    null);
+                    MultiLayerNetwork net = getNet(kernel, stride, padding, cm, hasBias, inSize[0], inSize[1],
+                                    new CpuConvolutionHelper(a));
+
+                    Nd4j.getRandom().setSeed(12345);
+                    INDArray in = Nd4j.rand(new int[] {3, 4, inSize[0], inSize[1]});
+                    INDArray labels = Nd4j.rand(3, 3);
+
+                    INDArray outRef = reference.output(in);
+                    INDArray out = net.output(in);
+                    assertTrue(msg, outRef.equalsWithEps(out, 1e-4));
+
+                    reference.setInput(in);
+                    reference.setLabels(labels);
+                    reference.computeGradientAndScore();
+                    net.setInput(in);
+                    net.setLabels(labels);
+                    net.computeGradientAndScore();
+
+                    assertEquals(msg, reference.score(), net.score(), 1e-5);
+                    assertTrue(msg, reference.gradient().gradient().equalsWithEps(net.gradient().gradient(), 1e-4));
+                    assertEquals(msg, reference.gradient().gradientForVariable().keySet(),
+                                    net.gradient().gradientForVariable().keySet());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBenchmarkSelection() {
+        CpuConvolutionHelper.clearSelectedAlgorithms();
+
+        MultiLayerNetwork reference = getNet(new int[] {3, 3}, new int[] {1, 1}, new int[] {0, 0},
+                        ConvolutionMode.Same, true, 16, 16, null);
+        MultiLayerNetwork net = getNet(new int[] {3, 3}, new int[] {1, 1}, new int[] {0, 0}, ConvolutionMode.Same,
+                        true, 16, 16, new CpuConvolutionHelper());
+
+        INDArray in = Nd4j.rand(new int[] {8, 4, 16, 16});
+        INDArray out = net.output(in);
+        assertTrue(reference.output(in).equalsWithEps(out, 1e-4));
+
+        //One configuration benchmarked, with Winograd and im2col as candidates
+        assertEquals(1, CpuConvolutionHelper.getSelectedAlgorithms().size());
+        Algorithm selected = CpuConvolutionHelper.getSelectedAlgorithms().values().iterator().next();
+        assertFalse(selected == Algorithm.DIRECT_1X1);
+
+        //Selection is re-used: no further benchmarking
+        net.output(in);
+        assertEquals(1, CpuConvolutionHelper.getSelectedAlgorithms().size());
+    }
+
+    @Test
+    public void testDirectBackpropFollowsSelection() {
+        CpuConvolutionHelper.clearSelectedAlgorithms();
+        int[] kernel = new int[] {1, 1};
+        int[] strides = new int[] {1, 1};
+        int[] pad = new int[] {0, 0};
+        INDArray input = Nd4j.rand(new int[] {2, 4, 8, 8});
+        INDArray weights = Nd4j.rand(new int[] {6, 4, 1, 1});
+        INDArray delta = Nd4j.rand(new int[] {2, 6, 8, 8});
+        INDArray biasGrad = Nd4j.create(1, 6);
+        INDArray weightGrad = Nd4j.create(new int[] {6, 4, 1, 1}, 'c');
+
+        //No forward pass benchmark yet for this configuration: im2col/col2im backprop
+        CpuConvolutionHelper helper = new CpuConvolutionHelper();
+        assertNull(helper.backpropGradient(input, weights, delta, kernel, strides, pad, biasGrad, weightGrad,
+                        Activation.IDENTITY.getActivationFunction(), null, null, null, ConvolutionMode.Truncate,
+                        strides));
+
+        //Explicitly requested: direct 1x1 backprop
+        CpuConvolutionHelper direct = new CpuConvolutionHelper(Algorithm.DIRECT_1X1);
+        assertNotNull(direct.backpropGradient(input, weights, delta, kernel, strides, pad, biasGrad, weightGrad,
+                        Activation.IDENTITY.getActivationFunction(), null, null, null, ConvolutionMode.Truncate,
+                        strides));
+    }
+
+    @Test
+    public void testIsSupported() {
+        int[] one = new int[] {1, 1};
+        int[] zero = new int[] {0, 0};
+        assertTrue(CpuConvolutionHelper.isSupported(Algorithm.WINOGRAD, new int[] {3, 3}, one, one, one));
+        assertFalse(CpuConvolutionHelper.isSupported(Algorithm.WINOGRAD, new int[] {3, 3}, new int[] {2, 2}, one,
+                        one));
+        assertFalse(CpuConvolutionHelper.isSupported(Algorithm.WINOGRAD, new int[] {3, 3}, one, one,
+                        new int[] {2, 2}));
+        assertFalse(CpuConvolutionHelper.isSupported(Algorithm.WINOGRAD, new int[] {5, 5}, one, zero, one));
+        assertTrue(CpuConvolutionHelper.isSupported(Algorithm.DIRECT_1X1, one, new int[] {2, 2}, zero, one));
+        assertFalse(CpuConvolutionHelper.isSupported(Algorithm.DIRECT_1X1, one, one, one, one));
+        assertTrue(CpuConvolutionHelper.isSupported(Algorithm.IM2COL, new int[] {5, 5}, one, zero, one));
+    }
+}
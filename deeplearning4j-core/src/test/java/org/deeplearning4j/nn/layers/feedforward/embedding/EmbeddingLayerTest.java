@@ -10,20 +10,33 @@ import org.deeplearning4j.nn.conf.preprocessor.FeedForwardToRnnPreProcessor;
 import org.deeplearning4j.nn.conf.preprocessor.RnnToFeedForwardPreProcessor;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.params.DefaultParamInitializer;
+import org.deeplearning4j.nn.updater.BaseMultiLayerUpdater;
+import org.deeplearning4j.nn.updater.UpdaterBlock;
 import org.deeplearning4j.nn.weights.WeightInit;
+import org.deeplearning4j.optimize.api.StepFunction;
+import org.deeplearning4j.optimize.solvers.accumulation.GradientsAccumulator;
 import org.junit.Test;
 import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.learning.config.IUpdater;
 import org.nd4j.linalg.learning.config.Sgd;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
+import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
 import java.util.Map;
 import java.util.Random;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 public class EmbeddingLayerTest {
 
@@ -322,4 +335,170 @@ public class EmbeddingLayerTest {
         }
     }
 
+    private static MultiLayerNetwork getSparseTestNet(IUpdater updater, boolean sparse) {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().updater(updater).seed(12345).list()
+                        .layer(0, new EmbeddingLayer.Builder().hasBias(true).sparseGradients(sparse)
+                                        .activation(Activation.TANH).nIn(20).nOut(5).build())
+                        .layer(1, new OutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(5).nOut(4).build())
+                        .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        return net;
+    }
+
+    private static void fit(MultiLayerNetwork net, int... indices) {
+        INDArray in = Nd4j.create(indices.length, 1);
+        INDArray labels = Nd4j.create(indices.length, 4);
+        for (int i = 0; i < indices.length; i++) {
+            in.putScalar(i, 0, indices[i]);
+            labels.putScalar(i, indices[i] % 4, 1.0);
+        }
+        net.fit(in, labels);
+    }
+
+    @Test
+    public void testSparseGradientsSgdMatchesDense() {
+        //No updater state and no L1/L2: lazy and dense updates should be identical
+        MultiLayerNetwork dense = getSparseTestNet(new Sgd(0.1), false);
+        MultiLayerNetwork sparse = getSparseTestNet(new Sgd(0.1), true);
+        assertEquals(dense.params(), sparse.params());
+
+        //Sparse weights should be in an updater block of their own
+        UpdaterBlock ub = ((BaseMultiLayerUpdater<?>) sparse.getUpdater()).getUpdaterBlocks().get(0);
+        assertTrue(ub.isSparseUpdaterBlock());
+        assertEquals(1, ub.getLayersAndVariablesInBlock().size());
+
+        int[][] minibatches = new int[][] {{1, 3, 3, 7}, {2, 7}, {19, 0, 1}, {5}};
+        for (int[] mb : minibatches) {
+            fit(dense, mb);
+            fit(sparse, mb);
+            assertTrue(dense.params().equalsWithEps(sparse.params(), 1e-6));
+        }
+    }
+
+    @Test
+    public void testLazyAdam() {
+        MultiLayerNetwork dense = getSparseTestNet(new Adam(0.1), false);
+        MultiLayerNetwork sparse = getSparseTestNet(new Adam(0.1), true);
+
+        fit(dense, 1, 3, 3);
+        fit(sparse, 1, 3, 3);
+        INDArray wDense = dense.getLayer(0).getParam(DefaultParamInitializer.WEIGHT_KEY).dup();
+        INDArray wSparse = sparse.getLayer(0).getParam(DefaultParamInitializer.WEIGHT_KEY).dup();
+        //First iteration: no updater state yet, so only rows 1 and 3 are modified in both cases
+        assertTrue(wDense.equalsWithEps(wSparse, 1e-6));
+
+        fit(dense, 5);
+        fit(sparse, 5);
+        INDArray wDense2 = dense.getLayer(0).getParam(DefaultParamInitializer.WEIGHT_KEY);
+        INDArray wSparse2 = sparse.getLayer(0).getParam(DefaultParamInitializer.WEIGHT_KEY);
+        for (int row = 0; row < 20; row++) {
+            if (row == 5) {
+                assertNotEquals(wSparse.getRow(row), wSparse2.getRow(row));
+            } else {
+                //Lazy Adam: rows not in the minibatch are not modified
+                assertEquals(wSparse.getRow(row), wSparse2.getRow(row));
+            }
+        }
+        //Dense Adam: rows 1 and 3 are modified by momentum
+        assertNotEquals(wDense.getRow(1), wDense2.getRow(1));
+
+        //Updater state for rows that have never been in a minibatch should be unmodified (zero)
+        INDArray state = sparse.getUpdater().getStateViewArray();
+        UpdaterBlock ub = ((BaseMultiLayerUpdater<?>) sparse.getUpdater()).getUpdaterBlocks().get(0);
+        INDArray m = state.get(NDArrayIndex.point(0),
+                        NDArrayIndex.interval(ub.getUpdaterViewOffsetStart(), ub.getUpdaterViewOffsetStart() + 100))
+                        .reshape('f', 20, 5);
+        assertEquals(0.0, m.getRow(0).sumNumber().doubleValue(), 0.0);
+        assertFalse(m.getRow(5).sumNumber().doubleValue() == 0.0);
+
+        //Gradient views should only be non-zero for the last minibatch
+        INDArray g = sparse.getLayer(0).getGradientsViewArray()
+                        .get(NDArrayIndex.point(0), NDArrayIndex.interval(0, 100)).reshape('f', 20, 5);
+        assertEquals(0.0, g.getRow(1).norm1Number().doubleValue(), 0.0);
+        assertEquals(0.0, g.getRow(3).norm1Number().doubleValue(), 0.0);
+    }
+
+    @Test
+    public void testSparseGradientsWithSharedUpdates() {
+        //Two workers with disjoint rows, sharing updates (as with EncodedGradientsAccumulator): each worker's
+        // gradient view also contains the other worker's rows after the updates are applied. With SGD, lazy updates
+        // should still match dense updates exactly - i.e., other workers' updates must not be re-applied
+        List<Queue<INDArray>> denseQueues = new ArrayList<>();
+        List<Queue<INDArray>> sparseQueues = new ArrayList<>();
+        MultiLayerNetwork[] dense = new MultiLayerNetwork[2];
+        MultiLayerNetwork[] sparse = new MultiLayerNetwork[2];
+        for (int i = 0; i < 2; i++) {
+            denseQueues.add(new LinkedList<INDArray>());
+            sparseQueues.add(new LinkedList<INDArray>());
+        }
+        for (int i = 0; i < 2; i++) {
+            dense[i] = getSparseTestNet(new Sgd(0.1), false);
+            dense[i].setGradientsAccumulator(new SharedUpdatesAccumulator(denseQueues, i));
+            sparse[i] = getSparseTestNet(new Sgd(0.1), true);
+            sparse[i].setGradientsAccumulator(new SharedUpdatesAccumulator(sparseQueues, i));
+        }
+
+        int[][] worker0 = new int[][] {{1, 2}, {2, 3, 3}, {1}, {4, 2}};
+        int[][] worker1 = new int[][] {{10, 11}, {12}, {11, 10, 13}, {10}};
+        for (int i = 0; i < worker0.length; i++) {
+            fit(dense[0], worker0[i]);
+            fit(sparse[0], worker0[i]);
+            fit(dense[1], worker1[i]);
+            fit(sparse[1], worker1[i]);
+            for (int w = 0; w < 2; w++) {
+                assertTrue("Worker " + w + ", iteration " + i,
+                                dense[w].params().equalsWithEps(sparse[w].params(), 1e-6));
+            }
+        }
+    }
+
+    /**
+     * Simulates gradient sharing between workers, in a single thread: each stored update is sent to all workers, and
+     * applying updates clears the update array and then adds all updates received since the last call
+     */
+    private static class SharedUpdatesAccumulator implements GradientsAccumulator {
+        private final List<Queue<INDArray>> queues;
+        private final int worker;
+
+        private SharedUpdatesAccumulator(List<Queue<INDArray>> queues, int worker) {
+            this.queues = queues;
+            this.worker = worker;
+        }
+
+        @Override
+        public void setExternalSource(Queue<INDArray> source) {}
+
+        @Override
+        public void applyUpdate(StepFunction function, INDArray params, INDArray updates) {
+            updates.assign(0);
+            Queue<INDArray> queue = queues.get(worker);
+            while (!queue.isEmpty()) {
+                updates.addi(queue.poll());
+            }
+            function.step(params, updates);
+        }
+
+        @Override
+        public void applyUpdate(StepFunction function, INDArray params, INDArray updates, double alpha) {
+            applyUpdate(function, params, updates);
+        }
+
+        @Override
+        public void storeUpdate(INDArray array) {
+            for (Queue<INDArray> q : queues) {
+                q.add(array.dup());
+            }
+        }
+
+        @Override
+        public void receiveUpdate(INDArray array) {}
+
+        @Override
+        public void reset() {}
+
+        @Override
+        public void touch() {}
+    }
 }
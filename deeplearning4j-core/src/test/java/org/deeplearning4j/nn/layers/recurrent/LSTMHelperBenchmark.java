@@ -0,0 +1,93 @@
+package org.deeplearning4j.nn.layers.recurrent;
+
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.NoOp;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of LSTM forward + backward pass time (one fit call) with {@link CpuLSTMHelper} against the default
+ * implementation in {@link LSTMHelpers}, across minibatch sizes and sequence lengths.<br>
+ * Not run as part of the unit tests: run the main method (from the IDE, or with the test classpath).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LSTMHelperBenchmark {
+
+    @Param({"1", "32", "128"})
+    public int minibatch;
+
+    @Param({"10", "50", "200"})
+    public int tsLength;
+
+    @Param({"128"})
+    public int nIn;
+
+    @Param({"256"})
+    public int layerSize;
+
+    private MultiLayerNetwork standard;
+    private MultiLayerNetwork helper;
+    private INDArray input;
+    private INDArray labels;
+
+    @Setup
+    public void setup() {
+        standard = getNet(null);
+        helper = getNet(new CpuLSTMHelper());
+
+        input = Nd4j.rand(new int[] {minibatch, nIn, tsLength});
+        labels = Nd4j.create(minibatch, 3, tsLength);
+        for (int i = 0; i < minibatch; i++) {
+            for (int j = 0; j < tsLength; j++) {
+                labels.putScalar(i, (i + j) % 3, j, 1.0);
+            }
+        }
+    }
+
+    private MultiLayerNetwork getNet(LSTMHelper lstmHelper) {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).updater(new NoOp()).list()
+                        .layer(0, new org.deeplearning4j.nn.conf.layers.LSTM.Builder().nIn(nIn).nOut(layerSize)
+                                        .activation(Activation.TANH).build())
+                        .layer(1, new RnnOutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(layerSize)
+                                        .nOut(3).activation(Activation.SOFTMAX).build())
+                        .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        ((LSTM) net.getLayer(0)).helper = lstmHelper;
+        return net;
+    }
+
+    @Benchmark
+    public double standard() {
+        standard.fit(input, labels);
+        return standard.score();
+    }
+
+    @Benchmark
+    public double cpuHelper() {
+        helper.fit(input, labels);
+        return helper.score();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(LSTMHelperBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,177 @@
+package org.deeplearning4j.nn.layers.recurrent;
+
+import org.deeplearning4j.nn.conf.BackpropType;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.params.LSTMParamInitializer;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.activations.impl.ActivationSigmoid;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.NoOp;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.nd4j.linalg.indexing.NDArrayIndex.all;
+import static org.nd4j.linalg.indexing.NDArrayIndex.point;
+
+public class TestCpuLSTMHelper {
+
+    private static MultiLayerNetwork getNet(int nIn, int layerSize, Activation afn, boolean tbptt,
+                    LSTMHelper helper) {
+        NeuralNetConfiguration.ListBuilder b = new NeuralNetConfiguration.Builder().seed(12345).updater(new NoOp())
+                        .list()
+                        .layer(0, new org.deeplearning4j.nn.conf.layers.LSTM.Builder().nIn(nIn).nOut(layerSize)
+                                        .activation(afn).build())
+                        .layer(1, new org.deeplearning4j.nn.conf.layers.LSTM.Builder().nIn(layerSize)
+                                        .nOut(layerSize).activation(afn).build())
+                        .layer(2, new RnnOutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(layerSize).nOut(3)
+                                        .activation(Activation.SOFTMAX).build());
+        if (tbptt) {
+            b.backpropType(BackpropType.TruncatedBPTT).tBPTTForwardLength(4).tBPTTBackwardLength(4);
+        }
+        MultiLayerConfiguration conf = b.build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        for (int i = 0; i < 2; i++) {
+            ((LSTM) net.getLayer(i)).helper = helper;
+        }
+        return net;
+    }
+
+    private static INDArray getLabels(int miniBatch, int tsLength) {
+        INDArray labels = Nd4j.create(miniBatch, 3, tsLength);
+        for (int i = 0; i < miniBatch; i++) {
+            for (int j = 0; j < tsLength; j++) {
+                labels.putScalar(i, (i + j) % 3, j, 1.0);
+            }
+        }
+        return labels;
+    }
+
+    @Test
+    public void testHelperInitialized() {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().list()
+                        .layer(0, new org.deeplearning4j.nn.conf.layers.LSTM.Builder().nIn(3).nOut(4).build())
+                        .layer(1, new RnnOutputLayer.Builder().nIn(4).nOut(3).build()).build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        //Not used unless enabled
+        assertNull(((LSTM) net.getLayer(0)).helper);
+
+        try {
+            System.setProperty(CpuLSTMHelper.ENABLE_HELPER_PROPERTY, "true");
+            net = new MultiLayerNetwork(conf);
+            net.init();
+            assertTrue(((LSTM) net.getLayer(0)).helper instanceof CpuLSTMHelper);
+        } finally {
+            System.clearProperty(CpuLSTMHelper.ENABLE_HELPER_PROPERTY);
+        }
+    }
+
+    @Test
+    public void testMatchesDefaultImplementation() {
+        int nIn = 5;
+        int layerSize = 6;
+        for (Activation afn : new Activation[] {Activation.TANH, Activation.SOFTSIGN}) {
+            for (int[] mbTs : new int[][] {{1, 1}, {3, 1}, {4, 7}}) {
+                int miniBatch = mbTs[0];
+                int tsLength = mbTs[1];
+                String msg = afn + ", minibatch=" + miniBatch + ", tsLength=" + tsLength;
+
+                MultiLayerNetwork reference = getNet(nIn, layerSize, afn, false, null);
+                MultiLayerNetwork net = getNet(nIn, layerSize, afn, false, new CpuLSTMHelper());
+
+                Nd4j.getRandom().setSeed(12345);
+                INDArray in = Nd4j.rand(new int[] {miniBatch, nIn, tsLength});
+                INDArray labels = getLabels(miniBatch, tsLength);
+
+                assertTrue(msg, reference.output(in).equalsWithEps(net.output(in), 1e-5));
+
+                reference.setInput(in);
+                reference.setLabels(labels);
+                reference.computeGradientAndScore();
+                net.setInput(in);
+                net.setLabels(labels);
+                net.computeGradientAndScore();
+
+                assertEquals(msg, reference.score(), net.score(), 1e-6);
+                assertTrue(msg, reference.gradient().gradient().equalsWithEps(net.gradient().gradient(), 1e-5));
+            }
+        }
+    }
+
+    @Test
+    public void testTbpttMatchesDefaultImplementation() {
+        int nIn = 5;
+        int layerSize = 6;
+        MultiLayerNetwork reference = getNet(nIn, layerSize, Activation.TANH, true, null);
+        MultiLayerNetwork net = getNet(nIn, layerSize, Activation.TANH, true, new CpuLSTMHelper());
+
+        Nd4j.getRandom().setSeed(12345);
+        INDArray in = Nd4j.rand(new int[] {3, nIn, 10});
+        INDArray labels = getLabels(3, 10);
+
+        reference.fit(in, labels);
+        net.fit(in, labels);
+        assertTrue(reference.params().equalsWithEps(net.params(), 1e-5));
+        assertEquals(reference.score(), net.score(), 1e-6);
+    }
+
+    @Test
+    public void testRnnTimeStep() {
+        int nIn = 5;
+        int layerSize = 6;
+        MultiLayerNetwork reference = getNet(nIn, layerSize, Activation.TANH, false, null);
+        MultiLayerNetwork net = getNet(nIn, layerSize, Activation.TANH, false, new CpuLSTMHelper());
+
+        Nd4j.getRandom().setSeed(12345);
+        INDArray in = Nd4j.rand(new int[] {2, nIn, 6});
+        INDArray fullOut = reference.output(in);
+        for (int i = 0; i < 6; i++) {
+            INDArray step = in.get(all(), all(), point(i));
+            INDArray outRef = reference.rnnTimeStep(step);
+            INDArray out = net.rnnTimeStep(step);
+            assertTrue(outRef.equalsWithEps(out, 1e-5));
+            assertTrue(outRef.equalsWithEps(fullOut.get(all(), all(), point(i)), 1e-5));
+        }
+    }
+
+    @Test
+    public void testLeverageToKeepsViews() {
+        MultiLayerNetwork net = getNet(5, 6, Activation.TANH, false, null);
+        LSTM layer = (LSTM) net.getLayer(0);
+        WorkspaceConfiguration conf = WorkspaceConfiguration.builder().initialSize(10 * 1024 * 1024).build();
+
+        try (MemoryWorkspace outer = Nd4j.getWorkspaceManager().getAndActivateWorkspace(conf, "CPU_LSTM_OUTER")) {
+            FwdPassReturn fwd;
+            try (MemoryWorkspace inner = Nd4j.getWorkspaceManager().getAndActivateWorkspace(conf, "CPU_LSTM_INNER")) {
+                INDArray in = Nd4j.rand(new int[] {2, 5, 4});
+                fwd = new CpuLSTMHelper().activate(layer, layer.conf(), new ActivationSigmoid(), in,
+                                layer.getParam(LSTMParamInitializer.RECURRENT_WEIGHT_KEY),
+                                layer.getParam(LSTMParamInitializer.INPUT_WEIGHT_KEY),
+                                layer.getParam(LSTMParamInitializer.BIAS_KEY), true, Nd4j.zeros(2, 6),
+                                Nd4j.zeros(2, 6), true, true, LSTMParamInitializer.INPUT_WEIGHT_KEY, null, false);
+                fwd.leverageTo("CPU_LSTM_OUTER");
+            }
+
+            //Gate activations and per time step outputs should still be views of the leveraged backing arrays
+            for (int t = 0; t < 4; t++) {
+                fwd.ifogActivations[t].assign(t + 1);
+                assertEquals(t + 1, fwd.ia[t].getDouble(0, 0), 0.0);
+                assertEquals(t + 1, fwd.ga[t].getDouble(1, 5), 0.0);
+                fwd.fwdPassOutput.putScalar(new int[] {1, 2, t}, -t);
+                assertEquals(-t, fwd.fwdPassOutputAsArrays[t].getDouble(1, 2), 0.0);
+            }
+            assertTrue(fwd.lastAct == fwd.fwdPassOutputAsArrays[3]);
+        }
+        Nd4j.getWorkspaceManager().destroyAllWorkspacesForCurrentThread();
+    }
+}
@@ -0,0 +1,272 @@
+package org.deeplearning4j.nn.misc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.conf.ActivationCheckpointing;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.WorkspaceMode;
+import org.deeplearning4j.nn.conf.graph.ElementWiseVertex;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.conf.weightnoise.DropConnect;
+import org.deeplearning4j.nn.conf.weightnoise.IWeightNoise;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.MemorySizingUtils;
+import org.junit.After;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Sgd;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class TestActivationCheckpointing {
+
+    @After
+    public void after() {
+        Nd4j.getWorkspaceManager().destroyAllWorkspacesForCurrentThread();
+    }
+
+    private static MultiLayerNetwork getMLN(WorkspaceMode wm, int numHidden, int size, double dropOut) {
+        return getMLN(wm, numHidden, size, dropOut, null);
+    }
+
+    private static MultiLayerNetwork getMLN(WorkspaceMode wm, int numHidden, int size, double dropOut,
+                    IWeightNoise weightNoise) {
+        NeuralNetConfiguration.ListBuilder b = new NeuralNetConfiguration.Builder().seed(12345).updater(new Sgd(0.1))
+                        .trainingWorkspaceMode(wm).inferenceWorkspaceMode(wm).list();
+        for (int i = 0; i < numHidden; i++) {
+            DenseLayer.Builder l = new DenseLayer.Builder().nIn(i == 0 ? 10 : size).nOut(size)
+                            .activation(Activation.TANH);
+            if (dropOut > 0 && i > 0)
+                l.dropOut(dropOut);
+            if (weightNoise != null && i > 0)
+                l.weightNoise(weightNoise);
+            b.layer(i, l.build());
+        }
+        b.layer(numHidden, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(size).nOut(3)
+                        .activation(Activation.SOFTMAX).build());
+        MultiLayerNetwork net = new MultiLayerNetwork(b.build());
+        net.init();
+        return net;
+    }
+
+    private static DataSet getData(int minibatch) {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray l = Nd4j.zeros(minibatch, 3);
+        for (int i = 0; i < minibatch; i++) {
+            l.putScalar(i, i % 3, 1.0);
+        }
+        return new DataSet(Nd4j.rand(minibatch, 10), l);
+    }
+
+    @Test
+    public void testGradientsMatchMLN() {
+        DataSet ds = getData(8);
+        for (WorkspaceMode wm : new WorkspaceMode[] {WorkspaceMode.NONE, WorkspaceMode.SEPARATE}) {
+            MultiLayerNetwork standard = getMLN(wm, 6, 8, 0.0);
+            MultiLayerNetwork checkpointed = getMLN(wm, 6, 8, 0.0);
+            checkpointed.setActivationCheckpointing(ActivationCheckpointing.layerRanges(new int[] {0, 2},
+                            new int[] {3, 6}));
+
+            standard.setInput(ds.getFeatures());
+            standard.setLabels(ds.getLabels());
+            standard.computeGradientAndScore();
+            checkpointed.setInput(ds.getFeatures());
+            checkpointed.setLabels(ds.getLabels());
+            checkpointed.computeGradientAndScore();
+
+            assertEquals(wm.toString(), standard.score(), checkpointed.score(), 1e-6);
+            assertEquals(wm.toString(), standard.gradient().gradient(), checkpointed.gradient().gradient());
+
+            //Training should also give identical parameters
+            for (int i = 0; i < 3; i++) {
+                standard.fit(ds);
+                checkpointed.fit(ds);
+            }
+            assertEquals(wm.toString(), standard.params(), checkpointed.params());
+        }
+    }
+
+    /**
+     * Records the (post-dropout) layer inputs inside each checkpoint segment, whenever a segment is released: once
+     * after the forward pass, and once after the recomputed segment has been backpropagated
+     */
+    private static class RecordingNetwork extends MultiLayerNetwork {
+        private final Map<Integer, List<INDArray>> inputs = new HashMap<>();
+
+        private RecordingNetwork(MultiLayerConfiguration conf) {
+            super(conf);
+        }
+
+        @Override
+        protected void closeCheckpointSegment(MemoryWorkspace wsCheckpoint, int segmentStart, int segmentEnd) {
+            for (int k = segmentStart + 1; k <= segmentEnd; k++) {
+                if (!inputs.containsKey(k))
+                    inputs.put(k, new ArrayList<INDArray>());
+                inputs.get(k).add(getLayer(k).input().detach());
+            }
+            super.closeCheckpointSegment(wsCheckpoint, segmentStart, segmentEnd);
+        }
+    }
+
+    @Test
+    public void testDropoutMasksRecomputedMLN() {
+        DataSet ds = getData(16);
+        for (WorkspaceMode wm : new WorkspaceMode[] {WorkspaceMode.NONE, WorkspaceMode.SEPARATE}) {
+            RecordingNetwork net = new RecordingNetwork(getMLN(wm, 6, 16, 0.5).getLayerWiseConfigurations());
+            net.init();
+            net.setActivationCheckpointing(ActivationCheckpointing.everyNLayers(net.getnLayers(), 3));
+
+            net.setInput(ds.getFeatures());
+            net.setLabels(ds.getLabels());
+            net.computeGradientAndScore();
+
+            assertFalse(net.inputs.isEmpty());
+            for (Map.Entry<Integer, List<INDArray>> e : net.inputs.entrySet()) {
+                String msg = wm + " - layer " + e.getKey();
+                assertEquals(msg, 2, e.getValue().size());
+                INDArray forward = e.getValue().get(0);
+                INDArray recomputed = e.getValue().get(1);
+                //Dropout has been applied: some, but not all, values are zeroed out
+                int zeros = forward.eq(0.0).sumNumber().intValue();
+                assertTrue(msg, zeros > 0 && zeros < forward.length());
+                assertEquals(msg, forward, recomputed);
+            }
+        }
+    }
+
+    @Test
+    public void testDropConnectRecomputedMLN() {
+        DataSet ds = getData(16);
+        for (WorkspaceMode wm : new WorkspaceMode[] {WorkspaceMode.NONE, WorkspaceMode.SEPARATE}) {
+            MultiLayerConfiguration conf =
+                            getMLN(wm, 6, 16, 0.0, new DropConnect(0.8)).getLayerWiseConfigurations();
+            RecordingNetwork net = new RecordingNetwork(conf);
+            net.init();
+            net.setActivationCheckpointing(ActivationCheckpointing.everyNLayers(net.getnLayers(), 3));
+            assertTrue(ActivationCheckpointing.isStochastic(net.getLayer(1)));
+            assertFalse(ActivationCheckpointing.hasDropout(net.getLayer(1)));
+
+            net.setInput(ds.getFeatures());
+            net.setLabels(ds.getLabels());
+            net.computeGradientAndScore();
+
+            assertFalse(net.inputs.isEmpty());
+            for (Map.Entry<Integer, List<INDArray>> e : net.inputs.entrySet()) {
+                String msg = wm + " - layer " + e.getKey();
+                assertEquals(msg, 2, e.getValue().size());
+                assertEquals(msg, e.getValue().get(0), e.getValue().get(1));
+            }
+
+            //Training with the recomputed activations should still reduce the score
+            double scoreBefore = net.score();
+            for (int i = 0; i < 20; i++) {
+                net.fit(ds);
+            }
+            net.computeGradientAndScore();
+            assertFalse(wm.toString(), Double.isNaN(net.score()));
+            assertTrue(wm.toString(), net.score() < scoreBefore);
+        }
+    }
+
+    @Test
+    public void testDropoutMLN() {
+        DataSet ds = getData(16);
+        MultiLayerNetwork net = getMLN(WorkspaceMode.SEPARATE, 6, 16, 0.8);
+        net.setActivationCheckpointing(ActivationCheckpointing.everyNLayers(net.getnLayers(), 3));
+
+        net.setInput(ds.getFeatures());
+        net.setLabels(ds.getLabels());
+        net.computeGradientAndScore();
+        double scoreBefore = net.score();
+        for (int i = 0; i < 20; i++) {
+            net.fit(ds);
+        }
+        net.computeGradientAndScore();
+        assertFalse(Double.isNaN(net.score()));
+        assertTrue(net.score() < scoreBefore);
+    }
+
+    private static ComputationGraph getResidualGraph(WorkspaceMode wm) {
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).updater(new Sgd(0.1))
+                        .trainingWorkspaceMode(wm).inferenceWorkspaceMode(wm).graphBuilder().addInputs("in")
+                        .addLayer("d0", new DenseLayer.Builder().nIn(10).nOut(8).activation(Activation.TANH).build(),
+                                        "in")
+                        .addLayer("d1", new DenseLayer.Builder().nIn(8).nOut(8).activation(Activation.TANH).build(),
+                                        "d0")
+                        .addLayer("d2", new DenseLayer.Builder().nIn(8).nOut(8).activation(Activation.TANH).build(),
+                                        "d1")
+                        .addVertex("add", new ElementWiseVertex(ElementWiseVertex.Op.Add), "d2", "d0")
+                        .addLayer("d3", new DenseLayer.Builder().nIn(8).nOut(8).activation(Activation.TANH).build(),
+                                        "add")
+                        .addLayer("out", new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(8).nOut(3)
+                                        .activation(Activation.SOFTMAX).build(), "d3")
+                        .setOutputs("out").build();
+        ComputationGraph cg = new ComputationGraph(conf);
+        cg.init();
+        return cg;
+    }
+
+    @Test
+    public void testGradientsMatchGraph() {
+        DataSet ds = getData(8);
+        for (WorkspaceMode wm : new WorkspaceMode[] {WorkspaceMode.NONE, WorkspaceMode.SEPARATE}) {
+            ComputationGraph standard = getResidualGraph(wm);
+            ComputationGraph checkpointed = getResidualGraph(wm);
+            checkpointed.setActivationCheckpointing(ActivationCheckpointing.vertexSets(
+                            new String[] {"d1", "d2", "add"}, new String[] {"d3", "out"}));
+
+            standard.setInputs(ds.getFeatures());
+            standard.setLabels(ds.getLabels());
+            standard.computeGradientAndScore();
+            checkpointed.setInputs(ds.getFeatures());
+            checkpointed.setLabels(ds.getLabels());
+            checkpointed.computeGradientAndScore();
+
+            assertEquals(wm.toString(), standard.score(), checkpointed.score(), 1e-6);
+            assertEquals(wm.toString(), standard.gradient().gradient(), checkpointed.gradient().gradient());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOverlappingVertexSets() {
+        ComputationGraph cg = getResidualGraph(WorkspaceMode.NONE);
+        //d0 and d3 bracket d1/d2 in the topological order
+        cg.setActivationCheckpointing(ActivationCheckpointing.vertexSets(new String[] {"d0", "d3"},
+                        new String[] {"d1", "d2"}));
+        DataSet ds = getData(8);
+        cg.fit(ds);
+    }
+
+    @Test
+    public void testExternalWorkspaceMemoryReduced() {
+        DataSet ds = getData(64);
+        long[] sizes = new long[2];
+        for (int i = 0; i < 2; i++) {
+            Nd4j.getWorkspaceManager().destroyAllWorkspacesForCurrentThread();
+            MultiLayerNetwork net = getMLN(WorkspaceMode.SEPARATE, 20, 256, 0.0);
+            if (i == 1)
+                net.setActivationCheckpointing(ActivationCheckpointing.everyNLayers(net.getnLayers(), 5));
+            for (int j = 0; j < 3; j++) {
+                net.fit(ds);
+            }
+            sizes[i] = MemorySizingUtils.measureWorkspaceBytes("LOOP_EXTERNAL");
+        }
+        log.info("External workspace size: {} bytes without checkpointing, {} bytes with checkpointing", sizes[0],
+                        sizes[1]);
+        assertTrue(sizes[1] < sizes[0]);
+    }
+}
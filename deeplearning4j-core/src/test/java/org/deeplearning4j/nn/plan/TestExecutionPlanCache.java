@@ -0,0 +1,108 @@
+package org.deeplearning4j.nn.plan;
+
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.WorkspaceMode;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestExecutionPlanCache {
+
+    @Test
+    public void testMultiLayerNetworkPlanMatchesStandardPath() {
+        for (WorkspaceMode wsm : new WorkspaceMode[] {WorkspaceMode.NONE, WorkspaceMode.SINGLE,
+                        WorkspaceMode.SEPARATE}) {
+            MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                            .trainingWorkspaceMode(wsm).inferenceWorkspaceMode(wsm).list()
+                            .layer(0, new DenseLayer.Builder().nIn(4).nOut(5).activation(Activation.TANH).build())
+                            .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(5).nOut(3)
+                                            .activation(Activation.SOFTMAX).build())
+                            .build();
+
+            MultiLayerNetwork net = new MultiLayerNetwork(conf);
+            net.init();
+
+            INDArray in1 = Nd4j.rand(3, 4);
+            INDArray in2 = Nd4j.rand(3, 4);
+            List<INDArray> exp1 = net.feedForward(in1, false);
+            List<INDArray> exp2 = net.feedForward(in2, false);
+
+            ExecutionPlanCache cache = new ExecutionPlanCache();
+            net.setExecutionPlanCache(cache);
+
+            List<INDArray> act1 = net.feedForward(in1, false);
+            assertEquals(exp1, act1);
+            assertEquals(0, cache.getHits());
+            assertEquals(1, cache.getMisses());
+
+            List<INDArray> act2 = net.feedForward(in2, false);
+            assertEquals(exp2, act2);
+            assertEquals(1, cache.getHits());
+            assertEquals(1, cache.getMisses());
+            //Buffers are reused between calls with the same plan
+            assertSame(act1, act2);
+
+            //Different minibatch size: new plan
+            INDArray in3 = Nd4j.rand(5, 4);
+            net.setExecutionPlanCache(null);
+            List<INDArray> exp3 = net.feedForward(in3, false);
+            net.setExecutionPlanCache(cache);
+            assertEquals(exp3, net.feedForward(in3, false));
+            assertEquals(2, cache.getMisses());
+            assertEquals(2, cache.size());
+        }
+    }
+
+    @Test
+    public void testComputationGraphPlanMatchesStandardPath() {
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).graphBuilder()
+                        .addInputs("in")
+                        .addLayer("0", new DenseLayer.Builder().nIn(4).nOut(5).activation(Activation.TANH).build(),
+                                        "in")
+                        .addLayer("1", new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(5).nOut(3)
+                                        .activation(Activation.SOFTMAX).build(), "0")
+                        .setOutputs("1").build();
+
+        ComputationGraph cg = new ComputationGraph(conf);
+        cg.init();
+
+        INDArray in1 = Nd4j.rand(3, 4);
+        INDArray in2 = Nd4j.rand(3, 4);
+        Map<String, INDArray> exp1 = cg.feedForward(in1, false);
+        Map<String, INDArray> exp2 = cg.feedForward(in2, false);
+
+        ExecutionPlanCache cache = new ExecutionPlanCache();
+        cg.setExecutionPlanCache(cache);
+
+        assertEquals(exp1, cg.feedForward(in1, false));
+        assertEquals(exp2, cg.feedForward(in2, false));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testEviction() {
+        ExecutionPlanCache cache = new ExecutionPlanCache(2);
+        for (int i = 0; i < 3; i++) {
+            ExecutionPlanKey key = new ExecutionPlanKey(new int[][] {{i + 1, 4}}, false, false, WorkspaceMode.NONE, 0);
+            assertNull(cache.get(key));
+            cache.put(new ExecutionPlan(key, 2, null, null, null));
+        }
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(3, cache.getMisses());
+    }
+}
@@ -0,0 +1,94 @@
+package org.deeplearning4j.nn.updater;
+
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.buffer.util.DataTypeUtil;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of training throughput (fit calls per second; multiply by the minibatch size for examples per
+ * second) with {@link MixedPrecision} and HALF as the global data type, against standard single precision training.
+ * <br>
+ * Not run as part of the unit tests: run the main method (from the IDE, or with the test classpath).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MixedPrecisionBenchmark {
+
+    @Param({"fp32", "mixed"})
+    public String precision;
+
+    @Param({"32", "128"})
+    public int minibatch;
+
+    @Param({"512"})
+    public int layerSize;
+
+    private DataBuffer.Type initialType;
+    private MultiLayerNetwork net;
+    private DataSet data;
+
+    @Setup
+    public void setup() {
+        initialType = Nd4j.dataType();
+        boolean mixed = "mixed".equals(precision);
+        DataTypeUtil.setDTypeForContext(mixed ? DataBuffer.Type.HALF : DataBuffer.Type.FLOAT);
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).updater(new Adam(1e-3))
+                        .list()
+                        .layer(0, new DenseLayer.Builder().nIn(layerSize).nOut(layerSize)
+                                        .activation(Activation.TANH).build())
+                        .layer(1, new DenseLayer.Builder().nIn(layerSize).nOut(layerSize)
+                                        .activation(Activation.TANH).build())
+                        .layer(2, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(layerSize).nOut(10)
+                                        .activation(Activation.SOFTMAX).build())
+                        .build();
+        net = new MultiLayerNetwork(conf);
+        net.init();
+        if (mixed)
+            net.setMixedPrecision(new MixedPrecision());
+
+        INDArray features = Nd4j.rand(minibatch, layerSize);
+        INDArray labels = Nd4j.zeros(minibatch, 10);
+        for (int i = 0; i < minibatch; i++) {
+            labels.putScalar(i, i % 10, 1.0);
+        }
+        data = new DataSet(features, labels);
+    }
+
+    @TearDown
+    public void tearDown() {
+        DataTypeUtil.setDTypeForContext(initialType);
+    }
+
+    @Benchmark
+    public double fit() {
+        net.fit(data);
+        return net.score();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(MixedPrecisionBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
+}
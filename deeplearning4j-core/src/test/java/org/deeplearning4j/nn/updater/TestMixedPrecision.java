@@ -0,0 +1,196 @@
+package org.deeplearning4j.nn.updater;
+
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.conf.CacheMode;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.inputs.InputType;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.conf.memory.MemoryReport;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.buffer.util.DataTypeUtil;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.AdaGrad;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.learning.config.IUpdater;
+import org.nd4j.linalg.learning.config.Nesterovs;
+import org.nd4j.linalg.learning.config.RmsProp;
+import org.nd4j.linalg.learning.config.Sgd;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class TestMixedPrecision {
+
+    private static MultiLayerNetwork getNet(IUpdater updater) {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).updater(updater).l2(1e-3)
+                        .list()
+                        .layer(0, new DenseLayer.Builder().nIn(10).nOut(32).activation(Activation.TANH).build())
+                        .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(32).nOut(4)
+                                        .activation(Activation.SOFTMAX).build())
+                        .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        return net;
+    }
+
+    private static DataSet getData(int minibatch) {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray f = Nd4j.rand(minibatch, 10);
+        INDArray l = Nd4j.zeros(minibatch, 4);
+        for (int i = 0; i < minibatch; i++) {
+            l.putScalar(i, i % 4, 1.0);
+        }
+        return new DataSet(f, l);
+    }
+
+    @Test
+    public void testLossScaler() {
+        LossScaler ls = new LossScaler(1024, 2.0, 0.5, 3);
+        ls.onOverflow();
+        assertEquals(512, ls.getScale(), 0.0);
+        assertEquals(1, ls.getOverflowCount());
+
+        ls.onSuccessfulStep();
+        ls.onSuccessfulStep();
+        assertEquals(512, ls.getScale(), 0.0);
+        ls.onSuccessfulStep();
+        assertEquals(1024, ls.getScale(), 0.0);
+
+        for (int i = 0; i < 20; i++) {
+            ls.onOverflow();
+        }
+        assertEquals(ls.getMinScale(), ls.getScale(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLossScalerInitialScaleAboveMax() {
+        new LossScaler(LossScaler.DEFAULT_MAX_SCALE * 2, 2.0, 0.5, 1000);
+    }
+
+    @Test
+    public void testNoHalfPrecisionUpdaterState() {
+        MultiLayerNetwork net = getNet(new Adam(1e-2));
+        net.setMixedPrecision(new MixedPrecision());
+        //Adam state is held in single precision by MixedPrecision: nothing allocated in the global data type
+        assertNull(net.getUpdater().getStateViewArray());
+
+        net.fit(getData(16));
+        assertEquals(4 * (net.numParams() + 2 * net.numParams()), net.getMixedPrecision().getMasterCopyBytes());
+
+        //Disabling mixed precision re-creates the updater, with standard updater state
+        net.setMixedPrecision(null);
+        assertNotNull(net.getUpdater().getStateViewArray());
+        assertEquals(2 * net.numParams(), net.getUpdater().getStateViewArray().length());
+        net.fit(getData(16));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExternalGradientsRejected() {
+        MultiLayerNetwork net = getNet(new Sgd(0.1));
+        net.setMixedPrecision(new MixedPrecision());
+        MultiLayerNetwork other = getNet(new Sgd(0.1));
+        DataSet ds = getData(16);
+        other.setInput(ds.getFeatures());
+        other.setLabels(ds.getLabels());
+        other.computeGradientAndScore();
+
+        net.getUpdater().update(net, other.gradient(), 0, 0, 16);
+    }
+
+    @Test
+    public void testMatchesStandardUpdaterFloat() {
+        //With FLOAT as the global data type, the master params are identical to the network params: results should
+        // match standard training, up to floating point rounding
+        DataBuffer.Type initialType = Nd4j.dataType();
+        DataTypeUtil.setDTypeForContext(DataBuffer.Type.FLOAT);
+        try {
+            for (IUpdater u : new IUpdater[] {new Sgd(0.1), new Nesterovs(0.1, 0.9), new Adam(1e-2),
+                            new RmsProp(1e-2), new AdaGrad(1e-1)}) {
+                MultiLayerNetwork standard = getNet(u.clone());
+                MultiLayerNetwork mixed = getNet(u.clone());
+                mixed.setMixedPrecision(new MixedPrecision(new LossScaler(1024, 2.0, 0.5, 2)));
+
+                DataSet ds = getData(16);
+                for (int i = 0; i < 10; i++) {
+                    standard.fit(ds);
+                    mixed.fit(ds);
+                }
+
+                String msg = u.getClass().getSimpleName();
+                assertEquals(msg, 10, mixed.getMixedPrecision().getAppliedSteps());
+                assertEquals(msg, 0, mixed.getMixedPrecision().getSkippedSteps());
+                //Loss scale has grown: 1024 * 2^5
+                assertEquals(msg, 32768, mixed.getMixedPrecision().getLossScale(), 0.0);
+
+                INDArray p1 = standard.params();
+                INDArray p2 = mixed.params();
+                double meanAbsDiff = p1.sub(p2).norm1Number().doubleValue() / p1.length();
+                assertTrue(msg + ": mean abs param difference " + meanAbsDiff, meanAbsDiff < 1e-5);
+            }
+        } finally {
+            DataTypeUtil.setDTypeForContext(initialType);
+        }
+    }
+
+    @Test
+    public void testOverflowSkipsUpdate() {
+        MultiLayerNetwork net = getNet(new Sgd(0.1));
+        //Scaled gradients will overflow even in single precision
+        MixedPrecision mp = new MixedPrecision(new LossScaler(1e300, 2.0, 0.5, 1000, 1.0, 1e300));
+        net.setMixedPrecision(mp);
+
+        INDArray before = net.params().dup();
+        net.fit(getData(16));
+
+        assertEquals(before, net.params());
+        assertEquals(1, mp.getSkippedSteps());
+        assertEquals(0, mp.getAppliedSteps());
+        assertEquals(5e299, mp.getLossScale(), 1e285);
+    }
+
+    @Test
+    public void testHalfPrecisionTraining() {
+        //Throughput vs. single precision training is measured separately, in MixedPrecisionBenchmark
+        DataBuffer.Type initialType = Nd4j.dataType();
+        int minibatch = 32;
+        int iterations = 50;
+        try {
+            DataTypeUtil.setDTypeForContext(DataBuffer.Type.HALF);
+            MultiLayerNetwork half = getNet(new Adam(1e-2));
+            MixedPrecision mp = new MixedPrecision();
+            half.setMixedPrecision(mp);
+            DataSet ds16 = getData(minibatch);
+            double initialScore = Double.NaN;
+            for (int i = 0; i < iterations; i++) {
+                half.fit(ds16);
+                if (i == 0)
+                    initialScore = half.score();
+            }
+            double halfScore = half.score();
+            //The global data type is restored after each update
+            assertEquals(DataBuffer.Type.HALF, Nd4j.dataType());
+
+            MemoryReport report = half.getLayerWiseConfigurations().getMemoryReport(InputType.feedForward(10));
+            long fp32Bytes = MixedPrecision.estimateFp32TrainingBytes(report, minibatch, CacheMode.NONE);
+            long saved = MixedPrecision.estimateMemorySavedBytes(report, minibatch, CacheMode.NONE);
+            log.info("Mixed precision: final score {}, {}", halfScore, mp);
+            log.info("Estimated memory: fp32 {} bytes, saved {} bytes with mixed precision", fp32Bytes, saved);
+
+            assertFalse(Double.isNaN(halfScore));
+            assertTrue(halfScore < initialScore);
+            assertTrue(mp.getAppliedSteps() > 0);
+            assertEquals(4 * (half.numParams() + 2 * half.numParams()), mp.getMasterCopyBytes());
+            assertTrue(mp.getExamplesPerSecond() > 0);
+        } finally {
+            DataTypeUtil.setDTypeForContext(initialType);
+        }
+    }
+}
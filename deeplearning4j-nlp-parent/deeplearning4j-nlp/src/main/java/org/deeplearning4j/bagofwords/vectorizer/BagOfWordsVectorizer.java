@@ -83,6 +83,14 @@ public class BagOfWordsVectorizer extends BaseTextVectorizer {
         return input;
     }
 
+    /**
+     * Sparse counterpart of transform(List): value is word frequency from vocabulary
+     */
+    @Override
+    protected double sparseWeight(int index, int count, int documentLength) {
+        return vocabCache.elementAtIndex(index).getElementFrequency();
+    }
+
     /**
      * @param input the text to vectorize
      * @param label the label of the text
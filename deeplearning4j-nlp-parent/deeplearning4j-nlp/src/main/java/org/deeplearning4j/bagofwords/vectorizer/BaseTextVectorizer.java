@@ -9,12 +9,15 @@ import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
 import org.deeplearning4j.models.word2vec.wordstore.VocabConstructor;
 import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
 import org.deeplearning4j.text.documentiterator.LabelAwareIterator;
+import org.deeplearning4j.text.documentiterator.LabelledDocument;
 import org.deeplearning4j.text.documentiterator.LabelsSource;
 import org.deeplearning4j.text.invertedindex.InvertedIndex;
 import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * @author raver119@gmail.com
@@ -67,4 +70,108 @@ public abstract class BaseTextVectorizer implements TextVectorizer {
     public long numWordsEncountered() {
         return vocabCache.totalWordOccurrences();
     }
+
+    /**
+     * This method vectorizes given texts into one sparse minibatch, one row per text.
+     * Values are the same as produced by transform(String), but only non-zero ones are stored.
+     *
+     * @param texts
+     * @return
+     */
+    public SparseBatch transformSparse(List<String> texts) {
+        SparseBatch.Builder builder = new SparseBatch.Builder(vocabCache.numWords());
+        for (String text : texts) {
+            appendSparseRow(builder, tokenizerFactory.create(text).getTokens(), -1);
+        }
+        return builder.build();
+    }
+
+    /**
+     * This method vectorizes given tokenized documents into one sparse minibatch, one row per document
+     *
+     * @param documents
+     * @return
+     */
+    public SparseBatch transformSparseTokens(List<List<String>> documents) {
+        SparseBatch.Builder builder = new SparseBatch.Builder(vocabCache.numWords());
+        for (List<String> tokens : documents) {
+            appendSparseRow(builder, tokens, -1);
+        }
+        return builder.build();
+    }
+
+    /**
+     * This method vectorizes given documents into one sparse minibatch, with label index of each document
+     *
+     * @param documents
+     * @return
+     */
+    public SparseBatch vectorizeSparse(List<LabelledDocument> documents) {
+        SparseBatch.Builder builder = new SparseBatch.Builder(vocabCache.numWords());
+        for (LabelledDocument document : documents) {
+            int label = document.getLabel() == null ? -1 : labelsSource.indexOf(document.getLabel());
+            appendSparseRow(builder, tokenizerFactory.create(document.getContent()).getTokens(), label);
+        }
+        return builder.build();
+    }
+
+    protected void appendSparseRow(SparseBatch.Builder builder, List<String> tokens, int label) {
+        int[] indices = uniqueIndices(tokens);
+        int length = indices.length / 2;
+
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = (float) sparseWeight(indices[i], indices[length + i], tokens.size());
+        }
+
+        builder.addRow(indices, values, length, label);
+    }
+
+    /**
+     * This method maps tokens to vocabulary indices, and counts them without any per-token objects.
+     * Out-of-vocabulary tokens are skipped.
+     *
+     * @param tokens
+     * @return array of 2 * N elements: N sorted unique indices, followed by N counts
+     */
+    protected int[] uniqueIndices(List<String> tokens) {
+        int[] indices = new int[tokens.size()];
+        int cnt = 0;
+        for (String token : tokens) {
+            int idx = vocabCache.indexOf(token);
+            if (idx >= 0)
+                indices[cnt++] = idx;
+        }
+
+        Arrays.sort(indices, 0, cnt);
+
+        int unique = 0;
+        int[] counts = new int[cnt];
+        for (int i = 0; i < cnt; i++) {
+            if (unique > 0 && indices[unique - 1] == indices[i]) {
+                counts[unique - 1]++;
+            } else {
+                indices[unique] = indices[i];
+                counts[unique] = 1;
+                unique++;
+            }
+        }
+
+        int[] result = new int[unique * 2];
+        System.arraycopy(indices, 0, result, 0, unique);
+        System.arraycopy(counts, 0, result, unique, unique);
+        return result;
+    }
+
+    /**
+     * This method returns value of sparse vector element
+     *
+     * @param index vocabulary index of the word
+     * @param count number of occurrences of the word in document
+     * @param documentLength number of tokens in document
+     * @return
+     */
+    protected double sparseWeight(int index, int count, int documentLength) {
+        return count;
+    }
 }
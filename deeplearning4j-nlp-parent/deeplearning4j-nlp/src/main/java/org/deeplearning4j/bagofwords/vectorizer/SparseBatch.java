@@ -0,0 +1,181 @@
+package org.deeplearning4j.bagofwords.vectorizer;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Minibatch of sparse document vectors in CSR format: non-zero values of row i are stored at positions
+ * [rowPointers[i], rowPointers[i + 1]) of indices and values arrays. Indices within each row are sorted.
+ */
+public class SparseBatch implements Serializable {
+    @Getter
+    private final int rows;
+    @Getter
+    private final int columns;
+    @Getter
+    private final int[] rowPointers;
+    @Getter
+    private final int[] indices;
+    @Getter
+    private final float[] values;
+
+    /**
+     * Label index for each row, as defined by LabelsSource, or null if batch has no labels
+     */
+    @Getter
+    private final int[] labels;
+
+    public SparseBatch(int columns, @NonNull int[] rowPointers, @NonNull int[] indices, @NonNull float[] values,
+                    int[] labels) {
+        if (rowPointers.length < 1 || indices.length != values.length
+                        || rowPointers[rowPointers.length - 1] != indices.length)
+            throw new IllegalArgumentException("Malformed CSR arrays");
+
+        this.rows = rowPointers.length - 1;
+        this.columns = columns;
+        this.rowPointers = rowPointers;
+        this.indices = indices;
+        this.values = values;
+        this.labels = labels;
+    }
+
+    /**
+     * @return Total number of non-zero values in this batch
+     */
+    public int nnz() {
+        return indices.length;
+    }
+
+    /**
+     * @param row
+     * @return Number of non-zero values in given row
+     */
+    public int rowLength(int row) {
+        return rowPointers[row + 1] - rowPointers[row];
+    }
+
+    /**
+     * @param row
+     * @return Copy of column indices of non-zero values in given row
+     */
+    public int[] rowIndices(int row) {
+        return Arrays.copyOfRange(indices, rowPointers[row], rowPointers[row + 1]);
+    }
+
+    /**
+     * @param row
+     * @return Copy of non-zero values in given row
+     */
+    public float[] rowValues(int row) {
+        return Arrays.copyOfRange(values, rowPointers[row], rowPointers[row + 1]);
+    }
+
+    /**
+     * This method returns value at given position
+     *
+     * @param row
+     * @param column
+     * @return
+     */
+    public float get(int row, int column) {
+        int pos = Arrays.binarySearch(indices, rowPointers[row], rowPointers[row + 1], column);
+        return pos < 0 ? 0.0f : values[pos];
+    }
+
+    /**
+     * This method builds dense rows x columns matrix out of this batch.
+     * PLEASE NOTE: Dense matrix can be huge for large vocabularies, so it's suited for small batches/tests only
+     *
+     * @return
+     */
+    public INDArray toDense() {
+        INDArray result = Nd4j.create(rows, columns);
+        for (int r = 0; r < rows; r++) {
+            for (int p = rowPointers[r]; p < rowPointers[r + 1]; p++) {
+                result.putScalar(r, indices[p], values[p]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builder accumulating rows of CSR batch
+     */
+    public static class Builder {
+        private final int columns;
+        private int rows = 0;
+        private int nnz = 0;
+        private int[] rowPointers = new int[17];
+        private int[] indices = new int[256];
+        private float[] values = new float[256];
+        private int[] labels;
+        private boolean hasLabels = false;
+
+        /**
+         * @param columns number of columns, i.e. vocabulary size
+         */
+        public Builder(int columns) {
+            this.columns = columns;
+            this.labels = new int[16];
+        }
+
+        /**
+         * This method appends row to the batch
+         *
+         * @param rowIndices sorted column indices
+         * @param rowValues values
+         * @param length number of elements to take from rowIndices/rowValues
+         * @return
+         */
+        public Builder addRow(int[] rowIndices, float[] rowValues, int length) {
+            return addRow(rowIndices, rowValues, length, -1);
+        }
+
+        /**
+         * This method appends labeled row to the batch
+         *
+         * @param rowIndices sorted column indices
+         * @param rowValues values
+         * @param length number of elements to take from rowIndices/rowValues
+         * @param label label index of this row
+         * @return
+         */
+        public Builder addRow(int[] rowIndices, float[] rowValues, int length, int label) {
+            if (rows + 2 > rowPointers.length) {
+                rowPointers = Arrays.copyOf(rowPointers, rowPointers.length * 2);
+                labels = Arrays.copyOf(labels, labels.length * 2);
+            }
+
+            if (nnz + length > indices.length) {
+                int capacity = Math.max(indices.length * 2, nnz + length);
+                indices = Arrays.copyOf(indices, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+
+            System.arraycopy(rowIndices, 0, indices, nnz, length);
+            System.arraycopy(rowValues, 0, values, nnz, length);
+            nnz += length;
+
+            labels[rows] = label;
+            hasLabels |= label >= 0;
+
+            rows++;
+            rowPointers[rows] = nnz;
+            return this;
+        }
+
+        public int rows() {
+            return rows;
+        }
+
+        public SparseBatch build() {
+            return new SparseBatch(columns, Arrays.copyOf(rowPointers, rows + 1), Arrays.copyOf(indices, nnz),
+                            Arrays.copyOf(values, nnz), hasLabels ? Arrays.copyOf(labels, rows) : null);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
 import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
 import org.deeplearning4j.text.documentiterator.DocumentIterator;
 import org.deeplearning4j.text.documentiterator.LabelAwareIterator;
+import org.deeplearning4j.text.documentiterator.LabelledDocument;
 import org.deeplearning4j.text.documentiterator.LabelsSource;
 import org.deeplearning4j.text.documentiterator.interoperability.DocumentIteratorConverter;
 import org.deeplearning4j.text.sentenceiterator.SentenceIterator;
@@ -32,6 +33,9 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 @Slf4j
 public class TfidfVectorizer extends BaseTextVectorizer {
+    // IDF values by word index, used for sparse vectorization
+    protected volatile double[] idf;
+
     /**
      * Text coming from an input stream considered as one document
      *
@@ -137,6 +141,75 @@ public class TfidfVectorizer extends BaseTextVectorizer {
         return MathUtils.idf(vocabCache.totalNumberOfDocs(), vocabCache.docAppearedIn(word));
     }
 
+    @Override
+    public void buildVocab() {
+        super.buildVocab();
+        idf = null;
+    }
+
+    /**
+     * This method computes IDF values in a single streaming pass over documents, so memory used doesn't depend on
+     * corpus size: one counter per vocabulary word, and one document at a time.
+     * Computed values are used by transformSparse() methods instead of document counts stored in vocabulary.
+     *
+     * @param documents
+     */
+    public void fitIdf(@NonNull LabelAwareIterator documents) {
+        int[] appearances = new int[vocabCache.numWords()];
+        long numDocs = 0;
+
+        documents.reset();
+        while (documents.hasNextDocument()) {
+            LabelledDocument document = documents.nextDocument();
+            int[] indices = uniqueIndices(tokenizerFactory.create(document.getContent()).getTokens());
+            for (int i = 0; i < indices.length / 2; i++) {
+                appearances[indices[i]]++;
+            }
+            numDocs++;
+        }
+
+        double[] values = new double[appearances.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = MathUtils.idf(numDocs, Math.max(1, appearances[i]));
+        }
+
+        idf = values;
+        log.info("IDF computed over {} documents", numDocs);
+    }
+
+    /**
+     * This method computes IDF values in a single streaming pass over iterator used for vocabulary building
+     */
+    public void fitIdf() {
+        fitIdf(iterator);
+    }
+
+    /**
+     * Sparse counterpart of transform(List): IDF values are looked up by word index
+     */
+    @Override
+    protected double sparseWeight(int index, int count, int documentLength) {
+        return MathUtils.tfidf(tfForWord(count, documentLength), idf()[index]);
+    }
+
+    protected double[] idf() {
+        double[] values = idf;
+        if (values == null) {
+            synchronized (this) {
+                if (idf == null) {
+                    double[] array = new double[vocabCache.numWords()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = MathUtils.idf(vocabCache.totalNumberOfDocs(),
+                                        vocabCache.elementAtIndex(i).getSequencesCount());
+                    }
+                    idf = array;
+                }
+                values = idf;
+            }
+        }
+        return values;
+    }
+
 
     /**
      * Vectorizes the input source in to a dataset
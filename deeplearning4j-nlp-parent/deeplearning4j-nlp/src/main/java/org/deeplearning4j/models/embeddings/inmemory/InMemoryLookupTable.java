@@ -24,6 +24,7 @@ import lombok.NonNull;
 import lombok.Setter;
 import org.apache.commons.math3.util.FastMath;
 import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.sequencevectors.pipeline.ParallelRange;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.word2vec.Word2Vec;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
@@ -66,6 +67,8 @@ public class InMemoryLookupTable<T extends SequenceElement> implements WeightLoo
     protected long seed = 123;
     //negative sampling table
     protected INDArray table, syn1Neg;
+    // fingerprint of vocabulary frequencies negative sampling table was built for
+    protected long tableFingerprint;
     protected boolean useAdaGrad;
     protected double negative = 0;
     protected boolean useHS = true;
@@ -276,13 +279,46 @@ public class InMemoryLookupTable<T extends SequenceElement> implements WeightLoo
     }
 
 
+    /**
+     * This method initializes syn1Neg and negative sampling table.
+     * Existing table is reused, unless vocabulary frequencies changed since it was built.
+     */
     public synchronized void initNegative() {
-        if (negative > 0 && syn1Neg == null) {
-            syn1Neg = Nd4j.zeros(syn0.shape());
-            makeTable(Math.max(expTable.length, 100000), 0.75);
+        if (negative > 0) {
+            if (syn1Neg == null)
+                syn1Neg = Nd4j.zeros(syn0.shape());
+
+            int tableSize = Math.max(expTable.length, 100000);
+            double[] frequencies = elementFrequencies();
+            if (table == null || table.length() != tableSize || tableFingerprint != fingerprint(frequencies))
+                makeTable(frequencies, tableSize, 0.75);
         }
     }
 
+    /**
+     * @return frequencies of vocabulary elements, ordered by element index
+     */
+    protected double[] elementFrequencies() {
+        final double[] frequencies = new double[syn0 != null ? syn0.rows() : vocab.numWords()];
+        ParallelRange.run(frequencies.length, new ParallelRange.Task() {
+            @Override
+            public void run(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    T element = vocab.elementAtIndex(i);
+                    frequencies[i] = element == null ? 0.0 : element.getElementFrequency();
+                }
+            }
+        });
+        return frequencies;
+    }
+
+    protected static long fingerprint(double[] frequencies) {
+        long hash = frequencies.length;
+        for (double frequency : frequencies)
+            hash = 31 * hash + Double.doubleToLongBits(frequency);
+        return hash;
+    }
+
 
     protected void initExpTable() {
         expTable = new double[100000];
@@ -446,29 +482,65 @@ public class InMemoryLookupTable<T extends SequenceElement> implements WeightLoo
 
 
     protected void makeTable(int tableSize, double power) {
-        int vocabSize = syn0.rows();
-        table = Nd4j.create(tableSize);
+        makeTable(elementFrequencies(), tableSize, power);
+    }
+
+    /**
+     * This method builds unigram table for negative sampling: position i holds index of the first element,
+     * whose cumulative frequency^power share is >= i / tableSize. Table is built as primitive array, in parallel.
+     *
+     * @param frequencies element frequencies, ordered by element index
+     * @param tableSize
+     * @param power
+     */
+    protected void makeTable(@NonNull final double[] frequencies, final int tableSize, final double power) {
+        final int vocabSize = frequencies.length;
+        final double[] cumulative = new double[vocabSize];
+        ParallelRange.run(vocabSize, new ParallelRange.Task() {
+            @Override
+            public void run(int from, int to) {
+                for (int i = from; i < to; i++)
+                    cumulative[i] = Math.pow(frequencies[i], power);
+            }
+        });
+
         double trainWordsPow = 0.0;
-        for (String word : vocab.words()) {
-            trainWordsPow += Math.pow(vocab.wordFrequency(word), power);
+        for (int i = 0; i < vocabSize; i++) {
+            trainWordsPow += cumulative[i];
+            cumulative[i] = trainWordsPow;
         }
 
-        int wordIdx = 0;
-        String word = vocab.wordAtIndex(wordIdx);
-        double d1 = Math.pow(vocab.wordFrequency(word), power) / trainWordsPow;
-        for (int i = 0; i < tableSize; i++) {
-            table.putScalar(i, wordIdx);
-            double mul = i * 1.0 / (double) tableSize;
-            if (mul > d1) {
-                if (wordIdx < vocabSize - 1)
-                    wordIdx++;
-                word = vocab.wordAtIndex(wordIdx);
-                String wordAtIndex = vocab.wordAtIndex(wordIdx);
-                if (word == null)
-                    continue;
-                d1 += Math.pow(vocab.wordFrequency(wordAtIndex), power) / trainWordsPow;
+        for (int i = 0; i < vocabSize; i++)
+            cumulative[i] = trainWordsPow > 0 ? cumulative[i] / trainWordsPow : (i + 1) / (double) vocabSize;
+
+        final float[] result = new float[tableSize];
+        ParallelRange.run(tableSize, new ParallelRange.Task() {
+            @Override
+            public void run(int from, int to) {
+                // first element with cumulative share >= from / tableSize
+                double start = from / (double) tableSize;
+                int wordIdx = 0;
+                int high = vocabSize - 1;
+                while (wordIdx < high) {
+                    int middle = (wordIdx + high) >>> 1;
+                    if (cumulative[middle] < start)
+                        wordIdx = middle + 1;
+                    else
+                        high = middle;
+                }
+
+                for (int i = from; i < to; i++) {
+                    double mul = i / (double) tableSize;
+                    while (wordIdx < vocabSize - 1 && mul > cumulative[wordIdx])
+                        wordIdx++;
+
+                    result[i] = wordIdx;
+                }
             }
-        }
+        });
+
+        table = Nd4j.create(result);
+        tableFingerprint = fingerprint(frequencies);
     }
 
     /**
@@ -492,8 +564,16 @@ public class InMemoryLookupTable<T extends SequenceElement> implements WeightLoo
         return table;
     }
 
+    /**
+     * This method sets negative sampling table, i.e. restored from saved model.
+     * Table is considered valid for current vocabulary frequencies, so it won't be rebuilt by initNegative()
+     *
+     * @param table
+     */
     public void setTable(INDArray table) {
         this.table = table;
+        if (table != null && vocab != null)
+            this.tableFingerprint = fingerprint(elementFrequencies());
     }
 
     public INDArray getSyn1Neg() {
@@ -8,6 +8,7 @@ import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
 import org.nd4j.linalg.api.ndarray.INDArray;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -46,6 +47,22 @@ public interface SequenceLearningAlgorithm<T extends SequenceElement> {
     INDArray inferSequence(Sequence<T> sequence, long nextRandom, double learningRate, double minLearningRate,
                     int iterations);
 
+    /**
+     * This method does training on a batch of previously unseen paragraphs, and returns inferred vectors.
+     * Inference for all paragraphs runs in lockstep, so aggregates for different paragraphs are executed together.
+     *
+     * PLEASE NOTE: Model weights are not updated, so this method can be called concurrently
+     *
+     * @param sequences
+     * @param nextRandom
+     * @param learningRate
+     * @param minLearningRate
+     * @param iterations
+     * @return inferred vectors, in the same order as sequences. Empty sequences get null vector.
+     */
+    List<INDArray> inferSequences(List<Sequence<T>> sequences, long nextRandom, double learningRate,
+                    double minLearningRate, int iterations);
+
     ElementsLearningAlgorithm<T> getElementsLearningAlgorithm();
 
     void finish();
@@ -8,6 +8,7 @@ import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
 import org.deeplearning4j.models.embeddings.learning.ElementsLearningAlgorithm;
 import org.deeplearning4j.models.embeddings.loader.VectorsConfiguration;
 import org.deeplearning4j.models.sequencevectors.interfaces.SequenceIterator;
+import org.deeplearning4j.models.sequencevectors.pipeline.PipelineStats;
 import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
@@ -49,10 +50,28 @@ public class CBOW<T extends SequenceElement> implements ElementsLearningAlgorith
 
     protected ThreadLocal<List<Aggregate>> batches = new ThreadLocal<>();
 
+    @Setter
+    protected PipelineStats pipelineStats;
+
     public List<Aggregate> getBatch() {
         return batches.get();
     }
 
+    /**
+     * This method executes aggregates accumulated by current thread, and records batch fill into PipelineStats, if any
+     */
+    public void execBatch() {
+        List<Aggregate> batch = batches.get();
+        if (batch == null || batch.isEmpty())
+            return;
+
+        Nd4j.getExecutioner().exec(batch);
+        if (pipelineStats != null)
+            pipelineStats.recordAggregateBatch(batch.size());
+
+        batch.clear();
+    }
+
     @Override
     public String getCodeName() {
         return "CBOW";
@@ -101,8 +120,7 @@ public class CBOW<T extends SequenceElement> implements ElementsLearningAlgorith
     @Override
     public void finish() {
         if (batches != null && batches.get() != null && batches.get().size() > 0) {
-            Nd4j.getExecutioner().exec(batches.get());
-            batches.get().clear();
+            execBatch();
         }
     }
 
@@ -134,6 +152,36 @@ public class CBOW<T extends SequenceElement> implements ElementsLearningAlgorith
 
     public void iterateSample(T currentWord, int[] windowWords, AtomicLong nextRandom, double alpha,
                     boolean isInference, int numLabels, boolean trainWords, INDArray inferenceVector) {
+        Aggregate cbow = createAggregate(currentWord, windowWords, nextRandom, alpha, numLabels, trainWords,
+                        inferenceVector);
+
+        if (batches.get() == null)
+            batches.set(new ArrayList<Aggregate>());
+
+        if (!isInference) {
+            batches.get().add(cbow);
+            if (batches.get().size() > 4096) {
+                execBatch();
+            }
+        } else
+            Nd4j.getExecutioner().exec(cbow);
+
+    }
+
+    /**
+     * This method builds CBOW aggregate for given sample, without executing it
+     *
+     * @param currentWord
+     * @param windowWords
+     * @param nextRandom
+     * @param alpha
+     * @param numLabels
+     * @param trainWords
+     * @param inferenceVector if not null, this vector will be updated instead of syn0 rows
+     * @return
+     */
+    public Aggregate createAggregate(T currentWord, int[] windowWords, AtomicLong nextRandom, double alpha,
+                    int numLabels, boolean trainWords, INDArray inferenceVector) {
         int[] idxSyn1 = null;
         int[] codes = null;
 
@@ -160,24 +208,13 @@ public class CBOW<T extends SequenceElement> implements ElementsLearningAlgorith
             }
         }
 
-        if (batches.get() == null)
-            batches.set(new ArrayList<Aggregate>());
-
         AggregateCBOW cbow = new AggregateCBOW(syn0.get(), syn1.get(), syn1Neg.get(), expTable.get(), table.get(),
                         currentWord.getIndex(), windowWords, idxSyn1, codes, (int) negative, currentWord.getIndex(),
                         lookupTable.layerSize(), alpha, nextRandom.get(), vocabCache.numWords(), numLabels, trainWords,
                         inferenceVector);
         nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
 
-        if (!isInference) {
-            batches.get().add(cbow);
-            if (batches.get().size() > 4096) {
-                Nd4j.getExecutioner().exec(batches.get());
-                batches.get().clear();
-            }
-        } else
-            Nd4j.getExecutioner().exec(cbow);
-
+        return cbow;
     }
 
     public void cbow(int i, List<T> sentence, int b, AtomicLong nextRandom, double alpha, int currentWindow) {
@@ -206,8 +243,7 @@ public class CBOW<T extends SequenceElement> implements ElementsLearningAlgorith
         iterateSample(currentWord, windowWords, nextRandom, alpha, false, 0, true, null);
 
         if (batches != null && batches.get() != null && batches.get().size() >= configuration.getBatchSize()) {
-            Nd4j.getExecutioner().exec(batches.get());
-            batches.get().clear();
+            execBatch();
         }
     }
 
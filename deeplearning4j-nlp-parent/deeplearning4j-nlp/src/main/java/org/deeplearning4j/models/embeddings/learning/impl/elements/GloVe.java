@@ -258,9 +258,12 @@ public class GloVe<T extends SequenceElement> implements ElementsLearningAlgorit
                 // now we fetch pairs into batch
                 List<Pair<Pair<T, T>, Double>> pairs = new ArrayList<>();
                 int cnt = 0;
-                while (coList.hasNext() && cnt < batchSize) {
-                    pairs.add(coList.next());
-                    cnt++;
+                // iterator is shared between threads, so batch is fetched atomically
+                synchronized (coList) {
+                    while (coList.hasNext() && cnt < batchSize) {
+                        pairs.add(coList.next());
+                        cnt++;
+                    }
                 }
 
                 if (shuffle)
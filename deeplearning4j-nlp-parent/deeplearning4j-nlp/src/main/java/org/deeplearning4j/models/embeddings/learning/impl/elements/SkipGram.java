@@ -9,6 +9,7 @@ import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
 import org.deeplearning4j.models.embeddings.learning.ElementsLearningAlgorithm;
 import org.deeplearning4j.models.embeddings.loader.VectorsConfiguration;
 import org.deeplearning4j.models.sequencevectors.interfaces.SequenceIterator;
+import org.deeplearning4j.models.sequencevectors.pipeline.PipelineStats;
 import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
@@ -53,10 +54,28 @@ public class SkipGram<T extends SequenceElement> implements ElementsLearningAlgo
 
     }
 
+    @Setter
+    protected PipelineStats pipelineStats;
+
     public List<Aggregate> getBatch() {
         return batches.get();
     }
 
+    /**
+     * This method executes aggregates accumulated by current thread, and records batch fill into PipelineStats, if any
+     */
+    public void execBatch() {
+        List<Aggregate> batch = batches.get();
+        if (batch == null || batch.isEmpty())
+            return;
+
+        Nd4j.getExecutioner().exec(batch);
+        if (pipelineStats != null)
+            pipelineStats.recordAggregateBatch(batch.size());
+
+        batch.clear();
+    }
+
     /**
      * Returns implementation code name
      *
@@ -173,8 +192,7 @@ public class SkipGram<T extends SequenceElement> implements ElementsLearningAlgo
         }
 
         if (batches != null && batches.get() != null && batches.get().size() >= configuration.getBatchSize()) {
-            Nd4j.getExecutioner().exec(batches.get());
-            batches.get().clear();
+            execBatch();
         }
 
         return score;
@@ -183,8 +201,7 @@ public class SkipGram<T extends SequenceElement> implements ElementsLearningAlgo
     @Override
     public void finish() {
         if (batches != null && batches.get() != null && batches.get().size() > 0) {
-            Nd4j.getExecutioner().exec(batches.get());
-            batches.get().clear();
+            execBatch();
         }
     }
 
@@ -223,16 +240,45 @@ public class SkipGram<T extends SequenceElement> implements ElementsLearningAlgo
 
     public double iterateSample(T w1, T lastWord, AtomicLong nextRandom, double alpha, boolean isInference,
                     INDArray inferenceVector) {
+        Aggregate sg = createAggregate(w1, lastWord, nextRandom, alpha, isInference, inferenceVector);
+        if (sg == null)
+            return 0.0;
+
+        if (batches.get() == null) {
+            batches.set(new ArrayList<Aggregate>());
+        }
+
+        if (!isInference) {
+            batches.get().add(sg);
+            if (batches.get().size() > 4096) {
+                execBatch();
+            }
+        } else
+            Nd4j.getExecutioner().exec(sg);
+
+        return 0.0;
+    }
+
+    /**
+     * This method builds SkipGram aggregate for given pair of elements, without executing it
+     *
+     * @param w1
+     * @param lastWord
+     * @param nextRandom
+     * @param alpha
+     * @param isInference
+     * @param inferenceVector if not null, this vector will be updated instead of syn0 row of lastWord
+     * @return aggregate, or null if this pair should be skipped
+     */
+    public Aggregate createAggregate(T w1, T lastWord, AtomicLong nextRandom, double alpha, boolean isInference,
+                    INDArray inferenceVector) {
         if (w1 == null || lastWord == null || (lastWord.getIndex() < 0 && !isInference)
                         || w1.getIndex() == lastWord.getIndex() || w1.getLabel().equals("STOP")
                         || lastWord.getLabel().equals("STOP") || w1.getLabel().equals("UNK")
                         || lastWord.getLabel().equals("UNK")) {
-            return 0.0;
+            return null;
         }
 
-
-        double score = 0.0;
-
         int[] idxSyn1 = null;
         int[] codes = null;
         if (configuration.isUseHierarchicSoftmax()) {
@@ -262,10 +308,6 @@ public class SkipGram<T extends SequenceElement> implements ElementsLearningAlgo
             }
         }
 
-        if (batches.get() == null) {
-            batches.set(new ArrayList<Aggregate>());
-        }
-
         //log.info("VocabWords: {}; lastWordIndex: {}; syn1neg: {}", vocabCache.numWords(), lastWord.getIndex(), syn1Neg.get().rows());
 
         AggregateSkipGram sg = new AggregateSkipGram(syn0.get(), syn1.get(), syn1Neg.get(), expTable.get(), table.get(),
@@ -273,15 +315,6 @@ public class SkipGram<T extends SequenceElement> implements ElementsLearningAlgo
                         nextRandom.get(), vocabCache.numWords(), inferenceVector);
         nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
 
-        if (!isInference) {
-            batches.get().add(sg);
-            if (batches.get().size() > 4096) {
-                Nd4j.getExecutioner().exec(batches.get());
-                batches.get().clear();
-            }
-        } else
-            Nd4j.getExecutioner().exec(sg);
-
-        return score;
+        return sg;
     }
 }
@@ -0,0 +1,394 @@
+package org.deeplearning4j.models.embeddings.learning.impl.elements;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.learning.ElementsLearningAlgorithm;
+import org.deeplearning4j.models.embeddings.loader.VectorsConfiguration;
+import org.deeplearning4j.models.sequencevectors.interfaces.SequenceIterator;
+import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * fastText-style Skip-Gram implementation for dl4j SequenceVectors.
+ *
+ * Each element is represented by its own row plus hashed character n-grams of "&lt;element&gt;", mapped into a
+ * fixed number of buckets. Input vector of an element is the mean of its own row and its bucket rows, and gradients
+ * are applied to all of them. Buckets are kept in a separate buckets x layerSize INDArray, so memory used by
+ * subwords doesn't depend on vocabulary size.
+ *
+ * Element rows are trained in a separate copy of syn0, and syn0 rows of vocabulary elements are only overwritten with
+ * composed vectors (see composeVocabularyVectors()) at the end of fit(). Since composed vectors are always computed
+ * from trained rows, fitting the same model again (i.e. with resetModel(false)) continues training from the raw rows,
+ * instead of treating composed vectors as raw ones. This copy takes as much memory as syn0.
+ *
+ * After training, vectors for elements absent in vocabulary can be composed from their n-gram buckets via
+ * composeVector(), and SequenceVectors.getWordVectorMatrix() does that automatically.
+ *
+ * PLEASE NOTE: Updates are done in java, hogwild-style, so this algorithm is slower than aggregates-based SkipGram.
+ */
+@Slf4j
+public class SubwordSkipGram<T extends SequenceElement> implements ElementsLearningAlgorithm<T> {
+    public static final int DEFAULT_MIN_N = 3;
+    public static final int DEFAULT_MAX_N = 6;
+    public static final int DEFAULT_BUCKETS = 200000;
+
+    private static final double MAX_EXP = 6;
+
+    protected VocabCache<T> vocabCache;
+    protected InMemoryLookupTable<T> lookupTable;
+    protected VectorsConfiguration configuration;
+
+    protected int window;
+    protected double negative;
+    protected double sampling;
+    protected boolean useHS;
+    protected int vectorLength;
+
+    @Getter
+    protected int minN;
+    @Getter
+    protected int maxN;
+    @Getter
+    protected int numBuckets;
+
+    /**
+     * buckets x layerSize matrix with subword vectors
+     */
+    @Getter
+    protected INDArray buckets;
+
+    /**
+     * Trained (not composed) element vectors, same shape as syn0
+     */
+    protected INDArray elementVectors;
+
+    // syn0 instance that composed vectors were written to
+    protected INDArray composedSyn0;
+
+    // bucket ids for each vocabulary element, by element index
+    protected int[][] subwords;
+    protected double[] expTable;
+
+    /**
+     * Dummy construction is required for reflection
+     */
+    public SubwordSkipGram() {
+        this(DEFAULT_MIN_N, DEFAULT_MAX_N, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * @param minN Minimal length of character n-gram
+     * @param maxN Maximal length of character n-gram
+     * @param numBuckets Number of hash buckets for n-grams
+     */
+    public SubwordSkipGram(int minN, int maxN, int numBuckets) {
+        if (minN < 1 || maxN < minN)
+            throw new IllegalArgumentException("Illegal n-gram range: [" + minN + ", " + maxN + "]");
+
+        if (numBuckets < 1)
+            throw new IllegalArgumentException("Number of buckets should be positive");
+
+        this.minN = minN;
+        this.maxN = maxN;
+        this.numBuckets = numBuckets;
+    }
+
+    /**
+     * Returns implementation code name
+     *
+     * @return
+     */
+    @Override
+    public String getCodeName() {
+        return "SubwordSkipGram";
+    }
+
+    @Override
+    public void configure(@NonNull VocabCache<T> vocabCache, @NonNull WeightLookupTable<T> lookupTable,
+                    @NonNull VectorsConfiguration configuration) {
+        this.vocabCache = vocabCache;
+        this.lookupTable = (InMemoryLookupTable<T>) lookupTable;
+        this.configuration = configuration;
+
+        this.window = configuration.getWindow();
+        this.negative = configuration.getNegative();
+        this.sampling = configuration.getSampling();
+        this.useHS = configuration.isUseHierarchicSoftmax();
+        this.vectorLength = configuration.getLayersSize();
+
+        if (negative > 0 && this.lookupTable.getSyn1Neg() == null) {
+            log.info("Initializing syn1Neg...");
+            this.lookupTable.setUseHS(useHS);
+            this.lookupTable.setNegative(negative);
+            this.lookupTable.resetWeights(false);
+        }
+
+        this.expTable = this.lookupTable.getExpTable();
+
+        if (buckets == null || buckets.columns() != vectorLength) {
+            log.info("Initializing {} subword buckets...", numBuckets);
+            buckets = Nd4j.rand(new int[] {numBuckets, vectorLength}, configuration.getSeed()).subi(0.5)
+                            .divi(vectorLength);
+        }
+
+        // syn0 contains raw vectors, unless it's the same array composed vectors were written to by previous fit()
+        INDArray syn0 = this.lookupTable.getSyn0();
+        if (elementVectors == null || syn0 != composedSyn0 || !Arrays.equals(elementVectors.shape(), syn0.shape())) {
+            elementVectors = syn0.dup();
+        }
+
+        subwords = new int[vocabCache.numWords()][];
+        for (int i = 0; i < vocabCache.numWords(); i++) {
+            T element = vocabCache.elementAtIndex(i);
+            subwords[i] = element == null || element.isLabel() ? new int[0] : subwordBuckets(element.getLabel());
+        }
+    }
+
+    /**
+     * SubwordSkipGram doesn't involves any pretraining
+     *
+     * @param iterator
+     */
+    @Override
+    public void pretrain(SequenceIterator<T> iterator) {
+        // no-op
+    }
+
+    /**
+     * Learns sequence using fastText-style SkipGram: each element predicts its context elements
+     *
+     * @param sequence
+     * @param nextRandom
+     * @param learningRate
+     */
+    @Override
+    public double learnSequence(@NonNull Sequence<T> sequence, @NonNull AtomicLong nextRandom, double learningRate) {
+        List<T> elements = sequence.getElements();
+        if (elements.isEmpty())
+            return 0.0;
+
+        for (int i = 0; i < elements.size(); i++) {
+            T word = elements.get(i);
+            if (word == null || word.getIndex() < 0 || skipped(word, nextRandom))
+                continue;
+
+            nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
+            int currentWindow = window - (int) (nextRandom.get() % window);
+
+            INDArray hidden = inputVector(word);
+            INDArray neu1e = Nd4j.zeros(vectorLength);
+
+            for (int c = Math.max(0, i - currentWindow); c < Math.min(elements.size(), i + currentWindow + 1); c++) {
+                T context = elements.get(c);
+                if (c == i || context == null || context.getIndex() < 0)
+                    continue;
+
+                iterateSample(context, hidden, neu1e, nextRandom, learningRate);
+            }
+
+            int[] rows = subwords[word.getIndex()];
+            Nd4j.getBlasWrapper().level1().axpy(vectorLength, 1.0, neu1e, elementVectors.getRow(word.getIndex()));
+            for (int row : rows) {
+                Nd4j.getBlasWrapper().level1().axpy(vectorLength, 1.0, neu1e, buckets.getRow(row));
+            }
+        }
+
+        return 0.0;
+    }
+
+    protected boolean skipped(T element, AtomicLong nextRandom) {
+        if (sampling <= 0)
+            return false;
+
+        double numWords = vocabCache.totalWordOccurrences();
+        double ran = (Math.sqrt(element.getElementFrequency() / (sampling * numWords)) + 1) * (sampling * numWords)
+                        / element.getElementFrequency();
+
+        nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
+        return ran < (nextRandom.get() & 0xFFFF) / (double) 65536;
+    }
+
+    /**
+     * This method updates output layer for single (input, target) pair, and accumulates input error into neu1e
+     */
+    protected void iterateSample(T target, INDArray hidden, INDArray neu1e, AtomicLong nextRandom, double alpha) {
+        if (useHS) {
+            INDArray syn1 = lookupTable.getSyn1();
+            for (int i = 0; i < target.getCodeLength(); i++) {
+                int code = target.getCodes().get(i);
+                int point = target.getPoints().get(i);
+                if (point < 0 || point >= syn1.rows())
+                    continue;
+
+                INDArray row = syn1.getRow(point);
+                double dot = Nd4j.getBlasWrapper().dot(hidden, row);
+                if (dot <= -MAX_EXP || dot >= MAX_EXP)
+                    continue;
+
+                double g = (1 - code - sigmoid(dot)) * alpha;
+                Nd4j.getBlasWrapper().level1().axpy(vectorLength, g, row, neu1e);
+                Nd4j.getBlasWrapper().level1().axpy(vectorLength, g, hidden, row);
+            }
+        }
+
+        if (negative > 0) {
+            INDArray syn1Neg = lookupTable.getSyn1Neg();
+            INDArray table = lookupTable.getTable();
+            for (int d = 0; d < negative + 1; d++) {
+                int index;
+                int label;
+                if (d == 0) {
+                    index = target.getIndex();
+                    label = 1;
+                } else {
+                    nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
+                    index = table.getInt((int) ((nextRandom.get() >> 16) % table.length()));
+                    if (index <= 0)
+                        index = (int) (nextRandom.get() % (vocabCache.numWords() - 1)) + 1;
+
+                    if (index == target.getIndex())
+                        continue;
+                    label = 0;
+                }
+
+                INDArray row = syn1Neg.getRow(index);
+                double dot = Nd4j.getBlasWrapper().dot(hidden, row);
+                double g;
+                if (dot > MAX_EXP)
+                    g = (label - 1) * alpha;
+                else if (dot < -MAX_EXP)
+                    g = label * alpha;
+                else
+                    g = (label - sigmoid(dot)) * alpha;
+
+                Nd4j.getBlasWrapper().level1().axpy(vectorLength, g, row, neu1e);
+                Nd4j.getBlasWrapper().level1().axpy(vectorLength, g, hidden, row);
+            }
+        }
+    }
+
+    private double sigmoid(double dot) {
+        int idx = (int) ((dot + MAX_EXP) * (expTable.length / MAX_EXP / 2.0));
+        return expTable[Math.max(0, Math.min(expTable.length - 1, idx))];
+    }
+
+    /**
+     * This method returns input vector of vocabulary element: mean of its trained row and its subword buckets
+     */
+    protected INDArray inputVector(T element) {
+        INDArray vector = elementVectors.getRow(element.getIndex()).dup();
+        int[] rows = subwords[element.getIndex()];
+        for (int row : rows) {
+            vector.addi(buckets.getRow(row));
+        }
+
+        return vector.divi(rows.length + 1);
+    }
+
+    /**
+     * This method composes vector for arbitrary word out of its character n-gram buckets.
+     * Useful for words that are absent in vocabulary.
+     *
+     * @param word
+     * @return composed vector, or null if model wasn't configured yet
+     */
+    public INDArray composeVector(@NonNull String word) {
+        if (buckets == null)
+            return null;
+
+        int[] rows = subwordBuckets(word);
+        INDArray vector = Nd4j.zeros(buckets.columns());
+        for (int row : rows) {
+            vector.addi(buckets.getRow(row));
+        }
+
+        return rows.length == 0 ? vector : vector.divi(rows.length);
+    }
+
+    /**
+     * This method replaces syn0 rows of vocabulary elements with their final vectors, i.e. mean of trained element
+     * row and its subword buckets, so vectors of known and unknown words are living in the same space. Rows of labels
+     * are left intact. Trained rows aren't modified, so this method can be called any number of times.
+     *
+     * PLEASE NOTE: This method is called by SequenceVectors at the end of fit()
+     */
+    public void composeVocabularyVectors() {
+        if (subwords == null)
+            return;
+
+        INDArray syn0 = lookupTable.getSyn0();
+        for (int i = 0; i < subwords.length; i++) {
+            T element = vocabCache.elementAtIndex(i);
+            if (element == null || element.isLabel())
+                continue;
+
+            syn0.putRow(i, inputVector(element));
+        }
+        composedSyn0 = syn0;
+    }
+
+    /**
+     * This method returns bucket ids of character n-grams for given word. Word is wrapped with '&lt;' and '&gt;', so
+     * prefixes and suffixes are distinguished from n-grams in the middle of the word.
+     *
+     * @param word
+     * @return
+     */
+    public int[] subwordBuckets(@NonNull String word) {
+        String wrapped = "<" + word + ">";
+        int length = wrapped.length();
+
+        int count = 0;
+        for (int n = minN; n <= maxN; n++) {
+            count += Math.max(0, length - n + 1);
+        }
+
+        int[] result = new int[count];
+        int pos = 0;
+        for (int n = minN; n <= maxN; n++) {
+            for (int start = 0; start + n <= length; start++) {
+                result[pos++] = bucket(wrapped, start, start + n);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * FNV-1a hash of given char range, mapped to bucket id
+     */
+    protected int bucket(String string, int start, int end) {
+        int hash = 0x811C9DC5;
+        for (int i = start; i < end; i++) {
+            hash ^= string.charAt(i);
+            hash *= 0x01000193;
+        }
+
+        return (int) ((hash & 0xFFFFFFFFL) % numBuckets);
+    }
+
+    /**
+     * SubwordSkipGram has no reasons for early termination ever.
+     *
+     * @return
+     */
+    @Override
+    public boolean isEarlyTerminationHit() {
+        return false;
+    }
+
+    @Override
+    public void finish() {
+        // no-op, updates are applied in place
+    }
+}
@@ -11,6 +11,7 @@ import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.aggregates.Aggregate;
 import org.nd4j.linalg.api.rng.Random;
 import org.nd4j.linalg.factory.Nd4j;
 import org.slf4j.Logger;
@@ -121,8 +122,7 @@ public class DBOW<T extends SequenceElement> implements SequenceLearningAlgorith
 
         if (skipGram != null && skipGram.getBatch() != null && skipGram.getBatch() != null
                         && skipGram.getBatch().size() >= configuration.getBatchSize()) {
-            Nd4j.getExecutioner().exec(skipGram.getBatch());
-            skipGram.getBatch().clear();
+            skipGram.execBatch();
         }
     }
 
@@ -146,11 +146,7 @@ public class DBOW<T extends SequenceElement> implements SequenceLearningAlgorith
         if (sequence.isEmpty())
             return null;
 
-
-        Random random = Nd4j.getRandomFactory().getNewRandomInstance(configuration.getSeed() * sequence.hashCode(),
-                        lookupTable.layerSize() + 1);
-        INDArray ret = Nd4j.rand(new int[] {1, lookupTable.layerSize()}, random).subi(0.5)
-                        .divi(lookupTable.layerSize());
+        INDArray ret = initialVector(sequence);
 
         for (int iter = 0; iter < iterations; iter++) {
             nr.set(Math.abs(nr.get() * 25214903917L + 11));
@@ -164,11 +160,100 @@ public class DBOW<T extends SequenceElement> implements SequenceLearningAlgorith
         return ret;
     }
 
+    /**
+     * This method does inference for a batch of previously unseen paragraphs. On each step one SkipGram aggregate is
+     * built per paragraph, and all of them are executed as single batch. Each aggregate in a batch updates its own
+     * inference vector, and weights aren't updated during inference, so paragraphs don't interfere with each other.
+     *
+     * PLEASE NOTE: sequences should have labels set, as in {@link #inferSequence(Sequence, long, double, double, int)}
+     *
+     * @param sequences
+     * @param nextRandom
+     * @param learningRate
+     * @param minLearningRate
+     * @param iterations
+     * @return
+     */
+    @Override
+    public List<INDArray> inferSequences(@NonNull List<Sequence<T>> sequences, long nextRandom, double learningRate,
+                    double minLearningRate, int iterations) {
+        int numSequences = sequences.size();
+        List<INDArray> result = new ArrayList<>(numSequences);
+        AtomicLong[] randoms = new AtomicLong[numSequences];
+        for (int d = 0; d < numSequences; d++) {
+            Sequence<T> sequence = sequences.get(d);
+            if (sequence == null || sequence.isEmpty()) {
+                result.add(null);
+                continue;
+            }
+
+            result.add(initialVector(sequence));
+            randoms[d] = new AtomicLong(nextRandom);
+        }
+
+        List<List<T>> sentences = new ArrayList<>(numSequences);
+        List<Aggregate> batch = new ArrayList<>(numSequences);
+        for (int iter = 0; iter < iterations; iter++) {
+            // subsampling is applied per paragraph, same as for single paragraph inference
+            sentences.clear();
+            int maxSteps = 0;
+            for (int d = 0; d < numSequences; d++) {
+                Sequence<T> sequence = sequences.get(d);
+                if (randoms[d] == null || sequence.getSequenceLabel() == null) {
+                    sentences.add(null);
+                    continue;
+                }
+
+                AtomicLong nr = randoms[d];
+                nr.set(Math.abs(nr.get() * 25214903917L + 11));
+                List<T> sentence = skipGram.applySubsampling(sequence, nr).getElements();
+                sentences.add(sentence);
+                maxSteps = Math.max(maxSteps, sentence.size() * sequence.getSequenceLabels().size());
+            }
+
+            for (int step = 0; step < maxSteps; step++) {
+                for (int d = 0; d < numSequences; d++) {
+                    List<T> sentence = sentences.get(d);
+                    if (sentence == null || sentence.isEmpty())
+                        continue;
+
+                    List<T> labels = sequences.get(d).getSequenceLabels();
+                    if (step >= sentence.size() * labels.size())
+                        continue;
+
+                    T word = sentence.get(step % sentence.size());
+                    T label = labels.get(step / sentence.size());
+                    if (word == null)
+                        continue;
+
+                    Aggregate aggregate = skipGram.createAggregate(word, label, randoms[d], learningRate, true,
+                                    result.get(d));
+                    if (aggregate != null)
+                        batch.add(aggregate);
+                }
+
+                if (!batch.isEmpty()) {
+                    Nd4j.getExecutioner().exec(batch);
+                    batch.clear();
+                }
+            }
+
+            learningRate = ((learningRate - minLearningRate) / (iterations - iter)) + minLearningRate;
+        }
+
+        return result;
+    }
+
+    protected INDArray initialVector(Sequence<T> sequence) {
+        Random random = Nd4j.getRandomFactory().getNewRandomInstance(configuration.getSeed() * sequence.hashCode(),
+                        lookupTable.layerSize() + 1);
+        return Nd4j.rand(new int[] {1, lookupTable.layerSize()}, random).subi(0.5).divi(lookupTable.layerSize());
+    }
+
     @Override
     public void finish() {
         if (skipGram != null && skipGram.getBatch() != null && skipGram.getBatch().size() > 0) {
-            Nd4j.getExecutioner().exec(skipGram.getBatch());
-            skipGram.getBatch().clear();
+            skipGram.execBatch();
         }
     }
 }
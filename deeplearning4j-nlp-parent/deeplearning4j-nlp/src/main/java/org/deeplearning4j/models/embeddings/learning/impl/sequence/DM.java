@@ -13,6 +13,7 @@ import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.aggregates.Aggregate;
 import org.nd4j.linalg.api.rng.Random;
 import org.nd4j.linalg.factory.Nd4j;
 
@@ -104,9 +105,20 @@ public class DM<T extends SequenceElement> implements SequenceLearningAlgorithm<
 
     public void dm(int i, Sequence<T> sequence, int b, AtomicLong nextRandom, double alpha, List<T> labels,
                     boolean isInference, INDArray inferenceVector) {
-        int end = window * 2 + 1 - b;
-
         T currentWord = sequence.getElementByIndex(i);
+        int[] windowWords = windowWords(i, sequence, b, labels);
+
+        // pass for underlying
+        cbow.iterateSample(currentWord, windowWords, nextRandom, alpha, isInference, labels == null ? 0 : labels.size(),
+                        configuration.isTrainElementsVectors(), inferenceVector);
+
+        if (cbow.getBatch() != null && cbow.getBatch().size() >= configuration.getBatchSize()) {
+            cbow.execBatch();
+        }
+    }
+
+    protected int[] windowWords(int i, Sequence<T> sequence, int b, List<T> labels) {
+        int end = window * 2 + 1 - b;
 
         List<Integer> intsList = new ArrayList<>();
         for (int a = b; a < end; a++) {
@@ -131,14 +143,7 @@ public class DM<T extends SequenceElement> implements SequenceLearningAlgorithm<
             windowWords[x] = intsList.get(x);
         }
 
-        // pass for underlying
-        cbow.iterateSample(currentWord, windowWords, nextRandom, alpha, isInference, labels == null ? 0 : labels.size(),
-                        configuration.isTrainElementsVectors(), inferenceVector);
-
-        if (cbow.getBatch() != null && cbow.getBatch().size() >= configuration.getBatchSize()) {
-            Nd4j.getExecutioner().exec(cbow.getBatch());
-            cbow.getBatch().clear();
-        }
+        return windowWords;
     }
 
     @Override
@@ -166,10 +171,7 @@ public class DM<T extends SequenceElement> implements SequenceLearningAlgorithm<
         if (sequence.isEmpty())
             return null;
 
-        Random random = Nd4j.getRandomFactory().getNewRandomInstance(configuration.getSeed() * sequence.hashCode(),
-                        lookupTable.layerSize() + 1);
-        INDArray ret = Nd4j.rand(new int[] {1, lookupTable.layerSize()}, random).subi(0.5)
-                        .divi(lookupTable.layerSize());
+        INDArray ret = initialVector(sequence);
 
         for (int iter = 0; iter < iterations; iter++) {
             for (int i = 0; i < sequence.size(); i++) {
@@ -184,12 +186,75 @@ public class DM<T extends SequenceElement> implements SequenceLearningAlgorithm<
         return ret;
     }
 
+    /**
+     * This method does inference for a batch of previously unseen paragraphs. On each step one CBOW aggregate is built
+     * per paragraph, and all of them are executed as single batch. Each aggregate in a batch updates its own inference
+     * vector, and weights aren't updated during inference, so paragraphs don't interfere with each other.
+     *
+     * @param sequences
+     * @param nr
+     * @param learningRate
+     * @param minLearningRate
+     * @param iterations
+     * @return
+     */
+    @Override
+    public List<INDArray> inferSequences(@NonNull List<Sequence<T>> sequences, long nr, double learningRate,
+                    double minLearningRate, int iterations) {
+        int numSequences = sequences.size();
+        List<INDArray> result = new ArrayList<>(numSequences);
+        AtomicLong[] randoms = new AtomicLong[numSequences];
+        int maxLength = 0;
+        for (int d = 0; d < numSequences; d++) {
+            Sequence<T> sequence = sequences.get(d);
+            if (sequence == null || sequence.isEmpty()) {
+                result.add(null);
+                continue;
+            }
+
+            result.add(initialVector(sequence));
+            randoms[d] = new AtomicLong(nr);
+            maxLength = Math.max(maxLength, sequence.size());
+        }
+
+        List<Aggregate> batch = new ArrayList<>(numSequences);
+        for (int iter = 0; iter < iterations; iter++) {
+            for (int i = 0; i < maxLength; i++) {
+                for (int d = 0; d < numSequences; d++) {
+                    Sequence<T> sequence = sequences.get(d);
+                    if (randoms[d] == null || i >= sequence.size())
+                        continue;
+
+                    AtomicLong nextRandom = randoms[d];
+                    nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
+                    int[] windowWords = windowWords(i, sequence, (int) nextRandom.get() % window, null);
+
+                    batch.add(cbow.createAggregate(sequence.getElementByIndex(i), windowWords, nextRandom,
+                                    learningRate, 0, configuration.isTrainElementsVectors(), result.get(d)));
+                }
+
+                if (!batch.isEmpty()) {
+                    Nd4j.getExecutioner().exec(batch);
+                    batch.clear();
+                }
+            }
+            learningRate = ((learningRate - minLearningRate) / (iterations - iter)) + minLearningRate;
+        }
+
+        return result;
+    }
+
+    protected INDArray initialVector(Sequence<T> sequence) {
+        Random random = Nd4j.getRandomFactory().getNewRandomInstance(configuration.getSeed() * sequence.hashCode(),
+                        lookupTable.layerSize() + 1);
+        return Nd4j.rand(new int[] {1, lookupTable.layerSize()}, random).subi(0.5).divi(lookupTable.layerSize());
+    }
+
 
     @Override
     public void finish() {
         if (cbow != null && cbow.getBatch() != null && cbow.getBatch().size() > 0) {
-            Nd4j.getExecutioner().exec(cbow.getBatch());
-            cbow.getBatch().clear();
+            cbow.execBatch();
         }
     }
 }
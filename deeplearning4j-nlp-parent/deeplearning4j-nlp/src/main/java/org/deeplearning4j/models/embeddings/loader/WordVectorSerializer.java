@@ -581,6 +581,9 @@ public class WordVectorSerializer {
         writeEntry(fis, zipfile);
         fis.close();
 
+        // writing out negative sampling table, so it won't be rebuilt on restore
+        writeNegativeTable((InMemoryLookupTable<VocabWord>) vectors.getLookupTable(), zipfile);
+
 
         File tempFileCodes = File.createTempFile("word2vec", "h");
         tempFileCodes.deleteOnExit();
@@ -767,6 +770,9 @@ public class WordVectorSerializer {
         writeEntry(new ByteArrayInputStream(vectors.getConfiguration().toJson().getBytes()), zipfile);
 
 
+        // writing out negative sampling table, so it won't be rebuilt on restore
+        writeNegativeTable((InMemoryLookupTable<VocabWord>) vectors.getLookupTable(), zipfile);
+
         ZipEntry labels = new ZipEntry("labels.txt");
         zipfile.putNextEntry(labels);
         StringBuilder builder = new StringBuilder();
@@ -919,8 +925,12 @@ public class WordVectorSerializer {
 
             VectorsConfiguration configuration = VectorsConfiguration.fromJson(builder.toString().trim());
 
+            // saved negative sampling table allows to skip rebuilding it
+            INDArray negativeTable = readNegativeTable(zipFile);
+
             // we read first 4 files as w2v model
-            Word2Vec w2v = readWord2VecFromText(tmpFileSyn0, tmpFileSyn1, tmpFileC, tmpFileH, configuration);
+            Word2Vec w2v = readWord2VecFromText(tmpFileSyn0, tmpFileSyn1, tmpFileC, tmpFileH, configuration,
+                            negativeTable);
 
             // we read frequencies from frequencies.txt, however it's possible that we might not have this file
             ZipEntry frequencies = zipFile.getEntry("frequencies.txt");
@@ -937,6 +947,10 @@ public class WordVectorSerializer {
                 }
             }
 
+            // table fingerprint should reflect restored frequencies
+            if (negativeTable != null)
+                ((InMemoryLookupTable) w2v.getLookupTable()).setTable(negativeTable);
+
 
             ZipEntry zsyn1Neg = zipFile.getEntry("syn1Neg.txt");
             if (zsyn1Neg != null) {
@@ -991,6 +1005,42 @@ public class WordVectorSerializer {
         }
     }
 
+    /**
+     * This method writes negative sampling table as "negative.bin" entry: number of elements, followed by element
+     * indices, as binary ints. Nothing is written if table wasn't built.
+     */
+    private static void writeNegativeTable(InMemoryLookupTable<?> lookupTable, ZipOutputStream zipStream)
+                    throws IOException {
+        INDArray table = lookupTable.getTable();
+        if (table == null)
+            return;
+
+        zipStream.putNextEntry(new ZipEntry("negative.bin"));
+        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new CloseShieldOutputStream(zipStream)));
+        dos.writeInt(table.length());
+        for (int i = 0; i < table.length(); i++)
+            dos.writeInt(table.getInt(i));
+        dos.flush();
+    }
+
+    /**
+     * This method reads negative sampling table previously written with writeNegativeTable()
+     *
+     * @return restored table, or null if there's no table in this file
+     */
+    private static INDArray readNegativeTable(ZipFile zipFile) throws IOException {
+        ZipEntry entry = zipFile.getEntry("negative.bin");
+        if (entry == null)
+            return null;
+
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(zipFile.getInputStream(entry)))) {
+            float[] table = new float[dis.readInt()];
+            for (int i = 0; i < table.length; i++)
+                table[i] = dis.readInt();
+            return Nd4j.create(table);
+        }
+    }
+
     /**
      * This method allows you to read ParagraphVectors from externaly originated vectors and syn1.
      * So, technically this method is compatible with any other w2v implementation
@@ -1003,10 +1053,18 @@ public class WordVectorSerializer {
      */
     public static Word2Vec readWord2VecFromText(@NonNull File vectors, @NonNull File hs, @NonNull File h_codes,
                     @NonNull File h_points, @NonNull VectorsConfiguration configuration) throws IOException {
+        return readWord2VecFromText(vectors, hs, h_codes, h_points, configuration, null);
+    }
+
+    protected static Word2Vec readWord2VecFromText(@NonNull File vectors, @NonNull File hs, @NonNull File h_codes,
+                    @NonNull File h_points, @NonNull VectorsConfiguration configuration, INDArray negativeTable)
+                    throws IOException {
         // first we load syn0
         Pair<InMemoryLookupTable, VocabCache> pair = loadTxt(vectors);
         InMemoryLookupTable lookupTable = pair.getFirst();
         lookupTable.setNegative(configuration.getNegative());
+        if (negativeTable != null)
+            lookupTable.setTable(negativeTable);
         if (configuration.getNegative() > 0)
             lookupTable.initNegative();
         VocabCache<VocabWord> vocab = (VocabCache<VocabWord>) pair.getSecond();
@@ -0,0 +1,228 @@
+package org.deeplearning4j.models.embeddings.quantization;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Product quantizer for dense vectors: vector is split into M subspaces, and each subspace is replaced with index of
+ * the nearest centroid out of up to 256 centroids, trained with k-means. So each vector is stored as M bytes.
+ *
+ * Similarity to a query vector can be estimated directly on codes (asymmetric distance computation): dot products
+ * between query subvectors and all centroids are computed once per query, and then score of each encoded vector is
+ * just a sum of M table lookups.
+ */
+public class ProductQuantizer implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Getter
+    private final int dimension;
+    @Getter
+    private final int subspaces;
+    @Getter
+    private final int numCentroids;
+
+    // subspace boundaries, subspace m covers [offsets[m], offsets[m + 1])
+    private final int[] offsets;
+
+    // codebooks[m] holds numCentroids centroids of subspace m, one after another
+    private final float[][] codebooks;
+
+    /**
+     * @param dimension Length of vectors
+     * @param subspaces Number of subspaces, i.e. number of bytes per encoded vector
+     * @param numCentroids Number of centroids per subspace, up to 256
+     */
+    public ProductQuantizer(int dimension, int subspaces, int numCentroids) {
+        if (subspaces < 1 || subspaces > dimension)
+            throw new IllegalArgumentException("Number of subspaces should be in range [1, " + dimension + "]");
+
+        if (numCentroids < 1 || numCentroids > 256)
+            throw new IllegalArgumentException("Number of centroids should be in range [1, 256]");
+
+        this.dimension = dimension;
+        this.subspaces = subspaces;
+        this.numCentroids = numCentroids;
+
+        this.offsets = new int[subspaces + 1];
+        for (int m = 0; m <= subspaces; m++) {
+            offsets[m] = (int) ((long) dimension * m / subspaces);
+        }
+
+        this.codebooks = new float[subspaces][];
+    }
+
+    /**
+     * This method trains codebooks with k-means over given vectors
+     *
+     * @param vectors training vectors, each of length dimension
+     * @param iterations number of k-means iterations
+     * @param seed
+     */
+    public void fit(@NonNull float[][] vectors, int iterations, long seed) {
+        if (vectors.length == 0)
+            throw new IllegalArgumentException("Can't train quantizer without vectors");
+
+        Random random = new Random(seed);
+        for (int m = 0; m < subspaces; m++) {
+            codebooks[m] = kMeans(vectors, offsets[m], offsets[m + 1] - offsets[m], iterations, random);
+        }
+    }
+
+    private float[] kMeans(float[][] vectors, int offset, int length, int iterations, Random random) {
+        int n = vectors.length;
+        float[] centroids = new float[numCentroids * length];
+
+        // initial centroids are random training vectors, repeated if there are less vectors than centroids
+        int[] permutation = new int[n];
+        for (int i = 0; i < n; i++)
+            permutation[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = tmp;
+        }
+        for (int k = 0; k < numCentroids; k++) {
+            System.arraycopy(vectors[permutation[k % n]], offset, centroids, k * length, length);
+        }
+
+        int[] assignments = new int[n];
+        double[] sums = new double[numCentroids * length];
+        int[] counts = new int[numCentroids];
+        for (int iter = 0; iter < iterations; iter++) {
+            for (int i = 0; i < n; i++) {
+                assignments[i] = nearest(vectors[i], offset, centroids, length);
+            }
+
+            Arrays.fill(sums, 0.0);
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) {
+                int k = assignments[i];
+                counts[k]++;
+                for (int d = 0; d < length; d++)
+                    sums[k * length + d] += vectors[i][offset + d];
+            }
+
+            for (int k = 0; k < numCentroids; k++) {
+                if (counts[k] == 0) {
+                    // empty cluster gets random training vector, so all codes stay useful
+                    System.arraycopy(vectors[random.nextInt(n)], offset, centroids, k * length, length);
+                    continue;
+                }
+
+                for (int d = 0; d < length; d++)
+                    centroids[k * length + d] = (float) (sums[k * length + d] / counts[k]);
+            }
+        }
+
+        return centroids;
+    }
+
+    private int nearest(float[] vector, int offset, float[] centroids, int length) {
+        int best = 0;
+        double bestDistance = Double.MAX_VALUE;
+        for (int k = 0; k < numCentroids; k++) {
+            double distance = 0.0;
+            for (int d = 0; d < length; d++) {
+                double diff = vector[offset + d] - centroids[k * length + d];
+                distance += diff * diff;
+            }
+
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = k;
+            }
+        }
+        return best;
+    }
+
+    public boolean isTrained() {
+        return codebooks[subspaces - 1] != null;
+    }
+
+    /**
+     * This method encodes vector into M bytes
+     *
+     * @param vector vector of length dimension
+     * @param codes target array
+     * @param codesOffset position of first code in target array
+     */
+    public void encode(@NonNull float[] vector, @NonNull byte[] codes, int codesOffset) {
+        checkTrained();
+        for (int m = 0; m < subspaces; m++) {
+            codes[codesOffset + m] =
+                            (byte) nearest(vector, offsets[m], codebooks[m], offsets[m + 1] - offsets[m]);
+        }
+    }
+
+    /**
+     * This method reconstructs vector out of its codes
+     *
+     * @param codes
+     * @param codesOffset position of first code in codes array
+     * @param target array of length dimension
+     */
+    public void decode(@NonNull byte[] codes, int codesOffset, @NonNull float[] target) {
+        checkTrained();
+        for (int m = 0; m < subspaces; m++) {
+            int length = offsets[m + 1] - offsets[m];
+            int k = codes[codesOffset + m] & 0xFF;
+            System.arraycopy(codebooks[m], k * length, target, offsets[m], length);
+        }
+    }
+
+    /**
+     * This method builds lookup table for asymmetric distance computation: table[m][k] is a dot product between
+     * query subvector m and centroid k of subspace m
+     *
+     * @param query vector of length dimension
+     * @return
+     */
+    public float[][] dotTable(@NonNull float[] query) {
+        checkTrained();
+        float[][] table = new float[subspaces][numCentroids];
+        for (int m = 0; m < subspaces; m++) {
+            int offset = offsets[m];
+            int length = offsets[m + 1] - offset;
+            float[] codebook = codebooks[m];
+            for (int k = 0; k < numCentroids; k++) {
+                float dot = 0.0f;
+                for (int d = 0; d < length; d++)
+                    dot += query[offset + d] * codebook[k * length + d];
+                table[m][k] = dot;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * This method returns dot product between query and encoded vector, estimated via table built with dotTable()
+     *
+     * @param table
+     * @param codes
+     * @param codesOffset position of first code in codes array
+     * @return
+     */
+    public float dot(@NonNull float[][] table, @NonNull byte[] codes, int codesOffset) {
+        float dot = 0.0f;
+        for (int m = 0; m < subspaces; m++)
+            dot += table[m][codes[codesOffset + m] & 0xFF];
+        return dot;
+    }
+
+    /**
+     * @return Memory used by codebooks, in bytes
+     */
+    public long codebooksBytes() {
+        return 4L * numCentroids * dimension;
+    }
+
+    private void checkTrained() {
+        if (!isTrained())
+            throw new IllegalStateException("ProductQuantizer wasn't trained yet");
+    }
+}
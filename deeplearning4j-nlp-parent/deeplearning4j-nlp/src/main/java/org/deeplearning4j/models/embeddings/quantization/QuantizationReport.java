@@ -0,0 +1,48 @@
+package org.deeplearning4j.models.embeddings.quantization;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * Recall/memory trade-off of quantized model, compared to uncompressed one
+ */
+@Data
+@AllArgsConstructor
+public class QuantizationReport implements Serializable {
+    /**
+     * Number of query words used for evaluation
+     */
+    private int queries;
+
+    /**
+     * Number of nearest words compared per query
+     */
+    private int top;
+
+    /**
+     * Average fraction of uncompressed top-N neighbours, found by quantized model
+     */
+    private double recall;
+
+    /**
+     * Memory used by vectors of uncompressed model, in bytes
+     */
+    private long uncompressedBytes;
+
+    /**
+     * Memory used by codes and codebooks of quantized model, in bytes
+     */
+    private long compressedBytes;
+
+    public double getCompressionRatio() {
+        return compressedBytes == 0 ? 0.0 : uncompressedBytes / (double) compressedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Queries: [%d]; Recall@%d: [%.4f]; Uncompressed: [%d bytes]; Compressed: [%d bytes]; Ratio: [%.2f]",
+                        queries, top, recall, uncompressedBytes, compressedBytes, getCompressionRatio());
+    }
+}
@@ -1,64 +1,78 @@
 package org.deeplearning4j.models.glove;
 
 import lombok.NonNull;
-import org.deeplearning4j.models.glove.count.*;
+import org.deeplearning4j.models.glove.count.PairCountMap;
 import org.deeplearning4j.models.sequencevectors.interfaces.SequenceIterator;
 import org.deeplearning4j.models.sequencevectors.iterators.FilteredSequenceIterator;
 import org.deeplearning4j.models.sequencevectors.iterators.SynchronizedSequenceIterator;
 import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
-import org.deeplearning4j.text.sentenceiterator.BasicLineIterator;
-import org.deeplearning4j.text.sentenceiterator.PrefetchingSentenceIterator;
-import org.deeplearning4j.text.sentenceiterator.SentenceIterator;
-import org.deeplearning4j.text.sentenceiterator.SynchronizedSentenceIterator;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.primitives.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * This class implements building cooccurrence map for abstract training corpus.
- * However it's performance rather low, due to exsessive IO that happens in ShadowCopyThread
  *
- * PLEASE NOTE: Current implementation involves massive IO, and it should be rewritter as soon as ND4j gets sparse arrays support
+ * Cooccurrence weights are accumulated in a number of striped {@link PairCountMap}s, keyed on the packed indices of
+ * both elements, so no objects are allocated per cooccurrence. Stripes are held off-heap, and released as soon as
+ * they are spilled. As soon as any stripe reaches its share of the memory limit, it's swapped for an empty one, and
+ * its content is written to disk as a run of (key, weight) records sorted by key. Only calculator threads hitting
+ * that stripe are blocked, and only for the swap itself.
+ * After all sequences are processed, all runs are combined with a k-way merge into the target file.
+ *
+ * PLEASE NOTE: target file format is binary now: for each pair, packed indices of both elements as long (see
+ * {@link PairCountMap#pack(int, int)}), followed by weight as double, sorted by packed key. Earlier versions wrote
+ * text lines with element labels and weight, so target files written by them can't be read by {@link #iterator()}.
  *
  * @author raver119@gmail.com
  */
 public class AbstractCoOccurrences<T extends SequenceElement> implements Serializable {
 
+    // bytes per record in run files and target file: packed key + weight
+    protected static final int RECORD_SIZE = 16;
+    protected static final int DEFAULT_STRIPES = 64;
+    protected static final int MAX_MERGE_FAN_IN = 64;
+
     protected boolean symmetric;
     protected int windowSize;
     protected VocabCache<T> vocabCache;
     protected SequenceIterator<T> sequenceIterator;
 
-    // please note, we need enough room for ShadowCopy thread, that's why -1 there
-    protected int workers = Math.max(Runtime.getRuntime().availableProcessors() - 1, 1);
+    protected int workers = Math.max(Runtime.getRuntime().availableProcessors(), 1);
 
-    // target file, where text with cooccurrencies should be saved
+    // target file, where binary (key, weight) records with cooccurrencies should be saved
     protected File targetFile;
 
-    protected ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-
     protected long memory_threshold = 0;
 
-    private ShadowCopyThread shadowThread;
+    private PairCountMap[] stripes;
+    private Object[] stripeLocks;
+    private int maxPairsPerStripe;
 
-    //    private Counter<Integer> sentenceOccurrences = Util.parallelCounter();
-    //private CounterMap<T, T> coOccurrenceCounts = Util.parallelCounterMap();
-    private volatile CountMap<T> coOccurrenceCounts = new CountMap<>();
-    //private Counter<Integer> occurrenceAllocations = Util.parallelCounter();
-    //private List<Pair<T, T>> coOccurrences;
+    private final List<File> runs = new ArrayList<>();
     private AtomicLong processedSequences = new AtomicLong(0);
+    private AtomicLong spilledPairs = new AtomicLong(0);
 
 
     protected static final Logger logger = LoggerFactory.getLogger(AbstractCoOccurrences.class);
@@ -67,28 +81,41 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
     private AbstractCoOccurrences() {}
 
     /**
-     * This method returns cooccurrence distance weights for two SequenceElements
+     * This method returns cooccurrence distance weights for two SequenceElements.
+     *
+     * PLEASE NOTE: Only weights that are still held in memory are taken into account. Use {@link #iterator()} after
+     * {@link #fit()} to get the final weights.
      *
      * @param element1
      * @param element2
      * @return distance weight
      */
     public double getCoOccurrenceCount(@NonNull T element1, @NonNull T element2) {
-        return coOccurrenceCounts.getCount(element1, element2);
+        if (stripes == null) {
+            return 0.0;
+        }
+        long key = PairCountMap.pack(element1.getIndex(), element2.getIndex());
+        int s = stripeFor(key);
+        synchronized (stripeLocks[s]) {
+            return stripes[s].get(key);
+        }
     }
 
     /**
-     * This method returns estimated memory footrpint, based on current CountMap content
+     * This method returns estimated memory footprint of in-memory cooccurrence counts
      * @return
      */
     protected long getMemoryFootprint() {
-        // TODO: implement this method. It should return approx. memory used by appropriate CountMap
-        try {
-            lock.readLock().lock();
-            return ((long) coOccurrenceCounts.size()) * 24L * 5L;
-        } finally {
-            lock.readLock().unlock();
+        if (stripes == null) {
+            return 0L;
+        }
+        long footprint = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (stripeLocks[i]) {
+                footprint += stripes[i].memoryBytes();
+            }
         }
+        return footprint;
     }
 
     /**
@@ -100,8 +127,25 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
     }
 
     public void fit() {
-        shadowThread = new ShadowCopyThread();
-        shadowThread.start();
+        try {
+            countCoOccurrences();
+        } finally {
+            releaseStripes();
+        }
+    }
+
+    private void countCoOccurrences() {
+        int numStripes = DEFAULT_STRIPES;
+        stripes = new PairCountMap[numStripes];
+        stripeLocks = new Object[numStripes];
+        // each stored pair takes 16 bytes, at a load factor between 0.3 and 0.6 (and a map being spilled is held twice)
+        maxPairsPerStripe = (int) Math.max(16, Math.min(Integer.MAX_VALUE / 4,
+                        getMemoryThreshold() / numStripes / (2 * RECORD_SIZE) / 3));
+        for (int i = 0; i < numStripes; i++) {
+            stripes[i] = new PairCountMap(Math.min(maxPairsPerStripe, 1024));
+            stripeLocks[i] = new Object();
+        }
+        deleteRuns();
 
         // we should reset iterator before counting cooccurrences
         sequenceIterator.reset();
@@ -119,51 +163,236 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
+            if (threads.get(x).error != null) {
+                deleteRuns();
+                throw new RuntimeException("CoOccurrences calculation failed", threads.get(x).error);
+            }
+        }
+
+        try {
+            // whatever is left in memory becomes the last set of runs
+            for (int i = 0; i < stripes.length; i++) {
+                if (stripes[i].size() > 0) {
+                    spill(stripes[i]);
+                }
+            }
+            releaseStripes();
+
+            logger.info("Merging [" + runs.size() + "] cooccurrence runs, [" + spilledPairs.get()
+                            + "] word pairs in total...");
+            mergeRuns();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            deleteRuns();
         }
 
-        shadowThread.finish();
         logger.info("CoOccurrences map was built.");
     }
 
+    /**
+     * Release off-heap memory of in-memory counts
+     */
+    private void releaseStripes() {
+        if (stripes == null) {
+            return;
+        }
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (stripeLocks[i]) {
+                stripes[i].close();
+            }
+        }
+        stripes = null;
+    }
+
+    private int stripeFor(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 40) & (stripes.length - 1);
+    }
+
+    private void increment(long key, double weight) {
+        int s = stripeFor(key);
+        PairCountMap full = null;
+        synchronized (stripeLocks[s]) {
+            PairCountMap map = stripes[s];
+            map.increment(key, weight);
+            if (map.size() >= maxPairsPerStripe) {
+                full = map;
+                stripes[s] = new PairCountMap(Math.min(maxPairsPerStripe, 1024));
+            }
+        }
+        if (full != null) {
+            try {
+                spill(full);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                full.close();
+            }
+        }
+    }
+
+    /**
+     * Write the content of the map to a new run file, sorted by key
+     */
+    private void spill(PairCountMap map) throws IOException {
+        File run = File.createTempFile("aco", "run");
+        run.deleteOnExit();
+
+        long[] keys = map.sortedKeys();
+        try (DataOutputStream dos = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(run), 1024 * 1024))) {
+            for (long key : keys) {
+                dos.writeLong(key);
+                dos.writeDouble(map.get(key));
+            }
+        }
+        spilledPairs.addAndGet(keys.length);
+
+        synchronized (runs) {
+            runs.add(run);
+        }
+        logger.debug("Spilled [" + keys.length + "] word pairs to disk");
+    }
+
+    /**
+     * K-way merge of all runs into the target file, summing the weights of identical pairs. If there are too many
+     * runs to merge at once, runs are merged in several passes.
+     */
+    private void mergeRuns() throws IOException {
+        List<File> current;
+        synchronized (runs) {
+            current = new ArrayList<>(runs);
+            runs.clear();
+        }
+
+        while (current.size() > MAX_MERGE_FAN_IN) {
+            List<File> next = new ArrayList<>();
+            for (int i = 0; i < current.size(); i += MAX_MERGE_FAN_IN) {
+                List<File> group = current.subList(i, Math.min(i + MAX_MERGE_FAN_IN, current.size()));
+                File merged = File.createTempFile("aco", "run");
+                merged.deleteOnExit();
+                mergeRuns(group, merged);
+                for (File f : group) {
+                    f.delete();
+                }
+                next.add(merged);
+            }
+            current = next;
+        }
+
+        mergeRuns(current, targetFile);
+        for (File f : current) {
+            f.delete();
+        }
+    }
+
+    private static void mergeRuns(List<File> inputs, File output) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(Math.max(1, inputs.size()), new Comparator<RunReader>() {
+            @Override
+            public int compare(RunReader o1, RunReader o2) {
+                return Long.compare(o1.key, o2.key);
+            }
+        });
+
+        // all readers opened so far, including those polled from the queue when an exception is thrown
+        List<RunReader> readers = new ArrayList<>(inputs.size());
+        try (DataOutputStream dos = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(output), 1024 * 1024))) {
+            for (File f : inputs) {
+                RunReader reader = new RunReader(f);
+                readers.add(reader);
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+            }
+
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                long key = reader.key;
+                double weight = reader.weight;
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+
+                // all records with the same key are at the heads of runs now
+                while (!queue.isEmpty() && queue.peek().key == key) {
+                    RunReader other = queue.poll();
+                    weight += other.weight;
+                    if (other.advance()) {
+                        queue.add(other);
+                    }
+                }
+
+                dos.writeLong(key);
+                dos.writeDouble(weight);
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private void deleteRuns() {
+        synchronized (runs) {
+            for (File f : runs) {
+                f.delete();
+            }
+            runs.clear();
+        }
+    }
+
     /**
      *
      *  This method returns iterator with elements pairs and their weights. Resulting iterator is safe to use in multi-threaded environment.
      *
-     * Developer's note: thread safety on received iterator is delegated to PrefetchedSentenceIterator
+     * Developer's note: hasNext() and next() are synchronized, but to fetch several pairs atomically, callers should
+     * synchronize on the iterator
      * @return
      */
     public Iterator<Pair<Pair<T, T>, Double>> iterator() {
-        final SentenceIterator iterator;
+        final DataInputStream stream;
 
         try {
-            iterator = new SynchronizedSentenceIterator(
-                            new PrefetchingSentenceIterator.Builder(new BasicLineIterator(targetFile))
-                                            .setFetchSize(500000).build());
-
+            stream = new DataInputStream(new BufferedInputStream(new FileInputStream(targetFile), 1024 * 1024));
         } catch (Exception e) {
             logger.error("Target file was not found on last stage!");
             throw new RuntimeException(e);
         }
+        final long numRecords = targetFile.length() / RECORD_SIZE;
+
         return new Iterator<Pair<Pair<T, T>, Double>>() {
             /*
-                    iterator should be built on top of current text file with all pairs
+                    iterator should be built on top of current binary file with all pairs
              */
+            private long position = 0;
 
             @Override
-            public boolean hasNext() {
-                return iterator.hasNext();
+            public synchronized boolean hasNext() {
+                return position < numRecords;
             }
 
             @Override
-            public Pair<Pair<T, T>, Double> next() {
-                String line = iterator.nextSentence();
-                String[] strings = line.split(" ");
+            public synchronized Pair<Pair<T, T>, Double> next() {
+                if (position >= numRecords) {
+                    throw new NoSuchElementException();
+                }
+
+                try {
+                    long key = stream.readLong();
+                    double weight = stream.readDouble();
+                    if (++position == numRecords) {
+                        stream.close();
+                    }
 
-                T element1 = vocabCache.elementAtIndex(Integer.valueOf(strings[0]));
-                T element2 = vocabCache.elementAtIndex(Integer.valueOf(strings[1]));
-                Double weight = Double.valueOf(strings[2]);
+                    T element1 = vocabCache.elementAtIndex(PairCountMap.first(key));
+                    T element2 = vocabCache.elementAtIndex(PairCountMap.second(key));
 
-                return new Pair<>(new Pair<>(element1, element2), weight);
+                    return new Pair<>(new Pair<>(element1, element2), weight);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
             }
 
             @Override
@@ -229,10 +458,27 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
             return this;
         }
 
+        /**
+         * This method allows you to specify maximum memory available for CoOccurrence map builder, in bytes.
+         * Half of this memory is used for in-memory counts; everything beyond that is spilled to disk.
+         *
+         * @param bytes memory available, in bytes
+         * @return
+         */
+        public Builder<T> maxMemoryBytes(long bytes) {
+            if (bytes > 0) {
+                this.maxmemory = bytes;
+            }
+
+            return this;
+        }
+
         /**
          * Path to save cooccurrence map after construction.
          * If targetFile is not specified, temporary file will be used.
          *
+         * PLEASE NOTE: cooccurrences are saved in binary format: for each pair, packed indices of both elements as long, followed by weight as double
+         *
          * @param path
          * @return
          */
@@ -245,6 +491,8 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
          * Path to save cooccurrence map after construction.
          * If targetFile is not specified, temporary file will be used.
          *
+         * PLEASE NOTE: cooccurrences are saved in binary format: for each pair, packed indices of both elements as long, followed by weight as double
+         *
          * @param file
          * @return
          */
@@ -285,11 +533,47 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
         }
     }
 
+    /**
+     * Sequential reader for a single run file, holding the current record
+     */
+    private static class RunReader {
+        private final DataInputStream stream;
+        private long key;
+        private double weight;
+
+        private RunReader(File file) throws IOException {
+            stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 256 * 1024));
+        }
+
+        /**
+         * Read the next record. Returns false (and closes the file) if there are no more records
+         */
+        private boolean advance() throws IOException {
+            try {
+                key = stream.readLong();
+                weight = stream.readDouble();
+                return true;
+            } catch (EOFException e) {
+                close();
+                return false;
+            }
+        }
+
+        private void close() {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // nothing to do here
+            }
+        }
+    }
+
     private class CoOccurrencesCalculatorThread extends Thread implements Runnable {
 
         private final SequenceIterator<T> iterator;
         private final AtomicLong sequenceCounter;
         private int threadId;
+        private volatile Throwable error;
 
         public CoOccurrencesCalculatorThread(int threadId, @NonNull SequenceIterator<T> iterator,
                         @NonNull AtomicLong sequenceCounter) {
@@ -302,345 +586,57 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
 
         @Override
         public void run() {
-            while (iterator.hasMoreSequences()) {
-                Sequence<T> sequence = iterator.nextSequence();
-
-                List<String> tokens = new ArrayList<>(sequence.asLabels());
-                //            logger.info("Tokens size: " + tokens.size());
-                for (int x = 0; x < sequence.getElements().size(); x++) {
-                    int wordIdx = vocabCache.indexOf(tokens.get(x));
-                    if (wordIdx < 0) {
-                        continue;
+            try {
+                int[] indices = new int[16];
+                while (iterator.hasMoreSequences()) {
+                    Sequence<T> sequence = iterator.nextSequence();
+
+                    // resolve vocabulary indices once per sequence, UNK words are skipped same as OOV words
+                    List<T> elements = sequence.getElements();
+                    int length = elements.size();
+                    if (indices.length < length) {
+                        indices = new int[Math.max(length, indices.length * 2)];
+                    }
+                    for (int x = 0; x < length; x++) {
+                        String label = elements.get(x).getLabel();
+                        indices[x] = Glove.DEFAULT_UNK.equals(label) ? -1 : vocabCache.indexOf(label);
                     }
-                    String w1 = vocabCache.wordFor(tokens.get(x)).getLabel();
-
-                    // THIS iS SAFE TO REMOVE, NO CHANCE WE'll HAVE UNK WORD INSIDE SEQUENCE
-                    /*if(w1.equals(Glove.UNK))
-                        continue;
-                    */
-
-                    int windowStop = Math.min(x + windowSize + 1, tokens.size());
-                    for (int j = x; j < windowStop; j++) {
-                        int otherWord = vocabCache.indexOf(tokens.get(j));
-                        if (otherWord < 0) {
-                            continue;
-                        }
-                        String w2 = vocabCache.wordFor(tokens.get(j)).getLabel();
 
-                        if (w2.equals(Glove.DEFAULT_UNK) || otherWord == wordIdx) {
+                    for (int x = 0; x < length; x++) {
+                        int wordIdx = indices[x];
+                        if (wordIdx < 0) {
                             continue;
                         }
 
-
-                        T tokenX = vocabCache.wordFor(tokens.get(x));
-                        T tokenJ = vocabCache.wordFor(tokens.get(j));
-                        double nWeight = 1.0 / (j - x + Nd4j.EPS_THRESHOLD);
-
-                        while (getMemoryFootprint() >= getMemoryThreshold()) {
-                            try {
-                                shadowThread.invoke();
-                                /*lock.readLock().lock();
-                                int size = coOccurrenceCounts.size();
-                                lock.readLock().unlock();
-                                */
-                                if (threadId == 0) {
-                                    logger.debug("Memory consuimption > threshold: {footrpint: [" + getMemoryFootprint()
-                                                    + "], threshold: [" + getMemoryThreshold() + "] }");
-                                }
-                                Thread.sleep(10000);
-                            } catch (Exception e) {
-                                throw new RuntimeException(e);
-                            } finally {
-
+                        int windowStop = Math.min(x + windowSize + 1, length);
+                        for (int j = x; j < windowStop; j++) {
+                            int otherWord = indices[j];
+                            if (otherWord < 0 || otherWord == wordIdx) {
+                                continue;
                             }
-                        }
-                        /*
-                        if (getMemoryFootprint() == 0) {
-                            logger.info("Zero size!");
-                        }
-                        */
 
-                        try {
-                            lock.readLock().lock();
+                            double nWeight = 1.0 / (j - x + Nd4j.EPS_THRESHOLD);
+
                             if (wordIdx < otherWord) {
-                                coOccurrenceCounts.incrementCount(tokenX, tokenJ, nWeight);
+                                increment(PairCountMap.pack(wordIdx, otherWord), nWeight);
                                 if (symmetric) {
-                                    coOccurrenceCounts.incrementCount(tokenJ, tokenX, nWeight);
+                                    increment(PairCountMap.pack(otherWord, wordIdx), nWeight);
                                 }
                             } else {
-                                coOccurrenceCounts.incrementCount(tokenJ, tokenX, nWeight);
-
+                                increment(PairCountMap.pack(otherWord, wordIdx), nWeight);
                                 if (symmetric) {
-                                    coOccurrenceCounts.incrementCount(tokenX, tokenJ, nWeight);
+                                    increment(PairCountMap.pack(wordIdx, otherWord), nWeight);
                                 }
                             }
-                        } finally {
-                            lock.readLock().unlock();
                         }
                     }
-                }
-
-                sequenceCounter.incrementAndGet();
-            }
-        }
-    }
-
-    /**
-     * This class is designed to provide shadow copy functionality for CoOccurence maps, since with proper corpus size you can't fit such a map into memory
-     *
-     */
-    private class ShadowCopyThread extends Thread implements Runnable {
-
-        private AtomicBoolean isFinished = new AtomicBoolean(false);
-        private AtomicBoolean isTerminate = new AtomicBoolean(false);
-        private AtomicBoolean isInvoked = new AtomicBoolean(false);
-        private AtomicBoolean shouldInvoke = new AtomicBoolean(false);
-
-        // file that contains resuts from previous runs
-        private File[] tempFiles;
-        private RoundCount counter;
-
-        public ShadowCopyThread() {
-            try {
-
-                counter = new RoundCount(1);
-                tempFiles = new File[2];
-
-                tempFiles[0] = File.createTempFile("aco", "tmp");
-                tempFiles[1] = File.createTempFile("aco", "tmp");
-
-                tempFiles[0].deleteOnExit();
-                tempFiles[1].deleteOnExit();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-
-            this.setName("ACO ShadowCopy thread");
-        }
-
-        @Override
-        public void run() {
-            /*
-                  Basic idea is pretty simple: run quetly, untill memory gets filled up to some high volume.
-                  As soon as this happens - execute shadow copy.
-            */
-            while (!isFinished.get() && !isTerminate.get()) {
-                // check used memory. if memory use below threshold - sleep for a while. if above threshold - invoke copier
-
-                if (getMemoryFootprint() > getMemoryThreshold() || (shouldInvoke.get() && !isInvoked.get())) {
-                    // we'll just invoke copier, nothing else
-                    shouldInvoke.compareAndSet(true, false);
-                    invokeBlocking();
-                } else {
-                    try {
-                        /*
-                               commented and left here for future debugging purposes, if needed
-                        
-                                //lock.readLock().lock();
-                                //int size = coOccurrenceCounts.size();
-                                //lock.readLock().unlock();
-                                //logger.info("Current memory situation: {size: [" +size+ "], footprint: [" + getMemoryFootprint()+"], threshold: ["+ getMemoryThreshold() +"]}");
-                         */
-                        Thread.sleep(1000);
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-            }
-        }
-
-        /**
-         * This methods advises shadow copy process to start
-         */
-        public void invoke() {
-            shouldInvoke.compareAndSet(false, true);
-        }
-
-        /**
-         * This methods dumps cooccurrence map into save file.
-         * Please note: this method is synchronized and will block, until complete
-         */
-        public synchronized void invokeBlocking() {
-            if (getMemoryFootprint() < getMemoryThreshold() && !isFinished.get()) {
-                return;
-            }
-
-            int numberOfLinesSaved = 0;
-
-            isInvoked.set(true);
-
-            logger.debug("Memory purge started.");
-
-            /*
-                Basic plan:
-                    1. Open temp file
-                    2. Read that file line by line
-                    3. For each read line do synchronization in memory > new file direction
-             */
-
-            counter.tick();
-
-            CountMap<T> localMap;
-            try {
-                // in any given moment there's going to be only 1 WriteLock, due to invokeBlocking() being synchronized call
-                lock.writeLock().lock();
-
-
-
-                // obtain local copy of CountMap
-                localMap = coOccurrenceCounts;
-
-                // set new CountMap, and release write lock
-                coOccurrenceCounts = new CountMap<>();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            } finally {
-                lock.writeLock().unlock();
-            }
-
-            try {
-
-                File file = null;
-                if (!isFinished.get()) {
-                    file = tempFiles[counter.previous()];
-                } else
-                    file = targetFile;
-
-
-                //    PrintWriter pw = new PrintWriter(file);
-
-                int linesRead = 0;
-
-                logger.debug("Saving to: [" + counter.get() + "], Reading from: [" + counter.previous() + "]");
-                CoOccurenceReader<T> reader =
-                                new BinaryCoOccurrenceReader<>(tempFiles[counter.previous()], vocabCache, localMap);
-                CoOccurrenceWriter<T> writer = (isFinished.get()) ? new ASCIICoOccurrenceWriter<T>(targetFile)
-                                : new BinaryCoOccurrenceWriter<T>(tempFiles[counter.get()]);
-                while (reader.hasMoreObjects()) {
-                    CoOccurrenceWeight<T> line = reader.nextObject();
-
-                    if (line != null) {
-                        writer.writeObject(line);
-                        numberOfLinesSaved++;
-                        linesRead++;
-                    }
-                }
-                reader.finish();
-
-                logger.debug("Lines read: [" + linesRead + "]");
 
-                //now, we can dump the rest of elements, which were not presented in existing dump
-                Iterator<Pair<T, T>> iterator = localMap.getPairIterator();
-                while (iterator.hasNext()) {
-                    Pair<T, T> pair = iterator.next();
-                    double mWeight = localMap.getCount(pair);
-                    CoOccurrenceWeight<T> object = new CoOccurrenceWeight<>();
-                    object.setElement1(pair.getFirst());
-                    object.setElement2(pair.getSecond());
-                    object.setWeight(mWeight);
-
-                    writer.writeObject(object);
-
-                    numberOfLinesSaved++;
-                    //      if (numberOfLinesSaved % 100000 == 0) logger.info("Lines saved: [" + numberOfLinesSaved +"]");
-                }
-
-                writer.finish();
-
-                /*
-                SentenceIterator sIterator =  new PrefetchingSentenceIterator.Builder(new BasicLineIterator(tempFiles[counter.get()]))
-                        .setFetchSize(500000)
-                        .build();
-                
-                
-                int linesRead = 0;
-                while (sIterator.hasNext()) {
-                    //List<Writable> list = new ArrayList<>(reader.next());
-                    String sentence = sIterator.nextSentence();
-                    if (sentence == null || sentence.isEmpty()) continue;
-                    String[] strings = sentence.split(" ");
-                
-                
-                    // first two elements are integers - vocab indexes
-                    //T element1 = vocabCache.wordFor(vocabCache.wordAtIndex(list.get(0).toInt()));
-                    //T element2 = vocabCache.wordFor(vocabCache.wordAtIndex(list.get(1).toInt()));
-                    T element1 = vocabCache.elementAtIndex(Integer.valueOf(strings[0]));
-                    T element2 = vocabCache.elementAtIndex(Integer.valueOf(strings[1]));
-                
-                    // getting third element, previously stored weight
-                    double sWeight = Double.valueOf(strings[2]);  // list.get(2).toDouble();
-                
-                    // now, since we have both elements ready, we can check this pair against inmemory map
-                        double mWeight = localMap.getCount(element1, element2);
-                        if (mWeight <= 0) {
-                            // this means we have no such pair in memory, so we'll do nothing to sWeight
-                        } else {
-                            // since we have new weight value in memory, we should update sWeight value before moving it off memory
-                            sWeight += mWeight;
-                
-                            // original pair can be safely removed from CountMap
-                            localMap.removePair(element1,element2);
-                        }
-                
-                        StringBuilder builder = new StringBuilder().append(element1.getIndex()).append(" ").append(element2.getIndex()).append(" ").append(sWeight);
-                        pw.println(builder.toString());
-                        numberOfLinesSaved++;
-                        linesRead++;
-                
-                   // if (numberOfLinesSaved % 100000 == 0) logger.info("Lines saved: [" + numberOfLinesSaved +"]");
-                  //  if (linesRead % 100000 == 0) logger.info("Lines read: [" + linesRead +"]");
-                }
-                */
-                /*
-                logger.info("Lines read: [" + linesRead + "]");
-                
-                //now, we can dump the rest of elements, which were not presented in existing dump
-                Iterator<Pair<T, T>> iterator = localMap.getPairIterator();
-                while (iterator.hasNext()) {
-                    Pair<T, T> pair = iterator.next();
-                    double mWeight = localMap.getCount(pair);
-                
-                    StringBuilder builder = new StringBuilder().append(pair.getFirst().getIndex()).append(" ").append(pair.getFirst().getIndex()).append(" ").append(mWeight);
-                    pw.println(builder.toString());
-                    numberOfLinesSaved++;
-                
-                              //      if (numberOfLinesSaved % 100000 == 0) logger.info("Lines saved: [" + numberOfLinesSaved +"]");
+                    sequenceCounter.incrementAndGet();
                 }
-                
-                pw.flush();
-                pw.close();
-                
-                */
-
-                // just a hint for gc
-                localMap = null;
-                //sIterator.finish();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+            } catch (Throwable t) {
+                logger.error("CoOccurrences calculation failed", t);
+                error = t;
             }
-
-            logger.info("Number of word pairs saved so far: [" + numberOfLinesSaved + "]");
-            isInvoked.set(false);
-        }
-
-        /**
-         * This method provides soft finish ability for shadow copy process.
-         * Please note: it's blocking call, since it requires for final merge.
-         */
-        public void finish() {
-            if (this.isFinished.get()) {
-                return;
-            }
-
-            this.isFinished.set(true);
-            invokeBlocking();
-        }
-
-        /**
-         * This method provides hard fiinish ability for shadow copy process
-         */
-        public void terminate() {
-            this.isTerminate.set(true);
         }
     }
 }
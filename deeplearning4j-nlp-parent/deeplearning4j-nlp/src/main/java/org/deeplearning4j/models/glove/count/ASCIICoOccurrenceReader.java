@@ -12,7 +12,10 @@ import java.io.PrintWriter;
 
 /**
  * @author raver119@gmail.com
+ *
+ * @deprecated AbstractCoOccurrences writes and merges its own binary runs of (packed key, weight) records
  */
+@Deprecated
 public class ASCIICoOccurrenceReader<T extends SequenceElement> implements CoOccurenceReader<T> {
     private File file;
     private PrintWriter writer;
@@ -10,7 +10,10 @@ import java.io.PrintWriter;
 
 /**
  * @author raver119@gmail.com
+ *
+ * @deprecated AbstractCoOccurrences writes and merges its own binary runs of (packed key, weight) records
  */
+@Deprecated
 public class ASCIICoOccurrenceWriter<T extends SequenceElement> implements CoOccurrenceWriter<T> {
 
     private File file;
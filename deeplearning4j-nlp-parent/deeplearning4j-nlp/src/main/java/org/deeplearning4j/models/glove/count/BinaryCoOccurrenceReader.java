@@ -22,7 +22,10 @@ import java.util.concurrent.atomic.AtomicInteger;
  * Binary implementation of CoOccurenceReader interface, used to provide off-memory storage for cooccurrence maps generated for GloVe
  *
  * @author raver119@gmail.com
+ *
+ * @deprecated AbstractCoOccurrences writes and merges its own binary runs of (packed key, weight) records
  */
+@Deprecated
 public class BinaryCoOccurrenceReader<T extends SequenceElement> implements CoOccurenceReader<T> {
     private VocabCache<T> vocabCache;
     private InputStream inputStream;
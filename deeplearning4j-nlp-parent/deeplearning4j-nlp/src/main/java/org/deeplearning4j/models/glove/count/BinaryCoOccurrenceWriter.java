@@ -12,7 +12,10 @@ import java.io.FileOutputStream;
 
 /**
  * @author raver119@gmail.com
+ *
+ * @deprecated AbstractCoOccurrences writes and merges its own binary runs of (packed key, weight) records
  */
+@Deprecated
 public class BinaryCoOccurrenceWriter<T extends SequenceElement> implements CoOccurrenceWriter<T> {
     private File file;
     private DataOutputStream outputStream;
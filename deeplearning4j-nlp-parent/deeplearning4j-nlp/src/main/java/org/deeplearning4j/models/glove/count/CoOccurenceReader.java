@@ -4,7 +4,10 @@ import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 
 /**
  * Created by raver on 24.12.2015.
+ *
+ * @deprecated AbstractCoOccurrences writes and merges its own binary runs of (packed key, weight) records
  */
+@Deprecated
 public interface CoOccurenceReader<T extends SequenceElement> {
     /*
         Storage->Memory merging part
@@ -7,8 +7,12 @@ import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
  * Simple POJO holding pairs of elements and their respective weights, used in GloVe -> CoOccurrence
  *
  * @author raver119@gmail.com
+ *
+ * @deprecated {@link org.deeplearning4j.models.glove.AbstractCoOccurrences#iterator()} returns pairs and weights
+ * directly
  */
 @Data
+@Deprecated
 public class CoOccurrenceWeight<T extends SequenceElement> {
     private T element1;
     private T element2;
@@ -4,7 +4,10 @@ import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 
 /**
  * Created by fartovii on 25.12.15.
+ *
+ * @deprecated AbstractCoOccurrences writes and merges its own binary runs of (packed key, weight) records
  */
+@Deprecated
 public interface CoOccurrenceWriter<T extends SequenceElement> {
 
     /**
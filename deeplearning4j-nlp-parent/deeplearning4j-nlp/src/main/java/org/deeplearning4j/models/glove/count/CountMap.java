@@ -14,7 +14,10 @@ import java.util.concurrent.ConcurrentHashMap;
  * WORK IN PROGRESS, PLEASE DO NOT USE
  *
  * @author raver119@gmail.com
+ *
+ * @deprecated Use {@link PairCountMap}
  */
+@Deprecated
 public class CountMap<T extends SequenceElement> {
     private volatile Map<Pair<T, T>, AtomicDouble> backingMap = new ConcurrentHashMap<>();
 
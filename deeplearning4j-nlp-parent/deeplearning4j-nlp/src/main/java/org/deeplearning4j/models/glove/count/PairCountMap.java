@@ -0,0 +1,206 @@
+package org.deeplearning4j.models.glove.count;
+
+import org.bytedeco.javacpp.DoublePointer;
+import org.bytedeco.javacpp.LongPointer;
+
+import java.io.Closeable;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from a pair of element indices to a (double) weight, used to count cooccurrences for GloVe.
+ * Pairs are packed into a single long key (see {@link #pack(int, int)}), so no objects are allocated per increment.
+ *
+ * Keys and weights are stored off-heap, so large maps aren't scanned or copied by the garbage collector. Memory is
+ * released by {@link #close()}, or when the map is garbage collected, whichever comes first. The map can't be used
+ * after it's closed.
+ *
+ * PLEASE NOTE: This class is not thread-safe
+ */
+public class PairCountMap implements Closeable {
+    private static final long EMPTY = -1L;
+    private static final double MAX_LOAD_FACTOR = 0.6;
+
+    private LongPointer keysPointer;
+    private DoublePointer valuesPointer;
+    private LongBuffer keys;
+    private DoubleBuffer values;
+    private int capacity;
+    private int mask;
+    private int size;
+
+    public PairCountMap() {
+        this(1024);
+    }
+
+    /**
+     * @param initialCapacity Expected number of pairs
+     */
+    public PairCountMap(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (initialCapacity / MAX_LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Pack a pair of element indices into a single key. Both indices must be non-negative
+     */
+    public static long pack(int index1, int index2) {
+        return ((long) index1 << 32) | (index2 & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return First element index of a packed key
+     */
+    public static int first(long key) {
+        return (int) (key >>> 32);
+    }
+
+    /**
+     * @return Second element index of a packed key
+     */
+    public static int second(long key) {
+        return (int) key;
+    }
+
+    private void allocate(int capacity) {
+        keysPointer = new LongPointer(capacity);
+        valuesPointer = new DoublePointer(capacity);
+        keys = keysPointer.asBuffer();
+        values = valuesPointer.asBuffer();
+        for (int i = 0; i < capacity; i++) {
+            keys.put(i, EMPTY);
+        }
+        this.capacity = capacity;
+        mask = capacity - 1;
+    }
+
+    private static int hash(long key) {
+        //Murmur3 finalizer: packed keys are highly structured
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private int slot(long key) {
+        int idx = hash(key) & mask;
+        long current;
+        while ((current = keys.get(idx)) != EMPTY && current != key) {
+            idx = (idx + 1) & mask;
+        }
+        return idx;
+    }
+
+    /**
+     * Add the weight to the count for the given key
+     */
+    public void increment(long key, double weight) {
+        int idx = slot(key);
+        if (keys.get(idx) == EMPTY) {
+            keys.put(idx, key);
+            values.put(idx, weight);
+            if (++size > MAX_LOAD_FACTOR * capacity) {
+                rehash(capacity << 1);
+            }
+        } else {
+            values.put(idx, values.get(idx) + weight);
+        }
+    }
+
+    public void increment(int index1, int index2, double weight) {
+        increment(pack(index1, index2), weight);
+    }
+
+    /**
+     * @return Count for the given key, or 0.0 if the key is not present
+     */
+    public double get(long key) {
+        int idx = slot(key);
+        return keys.get(idx) == EMPTY ? 0.0 : values.get(idx);
+    }
+
+    public double get(int index1, int index2) {
+        return get(pack(index1, index2));
+    }
+
+    private void rehash(int newCapacity) {
+        LongPointer oldKeysPointer = keysPointer;
+        DoublePointer oldValuesPointer = valuesPointer;
+        LongBuffer oldKeys = keys;
+        DoubleBuffer oldValues = values;
+        int oldCapacity = capacity;
+
+        allocate(newCapacity);
+        for (int i = 0; i < oldCapacity; i++) {
+            long key = oldKeys.get(i);
+            if (key != EMPTY) {
+                int idx = slot(key);
+                keys.put(idx, key);
+                values.put(idx, oldValues.get(i));
+            }
+        }
+
+        oldKeysPointer.deallocate();
+        oldValuesPointer.deallocate();
+    }
+
+    /**
+     * @return Number of pairs in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Approximate (off-heap) memory used by this map, in bytes
+     */
+    public long memoryBytes() {
+        return 16L * capacity;
+    }
+
+    /**
+     * @return All keys in this map, in ascending order
+     */
+    public long[] sortedKeys() {
+        long[] out = new long[size];
+        int pos = 0;
+        for (int i = 0; i < capacity; i++) {
+            long key = keys.get(i);
+            if (key != EMPTY) {
+                out[pos++] = key;
+            }
+        }
+        Arrays.sort(out);
+        return out;
+    }
+
+    /**
+     * Remove all pairs from this map
+     */
+    public void clear() {
+        for (int i = 0; i < capacity; i++) {
+            keys.put(i, EMPTY);
+        }
+        size = 0;
+    }
+
+    /**
+     * Release off-heap memory used by this map
+     */
+    @Override
+    public void close() {
+        if (keysPointer != null) {
+            keysPointer.deallocate();
+            valuesPointer.deallocate();
+            keysPointer = null;
+            valuesPointer = null;
+            keys = null;
+            values = null;
+            capacity = 0;
+            size = 0;
+        }
+    }
+}
@@ -6,7 +6,10 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * Simple circular counter, that circulates within 0...Limit, both inclusive
  *
  * @author raver119@gmail.com
+ *
+ * @deprecated No longer used by GloVe cooccurrence counting
  */
+@Deprecated
 public class RoundCount {
 
     private int limit = 0;
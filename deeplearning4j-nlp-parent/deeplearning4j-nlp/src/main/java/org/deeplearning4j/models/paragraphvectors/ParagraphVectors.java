@@ -61,6 +61,13 @@ public class ParagraphVectors extends Word2Vec {
     protected transient AtomicLong countSubmitted;
     protected transient AtomicLong countFinished;
 
+    // inference throughput counters
+    protected transient volatile AtomicLong inferredDocuments;
+    protected transient volatile AtomicLong inferenceStartTime;
+
+    // placeholder label for sequences being inferred, it's never added to vocabulary
+    protected static final String INFERENCE_LABEL = "PV_INFERENCE_LABEL";
+
     protected ParagraphVectors() {
         super();
     }
@@ -166,6 +173,21 @@ public class ParagraphVectors extends Word2Vec {
         if (this.vocab == null || this.vocab.numWords() == 0)
             reassignExistingModel();
 
+        List<VocabWord> document = tokenizeForInference(text);
+
+        if (document.isEmpty())
+            throw new ND4JIllegalStateException("Text passed for inference has no matches in model vocabulary.");
+
+        return inferVector(document, learningRate, minLearningRate, iterations);
+    }
+
+    /**
+     * This method tokenizes given text, and returns elements that are present in model vocabulary
+     *
+     * @param text
+     * @return
+     */
+    protected List<VocabWord> tokenizeForInference(@NonNull String text) {
         List<String> tokens = tokenizerFactory.create(text).getTokens();
         List<VocabWord> document = new ArrayList<>();
         for (String token : tokens) {
@@ -173,11 +195,7 @@ public class ParagraphVectors extends Word2Vec {
                 document.add(vocab.wordFor(token));
             }
         }
-
-        if (document.isEmpty())
-            throw new ND4JIllegalStateException("Text passed for inference has no matches in model vocabulary.");
-
-        return inferVector(document, learningRate, minLearningRate, iterations);
+        return document;
     }
 
     @SuppressWarnings("unchecked")
@@ -212,41 +230,161 @@ public class ParagraphVectors extends Word2Vec {
     public INDArray inferVector(@NonNull List<VocabWord> document, double learningRate, double minLearningRate,
                     int iterations) {
 
+        SequenceLearningAlgorithm<VocabWord> learner = inferenceLearner();
+
+        if (document.isEmpty())
+            throw new ND4JIllegalStateException("Impossible to apply inference to empty list of words");
+
+        long time = System.nanoTime();
+        INDArray inf = learner.inferSequence(inferenceSequence(document), seed, learningRate, minLearningRate,
+                        iterations);
+        updateInferenceStats(1, time);
+
+        return inf;
+    }
+
+    /**
+     * This method returns configured SequenceLearningAlgorithm for inference. PV-DM learner is created, if model has
+     * no SequenceLearningAlgorithm defined.
+     *
+     * @return
+     */
+    protected SequenceLearningAlgorithm<VocabWord> inferenceLearner() {
         if (this.vocab == null || this.vocab.numWords() == 0)
             reassignExistingModel();
 
         SequenceLearningAlgorithm<VocabWord> learner = sequenceLearningAlgorithm;
 
-        if (learner == null) {
+        if (learner == null || !configured) {
             synchronized (this) {
                 if (sequenceLearningAlgorithm == null) {
                     log.info("Creating new PV-DM learner...");
                     learner = new DM<VocabWord>();
                     learner.configure(vocab, lookupTable, configuration);
                     sequenceLearningAlgorithm = learner;
-                } else {
-                    learner = sequenceLearningAlgorithm;
                 }
+
+                initLearners();
+                learner = sequenceLearningAlgorithm;
             }
         }
 
-        learner = sequenceLearningAlgorithm;
+        return learner;
+    }
 
+    protected Sequence<VocabWord> inferenceSequence(List<VocabWord> document) {
+        Sequence<VocabWord> sequence = new Sequence<>();
+        sequence.addElements(document);
+        sequence.setSequenceLabel(new VocabWord(1.0, INFERENCE_LABEL));
+        return sequence;
+    }
 
+    protected void updateInferenceStats(int numDocuments, long startTime) {
+        if (inferredDocuments == null) {
+            synchronized (this) {
+                if (inferredDocuments == null) {
+                    inferenceStartTime = new AtomicLong(startTime);
+                    inferredDocuments = new AtomicLong(0);
+                }
+            }
+        }
 
-        if (document.isEmpty())
-            throw new ND4JIllegalStateException("Impossible to apply inference to empty list of words");
+        long total = inferredDocuments.addAndGet(numDocuments);
+        if (log.isDebugEnabled()) {
+            long timeSpent = Math.max(1, System.nanoTime() - startTime);
+            log.debug("Inferred {} documents in {} ms ({} docs/sec); {} documents total", numDocuments,
+                            timeSpent / 1000000, String.format("%.2f", numDocuments * 1e9 / timeSpent), total);
+        }
+    }
+
+    /**
+     * This method returns number of documents inferred by this model so far, via both inferVector() and inferVectors()
+     *
+     * @return
+     */
+    public long getInferredDocumentsCount() {
+        return inferredDocuments == null ? 0 : inferredDocuments.get();
+    }
+
+    /**
+     * This method returns average inference throughput of this model, in documents per second, measured from the
+     * start of first inference call. Concurrent callers are counted together.
+     *
+     * @return
+     */
+    public double getInferenceDocsPerSecond() {
+        if (inferredDocuments == null)
+            return 0.0;
 
+        long timeSpent = Math.max(1, System.nanoTime() - inferenceStartTime.get());
+        return inferredDocuments.get() * 1e9 / timeSpent;
+    }
 
-        Sequence<VocabWord> sequence = new Sequence<>();
-        sequence.addElements(document);
-        sequence.setSequenceLabel(new VocabWord(1.0, String.valueOf(new Random().nextInt())));
+    /**
+     * This method calculates inferred vectors for given texts, with default parameters for learning rate and iterations
+     *
+     * @param documents
+     * @return inferred vectors in the same order as input texts. Texts without matches in model vocabulary get null
+     */
+    public List<INDArray> inferVectors(@NonNull List<String> documents) {
+        return inferVectors(documents, this.learningRate.get(), this.minLearningRate,
+                        this.numEpochs * this.numIterations);
+    }
+
+    /**
+     * This method calculates inferred vectors for given texts. Unlike inferVectorBatched(), all documents are
+     * inferred together: on each iteration, aggregates for all documents are executed as single batch.
+     *
+     * PLEASE NOTE: This method is thread-safe, model weights aren't updated during inference
+     *
+     * @param documents
+     * @param learningRate
+     * @param minLearningRate
+     * @param iterations
+     * @return inferred vectors in the same order as input texts. Texts without matches in model vocabulary get null
+     */
+    public List<INDArray> inferVectors(@NonNull List<String> documents, double learningRate, double minLearningRate,
+                    int iterations) {
+        if (tokenizerFactory == null)
+            throw new IllegalStateException("TokenizerFactory should be defined, prior to predict() call");
 
-        initLearners();
+        if (this.vocab == null || this.vocab.numWords() == 0)
+            reassignExistingModel();
 
-        INDArray inf = learner.inferSequence(sequence, seed, learningRate, minLearningRate, iterations);
+        List<List<VocabWord>> elements = new ArrayList<>(documents.size());
+        for (String document : documents) {
+            elements.add(tokenizeForInference(document));
+        }
 
-        return inf;
+        return inferVectorsForElements(elements, learningRate, minLearningRate, iterations);
+    }
+
+    /**
+     * This method calculates inferred vectors for given documents, represented as lists of vocabulary elements.
+     * All documents are inferred together: on each iteration, aggregates for all documents are executed as single batch.
+     *
+     * PLEASE NOTE: This method is thread-safe, model weights aren't updated during inference
+     *
+     * @param documents
+     * @param learningRate
+     * @param minLearningRate
+     * @param iterations
+     * @return inferred vectors in the same order as input documents. Empty documents get null
+     */
+    public List<INDArray> inferVectorsForElements(@NonNull List<List<VocabWord>> documents, double learningRate,
+                    double minLearningRate, int iterations) {
+        SequenceLearningAlgorithm<VocabWord> learner = inferenceLearner();
+
+        long time = System.nanoTime();
+        List<Sequence<VocabWord>> sequences = new ArrayList<>(documents.size());
+        for (List<VocabWord> document : documents) {
+            sequences.add(document == null || document.isEmpty() ? null : inferenceSequence(document));
+        }
+
+        List<INDArray> result = learner.inferSequences(sequences, seed, learningRate, minLearningRate, iterations);
+        updateInferenceStats(documents.size(), time);
+
+        return result;
     }
 
     /**
@@ -953,6 +1091,7 @@ public class ParagraphVectors extends Word2Vec {
             ret.useAdeGrad = this.useAdaGrad;
             ret.stopWords = this.stopWords;
             ret.workers = this.workers;
+            ret.sequencerThreads = this.sequencerThreads;
             ret.useUnknown = this.useUnknown;
             ret.unknownElement = this.unknownElement;
             ret.seed = this.seed;
@@ -1295,6 +1434,12 @@ public class ParagraphVectors extends Word2Vec {
             return this;
         }
 
+        @Override
+        public Builder sequencerThreads(int numThreads) {
+            super.sequencerThreads(numThreads);
+            return this;
+        }
+
         @Override
         public Builder sequenceLearningAlgorithm(SequenceLearningAlgorithm<VocabWord> algorithm) {
             super.sequenceLearningAlgorithm(algorithm);
@@ -9,7 +9,9 @@ import org.deeplearning4j.models.embeddings.WeightLookupTable;
 import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
 import org.deeplearning4j.models.embeddings.learning.ElementsLearningAlgorithm;
 import org.deeplearning4j.models.embeddings.learning.SequenceLearningAlgorithm;
+import org.deeplearning4j.models.embeddings.learning.impl.elements.CBOW;
 import org.deeplearning4j.models.embeddings.learning.impl.elements.SkipGram;
+import org.deeplearning4j.models.embeddings.learning.impl.elements.SubwordSkipGram;
 import org.deeplearning4j.models.embeddings.learning.impl.sequence.DBOW;
 import org.deeplearning4j.models.embeddings.learning.impl.sequence.DM;
 import org.deeplearning4j.models.embeddings.loader.VectorsConfiguration;
@@ -21,6 +23,8 @@ import org.deeplearning4j.models.embeddings.wordvectors.WordVectorsImpl;
 import org.deeplearning4j.models.sequencevectors.enums.ListenerEvent;
 import org.deeplearning4j.models.sequencevectors.interfaces.SequenceIterator;
 import org.deeplearning4j.models.sequencevectors.interfaces.VectorsListener;
+import org.deeplearning4j.models.sequencevectors.pipeline.BoundedQueue;
+import org.deeplearning4j.models.sequencevectors.pipeline.PipelineStats;
 import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.word2vec.VocabWord;
@@ -34,11 +38,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * SequenceVectors implements abstract features extraction for Sequences and SequenceElements, using SkipGram, CBOW or DBOW (for Sequence features extraction).
@@ -65,7 +68,9 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
     protected transient T unknownElement;
     protected transient AtomicDouble scoreElements = new AtomicDouble(0.0);
     protected transient AtomicDouble scoreSequences = new AtomicDouble(0.0);
-    protected transient boolean configured = false;
+    protected transient volatile boolean configured = false;
+    protected transient volatile PipelineStats pipelineStats;
+    protected int sequencerThreads = 0;
 
     protected boolean enableScavenger = false;
     protected int vocabLimit = 0;
@@ -94,9 +99,18 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
     }
 
 
+    /**
+     * Returns vector for given word. If word is absent in vocabulary, and SubwordSkipGram was used for training,
+     * vector will be composed out of word's character n-grams.
+     *
+     * @param word
+     * @return
+     */
     @Override
     public INDArray getWordVectorMatrix(String word) {
-        if (configuration.isUseUnknown() && !hasWord(word)) {
+        if (elementsLearningAlgorithm instanceof SubwordSkipGram && !hasWord(word)) {
+            return ((SubwordSkipGram<T>) elementsLearningAlgorithm).composeVector(word);
+        } else if (configuration.isUseUnknown() && !hasWord(word)) {
             return super.getWordVectorMatrix(getUNK());
         } else
             return super.getWordVectorMatrix(word);
@@ -275,6 +289,11 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
 
         initLearners();
 
+        pipelineStats = new PipelineStats(configuration.getBatchSize());
+        attachPipelineStats(elementsLearningAlgorithm);
+        if (sequenceLearningAlgorithm != null)
+            attachPipelineStats(sequenceLearningAlgorithm.getElementsLearningAlgorithm());
+
         log.info("Starting learning process...");
         timeSpent.set(System.currentTimeMillis());
         if (this.stopWords == null)
@@ -335,10 +354,30 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
             }
         }
 
+        if (elementsLearningAlgorithm instanceof SubwordSkipGram)
+            ((SubwordSkipGram<T>) elementsLearningAlgorithm).composeVocabularyVectors();
+
         log.info("Time spent on training: {} ms", System.currentTimeMillis() - timeSpent.get());
     }
 
 
+    protected void attachPipelineStats(ElementsLearningAlgorithm<T> algorithm) {
+        if (algorithm instanceof SkipGram)
+            ((SkipGram<T>) algorithm).setPipelineStats(pipelineStats);
+        else if (algorithm instanceof CBOW)
+            ((CBOW<T>) algorithm).setPipelineStats(pipelineStats);
+    }
+
+    /**
+     * This method returns throughput counters for the last fit() call: words/sec for sequencing and training stages,
+     * queue occupancy between them, and aggregate batch fill. Returns null if fit() wasn't called yet.
+     *
+     * @return
+     */
+    public PipelineStats getPipelineStats() {
+        return pipelineStats;
+    }
+
     protected void trainSequence(@NonNull Sequence<T> sequence, AtomicLong nextRandom, double alpha) {
 
         if (sequence.getElements().isEmpty())
@@ -388,6 +427,7 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
         protected boolean useAdaGrad = false;
         protected boolean resetModel = true;
         protected int workers = Runtime.getRuntime().availableProcessors();
+        protected int sequencerThreads = 0;
         protected boolean useUnknown = false;
         protected boolean useHierarchicSoftmax = true;
         protected int[] variableWindows;
@@ -586,6 +626,18 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
             return this;
         }
 
+        /**
+         * Sets number of threads converting sequences from iterator into vocabulary elements, prior to training.
+         * Default value is 0, which means min(4, workers / 2), but at least 1.
+         *
+         * @param numThreads
+         * @return
+         */
+        public Builder<T> sequencerThreads(int numThreads) {
+            this.sequencerThreads = numThreads;
+            return this;
+        }
+
         /**
          * Enable/disable hierarchic softmax
          *
@@ -965,6 +1017,7 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
             vectors.useAdeGrad = this.useAdaGrad;
             vectors.stopWords = this.stopWords;
             vectors.workers = this.workers;
+            vectors.sequencerThreads = this.sequencerThreads;
 
             vectors.iterator = this.iterator;
             vectors.lookupTable = this.lookupTable;
@@ -1011,108 +1064,150 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
     }
 
     /**
-     * This class is used to fetch data from iterator in background thread, and convert it to List<VocabularyWord>
+     * This class is used to fetch data from iterator in background threads, and convert it to sequences of vocabulary elements.
      *
      * It becomes very usefull if text processing pipeline behind iterator is complex, and we're not loading data from simple text file with whitespaces as separator.
      * Since this method allows you to hide preprocessing latency in background.
      *
-     * This mechanics will be change to PrefetchingSentenceIterator wrapper.
+     * Sequences are fetched from iterator in chunks, and converted by sequencerThreads producers in parallel. Converted
+     * sequences are passed to VectorCalculationsThreads via bounded lock-free queue. Please note: with more than 1
+     * producer, order of sequences isn't preserved.
      */
-    protected class AsyncSequencer extends Thread implements Runnable {
+    protected class AsyncSequencer {
+        private static final int FETCH_SIZE = 64;
+
         private final SequenceIterator<T> iterator;
-        private final LinkedBlockingQueue<Sequence<T>> buffer;
-        //     private final AtomicLong linesCounter;
-        private final int limitUpper;
-        private final int limitLower;
-        private AtomicBoolean isRunning = new AtomicBoolean(true);
-        private AtomicLong nextRandom;
-        private Collection<String> stopList;
+        private final BoundedQueue<Sequence<T>> buffer;
+        private final Collection<String> stopList;
+        private final Thread[] producers;
+        private final AtomicInteger activeProducers;
+        private final AtomicReference<Throwable> exception = new AtomicReference<>();
 
         public AsyncSequencer(SequenceIterator<T> iterator, @NonNull Collection<String> stopList) {
             this.iterator = iterator;
-            //            this.linesCounter = linesCounter;
-            this.setName("AsyncSequencer thread");
-            this.nextRandom = new AtomicLong(workers + 1);
             this.iterator.reset();
             this.stopList = stopList;
-            this.setDaemon(true);
+            this.buffer = new BoundedQueue<>(Math.max(FETCH_SIZE, workers * batchSize * 2));
+
+            int numProducers = sequencerThreads > 0 ? sequencerThreads : Math.max(1, Math.min(4, workers / 2));
+            this.activeProducers = new AtomicInteger(numProducers);
+            this.producers = new Thread[numProducers];
+            for (int i = 0; i < numProducers; i++) {
+                producers[i] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        produce();
+                    }
+                });
+                producers[i].setName("AsyncSequencer thread " + i);
+                producers[i].setDaemon(true);
+            }
 
-            limitLower = workers * batchSize;
-            limitUpper = workers * batchSize * 2;
+            if (pipelineStats != null)
+                pipelineStats.setQueue(buffer);
+        }
 
-            this.buffer = new LinkedBlockingQueue<>(limitUpper);
+        public void start() {
+            for (Thread producer : producers)
+                producer.start();
         }
 
-        @Override
-        public void run() {
-            isRunning.set(true);
-            while (this.iterator.hasMoreSequences()) {
-
-                // if buffered level is below limitLower, we're going to fetch limitUpper number of strings from fetcher
-                if (buffer.size() < limitLower) {
-                    update();
-                    AtomicInteger linesLoaded = new AtomicInteger(0);
-                    while (linesLoaded.getAndIncrement() < limitUpper && this.iterator.hasMoreSequences()) {
-                        Sequence<T> document = this.iterator.nextSequence();
-
-                        /*
-                            We can't hope/assume that underlying iterator contains synchronized elements
-                            That's why we're going to rebuild sequence from vocabulary
-                          */
-                        Sequence<T> newSequence = new Sequence<>();
-
-                        if (document.getSequenceLabel() != null) {
-                            T newLabel = vocab.wordFor(document.getSequenceLabel().getLabel());
-                            if (newLabel != null)
-                                newSequence.setSequenceLabel(newLabel);
-                        }
+        public void join() throws InterruptedException {
+            for (Thread producer : producers)
+                producer.join();
 
-                        for (T element : document.getElements()) {
-                            if (stopList.contains(element.getLabel()))
-                                continue;
-                            T realElement = vocab.wordFor(element.getLabel());
+            if (exception.get() != null)
+                throw new RuntimeException(exception.get());
+        }
 
-                            // please note: this serquence element CAN be absent in vocab, due to minFreq or stopWord or whatever else
-                            if (realElement != null) {
-                                newSequence.addElement(realElement);
-                            } else if (useUnknown && unknownElement != null) {
-                                newSequence.addElement(unknownElement);
-                            }
-                        }
+        protected void produce() {
+            try {
+                List<Sequence<T>> chunk = new ArrayList<>(FETCH_SIZE);
+                while (true) {
+                    chunk.clear();
+                    synchronized (iterator) {
+                        while (chunk.size() < FETCH_SIZE && iterator.hasMoreSequences())
+                            chunk.add(iterator.nextSequence());
+                    }
 
-                        // due to subsampling and null words, new sequence size CAN be 0, so there's no need to insert empty sequence into processing chain
-                        if (!newSequence.getElements().isEmpty())
-                            try {
-                                buffer.put(newSequence);
-                            } catch (InterruptedException e) {
-                                //
-                            }
+                    if (chunk.isEmpty())
+                        break;
 
-                        linesLoaded.incrementAndGet();
-                    }
-                } else {
-                    try {
-                        Thread.sleep(50);
-                    } catch (Exception e) {
-                        e.printStackTrace();
+                    for (Sequence<T> document : chunk) {
+                        Sequence<T> newSequence = toVocabSequence(document);
+
+                        // due to subsampling and null words, new sequence size CAN be 0, so there's no need to insert empty sequence into processing chain
+                        if (!newSequence.getElements().isEmpty()) {
+                            buffer.put(newSequence);
+                            if (pipelineStats != null)
+                                pipelineStats.recordSequenced(newSequence.getElements().size());
+                        }
                     }
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                log.error("AsyncSequencer failed", t);
+                exception.compareAndSet(null, t);
+            } finally {
+                activeProducers.decrementAndGet();
             }
-            isRunning.set(false);
+        }
+
+        /*
+            We can't hope/assume that underlying iterator contains synchronized elements
+            That's why we're going to rebuild sequence from vocabulary
+          */
+        protected Sequence<T> toVocabSequence(Sequence<T> document) {
+            Sequence<T> newSequence = new Sequence<>();
+
+            if (document.getSequenceLabel() != null) {
+                T newLabel = vocab.wordFor(document.getSequenceLabel().getLabel());
+                if (newLabel != null)
+                    newSequence.setSequenceLabel(newLabel);
+            }
+
+            for (T element : document.getElements()) {
+                if (stopList.contains(element.getLabel()))
+                    continue;
+                T realElement = vocab.wordFor(element.getLabel());
+
+                // please note: this serquence element CAN be absent in vocab, due to minFreq or stopWord or whatever else
+                if (realElement != null) {
+                    newSequence.addElement(realElement);
+                } else if (useUnknown && unknownElement != null) {
+                    newSequence.addElement(unknownElement);
+                }
+            }
+
+            return newSequence;
         }
 
         public boolean hasMoreLines() {
             // statement order does matter here, since there's possible race condition
-            return !buffer.isEmpty() || isRunning.get();
+            return activeProducers.get() > 0 || !buffer.isEmpty();
         }
 
+        /**
+         * Returns next sequence, or null if all sequences were consumed
+         */
         public Sequence<T> nextSentence() {
             try {
-                return buffer.poll(3L, TimeUnit.SECONDS);
-            } catch (Exception e) {
+                Sequence<T> sequence;
+                while ((sequence = buffer.poll(50, TimeUnit.MILLISECONDS)) == null) {
+                    if (!hasMoreLines())
+                        return null;
+                }
+                return sequence;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 return null;
             }
         }
+
+        public int size() {
+            return buffer.size();
+        }
     }
 
     /**
@@ -1159,6 +1254,9 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
             Nd4j.getAffinityManager().getDeviceForCurrentThread();
             while (digitizer.hasMoreLines()) {
                 try {
+                    if (pipelineStats != null)
+                        pipelineStats.recordQueueSample(digitizer.size());
+
                     // get current sentence as list of VocabularyWords
                     List<Sequence<T>> sequences = new ArrayList<>();
                     for (int x = 0; x < batchSize; x++) {
@@ -1193,6 +1291,8 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
                             // increment processed word count, please note: this affects learningRate decay
                             totalLines.incrementAndGet();
                             this.wordsCounter.addAndGet(sequence.getElements().size());
+                            if (pipelineStats != null)
+                                pipelineStats.recordTrained(sequence.getElements().size());
 
                             if (totalLines.get() % 100000 == 0) {
                                 long currentTime = System.currentTimeMillis();
@@ -1208,6 +1308,8 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
                                                 this.epochNumber, this.wordsCounter.get(), this.totalLines.get(),
                                                 String.format("%.2f", seqSec), String.format("%.2f", wordsSecTotal),
                                                 alpha);
+                                if (pipelineStats != null)
+                                    log.info("Pipeline: {}", pipelineStats);
                             }
                             if (eventListeners != null && !eventListeners.isEmpty()) {
                                 for (VectorsListener listener : eventListeners) {
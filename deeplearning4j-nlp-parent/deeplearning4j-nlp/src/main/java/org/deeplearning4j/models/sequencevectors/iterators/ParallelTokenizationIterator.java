@@ -0,0 +1,439 @@
+package org.deeplearning4j.models.sequencevectors.iterators;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.deeplearning4j.models.sequencevectors.interfaces.SequenceIterator;
+import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.text.documentiterator.BasicLabelAwareIterator;
+import org.deeplearning4j.text.documentiterator.LabelAwareIterator;
+import org.deeplearning4j.text.documentiterator.LabelledDocument;
+import org.deeplearning4j.text.sentenceiterator.SentenceIterator;
+import org.deeplearning4j.text.tokenization.tokenizer.Tokenizer;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * SequenceIterator implementation that tokenizes raw documents in parallel threads against existing vocabulary.
+ *
+ * Single reader thread pulls documents out of underlying iterator into bounded queue, and pool of worker threads
+ * tokenizes them. Each token is looked up in VocabCache right away, so every document becomes int[] of vocabulary
+ * indices, without intermediate List&lt;String&gt; or Sequence objects. Out-of-vocabulary tokens are skipped.
+ *
+ * Documents are returned in the order they were read if ordered mode is enabled, or as soon as they are
+ * tokenized otherwise. In ordered mode number of documents in flight is limited, so one slow document can't make
+ * reorder buffer grow unbounded.
+ *
+ * Documents are handed off between threads via blocking queues. Once underlying iterator is exhausted, reader
+ * thread puts one end-of-stream marker per worker into input queue, and each worker forwards it to output queue
+ * before exiting, so consumer knows all documents were received once it has seen all markers.
+ *
+ * PLEASE NOTE: Vocabulary has to be built (i.e. indexes assigned) before this iterator is used, so it's suited for
+ * training epochs after vocabulary construction, or for inference against existing model.
+ * PLEASE NOTE: TokenizerFactory.create() is called from multiple threads, so factory should be thread-safe.
+ */
+public class ParallelTokenizationIterator<T extends SequenceElement> implements SequenceIterator<T> {
+    /**
+     * End-of-stream marker, one per worker thread
+     */
+    private static final TokenizedDocument END = new TokenizedDocument(-1, null, null);
+
+    protected final LabelAwareIterator iterator;
+    protected final TokenizerFactory tokenizerFactory;
+    protected final VocabCache<T> vocabCache;
+
+    @Getter
+    protected final int workers;
+    protected final int queueSize;
+    @Getter
+    protected final boolean ordered;
+
+    protected BlockingQueue<TokenizedDocument> input;
+    protected BlockingQueue<TokenizedDocument> output;
+    // in ordered mode: one permit per document that can be submitted before earlier ones are consumed
+    protected Semaphore window;
+    protected Thread reader;
+    protected Thread[] threads;
+
+    protected volatile boolean started = false;
+    protected volatile boolean stopped = false;
+
+    protected final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    // consumer-side state
+    protected long consumed = 0;
+    protected int finishedWorkers = 0;
+    protected final Map<Long, TokenizedDocument> pending = new HashMap<>();
+    protected TokenizedDocument lookahead;
+
+    protected ParallelTokenizationIterator(@NonNull LabelAwareIterator iterator,
+                    @NonNull TokenizerFactory tokenizerFactory, @NonNull VocabCache<T> vocabCache, int workers,
+                    int queueSize, boolean ordered) {
+        this.iterator = iterator;
+        this.tokenizerFactory = tokenizerFactory;
+        this.vocabCache = vocabCache;
+        this.workers = workers;
+        this.queueSize = queueSize;
+        this.ordered = ordered;
+    }
+
+    /**
+     * @return TRUE if there's at least one more document available
+     */
+    public boolean hasNext() {
+        if (lookahead == null)
+            lookahead = fetch();
+
+        return lookahead != null;
+    }
+
+    /**
+     * This method returns next tokenized document, as array of vocabulary indices
+     *
+     * @return
+     */
+    public TokenizedDocument nextDocument() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        TokenizedDocument document = lookahead;
+        lookahead = null;
+        consumed++;
+        if (window != null)
+            window.release();
+        return document;
+    }
+
+    /**
+     * This method returns vocabulary indices of next document
+     *
+     * @return
+     */
+    public int[] nextIndices() {
+        return nextDocument().getIndices();
+    }
+
+    @Override
+    public boolean hasMoreSequences() {
+        return hasNext();
+    }
+
+    @Override
+    public Sequence<T> nextSequence() {
+        TokenizedDocument document = nextDocument();
+
+        Sequence<T> sequence = new Sequence<>();
+        for (int index : document.getIndices())
+            sequence.addElement(vocabCache.elementAtIndex(index));
+
+        if (document.getLabels() != null)
+            for (String label : document.getLabels()) {
+                T element = label == null ? null : vocabCache.wordFor(label);
+                if (element != null)
+                    sequence.addSequenceLabel(element);
+            }
+
+        sequence.setSequenceId((int) document.getId());
+        return sequence;
+    }
+
+    @Override
+    public void reset() {
+        shutdown();
+        iterator.reset();
+
+        consumed = 0;
+        pending.clear();
+        lookahead = null;
+        stopped = false;
+    }
+
+    /**
+     * This method stops all reader/tokenizer threads. Iterator can be used again after reset() call.
+     */
+    public void shutdown() {
+        stopped = true;
+
+        List<Thread> all = new ArrayList<>();
+        if (reader != null)
+            all.add(reader);
+        if (threads != null)
+            all.addAll(Arrays.asList(threads));
+
+        for (Thread thread : all)
+            thread.interrupt();
+
+        for (Thread thread : all) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        reader = null;
+        threads = null;
+        started = false;
+    }
+
+    protected void start() {
+        input = new ArrayBlockingQueue<>(queueSize);
+        output = new ArrayBlockingQueue<>(queueSize);
+        // in ordered mode number of documents in flight is limited, so reorder buffer stays bounded
+        window = ordered ? new Semaphore(2 * queueSize + workers) : null;
+        finishedWorkers = 0;
+        error.set(null);
+
+        reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                readDocuments();
+            }
+        });
+        reader.setDaemon(true);
+        reader.setName("ParallelTokenization reader");
+        reader.start();
+
+        threads = new Thread[workers];
+        for (int x = 0; x < workers; x++) {
+            threads[x] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    tokenizeDocuments();
+                }
+            });
+            threads[x].setDaemon(true);
+            threads[x].setName("ParallelTokenization thread " + x);
+            threads[x].start();
+        }
+
+        started = true;
+    }
+
+    protected TokenizedDocument fetch() {
+        if (!started)
+            start();
+
+        try {
+            while (true) {
+                checkError();
+
+                if (ordered) {
+                    TokenizedDocument document = pending.remove(consumed);
+                    if (document != null)
+                        return document;
+                }
+
+                // every document was put into output queue before its worker's end marker
+                if (finishedWorkers == workers)
+                    return null;
+
+                TokenizedDocument document = output.take();
+                if (document == END) {
+                    finishedWorkers++;
+                    continue;
+                }
+
+                if (!ordered || document.getId() == consumed)
+                    return document;
+
+                pending.put(document.getId(), document);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    protected void checkError() {
+        Throwable throwable = error.get();
+        if (throwable != null) {
+            shutdown();
+            throw new RuntimeException("Tokenization failed", throwable);
+        }
+    }
+
+    protected void readDocuments() {
+        long seq = 0;
+        try {
+            while (!stopped && iterator.hasNextDocument()) {
+                LabelledDocument document = iterator.nextDocument();
+                if (document == null || document.getContent() == null)
+                    continue;
+
+                if (window != null)
+                    window.acquire();
+
+                input.put(new TokenizedDocument(seq++, document.getContent(), document.getLabels()));
+            }
+        } catch (InterruptedException e) {
+            // shutdown was requested
+            return;
+        } catch (Throwable e) {
+            // workers are still released below, so consumer gets to see the error
+            error.compareAndSet(null, e);
+        }
+
+        try {
+            for (int x = 0; x < workers; x++)
+                input.put(END);
+        } catch (InterruptedException e) {
+            // shutdown was requested
+        }
+    }
+
+    protected void tokenizeDocuments() {
+        int[] buffer = new int[256];
+        try {
+            while (!stopped) {
+                TokenizedDocument document = input.take();
+                if (document == END) {
+                    output.put(END);
+                    return;
+                }
+
+                Tokenizer tokenizer = tokenizerFactory.create(document.content);
+                int length = 0;
+                while (tokenizer.hasMoreTokens()) {
+                    String token = tokenizer.nextToken();
+                    if (token == null || token.isEmpty())
+                        continue;
+
+                    int index = vocabCache.indexOf(token);
+                    if (index < 0)
+                        continue;
+
+                    if (length == buffer.length)
+                        buffer = Arrays.copyOf(buffer, length * 2);
+                    buffer[length++] = index;
+                }
+
+                document.indices = Arrays.copyOf(buffer, length);
+                document.content = null;
+                output.put(document);
+            }
+        } catch (InterruptedException e) {
+            // shutdown was requested
+        } catch (Throwable e) {
+            error.compareAndSet(null, e);
+            // consumer might be waiting for this worker's output
+            try {
+                output.put(END);
+            } catch (InterruptedException ie) {
+                // shutdown was requested
+            }
+        }
+    }
+
+    /**
+     * Document converted to vocabulary indices
+     */
+    public static class TokenizedDocument {
+        /**
+         * Position of this document in underlying iterator
+         */
+        @Getter
+        private final long id;
+        @Getter
+        private final List<String> labels;
+        @Getter
+        private int[] indices;
+
+        private String content;
+
+        protected TokenizedDocument(long id, String content, List<String> labels) {
+            this.id = id;
+            this.content = content;
+            this.labels = labels;
+        }
+    }
+
+    public static class Builder<T extends SequenceElement> {
+        protected LabelAwareIterator iterator;
+        protected TokenizerFactory tokenizerFactory;
+        protected VocabCache<T> vocabCache;
+        protected int workers = Math.max(2, Runtime.getRuntime().availableProcessors());
+        protected int queueSize = 1024;
+        protected boolean ordered = true;
+
+        /**
+         * @param iterator source of documents
+         * @param tokenizerFactory
+         * @param vocabCache vocabulary with indexes assigned
+         */
+        public Builder(@NonNull LabelAwareIterator iterator, @NonNull TokenizerFactory tokenizerFactory,
+                        @NonNull VocabCache<T> vocabCache) {
+            this.iterator = iterator;
+            this.tokenizerFactory = tokenizerFactory;
+            this.vocabCache = vocabCache;
+        }
+
+        /**
+         * @param iterator source of sentences
+         * @param tokenizerFactory
+         * @param vocabCache vocabulary with indexes assigned
+         */
+        public Builder(@NonNull SentenceIterator iterator, @NonNull TokenizerFactory tokenizerFactory,
+                        @NonNull VocabCache<T> vocabCache) {
+            this(new BasicLabelAwareIterator.Builder(iterator).build(), tokenizerFactory, vocabCache);
+        }
+
+        /**
+         * This method defines number of tokenizer threads
+         *
+         * Default value: number of available cores
+         *
+         * @param workers
+         * @return
+         */
+        public Builder<T> workers(int workers) {
+            if (workers < 1)
+                throw new IllegalArgumentException("Number of workers should be positive");
+
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * This method defines capacity of raw documents queue and tokenized documents queue
+         *
+         * Default value: 1024
+         *
+         * @param queueSize
+         * @return
+         */
+        public Builder<T> queueSize(int queueSize) {
+            if (queueSize < 1)
+                throw new IllegalArgumentException("Queue size should be positive");
+
+            this.queueSize = queueSize;
+            return this;
+        }
+
+        /**
+         * This method defines, whether documents should be returned in the same order as they are read from
+         * underlying iterator. Unordered mode has no reordering overhead, and is fine for training.
+         *
+         * Default value: TRUE
+         *
+         * @param ordered
+         * @return
+         */
+        public Builder<T> ordered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        public ParallelTokenizationIterator<T> build() {
+            return new ParallelTokenizationIterator<>(iterator, tokenizerFactory, vocabCache, workers, queueSize,
+                            ordered);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.deeplearning4j.models.sequencevectors.listeners;
+
+import lombok.NonNull;
+import org.deeplearning4j.models.sequencevectors.SequenceVectors;
+import org.deeplearning4j.models.sequencevectors.enums.ListenerEvent;
+import org.deeplearning4j.models.sequencevectors.interfaces.VectorsListener;
+import org.deeplearning4j.models.sequencevectors.pipeline.PipelineStats;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * VectorsListener implementation that reports training pipeline throughput: words/sec for sequencing and training
+ * stages, queue occupancy between them, and aggregate batch fill.
+ *
+ * If sequencing words/sec is close to training words/sec, and workers spend time waiting on queue, then sequencing is
+ * the bottleneck: consider more sequencerThreads. Low batch fill means aggregates are flushed before batchSize is reached.
+ */
+public class ThroughputListener<T extends SequenceElement> implements VectorsListener<T> {
+    protected static final Logger logger = LoggerFactory.getLogger(ThroughputListener.class);
+    private final ListenerEvent targetEvent;
+    private final int frequency;
+    private final AtomicLong counter = new AtomicLong(0);
+
+    public ThroughputListener(@NonNull ListenerEvent targetEvent, int frequency) {
+        this.targetEvent = targetEvent;
+        this.frequency = Math.max(1, frequency);
+    }
+
+    @Override
+    public boolean validateEvent(ListenerEvent event, long argument) {
+        return event == targetEvent;
+    }
+
+    @Override
+    public void processEvent(ListenerEvent event, SequenceVectors<T> sequenceVectors, long argument) {
+        if (event != targetEvent)
+            return;
+
+        long cnt = counter.getAndIncrement();
+
+        if (cnt % frequency != 0)
+            return;
+
+        PipelineStats stats = sequenceVectors.getPipelineStats();
+        if (stats != null)
+            logger.info("Event: {} [{}]; {}", event, argument, stats);
+    }
+}
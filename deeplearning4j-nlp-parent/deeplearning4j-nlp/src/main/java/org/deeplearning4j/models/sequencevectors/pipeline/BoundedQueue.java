@@ -0,0 +1,189 @@
+package org.deeplearning4j.models.sequencevectors.pipeline;
+
+import lombok.NonNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free multi-producer/multi-consumer queue, based on ring buffer with per-slot sequence numbers
+ * (D. Vyukov's MPMC queue). offer() and poll() never block, put() and poll(timeout) spin, yield and then park for
+ * short periods while queue is full/empty.
+ *
+ * Time spent waiting is recorded, so it's possible to tell which side of the queue is the bottleneck.
+ */
+public class BoundedQueue<E> {
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 10;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong head = new AtomicLong(0);
+    private final AtomicLong tail = new AtomicLong(0);
+
+    private final AtomicLong producerWaitTime = new AtomicLong(0);
+    private final AtomicLong consumerWaitTime = new AtomicLong(0);
+
+    /**
+     * @param capacity Maximum number of elements in this queue. Will be rounded up to the next power of 2
+     */
+    public BoundedQueue(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Queue capacity should be positive");
+
+        this.capacity = capacity < 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Inserts element into this queue, if it's not full
+     *
+     * @param element
+     * @return TRUE if element was inserted, FALSE if queue is full
+     */
+    public boolean offer(@NonNull E element) {
+        long pos = tail.get();
+        while (true) {
+            int idx = (int) pos & mask;
+            long diff = sequences.get(idx) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer.lazySet(idx, element);
+                    // volatile write publishes element to consumers
+                    sequences.set(idx, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Retrieves and removes head of this queue
+     *
+     * @return head of this queue, or null if queue is empty
+     */
+    public E poll() {
+        long pos = head.get();
+        while (true) {
+            int idx = (int) pos & mask;
+            long diff = sequences.get(idx) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E element = buffer.get(idx);
+                    buffer.lazySet(idx, null);
+                    // slot becomes available for producer one lap later
+                    sequences.set(idx, pos + capacity);
+                    return element;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /**
+     * Inserts element into this queue, waiting for free space if necessary
+     *
+     * @param element
+     */
+    public void put(@NonNull E element) throws InterruptedException {
+        if (offer(element))
+            return;
+
+        long time = System.nanoTime();
+        int tries = 0;
+        while (!offer(element)) {
+            backoff(tries++);
+        }
+        producerWaitTime.addAndGet(System.nanoTime() - time);
+    }
+
+    /**
+     * Retrieves and removes head of this queue, waiting up to specified time if queue is empty
+     *
+     * @param timeout
+     * @param unit
+     * @return head of this queue, or null if timeout has elapsed
+     */
+    public E poll(long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+        E element = poll();
+        if (element != null)
+            return element;
+
+        long time = System.nanoTime();
+        long deadline = time + unit.toNanos(timeout);
+        int tries = 0;
+        try {
+            while ((element = poll()) == null) {
+                if (System.nanoTime() >= deadline)
+                    return null;
+                backoff(tries++);
+            }
+            return element;
+        } finally {
+            consumerWaitTime.addAndGet(System.nanoTime() - time);
+        }
+    }
+
+    private static void backoff(int tries) throws InterruptedException {
+        if (tries < SPIN_TRIES) {
+            // just spin
+        } else if (tries < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1000L << Math.min(10, tries - SPIN_TRIES - YIELD_TRIES)));
+            if (Thread.interrupted())
+                throw new InterruptedException();
+        }
+    }
+
+    /**
+     * @return Approximate number of elements in this queue
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(capacity, size));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Total time producers spent waiting for free space, in nanoseconds
+     */
+    public long getProducerWaitTime() {
+        return producerWaitTime.get();
+    }
+
+    /**
+     * @return Total time consumers spent waiting for elements, in nanoseconds
+     */
+    public long getConsumerWaitTime() {
+        return consumerWaitTime.get();
+    }
+}
@@ -0,0 +1,71 @@
+package org.deeplearning4j.models.sequencevectors.pipeline;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Simple parallel loop over range of indices: range is split into contiguous chunks, one per available core, and
+ * each chunk is processed by separate thread. Small ranges are processed in caller thread.
+ */
+public class ParallelRange {
+    private static final int MIN_CHUNK = 10000;
+
+    /**
+     * Task processing part of the range
+     */
+    public interface Task {
+        /**
+         * @param from first index, inclusive
+         * @param to last index, exclusive
+         */
+        void run(int from, int to);
+    }
+
+    private ParallelRange() {}
+
+    /**
+     * This method runs given task over [0, length) range, and returns when all chunks are processed
+     *
+     * @param length
+     * @param task
+     */
+    public static void run(int length, @NonNull final Task task) {
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), length / MIN_CHUNK));
+        if (threads == 1) {
+            task.run(0, length);
+            return;
+        }
+
+        ExecutorService service = Executors.newFixedThreadPool(threads);
+        try {
+            int chunk = (length + threads - 1) / threads;
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int from = t * chunk;
+                final int to = Math.min(length, from + chunk);
+                futures.add(service.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        task.run(from, to);
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures)
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.deeplearning4j.models.sequencevectors.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput counters for SequenceVectors training pipeline: sequencing stage (producers), training stage (workers),
+ * queue between them, and aggregate batches executed by learning algorithms.
+ *
+ * All counters are updated concurrently during fit(), and can be read at any time, i.e. from VectorsListener.
+ */
+public class PipelineStats {
+    private final int batchSize;
+    private final AtomicLong startTime = new AtomicLong(System.nanoTime());
+
+    private final AtomicLong sequencedSequences = new AtomicLong(0);
+    private final AtomicLong sequencedWords = new AtomicLong(0);
+    private final AtomicLong trainedSequences = new AtomicLong(0);
+    private final AtomicLong trainedWords = new AtomicLong(0);
+
+    private final AtomicLong queueSamples = new AtomicLong(0);
+    private final AtomicLong queueOccupancySum = new AtomicLong(0);
+
+    private final AtomicLong aggregateBatches = new AtomicLong(0);
+    private final AtomicLong aggregateOps = new AtomicLong(0);
+
+    private volatile BoundedQueue<?> queue;
+    private final AtomicLong producerWaitTime = new AtomicLong(0);
+    private final AtomicLong consumerWaitTime = new AtomicLong(0);
+
+    /**
+     * @param batchSize Target size of aggregate batches, used to calculate batch fill
+     */
+    public PipelineStats(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * This method resets all counters
+     */
+    public void reset() {
+        startTime.set(System.nanoTime());
+        sequencedSequences.set(0);
+        sequencedWords.set(0);
+        trainedSequences.set(0);
+        trainedWords.set(0);
+        queueSamples.set(0);
+        queueOccupancySum.set(0);
+        aggregateBatches.set(0);
+        aggregateOps.set(0);
+        producerWaitTime.set(0);
+        consumerWaitTime.set(0);
+        queue = null;
+    }
+
+    /**
+     * This method attaches queue, used between sequencing and training stages. Wait times of previously attached
+     * queue are preserved.
+     *
+     * @param queue
+     */
+    public void setQueue(BoundedQueue<?> queue) {
+        BoundedQueue<?> previous = this.queue;
+        if (previous != null) {
+            producerWaitTime.addAndGet(previous.getProducerWaitTime());
+            consumerWaitTime.addAndGet(previous.getConsumerWaitTime());
+        }
+        this.queue = queue;
+    }
+
+    public void recordSequenced(long numWords) {
+        sequencedSequences.incrementAndGet();
+        sequencedWords.addAndGet(numWords);
+    }
+
+    public void recordTrained(long numWords) {
+        trainedSequences.incrementAndGet();
+        trainedWords.addAndGet(numWords);
+    }
+
+    public void recordQueueSample(int size) {
+        queueSamples.incrementAndGet();
+        queueOccupancySum.addAndGet(size);
+    }
+
+    public void recordAggregateBatch(int size) {
+        aggregateBatches.incrementAndGet();
+        aggregateOps.addAndGet(size);
+    }
+
+    private double secondsSinceStart() {
+        return Math.max(1L, System.nanoTime() - startTime.get()) / 1e9;
+    }
+
+    public long getSequencedSequences() {
+        return sequencedSequences.get();
+    }
+
+    public long getSequencedWords() {
+        return sequencedWords.get();
+    }
+
+    public long getTrainedSequences() {
+        return trainedSequences.get();
+    }
+
+    public long getTrainedWords() {
+        return trainedWords.get();
+    }
+
+    /**
+     * @return Words per second, produced by sequencing stage
+     */
+    public double getSequencingWordsPerSecond() {
+        return sequencedWords.get() / secondsSinceStart();
+    }
+
+    /**
+     * @return Words per second, consumed by training stage
+     */
+    public double getTrainingWordsPerSecond() {
+        return trainedWords.get() / secondsSinceStart();
+    }
+
+    /**
+     * @return Current queue occupancy, 0.0 (empty) to 1.0 (full)
+     */
+    public double getQueueOccupancy() {
+        BoundedQueue<?> q = queue;
+        return q == null ? 0.0 : q.size() / (double) q.capacity();
+    }
+
+    /**
+     * @return Average queue occupancy observed by workers, 0.0 (empty) to 1.0 (full)
+     */
+    public double getAverageQueueOccupancy() {
+        BoundedQueue<?> q = queue;
+        long samples = queueSamples.get();
+        if (q == null || samples == 0)
+            return 0.0;
+
+        return queueOccupancySum.get() / (double) samples / q.capacity();
+    }
+
+    /**
+     * @return Total time producers spent waiting for free space in queue, in milliseconds
+     */
+    public long getProducerWaitTimeMs() {
+        BoundedQueue<?> q = queue;
+        return (producerWaitTime.get() + (q == null ? 0 : q.getProducerWaitTime())) / 1000000;
+    }
+
+    /**
+     * @return Total time workers spent waiting for sequences in queue, in milliseconds
+     */
+    public long getConsumerWaitTimeMs() {
+        BoundedQueue<?> q = queue;
+        return (consumerWaitTime.get() + (q == null ? 0 : q.getConsumerWaitTime())) / 1000000;
+    }
+
+    public long getAggregateBatches() {
+        return aggregateBatches.get();
+    }
+
+    /**
+     * @return Average number of aggregates per executed batch
+     */
+    public double getAverageBatchSize() {
+        long batches = aggregateBatches.get();
+        return batches == 0 ? 0.0 : aggregateOps.get() / (double) batches;
+    }
+
+    /**
+     * @return Average batch size relative to configured batchSize. Values below 1.0 mean batches are flushed early
+     */
+    public double getAverageBatchFill() {
+        return getAverageBatchSize() / batchSize;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Sequencing words/sec: [%.2f]; Training words/sec: [%.2f]; Queue occupancy: [%.2f], average: [%.2f]; Producers waited: [%d ms]; Workers waited: [%d ms]; Average aggregate batch: [%.1f], fill: [%.2f]",
+                        getSequencingWordsPerSecond(), getTrainingWordsPerSecond(), getQueueOccupancy(),
+                        getAverageQueueOccupancy(), getProducerWaitTimeMs(), getConsumerWaitTimeMs(),
+                        getAverageBatchSize(), getAverageBatchFill());
+    }
+}
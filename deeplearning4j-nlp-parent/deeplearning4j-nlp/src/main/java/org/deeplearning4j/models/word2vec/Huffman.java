@@ -18,10 +18,9 @@
 
 package org.deeplearning4j.models.word2vec;
 
+import org.deeplearning4j.models.sequencevectors.pipeline.ParallelRange;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.*;
 
@@ -36,8 +35,6 @@ public class Huffman {
     public final int MAX_CODE_LENGTH;
     private volatile boolean buildTrigger = false;
 
-    private Logger logger = LoggerFactory.getLogger(Huffman.class);
-
     public Huffman(Collection<? extends SequenceElement> words) {
         this(words, 40);
     }
@@ -63,100 +60,90 @@ public class Huffman {
 
     private List<? extends SequenceElement> words;
 
+    /**
+     * This method builds Huffman tree and assigns codes and points to each element.
+     * Tree is built with primitive arrays, and codes/points are assigned to elements in parallel.
+     */
     public void build() {
         buildTrigger = true;
-        long[] count = new long[words.size() * 2 + 1];
-        byte[] binary = new byte[words.size() * 2 + 1];
-        byte[] code = new byte[MAX_CODE_LENGTH];
-        int[] point = new int[MAX_CODE_LENGTH];
-        int[] parentNode = new int[words.size() * 2 + 1];
-        int a = 0;
-
-        while (a < words.size()) {
-            count[a] = (long) words.get(a).getElementFrequency();
-            a++;
-        }
+        final int numWords = words.size();
+        final long[] count = new long[numWords * 2 + 1];
+        final byte[] binary = new byte[numWords * 2 + 1];
+        final int[] parentNode = new int[numWords * 2 + 1];
 
-        a = words.size();
+        ParallelRange.run(numWords, new ParallelRange.Task() {
+            @Override
+            public void run(int from, int to) {
+                for (int a = from; a < to; a++)
+                    count[a] = (long) words.get(a).getElementFrequency();
+            }
+        });
 
-        while (a < words.size() * 2) {
+        for (int a = numWords; a < numWords * 2; a++)
             count[a] = Integer.MAX_VALUE;
-            a++;
-        }
 
-        int pos1 = words.size() - 1;
-        int pos2 = words.size();
+        int pos1 = numWords - 1;
+        int pos2 = numWords;
 
         int min1i;
         int min2i;
 
-        a = 0;
         // Following algorithm constructs the Huffman tree by adding one node at a time
-        for (a = 0; a < words.size() - 1; a++) {
+        for (int a = 0; a < numWords - 1; a++) {
             // First, find two smallest nodes 'min1, min2'
-            if (pos1 >= 0) {
-                if (count[pos1] < count[pos2]) {
-                    min1i = pos1;
-                    pos1--;
-                } else {
-                    min1i = pos2;
-                    pos2++;
-                }
+            if (pos1 >= 0 && count[pos1] < count[pos2]) {
+                min1i = pos1;
+                pos1--;
             } else {
                 min1i = pos2;
                 pos2++;
             }
-            if (pos1 >= 0) {
-                if (count[pos1] < count[pos2]) {
-                    min2i = pos1;
-                    pos1--;
-                } else {
-                    min2i = pos2;
-                    pos2++;
-                }
+            if (pos1 >= 0 && count[pos1] < count[pos2]) {
+                min2i = pos1;
+                pos1--;
             } else {
                 min2i = pos2;
                 pos2++;
             }
 
-            count[words.size() + a] = count[min1i] + count[min2i];
-            parentNode[min1i] = words.size() + a;
-            parentNode[min2i] = words.size() + a;
+            count[numWords + a] = count[min1i] + count[min2i];
+            parentNode[min1i] = numWords + a;
+            parentNode[min2i] = numWords + a;
             binary[min2i] = 1;
         }
-        // Now assign binary code to each vocabulary word
-        int i;
-        int b;
-        // Now assign binary code to each vocabulary word
-        for (a = 0; a < words.size(); a++) {
-            b = a;
-            i = 0;
-            do {
-                code[i] = binary[b];
-                point[i] = b;
-                i++;
-                b = parentNode[b];
-
-            } while (b != words.size() * 2 - 2 && i < 39);
-
-
-            words.get(a).setCodeLength((short) i);
-            words.get(a).getPoints().add(words.size() - 2);
-
-            for (b = 0; b < i; b++) {
-                try {
-                    words.get(a).getCodes().set(i - b - 1, code[b]);
-                    words.get(a).getPoints().set(i - b, point[b] - words.size());
-                } catch (Exception e) {
-                    logger.info("Words size: [" + words.size() + "], a: [" + a + "], b: [" + b + "], i: [" + i
-                                    + "], points size: [" + words.get(a).getPoints().size() + "]");
-                    throw new RuntimeException(e);
+
+        // Now assign binary code to each vocabulary word. Paths are independent, so it's done in parallel
+        ParallelRange.run(numWords, new ParallelRange.Task() {
+            @Override
+            public void run(int from, int to) {
+                byte[] code = new byte[MAX_CODE_LENGTH];
+                int[] point = new int[MAX_CODE_LENGTH];
+                for (int a = from; a < to; a++) {
+                    int b = a;
+                    int i = 0;
+                    do {
+                        code[i] = binary[b];
+                        point[i] = b;
+                        i++;
+                        b = parentNode[b];
+                    } while (b != numWords * 2 - 2 && i < MAX_CODE_LENGTH - 1);
+
+                    // same layout as before: codes[0..i), points[0..i], with points[0] left as 0
+                    List<Byte> codes = new ArrayList<>(i);
+                    List<Integer> points = new ArrayList<>(i + 1);
+                    points.add(0);
+                    for (b = i - 1; b >= 0; b--) {
+                        codes.add(code[b]);
+                        points.add(point[b] - numWords);
+                    }
+
+                    SequenceElement element = words.get(a);
+                    element.setCodes(codes);
+                    element.setPoints(points);
+                    element.setCodeLength((short) i);
                 }
             }
-
-        }
-
-
+        });
     }
 
     /**
@@ -0,0 +1,481 @@
+package org.deeplearning4j.models.word2vec;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.quantization.ProductQuantizer;
+import org.deeplearning4j.models.embeddings.quantization.QuantizationReport;
+import org.deeplearning4j.models.embeddings.reader.ModelUtils;
+import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.util.*;
+
+/**
+ * This is special limited Word2Vec implementation, suited for low-memory serving.
+ * Vectors are stored product-quantized: each unit-normalized vector is encoded as one byte per subspace, plus its
+ * original norm. So 300-dimensional float vectors with 75 subspaces take 79 bytes per word instead of 1200.
+ *
+ * wordsNearest() runs directly on codes, using asymmetric distance computation, so full vectors are never restored
+ * during search. Results are approximate, use evaluate() to measure recall against uncompressed model.
+ *
+ * This implementation DOES NOT provide some of original Word2Vec methods, such as wordsNearestSum or accuracy.
+ */
+@Slf4j
+public class QuantizedWord2Vec implements WordVectors {
+    private VocabCache<VocabWord> vocabCache;
+    private ProductQuantizer quantizer;
+    private byte[] codes;
+    private float[] norms;
+    private String unk = null;
+
+    private QuantizedWord2Vec() {
+
+    }
+
+    @Override
+    public String getUNK() {
+        return unk;
+    }
+
+    @Override
+    public void setUNK(String newUNK) {
+        this.unk = newUNK;
+    }
+
+    /**
+     * Returns true if the model has this word in the vocab
+     *
+     * @param word the word to test for
+     * @return true if the model has the word in the vocab
+     */
+    @Override
+    public boolean hasWord(String word) {
+        return vocabCache.containsWord(word);
+    }
+
+    /**
+     * Words nearest to given vector, estimated on quantized codes
+     *
+     * @param words the vector to compare
+     * @param top the top n words
+     * @return
+     */
+    @Override
+    public Collection<String> wordsNearest(@NonNull INDArray words, int top) {
+        return nearest(words, top, Collections.<String>emptySet());
+    }
+
+    @Override
+    public Collection<String> wordsNearestSum(INDArray words, int top) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation.
+     */
+    @Override
+    public Collection<String> wordsNearestSum(String word, int n) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation.
+     */
+    @Override
+    public Collection<String> wordsNearestSum(Collection<String> positive, Collection<String> negative, int top) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation.
+     */
+    @Override
+    public Map<String, Double> accuracy(List<String> questions) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    @Override
+    public int indexOf(String word) {
+        return vocabCache.indexOf(word);
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation.
+     */
+    @Override
+    public List<String> similarWordsInVocabTo(String word, double accuracy) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    @Override
+    public double[] getWordVector(String word) {
+        INDArray vector = getWordVectorMatrix(word);
+        return vector == null ? null : vector.data().asDouble();
+    }
+
+    @Override
+    public INDArray getWordVectorMatrixNormalized(String word) {
+        INDArray vector = getWordVectorMatrix(word);
+        return vector == null ? null : Transforms.unitVec(vector);
+    }
+
+    /**
+     * Returns vector for given word, restored out of its codes
+     *
+     * @param word the word to get the matrix for
+     * @return the ndarray for this word
+     */
+    @Override
+    public INDArray getWordVectorMatrix(String word) {
+        int idx;
+        if (hasWord(word))
+            idx = vocabCache.indexOf(word);
+        else if (getUNK() != null && hasWord(getUNK()))
+            idx = vocabCache.indexOf(getUNK());
+        else
+            return null;
+
+        float[] vector = new float[quantizer.getDimension()];
+        quantizer.decode(codes, idx * quantizer.getSubspaces(), vector);
+        for (int i = 0; i < vector.length; i++)
+            vector[i] *= norms[idx];
+
+        return Nd4j.create(vector);
+    }
+
+    @Override
+    public INDArray getWordVectors(Collection<String> labels) {
+        List<INDArray> words = new ArrayList<>();
+        for (String label : labels) {
+            INDArray vector = getWordVectorMatrix(label);
+            if (vector != null)
+                words.add(vector);
+        }
+
+        return Nd4j.vstack(words);
+    }
+
+    @Override
+    public INDArray getWordVectorsMean(Collection<String> labels) {
+        INDArray matrix = getWordVectors(labels);
+        return matrix.mean(0);
+    }
+
+    /**
+     * Words nearest based on positive and negative words, estimated on quantized codes
+     *
+     * @param positive the positive words
+     * @param negative the negative words
+     * @param top      the top n words
+     * @return the words nearest the mean of the words
+     */
+    @Override
+    public Collection<String> wordsNearest(@NonNull Collection<String> positive, @NonNull Collection<String> negative,
+                    int top) {
+        Set<String> exclude = new HashSet<>();
+        exclude.addAll(positive);
+        exclude.addAll(negative);
+        for (String word : exclude) {
+            if (!hasWord(word))
+                return new ArrayList<>();
+        }
+
+        INDArray mean = Nd4j.zeros(quantizer.getDimension());
+        for (String word : positive)
+            mean.addi(getWordVectorMatrix(word));
+        for (String word : negative)
+            mean.subi(getWordVectorMatrix(word));
+
+        return nearest(mean.divi(positive.size() + negative.size()), top, exclude);
+    }
+
+    /**
+     * Get the top n words most similar to the given word, estimated on quantized codes
+     *
+     * @param word the word to compare
+     * @param n    the n to get
+     * @return the top n words
+     */
+    @Override
+    public Collection<String> wordsNearest(String word, int n) {
+        return wordsNearest(Collections.singletonList(word), Collections.<String>emptyList(), n);
+    }
+
+    protected List<String> nearest(INDArray vector, int top, Set<String> exclude) {
+        float[] query = Transforms.unitVec(vector.dup()).data().asFloat();
+        float[][] table = quantizer.dotTable(query);
+
+        int subspaces = quantizer.getSubspaces();
+        int limit = top + exclude.size();
+        if (top <= 0)
+            return new ArrayList<>();
+
+        PriorityQueue<ScoredIndex> queue = new PriorityQueue<>(limit + 1);
+        for (int i = 0; i < vocabCache.numWords(); i++) {
+            float score = quantizer.dot(table, codes, i * subspaces);
+            if (queue.size() < limit) {
+                queue.add(new ScoredIndex(i, score));
+            } else if (score > queue.peek().score) {
+                queue.poll();
+                queue.add(new ScoredIndex(i, score));
+            }
+        }
+
+        List<ScoredIndex> scored = new ArrayList<>(queue);
+        Collections.sort(scored, Collections.reverseOrder());
+
+        List<String> result = new ArrayList<>();
+        for (ScoredIndex index : scored) {
+            String word = vocabCache.wordAtIndex(index.index);
+            if (word == null || exclude.contains(word) || word.equals("UNK") || word.equals("STOP"))
+                continue;
+
+            result.add(word);
+            if (result.size() >= top)
+                break;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the similarity of 2 words
+     *
+     * @param label1  the first word
+     * @param label2 the second word
+     * @return a normalized similarity (cosine similarity)
+     */
+    @Override
+    public double similarity(String label1, String label2) {
+        if (label1 == null || label2 == null)
+            return Double.NaN;
+
+        INDArray vec1 = getWordVectorMatrix(label1);
+        INDArray vec2 = getWordVectorMatrix(label2);
+        if (vec1 == null || vec2 == null)
+            return Double.NaN;
+
+        if (label1.equals(label2))
+            return 1.0;
+
+        return Transforms.cosineSim(vec1, vec2);
+    }
+
+    @Override
+    public VocabCache vocab() {
+        return vocabCache;
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation.
+     */
+    @Override
+    public WeightLookupTable lookupTable() {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * PLEASE NOTE: This method has no effect in this implementation.
+     */
+    @Override
+    public void setModelUtils(ModelUtils utils) {
+        // no-op
+    }
+
+    /**
+     * @return Memory used by codes, norms and codebooks, in bytes
+     */
+    public long memoryBytes() {
+        return codes.length + 4L * norms.length + quantizer.codebooksBytes();
+    }
+
+    /**
+     * This method compares wordsNearest() results of this model against given uncompressed model
+     *
+     * @param reference uncompressed model, this model was built from
+     * @param queries words to query
+     * @param top number of nearest words per query
+     * @return
+     */
+    public QuantizationReport evaluate(@NonNull WordVectors reference, @NonNull Collection<String> queries, int top) {
+        int evaluated = 0;
+        double recall = 0.0;
+        for (String query : queries) {
+            if (!hasWord(query) || !reference.hasWord(query))
+                continue;
+
+            Collection<String> expected = reference.wordsNearest(query, top);
+            if (expected.isEmpty())
+                continue;
+
+            Set<String> found = new HashSet<>(wordsNearest(query, top));
+            int hits = 0;
+            for (String word : expected) {
+                if (found.contains(word))
+                    hits++;
+            }
+
+            recall += hits / (double) expected.size();
+            evaluated++;
+        }
+
+        long elementSize = 4;
+        String first = vocabCache.wordAtIndex(0);
+        if (first != null && reference.getWordVectorMatrix(first) != null)
+            elementSize = reference.getWordVectorMatrix(first).data().getElementSize();
+
+        long uncompressed = elementSize * vocabCache.numWords() * quantizer.getDimension();
+        return new QuantizationReport(evaluated, top, evaluated == 0 ? 0.0 : recall / evaluated, uncompressed,
+                        memoryBytes());
+    }
+
+    private static class ScoredIndex implements Comparable<ScoredIndex> {
+        private final int index;
+        private final float score;
+
+        private ScoredIndex(int index, float score) {
+            this.index = index;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(ScoredIndex o) {
+            return Float.compare(score, o.score);
+        }
+    }
+
+    public static class Builder {
+        private WordVectors source;
+        private int subspaces = 0;
+        private int centroids = 256;
+        private int iterations = 10;
+        private int sampleSize = 100000;
+        private long seed = 119;
+
+        /**
+         * @param source Model to be quantized. It's used only during build(), and can be released afterwards
+         */
+        public Builder(@NonNull WordVectors source) {
+            this.source = source;
+        }
+
+        /**
+         * This method defines number of subspaces, i.e. number of bytes per word.
+         * Default value is layerSize / 4
+         *
+         * @param subspaces
+         * @return
+         */
+        public Builder subspaces(int subspaces) {
+            this.subspaces = subspaces;
+            return this;
+        }
+
+        /**
+         * This method defines number of centroids per subspace, up to 256
+         *
+         * @param centroids
+         * @return
+         */
+        public Builder centroids(int centroids) {
+            this.centroids = centroids;
+            return this;
+        }
+
+        /**
+         * This method defines number of k-means iterations used to train codebooks
+         *
+         * @param iterations
+         * @return
+         */
+        public Builder iterations(int iterations) {
+            this.iterations = iterations;
+            return this;
+        }
+
+        /**
+         * This method defines max number of vectors used to train codebooks
+         *
+         * @param sampleSize
+         * @return
+         */
+        public Builder sampleSize(int sampleSize) {
+            this.sampleSize = sampleSize;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public QuantizedWord2Vec build() {
+            VocabCache<VocabWord> vocab = source.vocab();
+            int numWords = vocab.numWords();
+            if (numWords == 0)
+                throw new IllegalStateException("Source model has empty vocabulary");
+
+            int dimension = vectorFor(vocab, 0).length;
+            int numSubspaces = subspaces > 0 ? subspaces : Math.max(1, dimension / 4);
+
+            // codebooks are trained on random subset of vocabulary
+            List<Integer> indexes = new ArrayList<>();
+            for (int i = 0; i < numWords; i++)
+                indexes.add(i);
+            Collections.shuffle(indexes, new Random(seed));
+
+            int numSamples = Math.min(numWords, Math.max(1, sampleSize));
+            float[][] sample = new float[numSamples][];
+            for (int i = 0; i < numSamples; i++) {
+                sample[i] = vectorFor(vocab, indexes.get(i));
+                normalize(sample[i]);
+            }
+
+            ProductQuantizer quantizer = new ProductQuantizer(dimension, numSubspaces, Math.min(centroids, numWords));
+            log.info("Training product quantizer: {} subspaces, {} centroids, {} vectors...", numSubspaces,
+                            quantizer.getNumCentroids(), numSamples);
+            quantizer.fit(sample, iterations, seed);
+
+            QuantizedWord2Vec word2Vec = new QuantizedWord2Vec();
+            word2Vec.vocabCache = vocab;
+            word2Vec.quantizer = quantizer;
+            word2Vec.codes = new byte[numWords * numSubspaces];
+            word2Vec.norms = new float[numWords];
+            word2Vec.unk = source.getUNK();
+
+            for (int i = 0; i < numWords; i++) {
+                float[] vector = vectorFor(vocab, i);
+                word2Vec.norms[i] = normalize(vector);
+                quantizer.encode(vector, word2Vec.codes, i * numSubspaces);
+            }
+
+            return word2Vec;
+        }
+
+        private float[] vectorFor(VocabCache<VocabWord> vocab, int index) {
+            INDArray vector = source.getWordVectorMatrix(vocab.wordAtIndex(index));
+            if (vector == null)
+                throw new IllegalStateException("Source model has no vector for word [" + vocab.wordAtIndex(index) + "]");
+
+            return vector.dup().data().asFloat();
+        }
+
+        private static float normalize(float[] vector) {
+            double norm = 0.0;
+            for (float value : vector)
+                norm += value * value;
+
+            norm = Math.sqrt(norm);
+            if (norm > 0) {
+                for (int i = 0; i < vector.length; i++)
+                    vector[i] /= norm;
+            }
+
+            return (float) norm;
+        }
+    }
+}
@@ -413,6 +413,12 @@ public class Word2Vec extends SequenceVectors<VocabWord> {
             return this;
         }
 
+        @Override
+        public Builder sequencerThreads(int numThreads) {
+            super.sequencerThreads(numThreads);
+            return this;
+        }
+
         /**
          * Sets ModelUtils that gonna be used as provider for utility methods: similarity(), wordsNearest(), accuracy(), etc
          *
@@ -575,6 +581,7 @@ public class Word2Vec extends SequenceVectors<VocabWord> {
             ret.useAdeGrad = this.useAdaGrad;
             ret.stopWords = this.stopWords;
             ret.workers = this.workers;
+            ret.sequencerThreads = this.sequencerThreads;
             ret.useUnknown = this.useUnknown;
             ret.unknownElement = this.unknownElement;
             ret.variableWindows = this.variableWindows;
@@ -349,6 +349,9 @@ public class VocabConstructor<T extends SequenceElement> {
             }
         }
 
+        if (index != null)
+            index.finish();
+
         executorService.shutdown();
 
         System.gc();
@@ -579,13 +582,16 @@ public class VocabConstructor<T extends SequenceElement> {
                             T element = targetVocab.wordFor(token);
                             element.incrementSequencesCount();
                         }
+                    }
+                }
 
-                        if (index != null) {
-                            if (document.getSequenceLabel() != null) {
-                                index.addWordsToDoc(index.numDocuments(), document.getElements(), document.getSequenceLabel());
-                            } else {
-                                index.addWordsToDoc(index.numDocuments(), document.getElements());
-                            }
+                // each document goes into index once, ids are assigned sequentially
+                if (index != null) {
+                    synchronized (index) {
+                        if (document.getSequenceLabel() != null) {
+                            index.addWordsToDoc(index.numDocuments(), document.getElements(), document.getSequenceLabel());
+                        } else {
+                            index.addWordsToDoc(index.numDocuments(), document.getElements());
                         }
                     }
                 }
@@ -0,0 +1,778 @@
+package org.deeplearning4j.models.word2vec.wordstore.compact;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compact VocabCache implementation, designed for very large vocabularies.
+ *
+ * Instead of one VocabWord object per element (plus 3 hash map entries, plus Huffman codes/points as boxed lists), all
+ * labels are stored in a single UTF-8 byte arena, looked up via open-addressing hash table, and frequencies, document
+ * counts and Huffman codes/points are stored in parallel primitive arrays. All of these live in a single ByteBuffer,
+ * that has the same layout as the file written by {@link #save(File)}, so a saved vocabulary can be either loaded into
+ * heap, or memory-mapped via {@link #load(File, boolean)}.
+ *
+ * Element index is the position of the element in this vocabulary, i.e. Huffman index.
+ *
+ * PLEASE NOTE: This vocabulary is built from an existing one (usually AbstractCache after VocabConstructor and Huffman
+ * tree were applied), and elements can't be added or removed. Counters can be updated via VocabCache methods, unless
+ * vocabulary is memory-mapped. Elements returned by wordFor(), elementAtIndex() etc are lightweight views, created on
+ * each call: their counters are backed by this vocabulary, but Huffman codes and points are read-only.
+ *
+ * Usage: pass it as vocabCache to Word2Vec, ParagraphVectors or SequenceVectors, with resetModel(false)
+ */
+@Slf4j
+public class CompactVocabCache implements VocabCache<VocabWord> {
+    private static final long serialVersionUID = 3415793206154312716L;
+
+    protected static final int MAGIC = 0x44344A56;
+    protected static final int VERSION = 1;
+    protected static final int HEADER_SIZE = 64;
+
+    protected static final byte FLAG_SPECIAL = 1;
+    protected static final byte FLAG_LABEL = 2;
+
+    private transient ByteBuffer buffer;
+    private transient boolean mapped;
+
+    private int numWords;
+    private int tableSize;
+    private long arenaBytes;
+    private long totalPoints;
+
+    private AtomicLong totalWordCount = new AtomicLong(0);
+    private AtomicLong documentsCounter = new AtomicLong(0);
+
+    // section offsets within buffer
+    private transient int frequenciesOffset;
+    private transient int docCountsOffset;
+    private transient int storageIdsOffset;
+    private transient int codesOffset;
+    private transient int labelOffsetsOffset;
+    private transient int pointOffsetsOffset;
+    private transient int hashesOffset;
+    private transient int tableOffset;
+    private transient int pointsOffset;
+    private transient int codeLengthsOffset;
+    private transient int flagsOffset;
+    private transient int arenaOffset;
+
+    // in-memory only state: lookup table for storage ids, and preciseWeightInit state
+    private transient volatile Map<Long, Integer> storageIdIndex;
+    private transient BitSet initialized = new BitSet();
+
+    protected CompactVocabCache() {
+        //
+    }
+
+    /**
+     * This method builds compact vocabulary out of existing one.
+     *
+     * If existing vocabulary has Huffman indexes applied (0..numWords-1, as after VocabConstructor), they are
+     * preserved. Otherwise elements are ordered by descending frequency.
+     *
+     * @param source
+     * @return
+     */
+    public static CompactVocabCache fromVocab(@NonNull VocabCache<? extends SequenceElement> source) {
+        List<SequenceElement> elements = new ArrayList<>(source.vocabWords());
+        int n = elements.size();
+
+        // check if indexes are valid, and sort by index if so
+        boolean validIndexes = true;
+        boolean[] seen = new boolean[n];
+        for (SequenceElement element : elements) {
+            int idx = element.getIndex();
+            if (idx < 0 || idx >= n || seen[idx]) {
+                validIndexes = false;
+                break;
+            }
+            seen[idx] = true;
+        }
+        if (validIndexes) {
+            Collections.sort(elements, new Comparator<SequenceElement>() {
+                @Override
+                public int compare(SequenceElement o1, SequenceElement o2) {
+                    return Integer.compare(o1.getIndex(), o2.getIndex());
+                }
+            });
+        } else {
+            log.warn("Source vocabulary has no valid Huffman indexes, elements will be ordered by frequency");
+            Collections.sort(elements, new Comparator<SequenceElement>() {
+                @Override
+                public int compare(SequenceElement o1, SequenceElement o2) {
+                    return Double.compare(o2.getElementFrequency(), o1.getElementFrequency());
+                }
+            });
+        }
+
+        byte[][] labels = new byte[n][];
+        long arena = 0;
+        long points = 0;
+        for (int i = 0; i < n; i++) {
+            labels[i] = elements.get(i).getLabel().getBytes(StandardCharsets.UTF_8);
+            arena += labels[i].length;
+            points += elements.get(i).getPoints().size();
+        }
+
+        CompactVocabCache cache = new CompactVocabCache();
+        cache.numWords = n;
+        cache.tableSize = tableSizeFor(n);
+        cache.arenaBytes = arena;
+        cache.totalPoints = points;
+        cache.computeLayout();
+        cache.buffer = ByteBuffer.allocate(cache.checkedSize());
+
+        int arenaPos = 0;
+        int pointPos = 0;
+        for (int i = 0; i < n; i++) {
+            SequenceElement element = elements.get(i);
+            cache.buffer.putDouble(cache.frequenciesOffset + 8 * i, element.getElementFrequency());
+            cache.buffer.putLong(cache.docCountsOffset + 8 * i, element.getSequencesCount());
+            cache.buffer.putLong(cache.storageIdsOffset + 8 * i, element.getStorageId());
+
+            List<Byte> codes = element.getCodes();
+            int codeLength = Math.min(element.getCodeLength(), Math.min(codes.size(), 64));
+            long bits = 0;
+            for (int c = 0; c < codeLength; c++) {
+                if (codes.get(c) != 0) {
+                    bits |= 1L << c;
+                }
+            }
+            cache.buffer.putLong(cache.codesOffset + 8 * i, bits);
+            cache.buffer.put(cache.codeLengthsOffset + i, (byte) codeLength);
+
+            cache.buffer.putInt(cache.pointOffsetsOffset + 4 * i, pointPos);
+            for (Integer point : element.getPoints()) {
+                cache.buffer.putInt(cache.pointsOffset + 4 * pointPos++, point);
+            }
+
+            byte flags = 0;
+            if (element.isSpecial())
+                flags |= FLAG_SPECIAL;
+            if (element.isLabel())
+                flags |= FLAG_LABEL;
+            cache.buffer.put(cache.flagsOffset + i, flags);
+
+            cache.buffer.putInt(cache.labelOffsetsOffset + 4 * i, arenaPos);
+            for (byte b : labels[i]) {
+                cache.buffer.put(cache.arenaOffset + arenaPos++, b);
+            }
+
+            int hash = element.getLabel().hashCode();
+            cache.buffer.putInt(cache.hashesOffset + 4 * i, hash);
+            int slot = mix(hash) & (cache.tableSize - 1);
+            while (cache.buffer.getInt(cache.tableOffset + 4 * slot) != 0) {
+                slot = (slot + 1) & (cache.tableSize - 1);
+            }
+            cache.buffer.putInt(cache.tableOffset + 4 * slot, i + 1);
+        }
+        cache.buffer.putInt(cache.pointOffsetsOffset + 4 * n, pointPos);
+        cache.buffer.putInt(cache.labelOffsetsOffset + 4 * n, arenaPos);
+
+        cache.totalWordCount.set(source.totalWordOccurrences());
+        cache.documentsCounter.set(source.totalNumberOfDocs());
+
+        return cache;
+    }
+
+    /**
+     * This method loads vocabulary saved with {@link #save(File)}
+     *
+     * @param file
+     * @param memoryMap if TRUE, file will be memory-mapped (read-only) instead of being loaded into heap
+     * @return
+     */
+    public static CompactVocabCache load(@NonNull File file, boolean memoryMap) throws IOException {
+        ByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Vocabulary file is too large: " + channel.size() + " bytes");
+
+            if (memoryMap) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } else {
+                buffer = ByteBuffer.allocate((int) channel.size());
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0);
+                buffer.flip();
+            }
+        }
+
+        CompactVocabCache cache = new CompactVocabCache();
+        cache.readHeader(buffer);
+        cache.mapped = memoryMap;
+        return cache;
+    }
+
+    /**
+     * This method saves vocabulary to specified file. Saved file can be loaded (or memory-mapped) later via
+     * {@link #load(File, boolean)}
+     *
+     * @param file
+     */
+    public synchronized void save(@NonNull File file) throws IOException {
+        ByteBuffer header = header();
+        ByteBuffer dup = body();
+        try (FileOutputStream fos = new FileOutputStream(file); FileChannel channel = fos.getChannel()) {
+            while (header.hasRemaining())
+                channel.write(header);
+            while (dup.hasRemaining())
+                channel.write(dup);
+        }
+    }
+
+    /**
+     * Returns TRUE if this vocabulary is memory-mapped. Memory-mapped vocabularies are read-only.
+     *
+     * @return
+     */
+    public boolean isMemoryMapped() {
+        return mapped;
+    }
+
+    private static int tableSizeFor(int n) {
+        return Integer.highestOneBit(Math.max(8, 2 * n) - 1) << 1;
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    private void computeLayout() {
+        long pos = HEADER_SIZE;
+        frequenciesOffset = (int) pos;
+        pos += 8L * numWords;
+        docCountsOffset = (int) pos;
+        pos += 8L * numWords;
+        storageIdsOffset = (int) pos;
+        pos += 8L * numWords;
+        codesOffset = (int) pos;
+        pos += 8L * numWords;
+        labelOffsetsOffset = (int) pos;
+        pos = align(pos + 4L * (numWords + 1));
+        pointOffsetsOffset = (int) pos;
+        pos = align(pos + 4L * (numWords + 1));
+        hashesOffset = (int) pos;
+        pos = align(pos + 4L * numWords);
+        tableOffset = (int) pos;
+        pos = align(pos + 4L * tableSize);
+        pointsOffset = (int) pos;
+        pos = align(pos + 4L * totalPoints);
+        codeLengthsOffset = (int) pos;
+        pos = align(pos + numWords);
+        flagsOffset = (int) pos;
+        pos = align(pos + numWords);
+        arenaOffset = (int) pos;
+    }
+
+    private int checkedSize() {
+        long size = arenaOffset + arenaBytes;
+        if (arenaOffset < 0 || size > Integer.MAX_VALUE)
+            throw new IllegalStateException("Vocabulary is too large for compact storage: " + size + " bytes");
+        return (int) size;
+    }
+
+    /**
+     * Returns header with current counters. Header is written separately, since memory-mapped buffer is read-only
+     */
+    private ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putInt(8, numWords);
+        header.putInt(12, tableSize);
+        header.putLong(16, arenaBytes);
+        header.putLong(24, totalPoints);
+        header.putLong(32, totalWordCount.get());
+        header.putLong(40, documentsCounter.get());
+        return header;
+    }
+
+    /**
+     * Returns everything after header
+     */
+    private ByteBuffer body() {
+        ByteBuffer dup = buffer.duplicate();
+        dup.clear();
+        dup.position(HEADER_SIZE);
+        dup.limit(checkedSize());
+        return dup;
+    }
+
+    private void readHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+            throw new IOException("Not a compact vocabulary file");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException("Unsupported compact vocabulary version: " + buffer.getInt(4));
+
+        this.buffer = buffer;
+        numWords = buffer.getInt(8);
+        tableSize = buffer.getInt(12);
+        arenaBytes = buffer.getLong(16);
+        totalPoints = buffer.getLong(24);
+        totalWordCount = new AtomicLong(buffer.getLong(32));
+        documentsCounter = new AtomicLong(buffer.getLong(40));
+        computeLayout();
+        if (buffer.capacity() < checkedSize())
+            throw new IOException("Compact vocabulary file is truncated: expected " + checkedSize() + " bytes, got "
+                            + buffer.capacity());
+    }
+
+    private void checkWritable() {
+        if (mapped)
+            throw new UnsupportedOperationException("Memory-mapped vocabulary is read-only");
+    }
+
+    /*
+        Primitive accessors, element index based
+     */
+
+    /**
+     * Returns label for specified element index
+     */
+    public String labelAt(int index) {
+        int start = buffer.getInt(labelOffsetsOffset + 4 * index);
+        int end = buffer.getInt(labelOffsetsOffset + 4 * (index + 1));
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(arenaOffset + start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns frequency of element with specified index
+     */
+    public double frequencyAt(int index) {
+        return buffer.getDouble(frequenciesOffset + 8 * index);
+    }
+
+    /**
+     * Returns number of documents containing element with specified index
+     */
+    public long docCountAt(int index) {
+        return buffer.getLong(docCountsOffset + 8 * index);
+    }
+
+    /**
+     * Returns Huffman code length of element with specified index
+     */
+    public int codeLengthAt(int index) {
+        return buffer.get(codeLengthsOffset + index);
+    }
+
+    /**
+     * Returns Huffman code of element with specified index, as bits: i-th bit is the i-th code
+     */
+    public long codesAt(int index) {
+        return buffer.getLong(codesOffset + 8 * index);
+    }
+
+    /**
+     * Returns Huffman points of element with specified index
+     */
+    public int[] pointsAt(int index) {
+        int start = buffer.getInt(pointOffsetsOffset + 4 * index);
+        int end = buffer.getInt(pointOffsetsOffset + 4 * (index + 1));
+        int[] points = new int[end - start];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = buffer.getInt(pointsOffset + 4 * (start + i));
+        }
+        return points;
+    }
+
+    protected long storageIdAt(int index) {
+        return buffer.getLong(storageIdsOffset + 8 * index);
+    }
+
+    protected boolean isSpecialAt(int index) {
+        return (buffer.get(flagsOffset + index) & FLAG_SPECIAL) != 0;
+    }
+
+    protected boolean isLabelAt(int index) {
+        return (buffer.get(flagsOffset + index) & FLAG_LABEL) != 0;
+    }
+
+    protected synchronized void setLabelAt(int index, boolean isLabel) {
+        checkWritable();
+        byte flags = buffer.get(flagsOffset + index);
+        buffer.put(flagsOffset + index, (byte) (isLabel ? flags | FLAG_LABEL : flags & ~FLAG_LABEL));
+    }
+
+    protected synchronized void addFrequencyAt(int index, double by) {
+        checkWritable();
+        buffer.putDouble(frequenciesOffset + 8 * index, frequencyAt(index) + by);
+        totalWordCount.addAndGet((long) by);
+    }
+
+    protected synchronized void setFrequencyAt(int index, double value) {
+        checkWritable();
+        double old = frequencyAt(index);
+        buffer.putDouble(frequenciesOffset + 8 * index, value);
+        totalWordCount.addAndGet((long) value - (long) old);
+    }
+
+    protected synchronized void addDocCountAt(int index, long by) {
+        checkWritable();
+        buffer.putLong(docCountsOffset + 8 * index, docCountAt(index) + by);
+    }
+
+    protected synchronized void setDocCountAt(int index, long value) {
+        checkWritable();
+        buffer.putLong(docCountsOffset + 8 * index, value);
+    }
+
+    protected boolean isInitAt(int index) {
+        synchronized (initialized) {
+            return initialized.get(index);
+        }
+    }
+
+    protected void setInitAt(int index, boolean init) {
+        synchronized (initialized) {
+            initialized.set(index, init);
+        }
+    }
+
+    /**
+     * Returns element index for specified label, or -1 if label isn't present in this vocabulary
+     */
+    protected int lookup(String label) {
+        if (label == null || numWords == 0)
+            return -1;
+
+        int hash = label.hashCode();
+        byte[] bytes = null;
+        int mask = tableSize - 1;
+        int slot = mix(hash) & mask;
+        int id;
+        while ((id = buffer.getInt(tableOffset + 4 * slot)) != 0) {
+            id--;
+            if (buffer.getInt(hashesOffset + 4 * id) == hash) {
+                if (bytes == null)
+                    bytes = label.getBytes(StandardCharsets.UTF_8);
+                if (labelEquals(id, bytes))
+                    return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean labelEquals(int index, byte[] bytes) {
+        int start = buffer.getInt(labelOffsetsOffset + 4 * index);
+        int end = buffer.getInt(labelOffsetsOffset + 4 * (index + 1));
+        if (end - start != bytes.length)
+            return false;
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(arenaOffset + start + i) != bytes[i])
+                return false;
+        }
+        return true;
+    }
+
+    private int lookup(long storageId) {
+        Map<Long, Integer> index = storageIdIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = storageIdIndex;
+                if (index == null) {
+                    index = new HashMap<>(numWords * 2);
+                    for (int i = 0; i < numWords; i++) {
+                        index.put(storageIdAt(i), i);
+                    }
+                    storageIdIndex = index;
+                }
+            }
+        }
+        Integer idx = index.get(storageId);
+        return idx == null ? -1 : idx;
+    }
+
+    /*
+        VocabCache implementation
+     */
+
+    @Override
+    public void loadVocab() {
+        // use load(File, boolean) instead
+    }
+
+    @Override
+    public boolean vocabExists() {
+        return numWords > 0;
+    }
+
+    @Override
+    public void saveVocab() {
+        // use save(File) instead
+    }
+
+    @Override
+    public Collection<String> words() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return labelAt(index);
+            }
+
+            @Override
+            public int size() {
+                return numWords;
+            }
+        };
+    }
+
+    @Override
+    public void incrementWordCount(String word) {
+        incrementWordCount(word, 1);
+    }
+
+    @Override
+    public void incrementWordCount(String word, int increment) {
+        int idx = lookup(word);
+        if (idx >= 0)
+            addFrequencyAt(idx, increment);
+    }
+
+    @Override
+    public int wordFrequency(@NonNull String word) {
+        int idx = lookup(word);
+        return idx >= 0 ? (int) frequencyAt(idx) : 0;
+    }
+
+    @Override
+    public boolean containsWord(String word) {
+        return lookup(word) >= 0;
+    }
+
+    @Override
+    public String wordAtIndex(int index) {
+        if (index < 0 || index >= numWords)
+            return null;
+        return labelAt(index);
+    }
+
+    @Override
+    public VocabWord elementAtIndex(int index) {
+        if (index < 0 || index >= numWords)
+            return null;
+        return new CompactVocabWord(this, index);
+    }
+
+    @Override
+    public int indexOf(String word) {
+        int idx = lookup(word);
+        return idx >= 0 ? idx : -2;
+    }
+
+    @Override
+    public Collection<VocabWord> vocabWords() {
+        return new AbstractList<VocabWord>() {
+            @Override
+            public VocabWord get(int index) {
+                return new CompactVocabWord(CompactVocabCache.this, index);
+            }
+
+            @Override
+            public int size() {
+                return numWords;
+            }
+        };
+    }
+
+    @Override
+    public long totalWordOccurrences() {
+        return totalWordCount.get();
+    }
+
+    @Override
+    public VocabWord wordFor(@NonNull String word) {
+        int idx = lookup(word);
+        return idx >= 0 ? new CompactVocabWord(this, idx) : null;
+    }
+
+    @Override
+    public VocabWord wordFor(long id) {
+        int idx = lookup(id);
+        return idx >= 0 ? new CompactVocabWord(this, idx) : null;
+    }
+
+    /**
+     * Element indexes are fixed in compact vocabulary: this method only accepts the existing index of the element
+     */
+    @Override
+    public void addWordToIndex(int index, String word) {
+        int idx = lookup(word);
+        if (idx >= 0 && idx != index)
+            throw new UnsupportedOperationException("Element indexes can't be changed in compact vocabulary");
+    }
+
+    /**
+     * Element indexes are fixed in compact vocabulary: this method only accepts the existing index of the element
+     */
+    @Override
+    public void addWordToIndex(int index, long elementId) {
+        int idx = lookup(elementId);
+        if (idx >= 0 && idx != index)
+            throw new UnsupportedOperationException("Element indexes can't be changed in compact vocabulary");
+    }
+
+    @Override
+    @Deprecated
+    public void putVocabWord(String word) {
+        if (!containsWord(word))
+            throw new IllegalStateException("Specified label is not present in vocabulary");
+    }
+
+    @Override
+    public int numWords() {
+        return numWords;
+    }
+
+    @Override
+    public int docAppearedIn(String word) {
+        int idx = lookup(word);
+        return idx >= 0 ? (int) docCountAt(idx) : -1;
+    }
+
+    @Override
+    public void incrementDocCount(String word, long howMuch) {
+        int idx = lookup(word);
+        if (idx >= 0)
+            addDocCountAt(idx, howMuch);
+    }
+
+    @Override
+    public void setCountForDoc(String word, long count) {
+        int idx = lookup(word);
+        if (idx >= 0)
+            setDocCountAt(idx, count);
+    }
+
+    @Override
+    public long totalNumberOfDocs() {
+        return documentsCounter.get();
+    }
+
+    @Override
+    public void incrementTotalDocCount() {
+        incrementTotalDocCount(1);
+    }
+
+    @Override
+    public void incrementTotalDocCount(long by) {
+        documentsCounter.addAndGet(by);
+    }
+
+    @Override
+    public Collection<VocabWord> tokens() {
+        return vocabWords();
+    }
+
+    /**
+     * Only elements already present in this vocabulary can be added: their counters will be increased, as in
+     * AbstractCache
+     *
+     * @param element
+     */
+    @Override
+    public void addToken(VocabWord element) {
+        int idx = lookup(element.getLabel());
+        if (idx < 0)
+            throw new UnsupportedOperationException("Elements can't be added to compact vocabulary: ["
+                            + element.getLabel() + "]");
+        if (element instanceof CompactVocabWord && ((CompactVocabWord) element).getCache() == this)
+            return;
+
+        addDocCountAt(idx, element.getSequencesCount());
+        addFrequencyAt(idx, element.getElementFrequency());
+    }
+
+    @Override
+    public VocabWord tokenFor(String word) {
+        return wordFor(word);
+    }
+
+    @Override
+    public VocabWord tokenFor(long id) {
+        return wordFor(id);
+    }
+
+    @Override
+    public boolean hasToken(String token) {
+        return containsWord(token);
+    }
+
+    @Override
+    public void importVocabulary(@NonNull VocabCache<VocabWord> vocabCache) {
+        for (VocabWord element : vocabCache.vocabWords()) {
+            this.addToken(element);
+        }
+        this.documentsCounter.addAndGet(vocabCache.totalNumberOfDocs());
+    }
+
+    @Override
+    public void updateWordsOccurencies() {
+        long total = 0;
+        for (int i = 0; i < numWords; i++) {
+            long value = (long) frequencyAt(i);
+            if (value > 0)
+                total += value;
+        }
+        totalWordCount.set(total);
+        log.info("Updated counter: [" + totalWordCount.get() + "]");
+    }
+
+    @Override
+    public void removeElement(String label) {
+        throw new UnsupportedOperationException("Elements can't be removed from compact vocabulary");
+    }
+
+    @Override
+    public void removeElement(VocabWord element) {
+        removeElement(element.getLabel());
+    }
+
+    /*
+        Java serialization: buffer content is written as is, and always deserialized into heap
+     */
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        ByteBuffer dup = body();
+        byte[] chunk = new byte[64 * 1024];
+        out.writeInt(checkedSize());
+        out.write(header().array());
+        while (dup.hasRemaining()) {
+            int len = Math.min(chunk.length, dup.remaining());
+            dup.get(chunk, 0, len);
+            out.write(chunk, 0, len);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        readHeader(ByteBuffer.wrap(bytes));
+        initialized = new BitSet();
+    }
+}
@@ -0,0 +1,164 @@
+package org.deeplearning4j.models.word2vec.wordstore.compact;
+
+import org.deeplearning4j.models.word2vec.VocabWord;
+
+import java.io.ObjectStreamException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lightweight VocabWord view over element of {@link CompactVocabCache}.
+ *
+ * Frequency, document count, label and init flags are backed by the vocabulary, so updates made via this view are
+ * visible to the vocabulary and other views of the same element. Huffman codes and points are read-only.
+ */
+public class CompactVocabWord extends VocabWord {
+    private static final long serialVersionUID = -2377164021843519412L;
+
+    private final transient CompactVocabCache cache;
+
+    protected CompactVocabWord(CompactVocabCache cache, int index) {
+        super(cache.frequencyAt(index), cache.labelAt(index), cache.storageIdAt(index));
+        this.cache = cache;
+        this.index = index;
+        this.codeLength = (short) cache.codeLengthAt(index);
+        this.special = cache.isSpecialAt(index);
+        this.isLabel = cache.isLabelAt(index);
+        this.codes = null;
+        this.points = null;
+    }
+
+    /**
+     * Returns vocabulary backing this element
+     */
+    public CompactVocabCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public double getElementFrequency() {
+        return cache.frequencyAt(index);
+    }
+
+    @Override
+    public void setElementFrequency(long value) {
+        cache.setFrequencyAt(index, value);
+        elementFrequency.set(value);
+    }
+
+    @Override
+    public void increaseElementFrequency(int by) {
+        cache.addFrequencyAt(index, by);
+        elementFrequency.set(cache.frequencyAt(index));
+    }
+
+    @Override
+    public long getSequencesCount() {
+        return cache.docCountAt(index);
+    }
+
+    @Override
+    public void setSequencesCount(long count) {
+        cache.setDocCountAt(index, count);
+    }
+
+    @Override
+    public void incrementSequencesCount() {
+        incrementSequencesCount(1);
+    }
+
+    @Override
+    public void incrementSequencesCount(long count) {
+        cache.addDocCountAt(index, count);
+    }
+
+    @Override
+    public void markAsLabel(boolean isLabel) {
+        cache.setLabelAt(index, isLabel);
+        this.isLabel = isLabel;
+    }
+
+    @Override
+    public boolean isInit() {
+        return cache.isInitAt(index);
+    }
+
+    @Override
+    public void setInit(boolean init) {
+        cache.setInitAt(index, init);
+    }
+
+    @Override
+    public void setIndex(int index) {
+        if (index != this.index)
+            throw new UnsupportedOperationException("Element indexes can't be changed in compact vocabulary");
+    }
+
+    @Override
+    public List<Byte> getCodes() {
+        if (codes == null) {
+            long bits = cache.codesAt(index);
+            List<Byte> list = new ArrayList<>(codeLength);
+            for (int i = 0; i < codeLength; i++) {
+                list.add((bits & (1L << i)) != 0 ? (byte) 1 : (byte) 0);
+            }
+            codes = Collections.unmodifiableList(list);
+        }
+        return codes;
+    }
+
+    @Override
+    public List<Integer> getPoints() {
+        if (points == null) {
+            int[] array = cache.pointsAt(index);
+            List<Integer> list = new ArrayList<>(array.length);
+            for (int point : array) {
+                list.add(point);
+            }
+            points = Collections.unmodifiableList(list);
+        }
+        return points;
+    }
+
+    @Override
+    public void setCodes(List<Byte> codes) {
+        throw new UnsupportedOperationException("Huffman codes are read-only in compact vocabulary");
+    }
+
+    @Override
+    public void setPoints(List<Integer> points) {
+        throw new UnsupportedOperationException("Huffman points are read-only in compact vocabulary");
+    }
+
+    @Override
+    public void setPoints(int[] points) {
+        throw new UnsupportedOperationException("Huffman points are read-only in compact vocabulary");
+    }
+
+    @Override
+    public void setCodeLength(short codeLength) {
+        throw new UnsupportedOperationException("Huffman codes are read-only in compact vocabulary");
+    }
+
+    @Override
+    public String toString() {
+        return "VocabWord{" + "wordFrequency=" + getElementFrequency() + ", index=" + index + ", word='"
+                        + getLabel() + '\'' + ", codeLength=" + codeLength + '}';
+    }
+
+    /**
+     * Views are serialized as standalone VocabWords
+     */
+    protected Object writeReplace() throws ObjectStreamException {
+        VocabWord word = new VocabWord(getElementFrequency(), getLabel(), getStorageId());
+        word.setIndex(index);
+        word.setSequencesCount(getSequencesCount());
+        word.setSpecial(special);
+        word.markAsLabel(isLabel);
+        word.setCodes(new ArrayList<>(getCodes()));
+        word.setPoints(new ArrayList<>(getPoints()));
+        word.setCodeLength(codeLength);
+        return word;
+    }
+}
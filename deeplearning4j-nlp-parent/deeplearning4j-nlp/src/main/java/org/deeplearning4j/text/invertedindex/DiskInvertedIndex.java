@@ -0,0 +1,1069 @@
+package org.deeplearning4j.text.invertedindex;
+
+import com.google.common.base.Function;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.nd4j.linalg.primitives.Pair;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disk-backed InvertedIndex implementation, suited for corpora that don't fit into memory.
+ *
+ * Documents are accumulated in memory until segmentSize documents are collected, and then flushed into immutable
+ * segment file. Segments are memory-mapped, and store delta + variable-byte compressed postings lists for words and
+ * labels, plus documents themselves. Once there are mergeFactor segments, smallest of them are merged into one
+ * in background thread.
+ *
+ * Words and labels are stored as term ids, and resolved via VocabCache when documents are requested, so VocabCache
+ * has to contain all elements that should be returned.
+ *
+ * Live segments are listed in manifest file. New segments and merge results are written to temporary files, and
+ * published by atomic rename plus manifest update, after dictionaries they refer to were saved. Segment files that
+ * aren't listed in manifest (i.e. leftovers of interrupted flush or merge) are ignored, and removed when index is
+ * opened.
+ */
+@Slf4j
+public class DiskInvertedIndex<T extends SequenceElement> implements InvertedIndex<T> {
+    private static final long serialVersionUID = 1L;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".idx";
+    private static final String WORDS_DICTIONARY = "words.dict";
+    private static final String LABELS_DICTIONARY = "labels.dict";
+    private static final String MANIFEST = "segments.manifest";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final VocabCache<T> vocabCache;
+    private final int segmentSize;
+    private final int mergeFactor;
+    private final long maxSegmentBytes;
+    private final int batchSize;
+    private final double sample;
+
+    private transient TermDictionary words;
+    private transient TermDictionary labels;
+    private transient volatile List<DiskSegment> segments;
+    private transient Object segmentsLock;
+    private transient MemorySegment memory;
+    private transient ExecutorService merger;
+    private transient volatile Future<?> mergeFuture;
+    private transient AtomicInteger segmentCounter;
+    private transient AtomicInteger numDocs;
+    private transient AtomicLong totalWords;
+
+    private DiskInvertedIndex(Builder<T> builder) {
+        this.directory = builder.directory;
+        this.vocabCache = builder.vocabCache;
+        this.segmentSize = builder.segmentSize;
+        this.mergeFactor = builder.mergeFactor;
+        this.maxSegmentBytes = builder.maxSegmentBytes;
+        this.batchSize = builder.batchSize;
+        this.sample = builder.sample;
+
+        init();
+    }
+
+    /**
+     * This method opens index directory, and loads segments and dictionaries, if any
+     */
+    protected void init() {
+        if (!directory.exists() && !directory.mkdirs())
+            throw new IllegalStateException("Can't create index directory: " + directory);
+
+        segmentsLock = new Object();
+        memory = new MemorySegment();
+        numDocs = new AtomicInteger(0);
+        totalWords = new AtomicLong(0);
+
+        try {
+            words = TermDictionary.load(new File(directory, WORDS_DICTIONARY));
+            labels = TermDictionary.load(new File(directory, LABELS_DICTIONARY));
+
+            Set<String> live = loadManifest();
+            int maxSegment = -1;
+            List<DiskSegment> list = new ArrayList<>();
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (file.getName().endsWith(TEMP_SUFFIX)) {
+                        file.delete();
+                        continue;
+                    }
+
+                    int number = segmentNumber(file);
+                    if (number < 0)
+                        continue;
+
+                    // numbers of orphaned segments aren't reused either, in case they can't be deleted
+                    maxSegment = Math.max(maxSegment, number);
+                    if (!live.remove(file.getName())) {
+                        log.info("Removing segment [{}] that isn't listed in manifest", file.getName());
+                        if (!file.delete())
+                            file.deleteOnExit();
+                        continue;
+                    }
+
+                    DiskSegment segment = new DiskSegment(file);
+                    list.add(segment);
+                    numDocs.addAndGet(segment.numDocs());
+                    totalWords.addAndGet(segment.getTotalWords());
+                }
+            }
+
+            if (!live.isEmpty())
+                throw new IllegalStateException("Segments listed in manifest are missing: " + live);
+
+            segments = list;
+            segmentCounter = new AtomicInteger(maxSegment + 1);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        merger = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "DiskInvertedIndex merger");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        if (!segments.isEmpty())
+            log.info("Opened index at [{}]: {} segments, {} documents", directory, segments.size(), numDocs.get());
+    }
+
+    private static int segmentNumber(File file) {
+        String name = file.getName();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX))
+            return -1;
+
+        try {
+            return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private File nextSegmentFile() {
+        return new File(directory, SEGMENT_PREFIX + segmentCounter.getAndIncrement() + SEGMENT_SUFFIX);
+    }
+
+    private static File tempFile(File file) {
+        return new File(file.getParentFile(), file.getName() + TEMP_SUFFIX);
+    }
+
+    /**
+     * This method replaces target file with source one, atomically if file system supports that
+     */
+    private static void replace(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return names of live segment files
+     */
+    private Set<String> loadManifest() throws IOException {
+        Set<String> names = new HashSet<>();
+        File file = new File(directory, MANIFEST);
+        if (!file.exists())
+            return names;
+
+        try (DataInputStream stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int size = stream.readInt();
+            for (int i = 0; i < size; i++)
+                names.add(stream.readUTF());
+        }
+        return names;
+    }
+
+    /**
+     * This method atomically replaces manifest with given list of live segments. Caller should hold segmentsLock.
+     */
+    private void saveManifest(List<DiskSegment> list) throws IOException {
+        File file = new File(directory, MANIFEST);
+        File temp = tempFile(file);
+        try (FileOutputStream output = new FileOutputStream(temp);
+                        DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(output))) {
+            stream.writeInt(list.size());
+            for (DiskSegment segment : list)
+                stream.writeUTF(segment.getFile().getName());
+            stream.flush();
+            output.getFD().sync();
+        }
+        replace(temp, file);
+    }
+
+    /**
+     * This method saves dictionaries, so they cover all term ids used by segments written so far
+     */
+    private void saveDictionaries() throws IOException {
+        words.save(new File(directory, WORDS_DICTIONARY));
+        labels.save(new File(directory, LABELS_DICTIONARY));
+    }
+
+    /**
+     * This method moves completely written segment to its final location, opens it, and replaces given segments
+     * with it in both segments list and manifest
+     */
+    private DiskSegment publish(File temp, File file, List<DiskSegment> replaced) throws IOException {
+        replace(temp, file);
+        DiskSegment segment = new DiskSegment(file);
+        synchronized (segmentsLock) {
+            List<DiskSegment> list = new ArrayList<>(segments);
+            list.removeAll(replaced);
+            list.add(segment);
+            saveManifest(list);
+            segments = list;
+        }
+        return segment;
+    }
+
+    /**
+     * This method adds words and labels to the document. All add* methods are going through this one.
+     */
+    protected void add(int doc, List<T> docWords, Collection<String> docLabels) {
+        int[] wordIds = new int[docWords.size()];
+        for (int i = 0; i < wordIds.length; i++)
+            wordIds[i] = words.getOrAdd(docWords.get(i).getLabel());
+
+        int[] labelIds = new int[docLabels.size()];
+        int cnt = 0;
+        for (String label : docLabels)
+            labelIds[cnt++] = labels.getOrAdd(label);
+
+        synchronized (this) {
+            int[][] existing = memory.documents.get(doc);
+            if (existing == null) {
+                for (DiskSegment segment : segments) {
+                    if (segment.containsDoc(doc))
+                        throw new IllegalStateException("Document [" + doc + "] was flushed to disk already");
+                }
+
+                existing = new int[][] {new int[0], new int[0]};
+                numDocs.incrementAndGet();
+            }
+
+            memory.addPostings(memory.wordPostings, doc, existing[0], wordIds);
+            memory.addPostings(memory.labelPostings, doc, existing[1], labelIds);
+            memory.documents.put(doc, new int[][] {concat(existing[0], wordIds), concat(existing[1], labelIds)});
+            totalWords.addAndGet(wordIds.length);
+            memory.totalWords += wordIds.length;
+
+            if (memory.documents.size() >= segmentSize)
+                flush();
+        }
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        if (first.length == 0)
+            return second;
+        if (second.length == 0)
+            return first;
+
+        int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * This method writes in-memory documents to new segment
+     */
+    protected synchronized void flush() {
+        if (memory.documents.isEmpty())
+            return;
+
+        File file = nextSegmentFile();
+        File temp = tempFile(file);
+        try {
+            try (DiskSegment.Writer writer = new DiskSegment.Writer(temp)) {
+                writePostings(writer, memory.wordPostings, false);
+                writePostings(writer, memory.labelPostings, true);
+
+                Integer[] docs = memory.documents.keySet().toArray(new Integer[0]);
+                Arrays.sort(docs);
+                for (Integer doc : docs) {
+                    int[][] document = memory.documents.get(doc);
+                    writer.addDocument(doc, document[0], document[1]);
+                }
+
+                writer.finish(memory.totalWords);
+            }
+
+            // segment can't be visible before term ids it uses are persisted
+            saveDictionaries();
+            publish(temp, file, Collections.<DiskSegment>emptyList());
+        } catch (IOException e) {
+            temp.delete();
+            throw new RuntimeException(e);
+        }
+
+        memory = new MemorySegment();
+        scheduleMerge();
+    }
+
+    private static void writePostings(DiskSegment.Writer writer, Map<Integer, DiskSegment.IntBuffer> postings,
+                    boolean isLabel) throws IOException {
+        Integer[] terms = postings.keySet().toArray(new Integer[0]);
+        Arrays.sort(terms);
+        for (Integer term : terms) {
+            DiskSegment.IntBuffer docs = postings.get(term);
+            Arrays.sort(docs.array(), 0, docs.size());
+            if (isLabel)
+                writer.addLabelPostings(term, docs.array(), docs.size());
+            else
+                writer.addWordPostings(term, docs.array(), docs.size());
+        }
+    }
+
+    private void scheduleMerge() {
+        if (segments.size() < mergeFactor || (mergeFuture != null && !mergeFuture.isDone()))
+            return;
+
+        mergeFuture = merger.submit(new Runnable() {
+            @Override
+            public void run() {
+                List<DiskSegment> candidates;
+                while ((candidates = mergeCandidates()) != null) {
+                    try {
+                        merge(candidates);
+                    } catch (Exception e) {
+                        log.error("Segments merge failed", e);
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return mergeFactor smallest segments, if their total size fits into maxSegmentBytes, or null
+     */
+    private List<DiskSegment> mergeCandidates() {
+        List<DiskSegment> list = new ArrayList<>(segments);
+        if (list.size() < mergeFactor)
+            return null;
+
+        Collections.sort(list, new Comparator<DiskSegment>() {
+            @Override
+            public int compare(DiskSegment o1, DiskSegment o2) {
+                return Long.compare(o1.sizeInBytes(), o2.sizeInBytes());
+            }
+        });
+
+        List<DiskSegment> candidates = list.subList(0, mergeFactor);
+        long size = 0;
+        for (DiskSegment segment : candidates)
+            size += segment.sizeInBytes();
+
+        return size <= maxSegmentBytes ? new ArrayList<>(candidates) : null;
+    }
+
+    /**
+     * This method merges given segments into one, and replaces them in index. Segments have disjoint documents, so
+     * merged postings are concatenated and sorted postings of each segment.
+     */
+    protected void merge(List<DiskSegment> parts) throws IOException {
+        long time = System.currentTimeMillis();
+        File file = nextSegmentFile();
+        File temp = tempFile(file);
+        try (DiskSegment.Writer writer = new DiskSegment.Writer(temp)) {
+            for (int term : unionOfTerms(parts, false)) {
+                int[] docs = mergedPostings(parts, term, false);
+                writer.addWordPostings(term, docs, docs.length);
+            }
+
+            for (int term : unionOfTerms(parts, true)) {
+                int[] docs = mergedPostings(parts, term, true);
+                writer.addLabelPostings(term, docs, docs.length);
+            }
+
+            DiskSegment.IntBuffer docs = new DiskSegment.IntBuffer();
+            long mergedWords = 0;
+            for (DiskSegment part : parts) {
+                for (int doc : part.getDocIds())
+                    docs.add(doc);
+                mergedWords += part.getTotalWords();
+            }
+
+            int[] sorted = docs.toArray();
+            Arrays.sort(sorted);
+            for (int doc : sorted) {
+                for (DiskSegment part : parts) {
+                    int[][] document = part.document(doc);
+                    if (document != null) {
+                        writer.addDocument(doc, document[0], document[1]);
+                        break;
+                    }
+                }
+            }
+
+            writer.finish(mergedWords);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+
+        DiskSegment merged = publish(temp, file, parts);
+
+        // mapped buffers of merged segments stay valid for readers that are still using them
+        for (DiskSegment part : parts) {
+            if (!part.getFile().delete())
+                part.getFile().deleteOnExit();
+        }
+
+        log.debug("Merged {} segments into [{}] in {} ms", parts.size(), merged.getFile().getName(),
+                        System.currentTimeMillis() - time);
+    }
+
+    private static int[] unionOfTerms(List<DiskSegment> parts, boolean isLabel) {
+        DiskSegment.IntBuffer terms = new DiskSegment.IntBuffer();
+        for (DiskSegment part : parts) {
+            for (int term : isLabel ? part.labelTerms() : part.wordTerms())
+                terms.add(term);
+        }
+
+        int[] sorted = terms.toArray();
+        Arrays.sort(sorted);
+
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (unique == 0 || sorted[unique - 1] != sorted[i])
+                sorted[unique++] = sorted[i];
+        }
+        return Arrays.copyOf(sorted, unique);
+    }
+
+    private static int[] mergedPostings(List<DiskSegment> parts, int term, boolean isLabel) {
+        int[] result = new int[0];
+        for (DiskSegment part : parts)
+            result = concat(result, isLabel ? part.labelPostings(term) : part.wordPostings(term));
+
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * This method returns number of documents containing given word
+     *
+     * @param word
+     * @return
+     */
+    public int documentFrequency(@NonNull String word) {
+        int term = words.id(word);
+        if (term < 0)
+            return 0;
+
+        // segments and in-memory postings are read together, see postings()
+        List<DiskSegment> snapshot;
+        int frequency = 0;
+        synchronized (this) {
+            snapshot = segments;
+            DiskSegment.IntBuffer postings = memory.wordPostings.get(term);
+            if (postings != null)
+                frequency += postings.size();
+        }
+
+        for (DiskSegment segment : snapshot)
+            frequency += segment.wordFrequency(term);
+
+        return frequency;
+    }
+
+    /**
+     * This method returns sorted ids of documents containing given word
+     *
+     * @param word
+     * @return
+     */
+    public int[] documents(@NonNull String word) {
+        return postings(words.id(word), false);
+    }
+
+    /**
+     * This method returns sorted ids of documents with given label
+     *
+     * @param label
+     * @return
+     */
+    public int[] documentsWithLabel(@NonNull String label) {
+        return postings(labels.id(label), true);
+    }
+
+    private int[] postings(int term, boolean isLabel) {
+        if (term < 0)
+            return new int[0];
+
+        // flush() publishes new segment and clears memory under this lock, so reading segments list separately
+        // could miss or double count documents that were flushed in between
+        List<DiskSegment> snapshot;
+        int[] result = new int[0];
+        synchronized (this) {
+            snapshot = segments;
+            DiskSegment.IntBuffer postings = (isLabel ? memory.labelPostings : memory.wordPostings).get(term);
+            if (postings != null)
+                result = postings.toArray();
+        }
+
+        for (DiskSegment segment : snapshot)
+            result = concat(result, isLabel ? segment.labelPostings(term) : segment.wordPostings(term));
+
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * @return term ids of document words and labels, or null if there's no such document
+     */
+    private int[][] documentTerms(int doc) {
+        List<DiskSegment> snapshot;
+        synchronized (this) {
+            int[][] document = memory.documents.get(doc);
+            if (document != null)
+                return document;
+
+            snapshot = segments;
+        }
+
+        for (DiskSegment segment : snapshot) {
+            int[][] document = segment.document(doc);
+            if (document != null)
+                return document;
+        }
+
+        return null;
+    }
+
+    private List<T> elements(int[] termIds) {
+        List<T> result = new ArrayList<>(termIds.length);
+        for (int id : termIds) {
+            T element = vocabCache.wordFor(words.term(id));
+            if (element != null)
+                result.add(element);
+        }
+        return result;
+    }
+
+    private List<String> labelsOf(int[] termIds) {
+        List<String> result = new ArrayList<>(termIds.length);
+        for (int id : termIds)
+            result.add(labels.term(id));
+        return result;
+    }
+
+    /**
+     * @return Number of segments currently on disk
+     */
+    public int numSegments() {
+        return segments.size();
+    }
+
+    /**
+     * This method blocks until background merges are finished
+     */
+    public void awaitMerges() {
+        Future<?> future;
+        while ((future = mergeFuture) != null && !future.isDone()) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    @Override
+    public Iterator<List<List<T>>> batchIter(final int batchSize) {
+        final int[] docs = allDocs();
+        return new Iterator<List<List<T>>>() {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < docs.length;
+            }
+
+            @Override
+            public List<List<T>> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+
+                List<List<T>> batch = new ArrayList<>();
+                for (int i = 0; i < batchSize && position < docs.length; i++)
+                    batch.add(document(docs[position++]));
+                return batch;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public Iterator<List<T>> docs() {
+        final int[] docs = allDocs();
+        return new Iterator<List<T>>() {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < docs.length;
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return document(docs[position++]);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * This implementation holds no locks on index files, so it's no-op
+     */
+    @Override
+    public void unlock() {
+        // no-op
+    }
+
+    /**
+     * This method removes all documents and index files
+     */
+    @Override
+    public synchronized void cleanup() {
+        awaitMerges();
+
+        synchronized (segmentsLock) {
+            try {
+                saveManifest(Collections.<DiskSegment>emptyList());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+
+            for (DiskSegment segment : segments) {
+                if (!segment.getFile().delete())
+                    segment.getFile().deleteOnExit();
+            }
+            segments = new ArrayList<>();
+        }
+
+        new File(directory, WORDS_DICTIONARY).delete();
+        new File(directory, LABELS_DICTIONARY).delete();
+
+        words = new TermDictionary();
+        labels = new TermDictionary();
+        memory = new MemorySegment();
+        numDocs.set(0);
+        totalWords.set(0);
+    }
+
+    @Override
+    public double sample() {
+        return sample;
+    }
+
+    /**
+     * Returns iterator over batches of words: each batch contains words of batchSize() consecutive documents
+     *
+     * @return
+     */
+    @Override
+    public Iterator<List<T>> miniBatches() {
+        final Iterator<List<List<T>>> iterator = batchIter(batchSize);
+        return new Iterator<List<T>>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public List<T> next() {
+                List<T> batch = new ArrayList<>();
+                for (List<T> document : iterator.next())
+                    batch.addAll(document);
+                return batch;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public List<T> document(int index) {
+        int[][] document = documentTerms(index);
+        return document == null ? null : elements(document[0]);
+    }
+
+    @Override
+    public Pair<List<T>, String> documentWithLabel(int index) {
+        int[][] document = documentTerms(index);
+        if (document == null)
+            return null;
+
+        return new Pair<>(elements(document[0]), document[1].length == 0 ? null : labels.term(document[1][0]));
+    }
+
+    @Override
+    public Pair<List<T>, Collection<String>> documentWithLabels(int index) {
+        int[][] document = documentTerms(index);
+        if (document == null)
+            return null;
+
+        return new Pair<List<T>, Collection<String>>(elements(document[0]), labelsOf(document[1]));
+    }
+
+    @Override
+    public int[] documents(T vocabWord) {
+        return documents(vocabWord.getLabel());
+    }
+
+    @Override
+    public int numDocuments() {
+        return numDocs.get();
+    }
+
+    @Override
+    public int[] allDocs() {
+        DiskSegment.IntBuffer docs = new DiskSegment.IntBuffer();
+        for (DiskSegment segment : segments) {
+            for (int doc : segment.getDocIds())
+                docs.add(doc);
+        }
+
+        synchronized (this) {
+            for (Integer doc : memory.documents.keySet())
+                docs.add(doc);
+        }
+
+        int[] result = docs.toArray();
+        Arrays.sort(result);
+        return result;
+    }
+
+    @Override
+    public void addWordToDoc(int doc, T word) {
+        add(doc, Collections.singletonList(word), Collections.<String>emptyList());
+    }
+
+    @Override
+    public void addWordsToDoc(int doc, List<T> words) {
+        add(doc, words, Collections.<String>emptyList());
+    }
+
+    @Override
+    public void addLabelForDoc(int doc, T word) {
+        addLabelForDoc(doc, word.getLabel());
+    }
+
+    @Override
+    public void addLabelForDoc(int doc, String label) {
+        add(doc, Collections.<T>emptyList(), Collections.singletonList(label));
+    }
+
+    @Override
+    public void addWordsToDoc(int doc, List<T> words, String label) {
+        add(doc, words, Collections.singletonList(label));
+    }
+
+    @Override
+    public void addWordsToDoc(int doc, List<T> words, T label) {
+        add(doc, words, Collections.singletonList(label.getLabel()));
+    }
+
+    @Override
+    public void addLabelsForDoc(int doc, List<T> word) {
+        List<String> list = new ArrayList<>();
+        for (T element : word)
+            list.add(element.getLabel());
+        add(doc, Collections.<T>emptyList(), list);
+    }
+
+    @Override
+    public void addLabelsForDoc(int doc, Collection<String> label) {
+        add(doc, Collections.<T>emptyList(), label);
+    }
+
+    @Override
+    public void addWordsToDoc(int doc, List<T> words, Collection<String> label) {
+        add(doc, words, label);
+    }
+
+    @Override
+    public void addWordsToDocVocabWord(int doc, List<T> words, Collection<T> label) {
+        List<String> list = new ArrayList<>();
+        for (T element : label)
+            list.add(element.getLabel());
+        add(doc, words, list);
+    }
+
+    /**
+     * This method flushes in-memory documents, saves dictionaries, and waits for background merges
+     */
+    @Override
+    public void finish() {
+        flush();
+        try {
+            saveDictionaries();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        synchronized (this) {
+            scheduleMerge();
+        }
+        awaitMerges();
+    }
+
+    @Override
+    public long totalWords() {
+        return totalWords.get();
+    }
+
+    @Override
+    public int batchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public void eachDocWithLabels(final Function<Pair<List<T>, Collection<String>>, Void> func, ExecutorService exec) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (final int doc : allDocs()) {
+            futures.add(exec.submit(new Runnable() {
+                @Override
+                public void run() {
+                    func.apply(documentWithLabels(doc));
+                }
+            }));
+        }
+        waitFor(futures);
+    }
+
+    @Override
+    public void eachDocWithLabel(final Function<Pair<List<T>, String>, Void> func, ExecutorService exec) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (final int doc : allDocs()) {
+            futures.add(exec.submit(new Runnable() {
+                @Override
+                public void run() {
+                    func.apply(documentWithLabel(doc));
+                }
+            }));
+        }
+        waitFor(futures);
+    }
+
+    @Override
+    public void eachDoc(final Function<List<T>, Void> func, ExecutorService exec) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (final int doc : allDocs()) {
+            futures.add(exec.submit(new Runnable() {
+                @Override
+                public void run() {
+                    func.apply(document(doc));
+                }
+            }));
+        }
+        waitFor(futures);
+    }
+
+    private static void waitFor(List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures)
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        finish();
+        out.defaultWriteObject();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        init();
+    }
+
+    /**
+     * Documents that weren't flushed to disk yet. Guarded by index monitor.
+     */
+    private static class MemorySegment {
+        private final Map<Integer, DiskSegment.IntBuffer> wordPostings = new HashMap<>();
+        private final Map<Integer, DiskSegment.IntBuffer> labelPostings = new HashMap<>();
+        private final Map<Integer, int[][]> documents = new HashMap<>();
+        private long totalWords = 0;
+
+        /**
+         * This method adds document to postings of terms it didn't contain yet
+         */
+        private void addPostings(Map<Integer, DiskSegment.IntBuffer> postings, int doc, int[] existing, int[] terms) {
+            Set<Integer> seen = new HashSet<>();
+            for (int term : existing)
+                seen.add(term);
+
+            for (int term : terms) {
+                if (!seen.add(term))
+                    continue;
+
+                DiskSegment.IntBuffer docs = postings.get(term);
+                if (docs == null) {
+                    docs = new DiskSegment.IntBuffer();
+                    postings.put(term, docs);
+                }
+                docs.add(doc);
+            }
+        }
+    }
+
+    /**
+     * Mapping between terms and their ids
+     */
+    private static class TermDictionary {
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private final List<String> terms = new ArrayList<>();
+
+        private int id(String term) {
+            Integer id = ids.get(term);
+            return id == null ? -1 : id;
+        }
+
+        private synchronized int getOrAdd(String term) {
+            Integer id = ids.get(term);
+            if (id == null) {
+                id = terms.size();
+                terms.add(term);
+                ids.put(term, id);
+            }
+            return id;
+        }
+
+        private synchronized String term(int id) {
+            return terms.get(id);
+        }
+
+        private synchronized void save(File file) throws IOException {
+            File temp = tempFile(file);
+            try (FileOutputStream output = new FileOutputStream(temp);
+                            DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(output))) {
+                stream.writeInt(terms.size());
+                for (String term : terms)
+                    stream.writeUTF(term);
+                stream.flush();
+                output.getFD().sync();
+            }
+            replace(temp, file);
+        }
+
+        private static TermDictionary load(File file) throws IOException {
+            TermDictionary dictionary = new TermDictionary();
+            if (!file.exists())
+                return dictionary;
+
+            try (DataInputStream stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                int size = stream.readInt();
+                for (int i = 0; i < size; i++)
+                    dictionary.getOrAdd(stream.readUTF());
+            }
+            return dictionary;
+        }
+    }
+
+    public static class Builder<T extends SequenceElement> {
+        private File directory;
+        private VocabCache<T> vocabCache;
+        private int segmentSize = 100000;
+        private int mergeFactor = 8;
+        private long maxSegmentBytes = 1024L * 1024L * 1024L;
+        private int batchSize = 1000;
+        private double sample = 0.0;
+
+        /**
+         * @param directory Directory for index files. Existing index in this directory will be opened
+         * @param vocabCache VocabCache used to resolve elements of documents
+         */
+        public Builder(@NonNull File directory, @NonNull VocabCache<T> vocabCache) {
+            this.directory = directory;
+            this.vocabCache = vocabCache;
+        }
+
+        /**
+         * This method defines number of documents kept in memory before flushing new segment
+         *
+         * @param segmentSize
+         * @return
+         */
+        public Builder<T> segmentSize(int segmentSize) {
+            this.segmentSize = Math.max(1, segmentSize);
+            return this;
+        }
+
+        /**
+         * This method defines number of segments merged together in background
+         *
+         * @param mergeFactor
+         * @return
+         */
+        public Builder<T> mergeFactor(int mergeFactor) {
+            this.mergeFactor = Math.max(2, mergeFactor);
+            return this;
+        }
+
+        /**
+         * This method defines max size of segment produced by merge, in bytes
+         *
+         * @param maxSegmentBytes
+         * @return
+         */
+        public Builder<T> maxSegmentBytes(long maxSegmentBytes) {
+            this.maxSegmentBytes = Math.min(maxSegmentBytes, Integer.MAX_VALUE);
+            return this;
+        }
+
+        public Builder<T> batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder<T> sample(double sample) {
+            this.sample = sample;
+            return this;
+        }
+
+        public DiskInvertedIndex<T> build() {
+            return new DiskInvertedIndex<>(this);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package org.deeplearning4j.text.invertedindex;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Immutable memory-mapped segment of DiskInvertedIndex.
+ *
+ * File layout: word postings, label postings, documents, then word/label/document tables and fixed-size footer.
+ * Postings lists are sorted document ids, delta-encoded and written as variable-length bytes. Documents are term ids
+ * of words (in original order) and labels, written as variable-length bytes too.
+ *
+ * Tables are loaded on heap as sorted int arrays, so both term and document lookups are binary searches.
+ */
+class DiskSegment {
+    private static final int MAGIC = 0x44494958;
+    private static final int FOOTER_SIZE = 48;
+
+    @Getter
+    private final File file;
+    private final MappedByteBuffer buffer;
+
+    private final int[] wordTerms;
+    private final int[] wordFrequencies;
+    private final int[] wordOffsets;
+
+    private final int[] labelTerms;
+    private final int[] labelFrequencies;
+    private final int[] labelOffsets;
+
+    @Getter
+    private final int[] docIds;
+    private final int[] docOffsets;
+
+    @Getter
+    private final long totalWords;
+
+    DiskSegment(@NonNull File file) throws IOException {
+        this.file = file;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Segment is too large: " + file);
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        ByteBuffer footer = buffer.duplicate();
+        footer.position(buffer.capacity() - FOOTER_SIZE);
+        int numWords = footer.getInt();
+        long wordTable = footer.getLong();
+        int numLabels = footer.getInt();
+        long labelTable = footer.getLong();
+        int numDocs = footer.getInt();
+        long docTable = footer.getLong();
+        totalWords = footer.getLong();
+        if (footer.getInt() != MAGIC)
+            throw new IOException("Not an index segment: " + file);
+
+        wordTerms = new int[numWords];
+        wordFrequencies = new int[numWords];
+        wordOffsets = new int[numWords];
+        readTermTable(wordTable, wordTerms, wordFrequencies, wordOffsets);
+
+        labelTerms = new int[numLabels];
+        labelFrequencies = new int[numLabels];
+        labelOffsets = new int[numLabels];
+        readTermTable(labelTable, labelTerms, labelFrequencies, labelOffsets);
+
+        docIds = new int[numDocs];
+        docOffsets = new int[numDocs];
+        ByteBuffer table = buffer.duplicate();
+        table.position((int) docTable);
+        for (int i = 0; i < numDocs; i++) {
+            docIds[i] = table.getInt();
+            docOffsets[i] = table.getInt();
+        }
+    }
+
+    private void readTermTable(long position, int[] terms, int[] frequencies, int[] offsets) {
+        ByteBuffer table = buffer.duplicate();
+        table.position((int) position);
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = table.getInt();
+            frequencies[i] = table.getInt();
+            offsets[i] = table.getInt();
+        }
+    }
+
+    int numDocs() {
+        return docIds.length;
+    }
+
+    long sizeInBytes() {
+        return buffer.capacity();
+    }
+
+    boolean containsDoc(int doc) {
+        return Arrays.binarySearch(docIds, doc) >= 0;
+    }
+
+    int wordFrequency(int term) {
+        int pos = Arrays.binarySearch(wordTerms, term);
+        return pos < 0 ? 0 : wordFrequencies[pos];
+    }
+
+    int labelFrequency(int term) {
+        int pos = Arrays.binarySearch(labelTerms, term);
+        return pos < 0 ? 0 : labelFrequencies[pos];
+    }
+
+    /**
+     * @return sorted ids of documents containing given word, or empty array
+     */
+    int[] wordPostings(int term) {
+        int pos = Arrays.binarySearch(wordTerms, term);
+        return pos < 0 ? new int[0] : readPostings(wordOffsets[pos]);
+    }
+
+    /**
+     * @return sorted ids of documents having given label, or empty array
+     */
+    int[] labelPostings(int term) {
+        int pos = Arrays.binarySearch(labelTerms, term);
+        return pos < 0 ? new int[0] : readPostings(labelOffsets[pos]);
+    }
+
+    private int[] readPostings(int offset) {
+        int[] position = new int[] {offset};
+        int[] result = new int[readVInt(buffer, position)];
+        int doc = 0;
+        for (int i = 0; i < result.length; i++) {
+            doc += readVInt(buffer, position);
+            result[i] = doc;
+        }
+        return result;
+    }
+
+    /**
+     * @return array of two arrays: term ids of words and term ids of labels, or null if there's no such document
+     */
+    int[][] document(int doc) {
+        int pos = Arrays.binarySearch(docIds, doc);
+        if (pos < 0)
+            return null;
+
+        int[] position = new int[] {docOffsets[pos]};
+        int[] words = new int[readVInt(buffer, position)];
+        for (int i = 0; i < words.length; i++)
+            words[i] = readVInt(buffer, position);
+
+        int[] labels = new int[readVInt(buffer, position)];
+        for (int i = 0; i < labels.length; i++)
+            labels[i] = readVInt(buffer, position);
+
+        return new int[][] {words, labels};
+    }
+
+    int[] wordTerms() {
+        return wordTerms;
+    }
+
+    int[] labelTerms() {
+        return labelTerms;
+    }
+
+    private static int readVInt(ByteBuffer buffer, int[] position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(position[0]++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Sequential writer of segment files. Word postings, label postings and documents have to be added in this order,
+     * each of them sorted by term id/document id.
+     */
+    static class Writer implements Closeable {
+        private final File file;
+        private final FileOutputStream output;
+        private final DataOutputStream stream;
+        private long position = 0;
+
+        private IntBuffer wordTable = new IntBuffer();
+        private IntBuffer labelTable = new IntBuffer();
+        private IntBuffer docTable = new IntBuffer();
+
+        Writer(@NonNull File file) throws IOException {
+            this.file = file;
+            this.output = new FileOutputStream(file);
+            this.stream = new DataOutputStream(new BufferedOutputStream(output, 65536));
+        }
+
+        void addWordPostings(int term, int[] docs, int length) throws IOException {
+            addPostings(wordTable, term, docs, length);
+        }
+
+        void addLabelPostings(int term, int[] docs, int length) throws IOException {
+            addPostings(labelTable, term, docs, length);
+        }
+
+        private void addPostings(IntBuffer table, int term, int[] docs, int length) throws IOException {
+            table.add(term);
+            table.add(length);
+            table.add(offset());
+
+            writeVInt(length);
+            int previous = 0;
+            for (int i = 0; i < length; i++) {
+                writeVInt(docs[i] - previous);
+                previous = docs[i];
+            }
+        }
+
+        void addDocument(int doc, int[] words, int[] labels) throws IOException {
+            docTable.add(doc);
+            docTable.add(offset());
+
+            writeVInt(words.length);
+            for (int word : words)
+                writeVInt(word);
+
+            writeVInt(labels.length);
+            for (int label : labels)
+                writeVInt(label);
+        }
+
+        /**
+         * This method writes tables and footer, and forces file contents to disk. Segment can be opened once file is
+         * moved to its final location.
+         */
+        void finish(long totalWords) throws IOException {
+            long wordTableOffset = position;
+            writeInts(wordTable);
+            long labelTableOffset = position;
+            writeInts(labelTable);
+            long docTableOffset = position;
+            writeInts(docTable);
+
+            stream.writeInt(wordTable.size() / 3);
+            stream.writeLong(wordTableOffset);
+            stream.writeInt(labelTable.size() / 3);
+            stream.writeLong(labelTableOffset);
+            stream.writeInt(docTable.size() / 2);
+            stream.writeLong(docTableOffset);
+            stream.writeLong(totalWords);
+            stream.writeInt(MAGIC);
+            stream.flush();
+            output.getFD().sync();
+            stream.close();
+        }
+
+        private int offset() throws IOException {
+            if (position > Integer.MAX_VALUE - FOOTER_SIZE)
+                throw new IOException("Segment is too large: " + file);
+            return (int) position;
+        }
+
+        private void writeInts(IntBuffer ints) throws IOException {
+            for (int i = 0; i < ints.size(); i++)
+                stream.writeInt(ints.get(i));
+            position += 4L * ints.size();
+        }
+
+        private void writeVInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                stream.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+                position++;
+            }
+            stream.writeByte(value);
+            position++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
+
+    /**
+     * Growable array of primitive ints
+     */
+    static class IntBuffer {
+        private int[] array = new int[16];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == array.length)
+                array = Arrays.copyOf(array, array.length * 2);
+            array[size++] = value;
+        }
+
+        int get(int index) {
+            return array[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] array() {
+            return array;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(array, size);
+        }
+    }
+}
@@ -40,11 +40,14 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeNotNull;
 
 /**
@@ -126,6 +129,44 @@ public class TfidfVectorizerTest {
         assertEquals(vector, dataSet.getFeatureMatrix());
     }
 
+    @Test
+    public void testSparseTransform1() throws Exception {
+        File rootDir = new ClassPathResource("tripledir").getFile();
+        LabelAwareSentenceIterator iter = new LabelAwareFileSentenceIterator(rootDir);
+        TokenizerFactory tokenizerFactory = new DefaultTokenizerFactory();
+
+        TfidfVectorizer vectorizer = new TfidfVectorizer.Builder().setMinWordFrequency(1)
+                        .setStopWords(new ArrayList<String>()).setTokenizerFactory(tokenizerFactory).setIterator(iter)
+                        .allowParallelTokenization(false).build();
+
+        vectorizer.fit();
+
+        List<String> texts = Arrays.asList("This is 3 file.", "This is 1 file. file.", "unknown words only");
+        SparseBatch batch = vectorizer.transformSparse(texts);
+
+        assertEquals(3, batch.getRows());
+        assertEquals(vectorizer.getVocabCache().numWords(), batch.getColumns());
+        assertEquals(4, batch.rowLength(0));
+        assertEquals(0, batch.rowLength(2));
+        assertNull(batch.getLabels());
+
+        // sparse rows should match dense vectors
+        INDArray dense = batch.toDense();
+        for (int i = 0; i < texts.size(); i++) {
+            assertEquals(vectorizer.transform(texts.get(i)), dense.getRow(i));
+        }
+
+        int[] indices = batch.rowIndices(1);
+        for (int i = 1; i < indices.length; i++)
+            assertTrue(indices[i] > indices[i - 1]);
+
+        // streaming IDF pass over the same corpus gives the same values
+        vectorizer.fitIdf();
+        SparseBatch batch2 = vectorizer.transformSparse(texts);
+        assertArrayEquals(batch.getIndices(), batch2.getIndices());
+        assertArrayEquals(batch.getValues(), batch2.getValues(), 1e-5f);
+    }
+
     @Test
     public void testParallelFlag1() throws Exception {
         val vectorizer = new TfidfVectorizer.Builder()
@@ -1,9 +1,12 @@
 package org.deeplearning4j.models.embeddings.inmemory;
 
 import org.datavec.api.util.ClassPathResource;
+import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
 import org.deeplearning4j.models.sequencevectors.iterators.AbstractSequenceIterator;
 import org.deeplearning4j.models.sequencevectors.transformers.impl.SentenceTransformer;
+import org.deeplearning4j.models.word2vec.Huffman;
 import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.Word2Vec;
 import org.deeplearning4j.models.word2vec.wordstore.VocabConstructor;
 import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
 import org.deeplearning4j.text.documentiterator.FileLabelAwareIterator;
@@ -13,6 +16,9 @@ import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFac
 import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
 import org.junit.Before;
 import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.File;
 
 import static org.junit.Assert.*;
 
@@ -143,4 +149,78 @@ public class InMemoryLookupTableTest {
 
         assertEquals(mem1.syn0.rows() + 3, mem2.syn0.rows());
     }
+
+    @Test
+    public void testNegativeTable1() throws Exception {
+        AbstractCache<VocabWord> cache = new AbstractCache.Builder<VocabWord>().build();
+        cache.addToken(new VocabWord(1000.0, "first"));
+        cache.addToken(new VocabWord(100.0, "second"));
+        cache.addToken(new VocabWord(10.0, "third"));
+        cache.addToken(new VocabWord(1.0, "fourth"));
+
+        Huffman huffman = new Huffman(cache.vocabWords());
+        huffman.build();
+        huffman.applyIndexes(cache);
+
+        InMemoryLookupTable<VocabWord> lookupTable =
+                        (InMemoryLookupTable<VocabWord>) new InMemoryLookupTable.Builder<VocabWord>().vectorLength(10)
+                                        .cache(cache).negative(5).useHierarchicSoftmax(false).build();
+        lookupTable.resetWeights(true);
+
+        INDArray table = lookupTable.getTable();
+        assertNotNull(table);
+
+        // share of each element in table should match frequency^0.75
+        double[] counts = new double[4];
+        for (int i = 0; i < table.length(); i++)
+            counts[table.getInt(i)]++;
+
+        double total = 0.0;
+        for (int i = 0; i < 4; i++)
+            total += Math.pow(cache.elementAtIndex(i).getElementFrequency(), 0.75);
+
+        for (int i = 0; i < 4; i++) {
+            double expected = Math.pow(cache.elementAtIndex(i).getElementFrequency(), 0.75) / total;
+            assertEquals(expected, counts[i] / table.length(), 1e-3);
+        }
+
+        // table is reused as long as vocabulary stays the same
+        lookupTable.resetWeights(false);
+        assertSame(table, lookupTable.getTable());
+
+        cache.tokenFor("fourth").increaseElementFrequency(100);
+        lookupTable.resetWeights(false);
+        assertNotSame(table, lookupTable.getTable());
+    }
+
+    @Test
+    public void testNegativeTableSerialization1() throws Exception {
+        TokenizerFactory t = new DefaultTokenizerFactory();
+        t.setTokenPreProcessor(new CommonPreprocessor());
+
+        ClassPathResource resource = new ClassPathResource("big/raw_sentences.txt");
+        Word2Vec vec = new Word2Vec.Builder().minWordFrequency(1).layerSize(10).epochs(1).negativeSample(5)
+                        .useHierarchicSoftmax(false).iterate(new BasicLineIterator(resource.getFile()))
+                        .tokenizerFactory(t).build();
+        vec.fit();
+
+        File tempFile = File.createTempFile("word2vec", "zip");
+        tempFile.deleteOnExit();
+        WordVectorSerializer.writeWord2VecModel(vec, tempFile);
+
+        Word2Vec restored = WordVectorSerializer.readWord2VecModel(tempFile, true);
+
+        InMemoryLookupTable<VocabWord> original = (InMemoryLookupTable<VocabWord>) vec.getLookupTable();
+        InMemoryLookupTable<VocabWord> restoredTable = (InMemoryLookupTable<VocabWord>) restored.getLookupTable();
+        assertEquals(original.getTable(), restoredTable.getTable());
+
+        // restored table is valid for restored vocabulary, so it's not rebuilt
+        INDArray table = restoredTable.getTable();
+        restoredTable.resetWeights(false);
+        assertSame(table, restoredTable.getTable());
+
+        VocabWord word = vec.getVocab().tokenFor("day");
+        assertEquals(word.getCodes(), restored.getVocab().tokenFor("day").getCodes());
+        assertEquals(word.getPoints(), restored.getVocab().tokenFor("day").getPoints());
+    }
 }
@@ -0,0 +1,75 @@
+package org.deeplearning4j.models.embeddings.learning.impl.elements;
+
+import org.datavec.api.util.ClassPathResource;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.Word2Vec;
+import org.deeplearning4j.text.sentenceiterator.BasicLineIterator;
+import org.deeplearning4j.text.sentenceiterator.SentenceIterator;
+import org.deeplearning4j.text.tokenization.tokenizer.preprocessor.CommonPreprocessor;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SubwordSkipGramTest {
+
+    @Test
+    public void testSubwordBuckets1() throws Exception {
+        SubwordSkipGram<VocabWord> algorithm = new SubwordSkipGram<>(3, 6, 1000);
+
+        // "<day>" has 3 trigrams, 2 four-grams and 1 five-gram
+        int[] buckets = algorithm.subwordBuckets("day");
+        assertEquals(6, buckets.length);
+        for (int bucket : buckets) {
+            assertTrue(bucket >= 0 && bucket < 1000);
+        }
+
+        assertTrue(Arrays.equals(buckets, algorithm.subwordBuckets("day")));
+        assertFalse(Arrays.equals(buckets, algorithm.subwordBuckets("dax")));
+
+        // no n-grams fit into short word
+        assertEquals(0, new SubwordSkipGram<VocabWord>(5, 6, 1000).subwordBuckets("a").length);
+    }
+
+    @Test
+    public void testOutOfVocabulary1() throws Exception {
+        File inputFile = new ClassPathResource("/big/raw_sentences.txt").getFile();
+        SentenceIterator iter = new BasicLineIterator(inputFile);
+
+        TokenizerFactory t = new DefaultTokenizerFactory();
+        t.setTokenPreProcessor(new CommonPreprocessor());
+
+        SubwordSkipGram<VocabWord> algorithm = new SubwordSkipGram<>(3, 6, 50000);
+        Word2Vec vec = new Word2Vec.Builder().minWordFrequency(1).iterations(1).epochs(1).layerSize(50).seed(42)
+                        .windowSize(5).learningRate(0.025).sampling(0).useHierarchicSoftmax(true)
+                        .elementsLearningAlgorithm(algorithm).iterate(iter)
+                        .tokenizerFactory(t).build();
+
+        vec.fit();
+
+        assertFalse(vec.hasWord("dayz"));
+
+        INDArray dayz = vec.getWordVectorMatrix("dayz");
+        INDArray day = vec.getWordVectorMatrix("day");
+        INDArray money = vec.getWordVectorMatrix("money");
+
+        assertNotNull(dayz);
+        assertEquals(50, dayz.length());
+
+        // shared n-grams should bring OOV word closer to known word
+        double simDay = Transforms.cosineSim(dayz, day);
+        double simMoney = Transforms.cosineSim(dayz, money);
+        assertTrue("day: " + simDay + "; money: " + simMoney, simDay > simMoney);
+
+        // composed vectors are computed from trained rows, so composing again (i.e. after another fit) won't drift
+        INDArray composed = day.dup();
+        algorithm.composeVocabularyVectors();
+        assertEquals(composed, vec.getWordVectorMatrix("day"));
+    }
+}
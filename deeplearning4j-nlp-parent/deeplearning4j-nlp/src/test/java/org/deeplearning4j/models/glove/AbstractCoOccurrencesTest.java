@@ -22,7 +22,9 @@ import java.util.Iterator;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author raver119@gmail.com
@@ -81,4 +83,53 @@ public class AbstractCoOccurrencesTest {
         assertEquals(16, list.size());
         assertEquals(16, cnt);
     }
+
+    @Test
+    public void testFitWithSpills1() throws Exception {
+        ClassPathResource resource = new ClassPathResource("big/raw_sentences.txt");
+        File file = resource.getFile();
+
+        AbstractCache<VocabWord> vocabCache = new AbstractCache.Builder<VocabWord>().build();
+        BasicLineIterator underlyingIterator = new BasicLineIterator(file);
+
+        TokenizerFactory t = new DefaultTokenizerFactory();
+        t.setTokenPreProcessor(new CommonPreprocessor());
+
+        SentenceTransformer transformer =
+                        new SentenceTransformer.Builder().iterator(underlyingIterator).tokenizerFactory(t).build();
+
+        AbstractSequenceIterator<VocabWord> sequenceIterator =
+                        new AbstractSequenceIterator.Builder<>(transformer).build();
+
+        VocabConstructor<VocabWord> constructor = new VocabConstructor.Builder<VocabWord>()
+                        .addSource(sequenceIterator, 1).setTargetVocabCache(vocabCache).build();
+
+        constructor.buildJointVocabulary(false, true);
+
+        // everything fits into memory
+        AbstractCoOccurrences<VocabWord> inMemory = new AbstractCoOccurrences.Builder<VocabWord>()
+                        .iterate(sequenceIterator).vocabCache(vocabCache).symmetric(true).windowSize(5).workers(4)
+                        .build();
+        inMemory.fit();
+
+        // very small memory limit, lots of spills and multi-pass merge
+        AbstractCoOccurrences<VocabWord> spilled = new AbstractCoOccurrences.Builder<VocabWord>()
+                        .iterate(sequenceIterator).vocabCache(vocabCache).symmetric(true).windowSize(5).workers(4)
+                        .maxMemoryBytes(8 * 1024 * 1024).build();
+        spilled.fit();
+
+        Iterator<Pair<Pair<VocabWord, VocabWord>, Double>> expIter = inMemory.iterator();
+        Iterator<Pair<Pair<VocabWord, VocabWord>, Double>> actIter = spilled.iterator();
+        int cnt = 0;
+        while (expIter.hasNext()) {
+            Pair<Pair<VocabWord, VocabWord>, Double> exp = expIter.next();
+            Pair<Pair<VocabWord, VocabWord>, Double> act = actIter.next();
+            assertEquals(exp.getFirst(), act.getFirst());
+            assertEquals(exp.getSecond(), act.getSecond(), 1e-6 * exp.getSecond());
+            cnt++;
+        }
+        assertFalse(actIter.hasNext());
+        assertTrue(cnt > 0);
+        log.info("CoOccurrences: " + cnt);
+    }
 }
@@ -0,0 +1,61 @@
+package org.deeplearning4j.models.glove.count;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PairCountMapTest {
+
+    @Test
+    public void testPack1() throws Exception {
+        long key = PairCountMap.pack(Integer.MAX_VALUE, 17);
+        assertEquals(Integer.MAX_VALUE, PairCountMap.first(key));
+        assertEquals(17, PairCountMap.second(key));
+
+        key = PairCountMap.pack(3, Integer.MAX_VALUE);
+        assertEquals(3, PairCountMap.first(key));
+        assertEquals(Integer.MAX_VALUE, PairCountMap.second(key));
+    }
+
+    @Test
+    public void testIncrement1() throws Exception {
+        PairCountMap map = new PairCountMap(16);
+        Map<Long, Double> reference = new HashMap<>();
+        Random rng = new Random(119);
+
+        for (int i = 0; i < 100000; i++) {
+            int idx1 = rng.nextInt(300);
+            int idx2 = rng.nextInt(300);
+            double weight = rng.nextDouble();
+
+            map.increment(idx1, idx2, weight);
+            long key = PairCountMap.pack(idx1, idx2);
+            Double current = reference.get(key);
+            reference.put(key, current == null ? weight : current + weight);
+        }
+
+        assertEquals(reference.size(), map.size());
+        for (Map.Entry<Long, Double> entry : reference.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()), 1e-8);
+        }
+        assertEquals(0.0, map.get(301, 301), 0.0);
+
+        long[] keys = map.sortedKeys();
+        assertEquals(reference.size(), keys.length);
+        for (int i = 1; i < keys.length; i++) {
+            assertTrue(keys[i - 1] < keys[i]);
+        }
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(0.0, map.get(keys[0]), 0.0);
+
+        map.close();
+        assertEquals(0L, map.memoryBytes());
+    }
+}
@@ -59,6 +59,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.junit.Assert.*;
 
@@ -307,6 +308,16 @@ public class ParagraphVectorsTest {
         //        assertTrue(cosAO1 > 0.45);
         assertTrue(cosAB1 > 0.95);
 
+        List<INDArray> batched = vec.inferVectors(Arrays.asList("This is my work .", "qwertyuiop asdfghjkl",
+                        "world way case ."));
+        assertEquals(3, batched.size());
+        assertNull(batched.get(1));
+
+        double cosAX1 = Transforms.cosineSim(inferredA1.dup(), batched.get(0).dup());
+        log.info("Cos A/batched: {}", cosAX1);
+        assertTrue(cosAX1 > 0.95);
+        assertTrue(vec.getInferredDocumentsCount() >= 5);
+
         //assertArrayEquals(inferredA.data().asDouble(), inferredB.data().asDouble(), 0.01);
 
         ParagraphVectors restoredVectors = WordVectorSerializer.readParagraphVectors(fullFile);
@@ -470,6 +481,30 @@ public class ParagraphVectorsTest {
 
         assertNotEquals(inferredA1, inferredC1);
 
+        // batched inference, called concurrently
+        final ParagraphVectors model = vec;
+        final List<String> documents = Arrays.asList("This is my work", "This is my day", "This is my night");
+        final List<List<INDArray>> results = new CopyOnWriteArrayList<>();
+        Thread[] threads = new Thread[4];
+        for (int e = 0; e < threads.length; e++) {
+            threads[e] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    results.add(model.inferVectors(documents));
+                }
+            });
+            threads[e].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(threads.length, results.size());
+        for (List<INDArray> result : results) {
+            assertTrue(Transforms.cosineSim(inferredA1.dup(), result.get(0).dup()) > 0.95);
+            assertTrue(Transforms.cosineSim(inferredC1.dup(), result.get(1).dup()) > 0.95);
+        }
+        log.info("Inference throughput: {} docs/sec", vec.getInferenceDocsPerSecond());
+
         double cosAO1 = Transforms.cosineSim(inferredA1.dup(), original.dup());
         double cosAB1 = Transforms.cosineSim(inferredA1.dup(), inferredB1.dup());
         double cosAC1 = Transforms.cosineSim(inferredA1.dup(), inferredC1.dup());
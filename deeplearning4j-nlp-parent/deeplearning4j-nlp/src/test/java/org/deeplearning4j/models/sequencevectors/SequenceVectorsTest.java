@@ -24,6 +24,7 @@ import org.deeplearning4j.models.sequencevectors.graph.walkers.GraphWalker;
 import org.deeplearning4j.models.sequencevectors.graph.walkers.impl.PopularityWalker;
 import org.deeplearning4j.models.sequencevectors.interfaces.SequenceElementFactory;
 import org.deeplearning4j.models.sequencevectors.iterators.AbstractSequenceIterator;
+import org.deeplearning4j.models.sequencevectors.pipeline.PipelineStats;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.sequencevectors.serialization.AbstractElementFactory;
 import org.deeplearning4j.models.sequencevectors.transformers.impl.GraphTransformer;
@@ -176,6 +177,14 @@ public class SequenceVectorsTest {
 
         vectors.fit();
 
+        // single iteration over single epoch: each sequence is produced and trained exactly once
+        PipelineStats stats = vectors.getPipelineStats();
+        logger.info("Pipeline stats: {}", stats);
+        assertTrue(stats.getSequencedWords() > 0);
+        assertEquals(stats.getSequencedWords(), stats.getTrainedWords());
+        assertEquals(stats.getSequencedSequences(), stats.getTrainedSequences());
+        assertTrue(stats.getAggregateBatches() > 0);
+
         logger.info("Model saved...");
 
         /*
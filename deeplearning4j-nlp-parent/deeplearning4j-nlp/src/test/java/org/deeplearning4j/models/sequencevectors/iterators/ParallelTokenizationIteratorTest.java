@@ -0,0 +1,162 @@
+package org.deeplearning4j.models.sequencevectors.iterators;
+
+import lombok.extern.slf4j.Slf4j;
+import org.datavec.api.util.ClassPathResource;
+import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
+import org.deeplearning4j.models.sequencevectors.transformers.impl.SentenceTransformer;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabConstructor;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
+import org.deeplearning4j.text.sentenceiterator.BasicLineIterator;
+import org.deeplearning4j.text.tokenization.tokenizer.Tokenizer;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class ParallelTokenizationIteratorTest {
+    private File inputFile;
+    private TokenizerFactory tokenizerFactory;
+    private AbstractCache<VocabWord> vocabCache;
+
+    @Before
+    public void setUp() throws Exception {
+        inputFile = new ClassPathResource("/big/raw_sentences.txt").getFile();
+        tokenizerFactory = new DefaultTokenizerFactory();
+
+        SentenceTransformer transformer = new SentenceTransformer.Builder().iterator(new BasicLineIterator(inputFile))
+                        .tokenizerFactory(tokenizerFactory).build();
+        AbstractSequenceIterator<VocabWord> sequenceIterator =
+                        new AbstractSequenceIterator.Builder<>(transformer).build();
+
+        // some words will be left out of vocabulary
+        vocabCache = new AbstractCache.Builder<VocabWord>().build();
+        VocabConstructor<VocabWord> constructor = new VocabConstructor.Builder<VocabWord>()
+                        .addSource(sequenceIterator, 10).setTargetVocabCache(vocabCache).build();
+        constructor.buildJointVocabulary(false, true);
+    }
+
+    private List<int[]> singleThreaded() throws Exception {
+        List<int[]> result = new ArrayList<>();
+        BasicLineIterator iterator = new BasicLineIterator(inputFile);
+        while (iterator.hasNext()) {
+            Tokenizer tokenizer = tokenizerFactory.create(iterator.nextSentence());
+            List<Integer> indices = new ArrayList<>();
+            for (String token : tokenizer.getTokens()) {
+                int index = vocabCache.indexOf(token);
+                if (index >= 0)
+                    indices.add(index);
+            }
+
+            int[] array = new int[indices.size()];
+            for (int i = 0; i < array.length; i++)
+                array[i] = indices.get(i);
+            result.add(array);
+        }
+        return result;
+    }
+
+    @Test
+    public void testOrdered1() throws Exception {
+        List<int[]> expected = singleThreaded();
+
+        ParallelTokenizationIterator<VocabWord> iterator =
+                        new ParallelTokenizationIterator.Builder<>(new BasicLineIterator(inputFile), tokenizerFactory,
+                                        vocabCache).workers(4).queueSize(64).ordered(true).build();
+
+        // second pass checks reset()
+        for (int e = 0; e < 2; e++) {
+            int cnt = 0;
+            while (iterator.hasNext()) {
+                ParallelTokenizationIterator.TokenizedDocument document = iterator.nextDocument();
+                assertEquals(cnt, document.getId());
+                assertArrayEquals(expected.get(cnt), document.getIndices());
+                cnt++;
+            }
+            assertEquals(expected.size(), cnt);
+            iterator.reset();
+        }
+    }
+
+    @Test
+    public void testUnordered1() throws Exception {
+        List<int[]> expected = singleThreaded();
+
+        ParallelTokenizationIterator<VocabWord> iterator =
+                        new ParallelTokenizationIterator.Builder<>(new BasicLineIterator(inputFile), tokenizerFactory,
+                                        vocabCache).workers(4).ordered(false).build();
+
+        boolean[] seen = new boolean[expected.size()];
+        int cnt = 0;
+        while (iterator.hasMoreSequences()) {
+            Sequence<VocabWord> sequence = iterator.nextSequence();
+            int id = sequence.getSequenceId();
+            assertFalse(seen[id]);
+            seen[id] = true;
+
+            int[] indices = expected.get(id);
+            assertEquals(indices.length, sequence.size());
+            for (int i = 0; i < indices.length; i++)
+                assertEquals(vocabCache.wordAtIndex(indices[i]), sequence.getElementByIndex(i).getLabel());
+
+            cnt++;
+        }
+
+        assertEquals(expected.size(), cnt);
+        iterator.shutdown();
+    }
+
+    @Test
+    public void testWorkerCounts1() throws Exception {
+        long words = 0;
+        for (int[] indices : singleThreaded())
+            words += indices.length;
+
+        for (int workers : new int[] {1, 2, 4}) {
+            ParallelTokenizationIterator<VocabWord> iterator =
+                            new ParallelTokenizationIterator.Builder<>(new BasicLineIterator(inputFile),
+                                            tokenizerFactory, vocabCache).workers(workers).ordered(false).build();
+
+            long parallelWords = 0;
+            while (iterator.hasNext())
+                parallelWords += iterator.nextIndices().length;
+
+            assertEquals("Workers: " + workers, words, parallelWords);
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test(timeout = 30000L)
+    public void testTokenizerFailure1() throws Exception {
+        TokenizerFactory failing = new DefaultTokenizerFactory() {
+            private final AtomicInteger counter = new AtomicInteger(0);
+
+            @Override
+            public Tokenizer create(String toTokenize) {
+                if (counter.incrementAndGet() > 100)
+                    throw new IllegalStateException("Tokenizer failure");
+                return super.create(toTokenize);
+            }
+        };
+
+        ParallelTokenizationIterator<VocabWord> iterator = new ParallelTokenizationIterator.Builder<>(
+                        new BasicLineIterator(inputFile), failing, vocabCache).workers(4).build();
+
+        try {
+            while (iterator.hasNext())
+                iterator.nextIndices();
+
+            fail("Tokenizer failure should be reported to consumer");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.deeplearning4j.models.sequencevectors.pipeline;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.Assert.*;
+
+public class BoundedQueueTest {
+
+    @Test
+    public void testOfferPoll1() throws Exception {
+        BoundedQueue<Integer> queue = new BoundedQueue<>(5);
+        assertEquals(8, queue.capacity());
+        assertNull(queue.poll());
+
+        for (int i = 0; i < 8; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(8));
+        assertEquals(8, queue.size());
+
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i, queue.poll().intValue());
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testConcurrentProducersConsumers1() throws Exception {
+        final int numProducers = 4;
+        final int numConsumers = 4;
+        final int perProducer = 100000;
+        final BoundedQueue<Integer> queue = new BoundedQueue<>(64);
+        final AtomicLongArray received = new AtomicLongArray(numProducers * perProducer);
+        final AtomicInteger activeProducers = new AtomicInteger(numProducers);
+
+        Thread[] threads = new Thread[numProducers + numConsumers];
+        for (int p = 0; p < numProducers; p++) {
+            final int producer = p;
+            threads[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < perProducer; i++) {
+                            queue.put(producer * perProducer + i);
+                        }
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    } finally {
+                        activeProducers.decrementAndGet();
+                    }
+                }
+            });
+        }
+
+        for (int c = 0; c < numConsumers; c++) {
+            threads[numProducers + c] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (activeProducers.get() > 0 || !queue.isEmpty()) {
+                            Integer value = queue.poll(10, TimeUnit.MILLISECONDS);
+                            if (value != null)
+                                received.incrementAndGet(value);
+                        }
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+        }
+
+        for (Thread thread : threads)
+            thread.start();
+
+        for (Thread thread : threads)
+            thread.join();
+
+        // each element should be delivered exactly once
+        for (int i = 0; i < received.length(); i++) {
+            assertEquals("Element " + i, 1, received.get(i));
+        }
+        assertTrue(queue.isEmpty());
+    }
+}
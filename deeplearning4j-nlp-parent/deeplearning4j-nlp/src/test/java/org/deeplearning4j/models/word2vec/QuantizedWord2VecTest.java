@@ -0,0 +1,81 @@
+package org.deeplearning4j.models.word2vec;
+
+import lombok.extern.slf4j.Slf4j;
+import org.datavec.api.util.ClassPathResource;
+import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
+import org.deeplearning4j.models.embeddings.quantization.ProductQuantizer;
+import org.deeplearning4j.models.embeddings.quantization.QuantizationReport;
+import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class QuantizedWord2VecTest {
+    private WordVectors word2vec;
+
+    @Before
+    public void setUp() throws Exception {
+        word2vec = WordVectorSerializer.loadGoogleModel(new ClassPathResource("vec.bin").getFile(), true, true);
+    }
+
+    @Test
+    public void testProductQuantizer1() throws Exception {
+        float[][] vectors = new float[][] {{1, 0, 0, 1}, {0, 1, 1, 0}, {1, 1, 0, 0}};
+
+        ProductQuantizer quantizer = new ProductQuantizer(4, 2, 3);
+        assertFalse(quantizer.isTrained());
+        quantizer.fit(vectors, 5, 119);
+
+        // number of centroids matches number of vectors, so encoding is lossless
+        byte[] codes = new byte[vectors.length * 2];
+        float[] restored = new float[4];
+        for (int i = 0; i < vectors.length; i++) {
+            quantizer.encode(vectors[i], codes, i * 2);
+            quantizer.decode(codes, i * 2, restored);
+            assertArrayEquals(vectors[i], restored, 1e-5f);
+        }
+
+        float[][] table = quantizer.dotTable(new float[] {1, 0, 0, 1});
+        assertEquals(2.0f, quantizer.dot(table, codes, 0), 1e-5f);
+        assertEquals(0.0f, quantizer.dot(table, codes, 2), 1e-5f);
+        assertEquals(1.0f, quantizer.dot(table, codes, 4), 1e-5f);
+    }
+
+    @Test
+    public void testQuantizedModel1() throws Exception {
+        QuantizedWord2Vec quantized = new QuantizedWord2Vec.Builder(word2vec).iterations(10).seed(119).build();
+
+        assertEquals(word2vec.vocab().numWords(), quantized.vocab().numWords());
+
+        String word = "Adam";
+        INDArray original = word2vec.getWordVectorMatrix(word);
+        INDArray restored = quantized.getWordVectorMatrix(word);
+        assertEquals(original.length(), restored.length());
+        assertTrue(Transforms.cosineSim(original, restored) > 0.9);
+        assertEquals(original.norm2Number().doubleValue(), restored.norm2Number().doubleValue(),
+                        0.2 * original.norm2Number().doubleValue());
+
+        Collection<String> nearest = quantized.wordsNearest(word, 5);
+        assertEquals(5, nearest.size());
+        assertFalse(nearest.contains(word));
+
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < Math.min(50, word2vec.vocab().numWords()); i++)
+            queries.add(word2vec.vocab().wordAtIndex(i));
+
+        QuantizationReport report = quantized.evaluate(word2vec, queries, 5);
+        log.info("{}", report);
+
+        assertTrue(report.getQueries() > 0);
+        assertTrue(report.getRecall() > 0.5);
+        assertEquals(quantized.memoryBytes(), report.getCompressedBytes());
+    }
+}
@@ -0,0 +1,215 @@
+package org.deeplearning4j.models.word2vec.wordstore.compact;
+
+import lombok.extern.slf4j.Slf4j;
+import org.datavec.api.util.ClassPathResource;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.loader.VectorsConfiguration;
+import org.deeplearning4j.models.sequencevectors.SequenceVectors;
+import org.deeplearning4j.models.sequencevectors.iterators.AbstractSequenceIterator;
+import org.deeplearning4j.models.sequencevectors.transformers.impl.SentenceTransformer;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.models.word2vec.wordstore.VocabConstructor;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
+import org.deeplearning4j.text.sentenceiterator.BasicLineIterator;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.deeplearning4j.util.SerializationUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class CompactVocabCacheTest {
+
+    // VocabCache methods that modify vocabulary: compact vocabulary rejects them (or all of them, if memory-mapped)
+    private static final Set<String> MUTATORS = new HashSet<>(Arrays.asList("incrementWordCount", "addWordToIndex",
+                    "putVocabWord", "incrementDocCount", "setCountForDoc", "addToken", "importVocabulary",
+                    "removeElement"));
+
+    private File inputFile;
+    private AbstractCache<VocabWord> vocabCache;
+
+    @Before
+    public void setUp() throws Exception {
+        inputFile = new ClassPathResource("/big/raw_sentences.txt").getFile();
+        BasicLineIterator underlyingIterator = new BasicLineIterator(inputFile);
+
+        SentenceTransformer transformer = new SentenceTransformer.Builder().iterator(underlyingIterator)
+                        .tokenizerFactory(new DefaultTokenizerFactory()).build();
+
+        AbstractSequenceIterator<VocabWord> sequenceIterator =
+                        new AbstractSequenceIterator.Builder<>(transformer).build();
+
+        vocabCache = new AbstractCache.Builder<VocabWord>().build();
+        VocabConstructor<VocabWord> constructor = new VocabConstructor.Builder<VocabWord>()
+                        .addSource(sequenceIterator, 1).setTargetVocabCache(vocabCache).build();
+
+        constructor.buildJointVocabulary(false, true);
+    }
+
+    @Test
+    public void testFromVocab1() throws Exception {
+        CompactVocabCache compact = CompactVocabCache.fromVocab(vocabCache);
+
+        assertVocabEquals(vocabCache, compact);
+        assertFalse(compact.containsWord("nonexistent_word"));
+        assertEquals(-2, compact.indexOf("nonexistent_word"));
+        assertNull(compact.wordFor("nonexistent_word"));
+    }
+
+    @Test
+    public void testCounters1() throws Exception {
+        CompactVocabCache compact = CompactVocabCache.fromVocab(vocabCache);
+        long total = compact.totalWordOccurrences();
+        int frequency = compact.wordFrequency("day");
+
+        compact.incrementWordCount("day", 5);
+        assertEquals(frequency + 5, compact.wordFrequency("day"));
+        assertEquals(total + 5, compact.totalWordOccurrences());
+
+        // views are backed by vocabulary
+        VocabWord word = compact.wordFor("day");
+        word.increaseElementFrequency(2);
+        assertEquals(frequency + 7, compact.wordFrequency("day"));
+        assertEquals(frequency + 7, compact.elementAtIndex(word.getIndex()).getElementFrequency(), 1e-5);
+
+        word.setInit(true);
+        assertTrue(compact.wordFor("day").isInit());
+        assertFalse(compact.wordFor("night").isInit());
+    }
+
+    @Test
+    public void testSaveLoad1() throws Exception {
+        CompactVocabCache compact = CompactVocabCache.fromVocab(vocabCache);
+
+        File tempFile = File.createTempFile("compact", "vocab");
+        tempFile.deleteOnExit();
+        compact.save(tempFile);
+
+        CompactVocabCache restored = CompactVocabCache.load(tempFile, false);
+        assertFalse(restored.isMemoryMapped());
+        assertVocabEquals(vocabCache, restored);
+
+        CompactVocabCache mapped = CompactVocabCache.load(tempFile, true);
+        assertTrue(mapped.isMemoryMapped());
+        assertVocabEquals(vocabCache, mapped);
+
+        try {
+            mapped.incrementWordCount("day");
+            fail("Memory-mapped vocabulary should be read-only");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSerialization1() throws Exception {
+        CompactVocabCache compact = CompactVocabCache.fromVocab(vocabCache);
+
+        byte[] bytes = SerializationUtils.toByteArray(compact);
+        CompactVocabCache restored = SerializationUtils.readObject(new ByteArrayInputStream(bytes));
+
+        assertVocabEquals(vocabCache, restored);
+
+        // views are serialized as standalone elements
+        bytes = SerializationUtils.toByteArray(compact.wordFor("day"));
+        VocabWord word = SerializationUtils.readObject(new ByteArrayInputStream(bytes));
+        assertFalse(word instanceof CompactVocabWord);
+        assertEquals(vocabCache.wordFor("day").getPoints(), word.getPoints());
+    }
+
+    @Test
+    public void testSequenceVectorsFit1() throws Exception {
+        CompactVocabCache compact = CompactVocabCache.fromVocab(vocabCache);
+        File tempFile = File.createTempFile("compact", "vocab");
+        tempFile.deleteOnExit();
+        compact.save(tempFile);
+
+        // memory-mapped vocabulary rejects every mutation, including counter updates via element views
+        final CompactVocabCache mapped = CompactVocabCache.load(tempFile, true);
+        final List<String> mutatorCalls = Collections.synchronizedList(new ArrayList<String>());
+        @SuppressWarnings("unchecked")
+        VocabCache<VocabWord> recording = (VocabCache<VocabWord>) Proxy.newProxyInstance(
+                        VocabCache.class.getClassLoader(), new Class[] {VocabCache.class}, new InvocationHandler() {
+                            @Override
+                            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                                if (MUTATORS.contains(method.getName()))
+                                    mutatorCalls.add(method.getName());
+                                try {
+                                    return method.invoke(mapped, args);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                            }
+                        });
+
+        // training threads don't propagate exceptions to fit(), so they are collected here
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(Thread t, Throwable e) {
+                errors.add(e);
+            }
+        });
+
+        try {
+            InMemoryLookupTable<VocabWord> lookupTable = new InMemoryLookupTable.Builder<VocabWord>().lr(0.025)
+                            .vectorLength(100).useAdaGrad(false).cache(recording).build();
+            lookupTable.resetWeights(true);
+            INDArray initial = lookupTable.getSyn0().dup();
+
+            SentenceTransformer transformer = new SentenceTransformer.Builder()
+                            .iterator(new BasicLineIterator(inputFile)).tokenizerFactory(new DefaultTokenizerFactory())
+                            .build();
+            AbstractSequenceIterator<VocabWord> sequenceIterator =
+                            new AbstractSequenceIterator.Builder<>(transformer).build();
+
+            SequenceVectors<VocabWord> vectors = new SequenceVectors.Builder<VocabWord>(new VectorsConfiguration())
+                            .lookupTable(lookupTable).iterate(sequenceIterator).vocabCache(recording).batchSize(250)
+                            .iterations(1).epochs(1).resetModel(false).trainElementsRepresentation(true).build();
+            vectors.fit();
+
+            log.info("day/night similarity: {}", vectors.similarity("day", "night"));
+
+            assertTrue("Mutators called during training: " + mutatorCalls, mutatorCalls.isEmpty());
+            assertTrue("Training threads failed: " + errors, errors.isEmpty());
+            assertNotEquals(initial, lookupTable.getSyn0());
+            assertVocabEquals(vocabCache, mapped);
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+    }
+
+    private static void assertVocabEquals(VocabCache<VocabWord> expected, CompactVocabCache actual) {
+        assertEquals(expected.numWords(), actual.numWords());
+        assertEquals(expected.totalWordOccurrences(), actual.totalWordOccurrences());
+        assertEquals(expected.totalNumberOfDocs(), actual.totalNumberOfDocs());
+
+        for (VocabWord word : expected.vocabWords()) {
+            String label = word.getLabel();
+            assertTrue(actual.containsWord(label));
+            assertEquals(expected.indexOf(label), actual.indexOf(label));
+            assertEquals(label, actual.wordAtIndex(word.getIndex()));
+            assertEquals(expected.wordFrequency(label), actual.wordFrequency(label));
+            assertEquals(expected.docAppearedIn(label), actual.docAppearedIn(label));
+
+            VocabWord element = actual.wordFor(label);
+            assertEquals(word.getCodeLength(), element.getCodeLength());
+            assertEquals(word.getCodes(), element.getCodes());
+            assertEquals(word.getPoints(), element.getPoints());
+            assertEquals(word.getStorageId(), element.getStorageId());
+            assertEquals(element, actual.wordFor(element.getStorageId()));
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package org.deeplearning4j.text.invertedindex;
+
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.models.sequencevectors.iterators.AbstractSequenceIterator;
+import org.deeplearning4j.models.sequencevectors.transformers.impl.SentenceTransformer;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabConstructor;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
+import org.deeplearning4j.text.sentenceiterator.CollectionSentenceIterator;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nd4j.linalg.primitives.Pair;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class DiskInvertedIndexTest {
+    private File directory;
+    private AbstractCache<VocabWord> vocabCache;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("index").toFile();
+        vocabCache = new AbstractCache.Builder<VocabWord>().build();
+        for (int i = 0; i < 1000; i++) {
+            vocabCache.addToken(new VocabWord(1.0, "word" + i));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        File[] files = directory.listFiles();
+        if (files != null)
+            for (File file : files)
+                file.delete();
+        directory.delete();
+    }
+
+    private List<VocabWord> words(int... ids) {
+        List<VocabWord> result = new ArrayList<>();
+        for (int id : ids)
+            result.add(vocabCache.wordFor("word" + id));
+        return result;
+    }
+
+    @Test
+    public void testAddQuery1() throws Exception {
+        DiskInvertedIndex<VocabWord> index = new DiskInvertedIndex.Builder<>(directory, vocabCache).segmentSize(2)
+                        .mergeFactor(2).build();
+
+        index.addWordsToDoc(0, words(1, 2, 3, 1), "label_A");
+        index.addWordsToDoc(1, words(2, 4), "label_B");
+        index.addWordsToDoc(2, words(5, 1), "label_A");
+        index.addWordsToDoc(3, words(6));
+        index.addWordsToDoc(4, words(1, 6), "label_C");
+
+        // last document is still in memory, but should be visible
+        assertEquals(5, index.numDocuments());
+        assertArrayEquals(new int[] {0, 2, 4}, index.documents("word1"));
+        assertEquals(3, index.documentFrequency("word1"));
+        assertEquals(0, index.documentFrequency("word999"));
+        assertArrayEquals(new int[] {0, 2}, index.documentsWithLabel("label_A"));
+        assertEquals(words(1, 2, 3, 1), index.document(0));
+
+        index.finish();
+
+        assertEquals(1, index.numSegments());
+        assertEquals(11, index.totalWords());
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, index.allDocs());
+        assertArrayEquals(new int[] {3, 4}, index.documents(vocabCache.wordFor("word6")));
+        assertArrayEquals(new int[] {0, 2}, index.documentsWithLabel("label_A"));
+
+        Pair<List<VocabWord>, String> pair = index.documentWithLabel(1);
+        assertEquals(words(2, 4), pair.getFirst());
+        assertEquals("label_B", pair.getSecond());
+        assertNull(index.documentWithLabel(3).getSecond());
+        assertNull(index.document(10));
+
+        try {
+            index.addWordToDoc(0, vocabCache.wordFor("word7"));
+            fail("Flushed documents should be immutable");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // index should be restored from disk
+        DiskInvertedIndex<VocabWord> restored = new DiskInvertedIndex.Builder<>(directory, vocabCache).build();
+        assertEquals(5, restored.numDocuments());
+        assertEquals(11, restored.totalWords());
+        assertArrayEquals(new int[] {0, 2, 4}, restored.documents("word1"));
+        assertEquals(words(5, 1), restored.document(2));
+        assertEquals(Arrays.asList("label_C"), restored.documentWithLabels(4).getSecond());
+
+        restored.cleanup();
+        assertEquals(0, restored.numDocuments());
+        assertEquals(0, restored.numSegments());
+    }
+
+    @Test(timeout = 60000L)
+    public void testConcurrentReads1() throws Exception {
+        final DiskInvertedIndex<VocabWord> index = new DiskInvertedIndex.Builder<>(directory, vocabCache)
+                        .segmentSize(16).mergeFactor(4).build();
+        final int numDocs = 2000;
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < numDocs; i++)
+                    index.addWordsToDoc(i, words(1, 2 + i % 500));
+            }
+        });
+        writer.start();
+
+        // documents are moved from memory to segments concurrently, but none of them should be missed or repeated
+        int previous = 0;
+        while (writer.isAlive()) {
+            int frequency = index.documentFrequency("word1");
+            assertTrue(frequency >= previous);
+            previous = frequency;
+
+            int[] docs = index.documents("word1");
+            assertTrue(docs.length >= previous);
+            for (int i = 1; i < docs.length; i++)
+                assertTrue(docs[i] > docs[i - 1]);
+        }
+        writer.join();
+
+        index.finish();
+        index.awaitMerges();
+        assertEquals(numDocs, index.documentFrequency("word1"));
+        assertEquals(numDocs, index.documents("word1").length);
+    }
+
+    @Test
+    public void testRecovery1() throws Exception {
+        DiskInvertedIndex<VocabWord> index = new DiskInvertedIndex.Builder<>(directory, vocabCache).segmentSize(2)
+                        .mergeFactor(100).build();
+
+        index.addWordsToDoc(0, words(1, 2), "label_A");
+        index.addWordsToDoc(1, words(3), "label_B");
+        index.addWordsToDoc(2, words(4, 5), "label_C");
+        index.addWordsToDoc(3, words(6));
+        index.addWordsToDoc(4, words(7));
+        assertEquals(2, index.numSegments());
+
+        // leftovers of interrupted merge: unpublished copy of existing segment, and partially written one
+        File[] files = directory.listFiles();
+        for (File file : files) {
+            if (file.getName().startsWith("segment-")) {
+                Files.copy(file.toPath(), new File(directory, "segment-99.idx").toPath());
+                break;
+            }
+        }
+        assertTrue(new File(directory, "segment-100.idx.tmp").createNewFile());
+
+        // finish() wasn't called, so only flushed documents are restored, and dictionaries have to cover them
+        DiskInvertedIndex<VocabWord> restored = new DiskInvertedIndex.Builder<>(directory, vocabCache).build();
+        assertEquals(2, restored.numSegments());
+        assertEquals(4, restored.numDocuments());
+        assertEquals(6, restored.totalWords());
+        assertArrayEquals(new int[] {0, 1, 2, 3}, restored.allDocs());
+        assertEquals(words(4, 5), restored.document(2));
+        assertArrayEquals(new int[] {1}, restored.documentsWithLabel("label_B"));
+
+        assertFalse(new File(directory, "segment-99.idx").exists());
+        assertFalse(new File(directory, "segment-100.idx.tmp").exists());
+    }
+
+    @Test
+    public void testVocabConstructor1() throws Exception {
+        List<String> sentences = Arrays.asList("first string", "second string string", "third string", "fourth");
+
+        AbstractCache<VocabWord> cache = new AbstractCache.Builder<VocabWord>().build();
+        DiskInvertedIndex<VocabWord> index = new DiskInvertedIndex.Builder<>(directory, cache).build();
+
+        SentenceTransformer transformer = new SentenceTransformer.Builder()
+                        .iterator(new CollectionSentenceIterator(sentences))
+                        .tokenizerFactory(new DefaultTokenizerFactory()).build();
+        AbstractSequenceIterator<VocabWord> iterator = new AbstractSequenceIterator.Builder<>(transformer).build();
+
+        VocabConstructor<VocabWord> constructor = new VocabConstructor.Builder<VocabWord>().addSource(iterator, 1)
+                        .setTargetVocabCache(cache).setIndex(index).allowParallelTokenization(false).build();
+        constructor.buildJointVocabulary(false, true);
+
+        // each document is indexed exactly once
+        assertEquals(sentences.size(), index.numDocuments());
+        assertEquals(3, index.documentFrequency("string"));
+        assertEquals(cache.docAppearedIn("string"), index.documentFrequency("string"));
+    }
+
+    @Test
+    public void testBenchmark1() throws Exception {
+        int numDocs = 50000;
+        DiskInvertedIndex<VocabWord> index = new DiskInvertedIndex.Builder<>(directory, vocabCache).segmentSize(5000)
+                        .mergeFactor(4).build();
+
+        Random random = new Random(119);
+        int[] frequencies = new int[1000];
+        long time = System.nanoTime();
+        for (int d = 0; d < numDocs; d++) {
+            int length = 5 + random.nextInt(50);
+            int[] ids = new int[length];
+            Set<Integer> unique = new HashSet<>();
+            for (int i = 0; i < length; i++) {
+                // skewed distribution, like natural language
+                ids[i] = (int) (1000 * Math.pow(random.nextDouble(), 3));
+                if (unique.add(ids[i]))
+                    frequencies[ids[i]]++;
+            }
+            index.addWordsToDoc(d, words(ids), "doc_" + (d % 100));
+        }
+        index.finish();
+        long indexingTime = System.nanoTime() - time;
+
+        log.info("Indexing: {} docs/sec; segments after merge: {}", String.format("%.1f", numDocs / (indexingTime / 1e9)),
+                        index.numSegments());
+
+        time = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(frequencies[i], index.documentFrequency("word" + i));
+        }
+        long dfTime = System.nanoTime() - time;
+
+        time = System.nanoTime();
+        long found = 0;
+        for (int i = 0; i < 100; i++) {
+            for (int doc : index.documentsWithLabel("doc_" + i)) {
+                found += index.document(doc).size() > 0 ? 1 : 0;
+            }
+        }
+        long labelTime = System.nanoTime() - time;
+
+        log.info("Document frequency query: {} us; label lookup with documents fetch: {} us per label",
+                        dfTime / 1000 / 1000, labelTime / 1000 / 100);
+
+        assertEquals(numDocs, found);
+        assertEquals(numDocs, index.numDocuments());
+    }
+}
@@ -0,0 +1,413 @@
+package org.deeplearning4j.datasets.iterator;
+
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Base class for iterators that cache the vectorized minibatches of a source iterator on local disk.<br>
+ * During the first full pass over the source iterator, each minibatch is saved to its own binary file (as it is
+ * returned). Once a pass completes, a manifest is written that marks the cache as complete; all later epochs - and
+ * later iterator instances with the same cache key - replay the minibatches from disk, with sequential reads
+ * prefetched on a background thread, and without touching the source iterator. This avoids re-parsing and
+ * re-decoding (CSV, images etc) on every epoch.<br>
+ * The cache key is a hash of the source description, the type of the source iterator and the class and
+ * configuration of the source iterator's preprocessor: changing any of these invalidates the cache. The source
+ * description should identify the data (for example, path and modification time of the input files) and any
+ * vectorization settings the source iterator is created with (minibatch size, label index, image size etc).<br>
+ * Note that the preprocessor of this iterator (if any) is applied to minibatches as they are returned, and the
+ * results are NOT cached - use it for cheap and/or random operations only.
+ *
+ * @param <T> Type of minibatch (DataSet or MultiDataSet)
+ */
+@Slf4j
+public abstract class BaseFileCachingIterator<T> {
+
+    public static final String MANIFEST_FILE = "manifest.properties";
+    protected static final String KEY_PROPERTY = "key";
+    protected static final String NUM_MINIBATCHES_PROPERTY = "numMinibatches";
+    protected static final String DESCRIPTION_PROPERTY = "sourceDescription";
+
+    protected final File cacheDir;
+    protected final String sourceDescription;
+    protected final boolean shuffle;
+    protected final Random rng;
+    protected final int prefetchSize;
+
+    private String cacheKey;
+    private int numCachedMinibatches = -1;
+
+    private boolean epochActive;
+
+    //Recording state (first pass)
+    private boolean recording;
+    private boolean recordingStarted;
+    private int recordedCount;
+
+    //Replay state
+    private PrefetchThread prefetchThread;
+    private BlockingQueue<Item<T>> queue;
+    private Item<T> nextItem;
+    private boolean exhausted;
+
+    protected BaseFileCachingIterator(@NonNull File cacheDir, @NonNull String sourceDescription, boolean shuffle,
+                    long seed, int prefetchSize) {
+        if (prefetchSize <= 0) {
+            throw new IllegalArgumentException("Prefetch size must be positive: got " + prefetchSize);
+        }
+        this.cacheDir = cacheDir;
+        this.sourceDescription = sourceDescription;
+        this.shuffle = shuffle;
+        this.rng = new Random(seed);
+        this.prefetchSize = prefetchSize;
+    }
+
+    protected abstract boolean sourceHasNext();
+
+    protected abstract T sourceNext();
+
+    protected abstract void sourceReset();
+
+    /**
+     * @return The source iterator, used for the cache key
+     */
+    protected abstract Object getSource();
+
+    /**
+     * @return The preprocessor of the source iterator (if any), used for the cache key
+     */
+    protected abstract Object getSourcePreProcessor();
+
+    protected abstract void save(T minibatch, OutputStream os) throws IOException;
+
+    protected abstract T load(InputStream is) throws IOException;
+
+    /**
+     * Apply this iterator's preprocessor (if any) to a minibatch
+     */
+    protected abstract void preProcess(T minibatch);
+
+    /**
+     * @return The cache key: a hash of the source description, source iterator type and source preprocessor
+     */
+    public String getCacheKey() {
+        if (cacheKey == null) {
+            cacheKey = computeCacheKey();
+        }
+        return cacheKey;
+    }
+
+    /**
+     * @return The directory for the cache files for the current cache key
+     */
+    public File getCacheKeyDirectory() {
+        return new File(cacheDir, getCacheKey());
+    }
+
+    /**
+     * @return True if a complete cache for the current cache key exists on disk
+     */
+    public boolean isCached() {
+        return readNumCachedMinibatches() >= 0;
+    }
+
+    /**
+     * Delete the cache (for the current cache key). The next epoch will read from the source iterator again.
+     */
+    public void invalidate() {
+        stopPrefetch();
+        numCachedMinibatches = -1;
+        epochActive = false;
+        recording = false;
+        recordingStarted = false;
+        try {
+            FileUtils.deleteDirectory(getCacheKeyDirectory());
+        } catch (IOException e) {
+            throw new RuntimeException("Error deleting cache directory " + getCacheKeyDirectory(), e);
+        }
+    }
+
+    public boolean hasNext() {
+        if (!epochActive) {
+            startEpoch();
+        }
+        if (recording) {
+            if (sourceHasNext()) {
+                return true;
+            }
+            finishRecording();
+            exhausted = true;
+            return false;
+        }
+        if (nextItem == null && !exhausted) {
+            nextItem = take();
+            exhausted = (nextItem == null);
+        }
+        return nextItem != null;
+    }
+
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No next element");
+        }
+        T out;
+        if (recording) {
+            out = sourceNext();
+            //Save before preprocessing: this iterator's preprocessor may modify the minibatch in-place
+            File f = minibatchFile(recordedCount);
+            try (OutputStream os = new BufferedOutputStream(new FileOutputStream(f))) {
+                save(out, os);
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing minibatch to cache file " + f, e);
+            }
+            recordedCount++;
+        } else {
+            out = nextItem.value;
+            nextItem = null;
+        }
+        preProcess(out);
+        return out;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("Remove not supported");
+    }
+
+    public boolean resetSupported() {
+        return true;
+    }
+
+    public boolean asyncSupported() {
+        //Replay is already prefetched asynchronously
+        return false;
+    }
+
+    public void reset() {
+        stopPrefetch();
+        if (recording) {
+            //Partial first pass: discard and start again next epoch
+            log.debug("Reset before first pass completed: discarding {} partially cached minibatches", recordedCount);
+            recording = false;
+        }
+        epochActive = false;
+    }
+
+    private void startEpoch() {
+        epochActive = true;
+        if (numCachedMinibatches < 0) {
+            numCachedMinibatches = readNumCachedMinibatches();
+        }
+        if (numCachedMinibatches >= 0) {
+            startPrefetch();
+            return;
+        }
+
+        File dir = getCacheKeyDirectory();
+        try {
+            if (dir.exists()) {
+                FileUtils.deleteDirectory(dir);
+            }
+            FileUtils.forceMkdir(dir);
+        } catch (IOException e) {
+            throw new RuntimeException("Error creating cache directory " + dir, e);
+        }
+        if (recordingStarted) {
+            sourceReset();
+        }
+        log.info("Caching minibatches to {}", dir);
+        recording = true;
+        recordingStarted = true;
+        recordedCount = 0;
+    }
+
+    private void finishRecording() {
+        recording = false;
+        Properties p = new Properties();
+        p.setProperty(KEY_PROPERTY, getCacheKey());
+        p.setProperty(NUM_MINIBATCHES_PROPERTY, String.valueOf(recordedCount));
+        p.setProperty(DESCRIPTION_PROPERTY, sourceDescription);
+
+        //Write then rename, so that an interrupted write never results in a valid looking manifest
+        File dir = getCacheKeyDirectory();
+        File tmp = new File(dir, MANIFEST_FILE + ".tmp");
+        try (OutputStream os = new FileOutputStream(tmp)) {
+            p.store(os, "Minibatch cache");
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing cache manifest " + tmp, e);
+        }
+        if (!tmp.renameTo(new File(dir, MANIFEST_FILE))) {
+            throw new RuntimeException("Error writing cache manifest: could not rename " + tmp);
+        }
+        numCachedMinibatches = recordedCount;
+        log.info("Cached {} minibatches to {}", recordedCount, dir);
+    }
+
+    private int readNumCachedMinibatches() {
+        File manifest = new File(getCacheKeyDirectory(), MANIFEST_FILE);
+        if (!manifest.exists()) {
+            return -1;
+        }
+        Properties p = new Properties();
+        try (InputStream is = new FileInputStream(manifest)) {
+            p.load(is);
+        } catch (IOException e) {
+            log.warn("Error reading cache manifest {}: cache will be rebuilt", manifest, e);
+            return -1;
+        }
+        if (!getCacheKey().equals(p.getProperty(KEY_PROPERTY))) {
+            return -1;
+        }
+        return Integer.parseInt(p.getProperty(NUM_MINIBATCHES_PROPERTY));
+    }
+
+    private File minibatchFile(int idx) {
+        return new File(getCacheKeyDirectory(), "minibatch_" + idx + ".bin");
+    }
+
+    private void startPrefetch() {
+        List<File> files = new ArrayList<>(numCachedMinibatches);
+        for (int i = 0; i < numCachedMinibatches; i++) {
+            files.add(minibatchFile(i));
+        }
+        if (shuffle) {
+            Collections.shuffle(files, rng);
+        }
+
+        queue = new ArrayBlockingQueue<>(prefetchSize);
+        nextItem = null;
+        exhausted = false;
+        prefetchThread = new PrefetchThread(files, queue);
+        Nd4j.getAffinityManager().attachThreadToDevice(prefetchThread,
+                        Nd4j.getAffinityManager().getDeviceForCurrentThread());
+        prefetchThread.start();
+    }
+
+    private void stopPrefetch() {
+        if (prefetchThread != null) {
+            prefetchThread.stopped = true;
+            prefetchThread.interrupt();
+            try {
+                prefetchThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        prefetchThread = null;
+        queue = null;
+        nextItem = null;
+        exhausted = false;
+    }
+
+    private Item<T> take() {
+        try {
+            Item<T> item = queue.take();
+            if (item.error != null) {
+                stopPrefetch();
+                throw new RuntimeException("Error reading cached minibatch", item.error);
+            }
+            return item.value == null ? null : item;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for next minibatch", e);
+        }
+    }
+
+    private String computeCacheKey() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getClass().getName()).append("\n");
+        sb.append(sourceDescription).append("\n");
+        sb.append(getSource().getClass().getName()).append("\n");
+
+        Object pp = getSourcePreProcessor();
+        byte[] ppBytes = new byte[0];
+        if (pp != null) {
+            sb.append(pp.getClass().getName()).append("\n");
+            //Preprocessor configuration (for example, normalizer statistics) is captured by its serialized form
+            if (pp instanceof Serializable) {
+                try {
+                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                    try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+                        oos.writeObject(pp);
+                    }
+                    ppBytes = baos.toByteArray();
+                } catch (IOException e) {
+                    log.warn("Could not serialize source preprocessor of type {}: using toString() for cache key",
+                                    pp.getClass().getName());
+                    sb.append(pp.toString());
+                }
+            } else {
+                sb.append(pp.toString());
+            }
+        }
+
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+            md.update(ppBytes);
+            byte[] digest = md.digest();
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Item<T> {
+        private final T value;
+        private final Throwable error;
+    }
+
+    private class PrefetchThread extends Thread {
+        private final List<File> files;
+        private final BlockingQueue<Item<T>> queue;
+        private volatile boolean stopped;
+
+        private PrefetchThread(List<File> files, BlockingQueue<Item<T>> queue) {
+            this.files = files;
+            this.queue = queue;
+            setName("FileCachingIteratorPrefetch");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (File f : files) {
+                    if (stopped) {
+                        return;
+                    }
+                    T next;
+                    try (InputStream is = new BufferedInputStream(new FileInputStream(f), 1 << 20)) {
+                        next = load(is);
+                    }
+                    queue.put(new Item<>(next, null));
+                }
+                queue.put(new Item<T>(null, null));
+            } catch (InterruptedException e) {
+                //Shut down: no op
+            } catch (Throwable t) {
+                if (!stopped) {
+                    try {
+                        queue.put(new Item<T>(null, t));
+                    } catch (InterruptedException e) {
+                        //Shut down: no op
+                    }
+                }
+            }
+        }
+    }
+}
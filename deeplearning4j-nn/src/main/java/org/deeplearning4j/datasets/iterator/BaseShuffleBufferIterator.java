@@ -0,0 +1,332 @@
+package org.deeplearning4j.datasets.iterator;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base class for iterators that provide approximate shuffling of datasets that are too large to shuffle in memory,
+ * using a bounded shuffle buffer (reservoir) of examples.<br>
+ * A background thread reads minibatches from one or more source iterators - interleaved in round-robin order - and
+ * splits them into individual examples. The buffer is kept filled with (approximately) bufferSize examples, and each
+ * returned minibatch is made up of examples drawn uniformly at random from the buffer. The larger the buffer
+ * relative to the size of each source minibatch, the closer the result is to a full shuffle.<br>
+ * Given deterministic source iterators, the returned minibatches are deterministic for a given seed: the background
+ * thread reads the sources in a fixed order, and all random draws are made on the consumer thread.<br>
+ * Throughput and memory use are available via {@link #getStats()}.
+ *
+ * @param <T> Type of minibatch (DataSet or MultiDataSet)
+ */
+@Slf4j
+public abstract class BaseShuffleBufferIterator<T> {
+
+    protected final int batchSize;
+    protected final int bufferSize;
+    protected final int queueSize;
+    protected final Random rng;
+
+    private final List<T> buffer = new ArrayList<>();
+    private long bufferBytes;
+    private long peakBufferBytes;
+
+    private FillerThread filler;
+    private BlockingQueue<Item<T>> queue;
+    private boolean sourcesDone;
+
+    private final AtomicLong fillerNanos = new AtomicLong();
+    private final AtomicLong fillerBlockedNanos = new AtomicLong();
+    private long consumerWaitNanos;
+    private long examplesReturned;
+    private long minibatchesReturned;
+    private long firstRequestNanos = -1;
+
+    /**
+     * @param batchSize  Size of the minibatches to return
+     * @param bufferSize Number of examples to keep in the shuffle buffer
+     * @param queueSize  Maximum number of source minibatches to read ahead of the buffer
+     * @param seed       RNG seed
+     */
+    protected BaseShuffleBufferIterator(int batchSize, int bufferSize, int queueSize, long seed) {
+        if (batchSize <= 0 || bufferSize <= 0 || queueSize <= 0) {
+            throw new IllegalArgumentException("Batch size, buffer size and queue size must be positive: got "
+                            + batchSize + ", " + bufferSize + ", " + queueSize);
+        }
+        this.batchSize = batchSize;
+        this.bufferSize = bufferSize;
+        this.queueSize = queueSize;
+        this.rng = new Random(seed);
+    }
+
+    /**
+     * @return Number of source iterators
+     */
+    protected abstract int numSources();
+
+    protected abstract boolean sourceHasNext(int source);
+
+    protected abstract T sourceNext(int source);
+
+    protected abstract void resetSources();
+
+    /**
+     * Split a source minibatch into individual examples
+     */
+    protected abstract List<T> split(T minibatch);
+
+    /**
+     * Merge a list of examples into a minibatch
+     */
+    protected abstract T merge(List<T> examples);
+
+    /**
+     * @return The arrays (features, labels, masks) of an example, for the memory use estimate
+     */
+    protected abstract INDArray[] arrays(T example);
+
+    /**
+     * Apply the preprocessor (if any) to a returned minibatch
+     */
+    protected abstract void preProcess(T minibatch);
+
+    public boolean hasNext() {
+        if (firstRequestNanos < 0) {
+            firstRequestNanos = System.nanoTime();
+        }
+        if (filler == null) {
+            start();
+        }
+        fillBuffer();
+        return !buffer.isEmpty();
+    }
+
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No next element");
+        }
+        int n = Math.min(batchSize, buffer.size());
+        List<T> examples = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            //Draw uniformly at random, and remove by swapping with the last element: O(1) per example
+            int idx = rng.nextInt(buffer.size());
+            int last = buffer.size() - 1;
+            T ex = buffer.get(idx);
+            buffer.set(idx, buffer.get(last));
+            buffer.remove(last);
+            bufferBytes -= sizeBytes(ex);
+            examples.add(ex);
+        }
+
+        T out = merge(examples);
+        preProcess(out);
+        examplesReturned += n;
+        minibatchesReturned++;
+        return out;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("Remove not supported");
+    }
+
+    public boolean resetSupported() {
+        return true;
+    }
+
+    public boolean asyncSupported() {
+        //Already asynchronous
+        return false;
+    }
+
+    /**
+     * Reset the source iterators and clear the shuffle buffer. Note that the RNG is not reset: each epoch has a
+     * different (but deterministic) order.
+     */
+    public void reset() {
+        shutdown();
+        resetSources();
+        buffer.clear();
+        bufferBytes = 0;
+        sourcesDone = false;
+    }
+
+    /**
+     * Stop the background thread
+     */
+    public void shutdown() {
+        if (filler != null) {
+            filler.stopped = true;
+            filler.interrupt();
+            try {
+                filler.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        filler = null;
+        queue = null;
+    }
+
+    /**
+     * @return Throughput and memory statistics, accumulated since this iterator was created
+     */
+    public ShuffleBufferStats getStats() {
+        double seconds = (firstRequestNanos < 0 ? 0 : (System.nanoTime() - firstRequestNanos) / 1e9);
+        return new ShuffleBufferStats(examplesReturned, minibatchesReturned,
+                        seconds > 0 ? examplesReturned / seconds : 0.0, buffer.size(), bufferBytes, peakBufferBytes,
+                        fillerNanos.get() / 1000000, fillerBlockedNanos.get() / 1000000, consumerWaitNanos / 1000000);
+    }
+
+    private void start() {
+        if (sourcesDone) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueSize);
+        filler = new FillerThread(queue);
+        Nd4j.getAffinityManager().attachThreadToDevice(filler, Nd4j.getAffinityManager().getDeviceForCurrentThread());
+        filler.start();
+    }
+
+    private void fillBuffer() {
+        if (sourcesDone) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            while (buffer.size() < bufferSize) {
+                Item<T> item = queue.take();
+                if (item.error != null) {
+                    shutdown();
+                    throw new RuntimeException("Error in shuffle buffer source iterator", item.error);
+                }
+                if (item.examples == null) {
+                    sourcesDone = true;
+                    break;
+                }
+                for (T ex : item.examples) {
+                    buffer.add(ex);
+                    bufferBytes += sizeBytes(ex);
+                }
+            }
+            peakBufferBytes = Math.max(peakBufferBytes, bufferBytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while filling shuffle buffer", e);
+        } finally {
+            consumerWaitNanos += System.nanoTime() - start;
+        }
+    }
+
+    private long sizeBytes(T example) {
+        long bytes = 0;
+        for (INDArray arr : arrays(example)) {
+            if (arr != null) {
+                bytes += arr.length() * arr.data().getElementSize();
+            }
+        }
+        return bytes;
+    }
+
+    @AllArgsConstructor
+    private static class Item<T> {
+        private final List<T> examples;
+        private final Throwable error;
+    }
+
+    private class FillerThread extends Thread {
+        private final BlockingQueue<Item<T>> queue;
+        private volatile boolean stopped;
+
+        private FillerThread(BlockingQueue<Item<T>> queue) {
+            this.queue = queue;
+            setName("ShuffleBufferFiller");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                int n = numSources();
+                boolean[] done = new boolean[n];
+                int remaining = n;
+                int next = 0;
+                while (!stopped && remaining > 0) {
+                    if (done[next]) {
+                        next = (next + 1) % n;
+                        continue;
+                    }
+                    long t0 = System.nanoTime();
+                    if (!sourceHasNext(next)) {
+                        done[next] = true;
+                        remaining--;
+                        continue;
+                    }
+                    List<T> examples = split(sourceNext(next));
+                    long t1 = System.nanoTime();
+                    fillerNanos.addAndGet(t1 - t0);
+
+                    queue.put(new Item<>(examples, null));
+                    fillerBlockedNanos.addAndGet(System.nanoTime() - t1);
+                    next = (next + 1) % n;
+                }
+                if (!stopped) {
+                    queue.put(new Item<T>(null, null));
+                }
+            } catch (InterruptedException e) {
+                //Shut down: no op
+            } catch (Throwable t) {
+                if (!stopped) {
+                    try {
+                        queue.put(new Item<T>(null, t));
+                    } catch (InterruptedException e) {
+                        //Shut down: no op
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Throughput and memory statistics for a shuffle buffer iterator
+     */
+    @AllArgsConstructor
+    @Getter
+    public static class ShuffleBufferStats {
+        /** Number of examples returned */
+        private final long examples;
+        /** Number of minibatches returned */
+        private final long minibatches;
+        /** Examples returned per second, since the first call to hasNext() */
+        private final double examplesPerSecond;
+        /** Number of examples currently in the shuffle buffer */
+        private final int bufferedExamples;
+        /** Estimated memory use of the examples currently in the shuffle buffer, in bytes */
+        private final long bufferedBytes;
+        /** Peak estimated memory use of the shuffle buffer, in bytes */
+        private final long peakBufferedBytes;
+        /** Time spent by the background thread reading and splitting source minibatches */
+        private final long fillerMs;
+        /** Time the background thread was blocked on a full queue: if large, the consumer is the bottleneck */
+        private final long fillerBlockedMs;
+        /** Time the consumer was blocked waiting for examples: if large, the sources are the bottleneck */
+        private final long consumerWaitMs;
+
+        @Override
+        public String toString() {
+            return "ShuffleBufferStats(examples=" + examples + ", minibatches=" + minibatches
+                            + ", examplesPerSecond=" + String.format("%.1f", examplesPerSecond) + ", bufferedExamples="
+                            + bufferedExamples + ", bufferedBytes=" + bufferedBytes + ", peakBufferedBytes="
+                            + peakBufferedBytes + ", fillerMs=" + fillerMs + ", fillerBlockedMs=" + fillerBlockedMs
+                            + ", consumerWaitMs=" + consumerWaitMs + ")";
+        }
+    }
+}
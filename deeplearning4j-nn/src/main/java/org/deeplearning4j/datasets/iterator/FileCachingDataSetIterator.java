@@ -0,0 +1,150 @@
+package org.deeplearning4j.datasets.iterator;
+
+import lombok.NonNull;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * A DataSetIterator that caches the (vectorized) minibatches of another DataSetIterator on local disk during the
+ * first epoch, and replays them from disk in later epochs - optionally in a shuffled order. See
+ * {@link BaseFileCachingIterator} for details, including how the cache is invalidated.<br>
+ * Usage:
+ * <pre>
+ * {@code
+ * DataSetIterator source = new RecordReaderDataSetIterator(rr, batchSize, labelIndex, numClasses);
+ * DataSetIterator iter = new FileCachingDataSetIterator(source, new File("/tmp/cache"),
+ *          "train.csv, modified " + trainFile.lastModified() + ", batch " + batchSize);
+ * }
+ * </pre>
+ */
+public class FileCachingDataSetIterator extends BaseFileCachingIterator<DataSet> implements DataSetIterator {
+
+    private final DataSetIterator source;
+    private DataSetPreProcessor preProcessor;
+
+    /**
+     * Create a caching iterator without shuffling
+     *
+     * @param source            Source iterator. Only used for the first epoch, if no valid cache exists
+     * @param cacheDir          Root directory for the cache. Caches for different keys are stored in subdirectories
+     * @param sourceDescription Description of the source data and vectorization settings, used for the cache key
+     */
+    public FileCachingDataSetIterator(@NonNull DataSetIterator source, @NonNull File cacheDir,
+                    @NonNull String sourceDescription) {
+        this(source, cacheDir, sourceDescription, false, 0, 4);
+    }
+
+    /**
+     * @param source            Source iterator. Only used for the first epoch, if no valid cache exists
+     * @param cacheDir          Root directory for the cache. Caches for different keys are stored in subdirectories
+     * @param sourceDescription Description of the source data and vectorization settings, used for the cache key
+     * @param shuffle           If true: shuffle the order of the cached minibatches for each replayed epoch
+     * @param seed              RNG seed for shuffling
+     * @param prefetchSize      Number of minibatches to prefetch from disk when replaying
+     */
+    public FileCachingDataSetIterator(@NonNull DataSetIterator source, @NonNull File cacheDir,
+                    @NonNull String sourceDescription, boolean shuffle, long seed, int prefetchSize) {
+        super(cacheDir, sourceDescription, shuffle, seed, prefetchSize);
+        this.source = source;
+    }
+
+    @Override
+    protected boolean sourceHasNext() {
+        return source.hasNext();
+    }
+
+    @Override
+    protected DataSet sourceNext() {
+        return source.next();
+    }
+
+    @Override
+    protected void sourceReset() {
+        source.reset();
+    }
+
+    @Override
+    protected Object getSource() {
+        return source;
+    }
+
+    @Override
+    protected Object getSourcePreProcessor() {
+        return source.getPreProcessor();
+    }
+
+    @Override
+    protected void save(DataSet minibatch, OutputStream os) {
+        minibatch.save(os);
+    }
+
+    @Override
+    protected DataSet load(InputStream is) {
+        DataSet ds = new DataSet();
+        ds.load(is);
+        return ds;
+    }
+
+    @Override
+    protected void preProcess(DataSet minibatch) {
+        if (preProcessor != null) {
+            preProcessor.preProcess(minibatch);
+        }
+    }
+
+    @Override
+    public DataSet next(int num) {
+        throw new UnsupportedOperationException("Not supported: minibatch size is fixed by the cached minibatches");
+    }
+
+    @Override
+    public int totalExamples() {
+        return source.totalExamples();
+    }
+
+    @Override
+    public int inputColumns() {
+        return source.inputColumns();
+    }
+
+    @Override
+    public int totalOutcomes() {
+        return source.totalOutcomes();
+    }
+
+    @Override
+    public int batch() {
+        return source.batch();
+    }
+
+    @Override
+    public int cursor() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int numExamples() {
+        return source.numExamples();
+    }
+
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public DataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return source.getLabels();
+    }
+}
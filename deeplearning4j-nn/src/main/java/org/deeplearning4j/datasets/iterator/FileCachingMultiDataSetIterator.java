@@ -0,0 +1,108 @@
+package org.deeplearning4j.datasets.iterator;
+
+import lombok.NonNull;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A MultiDataSetIterator that caches the (vectorized) minibatches of another MultiDataSetIterator on local disk during
+ * the first epoch, and replays them from disk in later epochs - optionally in a shuffled order. See
+ * {@link BaseFileCachingIterator} for details, including how the cache is invalidated.
+ */
+public class FileCachingMultiDataSetIterator extends BaseFileCachingIterator<MultiDataSet>
+                implements MultiDataSetIterator {
+
+    private final MultiDataSetIterator source;
+    private MultiDataSetPreProcessor preProcessor;
+
+    /**
+     * Create a caching iterator without shuffling
+     *
+     * @param source            Source iterator. Only used for the first epoch, if no valid cache exists
+     * @param cacheDir          Root directory for the cache. Caches for different keys are stored in subdirectories
+     * @param sourceDescription Description of the source data and vectorization settings, used for the cache key
+     */
+    public FileCachingMultiDataSetIterator(@NonNull MultiDataSetIterator source, @NonNull File cacheDir,
+                    @NonNull String sourceDescription) {
+        this(source, cacheDir, sourceDescription, false, 0, 4);
+    }
+
+    /**
+     * @param source            Source iterator. Only used for the first epoch, if no valid cache exists
+     * @param cacheDir          Root directory for the cache. Caches for different keys are stored in subdirectories
+     * @param sourceDescription Description of the source data and vectorization settings, used for the cache key
+     * @param shuffle           If true: shuffle the order of the cached minibatches for each replayed epoch
+     * @param seed              RNG seed for shuffling
+     * @param prefetchSize      Number of minibatches to prefetch from disk when replaying
+     */
+    public FileCachingMultiDataSetIterator(@NonNull MultiDataSetIterator source, @NonNull File cacheDir,
+                    @NonNull String sourceDescription, boolean shuffle, long seed, int prefetchSize) {
+        super(cacheDir, sourceDescription, shuffle, seed, prefetchSize);
+        this.source = source;
+    }
+
+    @Override
+    protected boolean sourceHasNext() {
+        return source.hasNext();
+    }
+
+    @Override
+    protected MultiDataSet sourceNext() {
+        return source.next();
+    }
+
+    @Override
+    protected void sourceReset() {
+        source.reset();
+    }
+
+    @Override
+    protected Object getSource() {
+        return source;
+    }
+
+    @Override
+    protected Object getSourcePreProcessor() {
+        return source.getPreProcessor();
+    }
+
+    @Override
+    protected void save(MultiDataSet minibatch, OutputStream os) throws IOException {
+        minibatch.save(os);
+    }
+
+    @Override
+    protected MultiDataSet load(InputStream is) throws IOException {
+        MultiDataSet mds = new org.nd4j.linalg.dataset.MultiDataSet();
+        mds.load(is);
+        return mds;
+    }
+
+    @Override
+    protected void preProcess(MultiDataSet minibatch) {
+        if (preProcessor != null) {
+            preProcessor.preProcess(minibatch);
+        }
+    }
+
+    @Override
+    public MultiDataSet next(int num) {
+        throw new UnsupportedOperationException("Not supported: minibatch size is fixed by the cached minibatches");
+    }
+
+    @Override
+    public void setPreProcessor(MultiDataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public MultiDataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+}
@@ -0,0 +1,162 @@
+package org.deeplearning4j.datasets.iterator;
+
+import lombok.NonNull;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A DataSetIterator that approximately shuffles the examples of one or more (interleaved) source iterators, using a
+ * bounded shuffle buffer - for datasets that are too large to shuffle in memory. See
+ * {@link BaseShuffleBufferIterator} for details.<br>
+ * For example, to shuffle over a set of files with 100 examples each, using a buffer of 50,000 examples:
+ * <pre>
+ * {@code
+ * List<DataSetIterator> sources = ...; //For example, one iterator per file or per directory
+ * DataSetIterator iter = new ShuffleBufferDataSetIterator(sources, 32, 50000, 12345);
+ * }
+ * </pre>
+ * All source iterators should return minibatches with the same feature and label shapes (other than minibatch size).
+ */
+public class ShuffleBufferDataSetIterator extends BaseShuffleBufferIterator<DataSet> implements DataSetIterator {
+
+    private final List<DataSetIterator> sources;
+    private DataSetPreProcessor preProcessor;
+
+    /**
+     * @param source     Source iterator
+     * @param batchSize  Size of the minibatches to return
+     * @param bufferSize Number of examples to keep in the shuffle buffer
+     * @param seed       RNG seed
+     */
+    public ShuffleBufferDataSetIterator(@NonNull DataSetIterator source, int batchSize, int bufferSize, long seed) {
+        this(Collections.singletonList(source), batchSize, bufferSize, seed);
+    }
+
+    /**
+     * @param sources    Source iterators, read in round-robin order
+     * @param batchSize  Size of the minibatches to return
+     * @param bufferSize Number of examples to keep in the shuffle buffer
+     * @param seed       RNG seed
+     */
+    public ShuffleBufferDataSetIterator(@NonNull List<DataSetIterator> sources, int batchSize, int bufferSize,
+                    long seed) {
+        this(sources, batchSize, bufferSize, 4, seed);
+    }
+
+    /**
+     * @param sources    Source iterators, read in round-robin order
+     * @param batchSize  Size of the minibatches to return
+     * @param bufferSize Number of examples to keep in the shuffle buffer
+     * @param queueSize  Maximum number of source minibatches to read ahead of the buffer
+     * @param seed       RNG seed
+     */
+    public ShuffleBufferDataSetIterator(@NonNull List<DataSetIterator> sources, int batchSize, int bufferSize,
+                    int queueSize, long seed) {
+        super(batchSize, bufferSize, queueSize, seed);
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("At least one source iterator is required");
+        }
+        this.sources = new ArrayList<>(sources);
+    }
+
+    @Override
+    protected int numSources() {
+        return sources.size();
+    }
+
+    @Override
+    protected boolean sourceHasNext(int source) {
+        return sources.get(source).hasNext();
+    }
+
+    @Override
+    protected DataSet sourceNext(int source) {
+        return sources.get(source).next();
+    }
+
+    @Override
+    protected void resetSources() {
+        for (DataSetIterator iter : sources) {
+            iter.reset();
+        }
+    }
+
+    @Override
+    protected List<DataSet> split(DataSet minibatch) {
+        return minibatch.asList();
+    }
+
+    @Override
+    protected DataSet merge(List<DataSet> examples) {
+        return DataSet.merge(examples);
+    }
+
+    @Override
+    protected INDArray[] arrays(DataSet example) {
+        return new INDArray[] {example.getFeatures(), example.getLabels(), example.getFeaturesMaskArray(),
+                        example.getLabelsMaskArray()};
+    }
+
+    @Override
+    protected void preProcess(DataSet minibatch) {
+        if (preProcessor != null) {
+            preProcessor.preProcess(minibatch);
+        }
+    }
+
+    @Override
+    public DataSet next(int num) {
+        throw new UnsupportedOperationException("Not supported: minibatch size is fixed");
+    }
+
+    @Override
+    public int totalExamples() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int inputColumns() {
+        return sources.get(0).inputColumns();
+    }
+
+    @Override
+    public int totalOutcomes() {
+        return sources.get(0).totalOutcomes();
+    }
+
+    @Override
+    public int batch() {
+        return batchSize;
+    }
+
+    @Override
+    public int cursor() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int numExamples() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public DataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return sources.get(0).getLabels();
+    }
+}
@@ -0,0 +1,133 @@
+package org.deeplearning4j.datasets.iterator;
+
+import lombok.NonNull;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A MultiDataSetIterator that approximately shuffles the examples of one or more (interleaved) source iterators, using
+ * a bounded shuffle buffer - for datasets that are too large to shuffle in memory. See
+ * {@link BaseShuffleBufferIterator} for details.<br>
+ * All source iterators should return minibatches with the same number and shapes of arrays (other than minibatch
+ * size).
+ */
+public class ShuffleBufferMultiDataSetIterator extends BaseShuffleBufferIterator<MultiDataSet>
+                implements MultiDataSetIterator {
+
+    private final List<MultiDataSetIterator> sources;
+    private MultiDataSetPreProcessor preProcessor;
+
+    /**
+     * @param source     Source iterator
+     * @param batchSize  Size of the minibatches to return
+     * @param bufferSize Number of examples to keep in the shuffle buffer
+     * @param seed       RNG seed
+     */
+    public ShuffleBufferMultiDataSetIterator(@NonNull MultiDataSetIterator source, int batchSize, int bufferSize,
+                    long seed) {
+        this(Collections.singletonList(source), batchSize, bufferSize, seed);
+    }
+
+    /**
+     * @param sources    Source iterators, read in round-robin order
+     * @param batchSize  Size of the minibatches to return
+     * @param bufferSize Number of examples to keep in the shuffle buffer
+     * @param seed       RNG seed
+     */
+    public ShuffleBufferMultiDataSetIterator(@NonNull List<MultiDataSetIterator> sources, int batchSize,
+                    int bufferSize, long seed) {
+        this(sources, batchSize, bufferSize, 4, seed);
+    }
+
+    /**
+     * @param sources    Source iterators, read in round-robin order
+     * @param batchSize  Size of the minibatches to return
+     * @param bufferSize Number of examples to keep in the shuffle buffer
+     * @param queueSize  Maximum number of source minibatches to read ahead of the buffer
+     * @param seed       RNG seed
+     */
+    public ShuffleBufferMultiDataSetIterator(@NonNull List<MultiDataSetIterator> sources, int batchSize,
+                    int bufferSize, int queueSize, long seed) {
+        super(batchSize, bufferSize, queueSize, seed);
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("At least one source iterator is required");
+        }
+        this.sources = new ArrayList<>(sources);
+    }
+
+    @Override
+    protected int numSources() {
+        return sources.size();
+    }
+
+    @Override
+    protected boolean sourceHasNext(int source) {
+        return sources.get(source).hasNext();
+    }
+
+    @Override
+    protected MultiDataSet sourceNext(int source) {
+        return sources.get(source).next();
+    }
+
+    @Override
+    protected void resetSources() {
+        for (MultiDataSetIterator iter : sources) {
+            iter.reset();
+        }
+    }
+
+    @Override
+    protected List<MultiDataSet> split(MultiDataSet minibatch) {
+        return minibatch.asList();
+    }
+
+    @Override
+    protected MultiDataSet merge(List<MultiDataSet> examples) {
+        return org.nd4j.linalg.dataset.MultiDataSet.merge(examples);
+    }
+
+    @Override
+    protected INDArray[] arrays(MultiDataSet example) {
+        List<INDArray> list = new ArrayList<>();
+        addAll(list, example.getFeatures());
+        addAll(list, example.getLabels());
+        addAll(list, example.getFeaturesMaskArrays());
+        addAll(list, example.getLabelsMaskArrays());
+        return list.toArray(new INDArray[list.size()]);
+    }
+
+    private static void addAll(List<INDArray> list, INDArray[] arrays) {
+        if (arrays != null) {
+            Collections.addAll(list, arrays);
+        }
+    }
+
+    @Override
+    protected void preProcess(MultiDataSet minibatch) {
+        if (preProcessor != null) {
+            preProcessor.preProcess(minibatch);
+        }
+    }
+
+    @Override
+    public MultiDataSet next(int num) {
+        throw new UnsupportedOperationException("Not supported: minibatch size is fixed");
+    }
+
+    @Override
+    public void setPreProcessor(MultiDataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public MultiDataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+}
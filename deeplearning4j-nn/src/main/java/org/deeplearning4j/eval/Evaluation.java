@@ -29,10 +29,8 @@ import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.nd4j.linalg.api.ndarray.INDArray;
-import org.nd4j.linalg.api.ops.impl.accum.MatchCondition;
 import org.nd4j.linalg.api.ops.impl.transforms.Not;
 import org.nd4j.linalg.factory.Nd4j;
-import org.nd4j.linalg.indexing.conditions.Conditions;
 import org.nd4j.linalg.lossfunctions.serde.RowVectorDeserializer;
 import org.nd4j.linalg.lossfunctions.serde.RowVectorSerializer;
 import org.nd4j.linalg.primitives.Counter;
@@ -377,72 +375,69 @@ public class Evaluation extends BaseEvaluation<Evaluation> {
                 //Standard case: argmax
                 guessIndex = Nd4j.argMax(guesses, 1);
             }
-            INDArray realOutcomeIndex = Nd4j.argMax(realOutcomes, 1);
-            int nExamples = guessIndex.length();
+            int[] actualIdxs = toIntArray(Nd4j.argMax(realOutcomes, 1));
+            int[] predictedIdxs = toIntArray(guessIndex);
+            int nExamples = predictedIdxs.length;
 
+            //Accumulate the counts for this minibatch in a primitive array first, and then update the confusion
+            // matrix and counters once per (actual, predicted) pair - instead of once (or nCols times) per example
+            long[] counts = new long[nCols * nCols];
             for (int i = 0; i < nExamples; i++) {
-                int actual = (int) realOutcomeIndex.getDouble(i);
-                int predicted = (int) guessIndex.getDouble(i);
-                confusion().add(actual, predicted);
+                int actual = actualIdxs[i];
+                int predicted = predictedIdxs[i];
+                counts[actual * nCols + predicted]++;
 
                 if (recordMetaData != null && recordMetaData.size() > i) {
                     Object m = recordMetaData.get(i);
                     addToMetaConfusionMatrix(actual, predicted, m);
                 }
+            }
 
-                // instead of looping through each label for confusion
-                // matrix, instead infer those values by determining if true/false negative/positive,
-                // then just add across matrix
-
-                // if actual == predicted, then it's a true positive, assign true negative to every other label
-                if (actual == predicted) {
-                    truePositives.incrementCount(actual, 1);
-                    for (int col = 0; col < nCols; col++) {
-                        if (col == actual) {
-                            continue;
-                        }
-                        trueNegatives.incrementCount(col, 1); // all cols prior
-                    }
-                } else {
-                    falsePositives.incrementCount(predicted, 1);
-                    falseNegatives.incrementCount(actual, 1);
-
-                    // first determine intervals for adding true negatives
-                    int lesserIndex, greaterIndex;
-                    if (actual < predicted) {
-                        lesserIndex = actual;
-                        greaterIndex = predicted;
-                    } else {
-                        lesserIndex = predicted;
-                        greaterIndex = actual;
-                    }
-
-                    // now loop through intervals
-                    for (int col = 0; col < lesserIndex; col++) {
-                        trueNegatives.incrementCount(col, 1); // all cols prior
-                    }
-                    for (int col = lesserIndex + 1; col < greaterIndex; col++) {
-                        trueNegatives.incrementCount(col, 1); // all cols after
-                    }
-                    for (int col = greaterIndex + 1; col < nCols; col++) {
-                        trueNegatives.incrementCount(col, 1); // all cols after
+            long[] actualCounts = new long[nCols];
+            long[] predictedCounts = new long[nCols];
+            for (int actual = 0; actual < nCols; actual++) {
+                for (int predicted = 0; predicted < nCols; predicted++) {
+                    long c = counts[actual * nCols + predicted];
+                    if (c > 0) {
+                        confusion().add(actual, predicted, (int) c);
+                        actualCounts[actual] += c;
+                        predictedCounts[predicted] += c;
                     }
                 }
             }
+
+            // For each class: a true positive if actual == predicted == class, a false positive/negative if only
+            // the predicted/actual class is that class, and a true negative if neither is
+            for (int c = 0; c < nCols; c++) {
+                long tp = counts[c * nCols + c];
+                long fp = predictedCounts[c] - tp;
+                long fn = actualCounts[c] - tp;
+                long tn = nExamples - tp - fp - fn;
+                if (tp > 0)
+                    truePositives.incrementCount(c, tp);
+                if (fp > 0)
+                    falsePositives.incrementCount(c, fp);
+                if (fn > 0)
+                    falseNegatives.incrementCount(c, fn);
+                if (tn > 0)
+                    trueNegatives.incrementCount(c, tn);
+            }
         }
 
         if (nCols > 1 && topN > 1) {
-            //Calculate top N accuracy
-            //TODO: this could be more efficient
-            INDArray realOutcomeIndex = Nd4j.argMax(realOutcomes, 1);
-            int nExamples = realOutcomeIndex.length();
+            //Calculate top N accuracy, on a copy of the predictions in a primitive array
+            int[] realOutcomeIndex = toIntArray(Nd4j.argMax(realOutcomes, 1));
+            int nExamples = realOutcomeIndex.length;
+            double[] probs = guesses.dup('c').data().asDouble();
             for (int i = 0; i < nExamples; i++) {
-                int labelIdx = (int) realOutcomeIndex.getDouble(i);
-                double prob = guesses.getDouble(i, labelIdx);
-                INDArray row = guesses.getRow(i);
-                int countGreaterThan = (int) Nd4j.getExecutioner()
-                                .exec(new MatchCondition(row, Conditions.greaterThan(prob)), Integer.MAX_VALUE)
-                                .getDouble(0);
+                int rowOffset = i * nCols;
+                double prob = probs[rowOffset + realOutcomeIndex[i]];
+                int countGreaterThan = 0;
+                for (int j = 0; j < nCols; j++) {
+                    if (probs[rowOffset + j] > prob) {
+                        countGreaterThan++;
+                    }
+                }
                 if (countGreaterThan < topN) {
                     //For example, for top 3 accuracy: can have at most 2 other probabilities larger
                     topNCorrectCount++;
@@ -452,6 +447,11 @@ public class Evaluation extends BaseEvaluation<Evaluation> {
         }
     }
 
+    private static int[] toIntArray(INDArray indices) {
+        //Copy to get an array that exactly covers its buffer, whatever the original offset/stride
+        return indices.dup('c').data().asInt();
+    }
+
     /**
      * Evaluate a single prediction (one prediction at a time)
      *
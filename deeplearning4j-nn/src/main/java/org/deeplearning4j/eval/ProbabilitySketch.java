@@ -0,0 +1,162 @@
+package org.deeplearning4j.eval;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A fixed-memory, mergeable sketch of the distribution of a set of probabilities (values in the range 0 to 1), used
+ * by {@link ROC} in sketch mode.<br>
+ * Values are stored as counts in logarithmically sized bins, based on the distance of the value from the nearest of
+ * 0.0 or 1.0. Thus the resolution is highest at the extremes (where binned ROC is least accurate), and any value is
+ * known to within a relative error (of its distance from 0.0 or 1.0) of {@code relativeAccuracy}. Values closer than
+ * {@link #MIN_DISTANCE} to 0.0 or 1.0 are stored in a single bin at each end.<br>
+ * Merging two sketches is exact (bin counts are simply added), hence the result does not depend on the order in which
+ * partial results are merged, as in distributed evaluation.
+ */
+@EqualsAndHashCode(exclude = {"gamma", "logGamma", "binsPerSide"})
+public class ProbabilitySketch implements Serializable {
+    public static final double MIN_DISTANCE = 1e-9;
+
+    @Getter
+    private double relativeAccuracy;
+    @Getter
+    private long totalCount;
+    private long[] counts;
+
+    private transient double gamma;
+    private transient double logGamma;
+    private transient int binsPerSide;
+
+    private ProbabilitySketch() {
+        //No arg constructor for JSON
+    }
+
+    /**
+     * @param relativeAccuracy Relative accuracy, in the range (0, 1). For example, 0.01 for 1% relative accuracy
+     */
+    public ProbabilitySketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0.0 && relativeAccuracy < 1.0)) {
+            throw new IllegalArgumentException("Relative accuracy must be in the range (0, 1): got " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        init();
+        this.counts = new long[numBins()];
+    }
+
+    private void init() {
+        if (binsPerSide > 0) {
+            return;
+        }
+        gamma = (1.0 + relativeAccuracy) / (1.0 - relativeAccuracy);
+        logGamma = Math.log(gamma);
+        binsPerSide = (int) Math.ceil(Math.log(0.5 / MIN_DISTANCE) / logGamma);
+    }
+
+    /**
+     * @return Total number of bins. Bins are ordered by (increasing) probability
+     */
+    public int numBins() {
+        init();
+        return 2 * binsPerSide + 2;
+    }
+
+    /**
+     * Add a single value to the sketch
+     *
+     * @param value Probability. Values outside of the range 0 to 1 are clipped to this range
+     */
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Add a value to the sketch, multiple times
+     *
+     * @param value Probability. Values outside of the range 0 to 1 are clipped to this range
+     * @param count Number of times to add the value
+     */
+    public void add(double value, long count) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Cannot add NaN value to sketch");
+        }
+        counts[binIndex(value)] += count;
+        totalCount += count;
+    }
+
+    /**
+     * @param bin Index of the bin
+     * @return Number of values in the bin
+     */
+    public long getCount(int bin) {
+        return counts[bin];
+    }
+
+    /**
+     * Get the bin index for the specified value. Bin b contains the values in the range
+     * [{@link #binLowerBound(int) binLowerBound(b)}, {@link #binLowerBound(int) binLowerBound(b+1)})
+     */
+    public int binIndex(double value) {
+        init();
+        boolean lowerHalf = value < 0.5;
+        double distance = (lowerHalf ? value : 1.0 - value);
+        int k;
+        if (distance < MIN_DISTANCE) {
+            k = 0;
+        } else {
+            k = 1 + (int) Math.floor(Math.log(distance / MIN_DISTANCE) / logGamma);
+            k = Math.min(k, binsPerSide);
+        }
+        int bin = (lowerHalf ? k : 2 * binsPerSide + 1 - k);
+
+        //Upper half bins include their lower bound (1.0 - distance), and the log may be rounded either way: adjust,
+        // so that the bin is consistent with binLowerBound
+        int last = 2 * binsPerSide + 1;
+        while (bin < last && value >= binLowerBound(bin + 1)) {
+            bin++;
+        }
+        while (bin > 0 && value < binLowerBound(bin)) {
+            bin--;
+        }
+        return bin;
+    }
+
+    /**
+     * @param bin Index of the bin
+     * @return Smallest value that is stored in the bin
+     */
+    public double binLowerBound(int bin) {
+        init();
+        if (bin <= binsPerSide) {
+            return (bin == 0 ? 0.0 : MIN_DISTANCE * Math.pow(gamma, bin - 1));
+        }
+        int k = 2 * binsPerSide + 1 - bin;
+        return (k == binsPerSide ? 0.5 : 1.0 - MIN_DISTANCE * Math.pow(gamma, k));
+    }
+
+    /**
+     * Add the counts from the other sketch to this sketch
+     *
+     * @param other Sketch to merge into this one. Must have the same relative accuracy
+     */
+    public void merge(ProbabilitySketch other) {
+        if (relativeAccuracy != other.relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different relative accuracy: "
+                            + relativeAccuracy + " vs. " + other.relativeAccuracy);
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+    }
+
+    /**
+     * Remove all values from the sketch
+     */
+    public void reset() {
+        Arrays.fill(counts, 0L);
+        totalCount = 0;
+    }
+}
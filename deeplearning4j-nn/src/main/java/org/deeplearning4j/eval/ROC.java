@@ -5,16 +5,11 @@ import org.apache.commons.lang3.ArrayUtils;
 import org.deeplearning4j.eval.curves.PrecisionRecallCurve;
 import org.deeplearning4j.eval.curves.RocCurve;
 import org.deeplearning4j.eval.serde.ROCSerializer;
+import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
-import org.nd4j.linalg.api.ops.Op;
-import org.nd4j.linalg.api.ops.impl.transforms.arithmetic.MulOp;
-import org.nd4j.linalg.api.ops.impl.transforms.arithmetic.OldMulOp;
-import org.nd4j.linalg.api.ops.impl.transforms.comparison.CompareAndSet;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.indexing.INDArrayIndex;
 import org.nd4j.linalg.indexing.NDArrayIndex;
-import org.nd4j.linalg.indexing.conditions.Condition;
-import org.nd4j.linalg.indexing.conditions.Conditions;
 import org.nd4j.linalg.primitives.Pair;
 import org.nd4j.shade.jackson.annotation.JsonIgnoreProperties;
 import org.nd4j.shade.jackson.annotation.JsonTypeInfo;
@@ -30,9 +25,10 @@ import static org.nd4j.linalg.indexing.NDArrayIndex.interval;
 
 /**
  * ROC (Receiver Operating Characteristic) for binary classifiers.<br>
- * ROC has 2 modes of operation:
+ * ROC has 3 modes of operation:
  * (a) Thresholded (default, less memory)<br>
- * (b) Exact (use numSteps == 0. May not scale to very large datasets)
+ * (b) Exact (use numSteps == 0. May not scale to very large datasets)<br>
+ * (c) Sketch (use {@link #ROC(double)}. Fixed memory, with data-dependent thresholds)
  *
  * <p>
  * Thresholded Is an approximate method, that (for large datasets) may use significantly less memory than exact..
@@ -43,6 +39,12 @@ import static org.nd4j.linalg.indexing.NDArrayIndex.interval;
  * Note that in some cases (very skewed probability predictions, for example) the threshold approach can be inaccurate,
  * often underestimating the true area.
  * <p>
+ * Sketch mode stores the predicted probabilities of the positive and negative examples in two
+ * {@link ProbabilitySketch} instances: fixed-size histograms with logarithmically sized bins, which have the highest
+ * resolution close to 0.0 and 1.0. The ROC and precision-recall curves have a point at the lower bound of each
+ * non-empty bin. Examples in the same bin are treated as ties, hence the AUC error is bounded by
+ * {@link #calculateAUCErrorBound()}. Like thresholded mode, sketch mode supports merging, for distributed evaluation.
+ * <p>
  * The data is assumed to be binary classification - nColumns == 1 (single binary output variable) or nColumns == 2
  * (probability distribution over 2 classes, with column 1 being values for 'positive' examples)
  *
@@ -74,6 +76,10 @@ public class ROC extends BaseEvaluation<ROC> {
     private boolean rocRemoveRedundantPts;
     private int exactAllocBlockSize;
 
+    private double sketchRelativeAccuracy;
+    private ProbabilitySketch positiveSketch;
+    private ProbabilitySketch negativeSketch;
+
     public ROC() {
         //Default to exact
         this(0);
@@ -122,6 +128,39 @@ public class ROC extends BaseEvaluation<ROC> {
         this.exactAllocBlockSize = exactAllocBlockSize;
     }
 
+    /**
+     * Create a ROC instance in sketch mode: the probabilities are stored in fixed-size sketches (see
+     * {@link ProbabilitySketch}), rather than being stored in full (exact mode) or binned at fixed thresholds
+     * (thresholded mode). Suitable for very large numbers of examples.
+     *
+     * @param sketchRelativeAccuracy Relative accuracy of the sketch, in the range (0, 1). For example, 0.001. Smaller
+     *                               values give more accurate results, but use more memory
+     */
+    public ROC(double sketchRelativeAccuracy) {
+        this(sketchRelativeAccuracy, true);
+    }
+
+    /**
+     * @param sketchRelativeAccuracy Relative accuracy of the sketch, in the range (0, 1). See {@link #ROC(double)}
+     * @param rocRemoveRedundantPts  Usually set to true. If true,  remove any redundant points from ROC and P-R curves
+     */
+    public ROC(double sketchRelativeAccuracy, boolean rocRemoveRedundantPts) {
+        this.thresholdSteps = 0;
+        this.isExact = false;
+        this.sketchRelativeAccuracy = sketchRelativeAccuracy;
+        this.positiveSketch = new ProbabilitySketch(sketchRelativeAccuracy);
+        this.negativeSketch = new ProbabilitySketch(sketchRelativeAccuracy);
+        this.rocRemoveRedundantPts = rocRemoveRedundantPts;
+        this.exactAllocBlockSize = DEFAULT_EXACT_ALLOC_BLOCK_SIZE;
+    }
+
+    /**
+     * @return True if this ROC instance is using sketch mode
+     */
+    public boolean isSketch() {
+        return positiveSketch != null;
+    }
+
     protected INDArray getProbAndLabelUsed() {
         if (probAndLabel == null || exampleCount == 0) {
             return null;
@@ -153,6 +192,9 @@ public class ROC extends BaseEvaluation<ROC> {
 
         if (isExact) {
             probAndLabel = null;
+        } else if (isSketch()) {
+            positiveSketch.reset();
+            negativeSketch.reset();
         } else {
             double step = 1.0 / thresholdSteps;
             for (int i = 0; i <= thresholdSteps; i++) {
@@ -164,6 +206,8 @@ public class ROC extends BaseEvaluation<ROC> {
         exampleCount = 0;
         auc = null;
         auprc = null;
+        rocCurve = null;
+        prCurve = null;
     }
 
     @Override
@@ -234,6 +278,28 @@ public class ROC extends BaseEvaluation<ROC> {
             int countClass1CurrMinibatch = labelClass1.sumNumber().intValue();
             countActualPositive += countClass1CurrMinibatch;
             countActualNegative += labels.size(0) - countClass1CurrMinibatch;
+        } else if (isSketch()) {
+            //Sketch approach: add each probability to the sketch for its actual class
+            INDArray probClass1;
+            INDArray labelClass1;
+            if (singleOutput) {
+                probClass1 = predictions;
+                labelClass1 = labels;
+            } else {
+                probClass1 = predictions.getColumn(1);
+                labelClass1 = labels.getColumn(1);
+            }
+            double[] prob = probClass1.dup('c').data().asDouble();
+            double[] isPositive = labelClass1.dup('c').data().asDouble();
+            for (int i = 0; i < prob.length; i++) {
+                if (isPositive[i] > 0.5) {
+                    positiveSketch.add(prob[i]);
+                } else {
+                    negativeSketch.add(prob[i]);
+                }
+            }
+            countActualPositive = positiveSketch.getTotalCount();
+            countActualNegative = negativeSketch.getTotalCount();
         } else {
             //Thresholded approach
             INDArray positivePredictedClassColumn;
@@ -256,53 +322,36 @@ public class ROC extends BaseEvaluation<ROC> {
             countActualPositive += positiveActualClassColumn.sumNumber().intValue();
             countActualNegative += negativeActualClassColumn.sumNumber().intValue();
 
-            //Here: calculate true positive rate (TPR) vs. false positive rate (FPR) at different threshold
-
-            INDArray ppc = null;
-            INDArray itp = null;
-            INDArray ifp = null;
-            for (int i = 0; i <= thresholdSteps; i++) {
-                double currThreshold = i * step;
-
-                //Work out true/false positives - do this by replacing probabilities (predictions) with 1 or 0 based on threshold
-                Condition condGeq = Conditions.greaterThanOrEqual(currThreshold);
-                Condition condLeq = Conditions.lessThanOrEqual(currThreshold);
-
-                if (ppc == null) {
-                    ppc = positivePredictedClassColumn.dup(positiveActualClassColumn.ordering());
-                } else {
-                    ppc.assign(positivePredictedClassColumn);
-                }
-                Op op = new CompareAndSet(ppc, 1.0, condGeq);
-                INDArray predictedClass1 = Nd4j.getExecutioner().execAndReturn(op);
-                op = new CompareAndSet(predictedClass1, 0.0, condLeq);
-                predictedClass1 = Nd4j.getExecutioner().execAndReturn(op);
-
-
-                //True positives: occur when positive predicted class and actual positive actual class...
-                //False positive occurs when positive predicted class, but negative actual class
-                INDArray isTruePositive; // = predictedClass1.mul(positiveActualClassColumn); //If predicted == 1 and actual == 1 at this threshold: 1x1 = 1. 0 otherwise
-                INDArray isFalsePositive; // = predictedClass1.mul(negativeActualClassColumn); //If predicted == 1 and actual == 0 at this threshold: 1x1 = 1. 0 otherwise
-                if (i == 0) {
-                    isTruePositive = predictedClass1.mul(positiveActualClassColumn);
-                    isFalsePositive = predictedClass1.mul(negativeActualClassColumn);
-                    itp = isTruePositive;
-                    ifp = isFalsePositive;
-                } else {
-                    isTruePositive = Nd4j.getExecutioner()
-                                    .execAndReturn(new OldMulOp(predictedClass1, positiveActualClassColumn, itp));
-                    isFalsePositive = Nd4j.getExecutioner()
-                                    .execAndReturn(new OldMulOp(predictedClass1, negativeActualClassColumn, ifp));
+            //Here: calculate true positive rate (TPR) vs. false positive rate (FPR) at different thresholds
+            //An example is predicted positive at all thresholds up to some maximum threshold index, hence we only need
+            // a histogram of (label-weighted) counts by maximum threshold index: the true/false positive counts at
+            // each threshold are then suffix sums of this histogram. This is O(nExamples + thresholdSteps), instead of
+            // O(thresholdSteps) array operations over the whole minibatch
+            double[] prob = positivePredictedClassColumn.dup('c').data().asDouble();
+            double[] isPositive = positiveActualClassColumn.dup('c').data().asDouble();
+            double[] isNegative = negativeActualClassColumn.dup('c').data().asDouble();
+            boolean floatCompare = positivePredictedClassColumn.data().dataType() != DataBuffer.Type.DOUBLE;
+
+            double[] tpHistogram = new double[thresholdSteps + 1];
+            double[] fpHistogram = new double[thresholdSteps + 1];
+            for (int i = 0; i < prob.length; i++) {
+                int maxIdx = maxPositiveThresholdIndex(prob[i], step, floatCompare);
+                if (maxIdx >= 0) {
+                    tpHistogram[maxIdx] += isPositive[i];
+                    fpHistogram[maxIdx] += isNegative[i];
                 }
+            }
 
-                //Counts for this batch:
-                int truePositiveCount = isTruePositive.sumNumber().intValue();
-                int falsePositiveCount = isFalsePositive.sumNumber().intValue();
+            double truePositiveCount = 0.0;
+            double falsePositiveCount = 0.0;
+            for (int i = thresholdSteps; i >= 0; i--) {
+                truePositiveCount += tpHistogram[i];
+                falsePositiveCount += fpHistogram[i];
 
                 //Increment counts for this thold
-                CountsForThreshold thresholdCounts = counts.get(currThreshold);
-                thresholdCounts.incrementTruePositive(truePositiveCount);
-                thresholdCounts.incrementFalsePositive(falsePositiveCount);
+                CountsForThreshold thresholdCounts = counts.get(i * step);
+                thresholdCounts.incrementTruePositive((long) truePositiveCount);
+                thresholdCounts.incrementFalsePositive((long) falsePositiveCount);
             }
         }
 
@@ -313,6 +362,30 @@ public class ROC extends BaseEvaluation<ROC> {
         prCurve = null;
     }
 
+    /**
+     * Get the index of the highest threshold at which the given probability is predicted as positive: that is,
+     * probability >= threshold, except that no examples are predicted positive at a threshold of 1.0. Comparisons are
+     * done at the precision of the predictions array. Returns -1 if the probability is not positive at any threshold.
+     */
+    private int maxPositiveThresholdIndex(double prob, double step, boolean floatCompare) {
+        int idx = (int) Math.floor(prob / step);
+        idx = Math.max(-1, Math.min(thresholdSteps, idx));
+        while (idx < thresholdSteps && isPositiveAtThreshold(prob, (idx + 1) * step, floatCompare)) {
+            idx++;
+        }
+        while (idx >= 0 && !isPositiveAtThreshold(prob, idx * step, floatCompare)) {
+            idx--;
+        }
+        return idx;
+    }
+
+    private static boolean isPositiveAtThreshold(double prob, double threshold, boolean floatCompare) {
+        if (floatCompare) {
+            return (float) prob >= (float) threshold && 1.0f > (float) threshold;
+        }
+        return prob >= threshold && 1.0 > threshold;
+    }
+
     /**
      * Get the precision recall curve as array.
      * return[0] = threshold array<br>
@@ -330,9 +403,9 @@ public class ROC extends BaseEvaluation<ROC> {
         double[] thresholdOut;
         double[] precisionOut;
         double[] recallOut;
-        int[] tpCountOut;
-        int[] fpCountOut;
-        int[] fnCountOut;
+        long[] tpCountOut;
+        long[] fpCountOut;
+        long[] fnCountOut;
 
         if (isExact) {
             INDArray pl = getProbAndLabelUsed();
@@ -377,24 +450,24 @@ public class ROC extends BaseEvaluation<ROC> {
             recallOut = rec.data().asDouble();
 
             //Counts. Note the edge cases
-            tpCountOut = new int[thresholdOut.length];
-            fpCountOut = new int[thresholdOut.length];
-            fnCountOut = new int[thresholdOut.length];
+            tpCountOut = new long[thresholdOut.length];
+            fpCountOut = new long[thresholdOut.length];
+            fnCountOut = new long[thresholdOut.length];
 
             for (int i = 1; i < tpCountOut.length - 1; i++) {
                 tpCountOut[i] = cumSumPos.getInt(i - 1);
                 fpCountOut[i] = i - tpCountOut[i]; //predicted positive - true positive
-                fnCountOut[i] = (int) countActualPositive - tpCountOut[i];
+                fnCountOut[i] = countActualPositive - tpCountOut[i];
             }
 
             //Edge cases: last idx -> threshold of 0.0, all predicted positive
-            tpCountOut[tpCountOut.length - 1] = (int) countActualPositive;
-            fpCountOut[tpCountOut.length - 1] = (int) (exampleCount - countActualPositive);
+            tpCountOut[tpCountOut.length - 1] = countActualPositive;
+            fpCountOut[tpCountOut.length - 1] = exampleCount - countActualPositive;
             fnCountOut[tpCountOut.length - 1] = 0;
             //Edge case: first idx -> threshold of 1.0, all predictions negative
             tpCountOut[0] = 0;
             fpCountOut[0] = 0; //(int)(exampleCount - countActualPositive);  //All negatives are predicted positive
-            fnCountOut[0] = (int) countActualPositive;
+            fnCountOut[0] = countActualPositive;
 
             //Finally: 2 things to do
             //(a) Reverse order: lowest to highest threshold
@@ -408,10 +481,42 @@ public class ROC extends BaseEvaluation<ROC> {
             ArrayUtils.reverse(fnCountOut);
 
             if (rocRemoveRedundantPts) {
-                Pair<double[][], int[][]> pair = removeRedundant(thresholdOut, precisionOut, recallOut, tpCountOut,
+                Pair<double[][], long[][]> pair = removeRedundant(thresholdOut, precisionOut, recallOut, tpCountOut,
                                 fpCountOut, fnCountOut);
                 double[][] temp = pair.getFirst();
-                int[][] temp2 = pair.getSecond();
+                long[][] temp2 = pair.getSecond();
+                thresholdOut = temp[0];
+                precisionOut = temp[1];
+                recallOut = temp[2];
+                tpCountOut = temp2[0];
+                fpCountOut = temp2[1];
+                fnCountOut = temp2[2];
+            }
+        } else if (isSketch()) {
+            long[][] sketchCounts = getSketchCounts();
+            int n = sketchCounts[0].length;
+            thresholdOut = getSketchThresholds();
+            precisionOut = new double[n];
+            recallOut = new double[n];
+            tpCountOut = new long[n];
+            fpCountOut = new long[n];
+            fnCountOut = new long[n];
+            for (int i = 0; i < n; i++) {
+                long tpCount = sketchCounts[0][i];
+                long fpCount = sketchCounts[1][i];
+                //Same edge cases as thresholded mode
+                precisionOut[i] = (tpCount == 0 && fpCount == 0 ? 1.0 : tpCount / (double) (tpCount + fpCount));
+                recallOut[i] = (countActualPositive == 0 ? 1.0 : tpCount / (double) countActualPositive);
+                tpCountOut[i] = tpCount;
+                fpCountOut[i] = fpCount;
+                fnCountOut[i] = countActualPositive - tpCount;
+            }
+
+            if (rocRemoveRedundantPts) {
+                Pair<double[][], long[][]> pair = removeRedundant(thresholdOut, precisionOut, recallOut, tpCountOut,
+                                fpCountOut, fnCountOut);
+                double[][] temp = pair.getFirst();
+                long[][] temp2 = pair.getSecond();
                 thresholdOut = temp[0];
                 precisionOut = temp[1];
                 recallOut = temp[2];
@@ -423,9 +528,9 @@ public class ROC extends BaseEvaluation<ROC> {
             thresholdOut = new double[counts.size()];
             precisionOut = new double[counts.size()];
             recallOut = new double[counts.size()];
-            tpCountOut = new int[counts.size()];
-            fpCountOut = new int[counts.size()];
-            fnCountOut = new int[counts.size()];
+            tpCountOut = new long[counts.size()];
+            fpCountOut = new long[counts.size()];
+            fnCountOut = new long[counts.size()];
 
             int i = 0;
             for (Map.Entry<Double, CountsForThreshold> entry : counts.entrySet()) {
@@ -455,15 +560,17 @@ public class ROC extends BaseEvaluation<ROC> {
                 precisionOut[i] = precision;
                 recallOut[i] = recall;
 
-                tpCountOut[i] = (int) tpCount;
-                fpCountOut[i] = (int) fpCount;
-                fnCountOut[i] = (int) (countActualPositive - tpCount);
+                tpCountOut[i] = tpCount;
+                fpCountOut[i] = fpCount;
+                fnCountOut[i] = countActualPositive - tpCount;
                 i++;
             }
         }
 
+        //Sketch mode counts examples in the (long) sketch totals, which don't overflow for large streams
+        long totalCount = isSketch() ? countActualPositive + countActualNegative : exampleCount;
         prCurve = new PrecisionRecallCurve(thresholdOut, precisionOut, recallOut, tpCountOut, fpCountOut, fnCountOut,
-                        exampleCount);
+                        totalCount);
         return prCurve;
     }
 
@@ -516,7 +623,7 @@ public class ROC extends BaseEvaluation<ROC> {
             //Note: we can have multiple FPR for a given TPR, and multiple TPR for a given FPR
             //These can be omitted, without changing the area (as long as we keep the edge points)
             if (rocRemoveRedundantPts) {
-                Pair<double[][], int[][]> p = removeRedundant(tOut, x_fpr_out, y_tpr_out, null, null, null);
+                Pair<double[][], long[][]> p = removeRedundant(tOut, x_fpr_out, y_tpr_out, null, null, null);
                 double[][] temp = p.getFirst();
                 tOut = temp[0];
                 x_fpr_out = temp[1];
@@ -525,6 +632,27 @@ public class ROC extends BaseEvaluation<ROC> {
 
             this.rocCurve = new RocCurve(tOut, x_fpr_out, y_tpr_out);
 
+            return rocCurve;
+        } else if (isSketch()) {
+            long[][] sketchCounts = getSketchCounts();
+            int n = sketchCounts[0].length;
+            double[] tOut = getSketchThresholds();
+            double[] x_fpr_out = new double[n];
+            double[] y_tpr_out = new double[n];
+            for (int i = 0; i < n; i++) {
+                y_tpr_out[i] = sketchCounts[0][i] / ((double) countActualPositive);
+                x_fpr_out[i] = sketchCounts[1][i] / ((double) countActualNegative);
+            }
+
+            if (rocRemoveRedundantPts) {
+                Pair<double[][], long[][]> p = removeRedundant(tOut, x_fpr_out, y_tpr_out, null, null, null);
+                double[][] temp = p.getFirst();
+                tOut = temp[0];
+                x_fpr_out = temp[1];
+                y_tpr_out = temp[2];
+            }
+
+            this.rocCurve = new RocCurve(tOut, x_fpr_out, y_tpr_out);
             return rocCurve;
         } else {
 
@@ -544,19 +672,67 @@ public class ROC extends BaseEvaluation<ROC> {
         }
     }
 
-    private static Pair<double[][], int[][]> removeRedundant(double[] threshold, double[] x, double[] y, int[] tpCount,
-                    int[] fpCount, int[] fnCount) {
+    /**
+     * Thresholds for the sketch mode curves, in ascending order: 0.0, then the upper bound of each non-empty bin
+     * (other than the last bin), then 1.0
+     */
+    private double[] getSketchThresholds() {
+        int numBins = positiveSketch.numBins();
+        double[] out = new double[numBins + 1];
+        int n = 0;
+        out[n++] = 0.0;
+        for (int b = 0; b < numBins - 1; b++) {
+            if (positiveSketch.getCount(b) > 0 || negativeSketch.getCount(b) > 0) {
+                out[n++] = positiveSketch.binLowerBound(b + 1);
+            }
+        }
+        out[n++] = 1.0;
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * True positive (return[0]) and false positive (return[1]) counts for each of the thresholds returned by
+     * {@link #getSketchThresholds()}. At each threshold, all examples in bins above the threshold are predicted
+     * positive
+     */
+    private long[][] getSketchCounts() {
+        int numBins = positiveSketch.numBins();
+        long[] tp = new long[numBins + 1];
+        long[] fp = new long[numBins + 1];
+        int n = 0;
+        long remainingPos = countActualPositive;
+        long remainingNeg = countActualNegative;
+        tp[n] = remainingPos;
+        fp[n++] = remainingNeg;
+        for (int b = 0; b < numBins - 1; b++) {
+            long pos = positiveSketch.getCount(b);
+            long neg = negativeSketch.getCount(b);
+            if (pos > 0 || neg > 0) {
+                remainingPos -= pos;
+                remainingNeg -= neg;
+                tp[n] = remainingPos;
+                fp[n++] = remainingNeg;
+            }
+        }
+        //Threshold of 1.0: no examples are predicted positive
+        tp[n] = 0;
+        fp[n++] = 0;
+        return new long[][] {Arrays.copyOf(tp, n), Arrays.copyOf(fp, n)};
+    }
+
+    private static Pair<double[][], long[][]> removeRedundant(double[] threshold, double[] x, double[] y,
+                    long[] tpCount, long[] fpCount, long[] fnCount) {
         double[] t_compacted = new double[threshold.length];
         double[] x_compacted = new double[x.length];
         double[] y_compacted = new double[y.length];
-        int[] tp_compacted = null;
-        int[] fp_compacted = null;
-        int[] fn_compacted = null;
+        long[] tp_compacted = null;
+        long[] fp_compacted = null;
+        long[] fn_compacted = null;
         boolean hasInts = false;
         if (tpCount != null) {
-            tp_compacted = new int[tpCount.length];
-            fp_compacted = new int[fpCount.length];
-            fn_compacted = new int[fnCount.length];
+            tp_compacted = new long[tpCount.length];
+            fp_compacted = new long[fpCount.length];
+            fn_compacted = new long[fnCount.length];
             hasInts = true;
         }
         int lastOutPos = -1;
@@ -596,7 +772,7 @@ public class ROC extends BaseEvaluation<ROC> {
         }
 
         return new Pair<>(new double[][] {t_compacted, x_compacted, y_compacted},
-                        hasInts ? new int[][] {tp_compacted, fp_compacted, fn_compacted} : null);
+                        hasInts ? new long[][] {tp_compacted, fp_compacted, fn_compacted} : null);
     }
 
     /**
@@ -618,6 +794,28 @@ public class ROC extends BaseEvaluation<ROC> {
         return auc;
     }
 
+    /**
+     * Calculate an upper bound on the absolute error of {@link #calculateAUC()}, due to examples that cannot be
+     * distinguished: that is, pairs of positive and negative examples between the same 2 adjacent points of the ROC
+     * curve (the same threshold bin, or the same sketch bin), which are counted as ties. For exact mode without tied
+     * probabilities, this is 0.0.
+     *
+     * @return Upper bound on the AUC error
+     */
+    public double calculateAUCErrorBound() {
+        if (exampleCount == 0) {
+            return Double.NaN;
+        }
+        RocCurve curve = getRocCurve();
+        double[] x = curve.getX();
+        double[] y = curve.getY();
+        double bound = 0.0;
+        for (int i = 1; i < x.length; i++) {
+            bound += 0.5 * Math.abs(x[i] - x[i - 1]) * Math.abs(y[i] - y[i - 1]);
+        }
+        return bound;
+    }
+
     /**
      * Calculate the area under the precision/recall curve - aka AUCPR
      *
@@ -649,6 +847,11 @@ public class ROC extends BaseEvaluation<ROC> {
                             "Cannot merge ROC instances with different numbers of threshold steps ("
                                             + this.thresholdSteps + " vs. " + other.thresholdSteps + ")");
         }
+        if (this.isSketch() != other.isSketch() || this.sketchRelativeAccuracy != other.sketchRelativeAccuracy) {
+            throw new UnsupportedOperationException("Cannot merge ROC instances with different modes or sketch "
+                            + "relative accuracy (" + this.sketchRelativeAccuracy + " vs. "
+                            + other.sketchRelativeAccuracy + ")");
+        }
         this.countActualPositive += other.countActualPositive;
         this.countActualNegative += other.countActualNegative;
         this.auc = null;
@@ -680,6 +883,9 @@ public class ROC extends BaseEvaluation<ROC> {
             probAndLabel.put(new INDArrayIndex[] {
                             interval(exampleCount, exampleCount + other.exampleCount), all()},
                             toPut);
+        } else if (isSketch()) {
+            positiveSketch.merge(other.positiveSketch);
+            negativeSketch.merge(other.negativeSketch);
         } else {
             for (Double d : this.counts.keySet()) {
                 CountsForThreshold cft = this.counts.get(d);
@@ -0,0 +1,223 @@
+package org.deeplearning4j.eval;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.SerializationUtils;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Performs evaluation on background threads, so that network output (on the calling thread) and metric accumulation
+ * overlap.<br>
+ * Each evaluation thread accumulates into its own (empty) copies of the provided {@link IEvaluation} instances. When
+ * {@link #finish()} is called, the copies are combined into the original instances using
+ * {@link IEvaluation#merge(IEvaluation)}. Consequently, the results are the same as for single-threaded evaluation,
+ * other than the order of any per-example metadata.<br>
+ * Usage:
+ * <pre>
+ * {@code
+ * ShardedEvaluator<Evaluation> evaluator = new ShardedEvaluator<>(new Evaluation[]{evaluation}, 2);
+ * while(iter.hasNext()){
+ *     DataSet ds = iter.next();
+ *     evaluator.eval(ds.getLabels(), net.output(ds.getFeatures()), null);
+ * }
+ * evaluator.finish();     //Blocks until evaluation is complete; results are in 'evaluation'
+ * }
+ * </pre>
+ * If evaluation may be aborted by an exception, {@link #shutdown()} should be called in a finally block, so the
+ * evaluation threads are stopped:
+ * <pre>
+ * {@code
+ * try {
+ *     ...
+ *     evaluator.finish();
+ * } finally {
+ *     evaluator.shutdown();
+ * }
+ * }
+ * </pre>
+ *
+ * @param <T> Type of evaluation
+ */
+@Slf4j
+public class ShardedEvaluator<T extends IEvaluation> {
+
+    private final T[] evaluations;
+    private final BlockingQueue<Item> queue;
+    private final List<EvalThread> threads = new ArrayList<>();
+    private volatile Throwable error;
+    private boolean finished;
+
+    /**
+     * @param evaluations Evaluation instances. Results are merged into these when {@link #finish()} is called
+     * @param numThreads  Number of evaluation threads
+     */
+    public ShardedEvaluator(@NonNull T[] evaluations, int numThreads) {
+        this(evaluations, numThreads, 2 * numThreads);
+    }
+
+    /**
+     * @param evaluations Evaluation instances. Results are merged into these when {@link #finish()} is called
+     * @param numThreads  Number of evaluation threads
+     * @param queueSize   Maximum number of minibatches waiting to be evaluated. {@link #eval(INDArray, INDArray, INDArray)}
+     *                    blocks when the queue is full
+     */
+    public ShardedEvaluator(@NonNull T[] evaluations, int numThreads, int queueSize) {
+        if (numThreads <= 0 || queueSize <= 0) {
+            throw new IllegalArgumentException("Number of threads and queue size must be positive: got " + numThreads
+                            + ", " + queueSize);
+        }
+        this.evaluations = evaluations;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+
+        Integer deviceId = Nd4j.getAffinityManager().getDeviceForCurrentThread();
+        for (int i = 0; i < numThreads; i++) {
+            IEvaluation[] copies = new IEvaluation[evaluations.length];
+            for (int j = 0; j < evaluations.length; j++) {
+                copies[j] = SerializationUtils.clone(evaluations[j]);
+                copies[j].reset();
+            }
+            EvalThread t = new EvalThread(i, copies);
+            Nd4j.getAffinityManager().attachThreadToDevice(t, deviceId);
+            threads.add(t);
+            t.start();
+        }
+    }
+
+    /**
+     * Queue a minibatch for evaluation. The arrays are copied (outside of any workspace), hence may be modified or
+     * invalidated after this method returns.
+     *
+     * @param labels      Labels
+     * @param predictions Network predictions
+     * @param labelsMask  Labels mask array. May be null
+     */
+    public void eval(@NonNull INDArray labels, @NonNull INDArray predictions, INDArray labelsMask) {
+        if (finished) {
+            throw new IllegalStateException("Cannot evaluate: finish() has already been called");
+        }
+        checkError();
+        Item item;
+        try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+            item = new Item(labels.dup(), predictions.dup(), labelsMask == null ? null : labelsMask.dup());
+        }
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while queueing minibatch for evaluation", e);
+        }
+    }
+
+    /**
+     * Wait for all queued minibatches to be evaluated, and merge the results into the original evaluation instances
+     *
+     * @return The original evaluation instances
+     */
+    public T[] finish() {
+        if (finished) {
+            return evaluations;
+        }
+        finished = true;
+        try {
+            for (int i = 0; i < threads.size(); i++) {
+                queue.put(Item.END);
+            }
+            for (EvalThread t : threads) {
+                t.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for evaluation threads", e);
+        }
+        checkError();
+
+        for (EvalThread t : threads) {
+            for (int j = 0; j < evaluations.length; j++) {
+                evaluations[j].merge(t.evaluations[j]);
+            }
+        }
+        return evaluations;
+    }
+
+    /**
+     * Stop the evaluation threads, discarding any queued minibatches. No op if the threads have already finished.
+     * Call this (for example, in a finally block) if {@link #finish()} may not be reached - i.e., when an exception
+     * is thrown during evaluation
+     */
+    public void shutdown() {
+        finished = true;
+        queue.clear();
+        for (EvalThread t : threads) {
+            t.interrupt();
+        }
+    }
+
+    private void checkError() {
+        if (error != null) {
+            throw new RuntimeException("Error during evaluation", error);
+        }
+    }
+
+    private static class Item {
+        private static final Item END = new Item(null, null, null);
+
+        private final INDArray labels;
+        private final INDArray predictions;
+        private final INDArray mask;
+
+        private Item(INDArray labels, INDArray predictions, INDArray mask) {
+            this.labels = labels;
+            this.predictions = predictions;
+            this.mask = mask;
+        }
+    }
+
+    private class EvalThread extends Thread {
+        private final IEvaluation[] evaluations;
+
+        private EvalThread(int index, IEvaluation[] evaluations) {
+            this.evaluations = evaluations;
+            setName("ShardedEvaluator-" + index);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Item item = queue.take();
+                    if (item == Item.END) {
+                        return;
+                    }
+                    if (error != null) {
+                        //Keep draining the queue so the producer does not block
+                        continue;
+                    }
+                    for (IEvaluation e : evaluations) {
+                        e.eval(item.labels, item.predictions, item.mask);
+                    }
+                }
+            } catch (InterruptedException e) {
+                //Shut down: no op
+            } catch (Throwable t) {
+                log.error("Error in evaluation thread", t);
+                error = t;
+                //Keep draining until END, so that eval() and finish() do not block
+                try {
+                    while (queue.take() != Item.END) {
+                        //Discard
+                    }
+                } catch (InterruptedException e) {
+                    //Shut down: no op
+                }
+            }
+        }
+    }
+}
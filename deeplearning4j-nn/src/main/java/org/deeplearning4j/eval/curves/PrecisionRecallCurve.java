@@ -20,17 +20,17 @@ public class PrecisionRecallCurve extends BaseCurve {
     private double[] threshold;
     private double[] precision;
     private double[] recall;
-    private int[] tpCount;
-    private int[] fpCount;
-    private int[] fnCount;
-    private int totalCount;
+    private long[] tpCount;
+    private long[] fpCount;
+    private long[] fnCount;
+    private long totalCount;
 
     private Double area;
 
     public PrecisionRecallCurve(@JsonProperty("threshold") double[] threshold,
                     @JsonProperty("precision") double[] precision, @JsonProperty("recall") double[] recall,
-                    @JsonProperty("tpCount") int[] tpCount, @JsonProperty("fpCount") int[] fpCount,
-                    @JsonProperty("fnCount") int[] fnCount, @JsonProperty("totalCount") int totalCount) {
+                    @JsonProperty("tpCount") long[] tpCount, @JsonProperty("fpCount") long[] fpCount,
+                    @JsonProperty("fnCount") long[] fnCount, @JsonProperty("totalCount") long totalCount) {
         this.threshold = threshold;
         this.precision = precision;
         this.recall = recall;
@@ -193,7 +193,7 @@ public class PrecisionRecallCurve extends BaseCurve {
     public Confusion getConfusionMatrixAtThreshold(double threshold) {
         Point p = getPointAtThreshold(threshold);
         int idx = p.idx;
-        int tn = totalCount - (tpCount[idx] + fpCount[idx] + fnCount[idx]);
+        long tn = totalCount - (tpCount[idx] + fpCount[idx] + fnCount[idx]);
         return new Confusion(p, tpCount[idx], fpCount[idx], fnCount[idx], tn);
     }
 
@@ -228,9 +228,9 @@ public class PrecisionRecallCurve extends BaseCurve {
     @Data
     public static class Confusion {
         private final Point point;
-        private final int tpCount;
-        private final int fpCount;
-        private final int fnCount;
-        private final int tnCount;
+        private final long tpCount;
+        private final long fpCount;
+        private final long fnCount;
+        private final long tnCount;
     }
 }
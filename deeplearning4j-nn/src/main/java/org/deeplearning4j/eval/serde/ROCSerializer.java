@@ -41,6 +41,11 @@ public class ROCSerializer extends JsonSerializer<ROC> {
         jsonGenerator.writeBooleanField("isExact", roc.isExact());
         jsonGenerator.writeNumberField("exampleCount", roc.getExampleCount());
         jsonGenerator.writeBooleanField("rocRemoveRedundantPts", roc.isRocRemoveRedundantPts());
+        if (roc.isSketch()) {
+            jsonGenerator.writeNumberField("sketchRelativeAccuracy", roc.getSketchRelativeAccuracy());
+            jsonGenerator.writeObjectField("positiveSketch", roc.getPositiveSketch());
+            jsonGenerator.writeObjectField("negativeSketch", roc.getNegativeSketch());
+        }
     }
 
     @Override
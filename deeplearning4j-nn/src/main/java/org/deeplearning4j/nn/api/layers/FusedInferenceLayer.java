@@ -0,0 +1,29 @@
+package org.deeplearning4j.nn.api.layers;
+
+import org.deeplearning4j.nn.api.Layer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+/**
+ * A layer that supports a fused, inference-only forward pass: the matrix multiply, bias addition and activation
+ * function are all applied to a single (optionally caller-provided, reusable) output buffer, without allocating any
+ * intermediate arrays.
+ */
+public interface FusedInferenceLayer extends Layer {
+
+    /**
+     * @param input Input to the layer
+     * @return True if the fused inference path can be used for the given input with the current layer state
+     * (for example, no mask array set, a supported activation function and a 2d input of the correct size)
+     */
+    boolean canActivateFused(INDArray input);
+
+    /**
+     * Perform an inference (test time) forward pass, writing the activations to the specified output array.
+     *
+     * @param input  Input to the layer
+     * @param output Output buffer. May be null, or may be of the wrong shape; in this case a new array will be
+     *               allocated (in the current workspace, if any)
+     * @return The layer activations - this will be the output array, if it was not null and of the correct shape
+     */
+    INDArray activateFused(INDArray input, INDArray output);
+}
@@ -0,0 +1,37 @@
+package org.deeplearning4j.nn.api.layers;
+
+import org.deeplearning4j.nn.api.Layer;
+
+/**
+ * A layer with row-sparse gradients for one or more of its (2d) parameters: after backprop, only a subset of the
+ * rows of the gradient array are non-zero. For example, an embedding layer only has non-zero weight gradients for
+ * the rows that appear in the minibatch.<br>
+ * For these parameters, the updater applies lazy (sparse) updates: the updater (and its state), L1/L2 regularization
+ * and the division by minibatch size are applied to the non-zero rows only. Rows not present in the minibatch
+ * are not modified, and their gradient/update is guaranteed to be exactly zero.
+ */
+public interface SparseGradientLayer extends Layer {
+
+    /**
+     * @param paramName Name of the parameter
+     * @return True if the gradient for the specified parameter is row-sparse, and lazy updates should be applied
+     */
+    boolean isSparseGradient(String paramName);
+
+    /**
+     * Get the rows of the specified parameter that have a (potentially) non-zero gradient, as of the last backprop
+     * call. All other rows of the gradient are zero.
+     *
+     * @param paramName Name of the parameter
+     * @return Sorted, unique row indices - or null if not known (for example, before the first backprop call), in
+     * which case the gradient should be treated as dense
+     */
+    int[] getGradientRows(String paramName);
+
+    /**
+     * Notify the layer that its gradient view array may have been modified outside of backprop and the updater - for
+     * example, when the updates from all workers are decoded into it during gradient sharing. The next backprop call
+     * must then zero the entire gradient array, not only the rows from the previous minibatch
+     */
+    void invalidateGradientRows();
+}
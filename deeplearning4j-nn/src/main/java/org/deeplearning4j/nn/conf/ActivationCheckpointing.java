@@ -0,0 +1,172 @@
+package org.deeplearning4j.nn.conf;
+
+import lombok.Data;
+import lombok.NonNull;
+import org.deeplearning4j.nn.api.Layer;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Configuration for activation checkpointing (also known as gradient checkpointing, or activation recomputation).<br>
+ * The network is split into checkpoint segments. During the forward pass, only the activations at the segment
+ * boundaries are retained; the activations inside each segment are placed in a separate workspace that is released
+ * as soon as the segment has been computed. During backprop, the activations inside each segment are recomputed from
+ * the segment's input, just before the segment is backpropagated. This trades additional computation (approximately
+ * one extra forward pass) for a reduction in activation memory, allowing deeper networks or larger minibatches.<br>
+ * <br>
+ * For a MultiLayerNetwork, segments are specified as (inclusive) layer index ranges: for a segment [from, to], the
+ * input activations of layers from+1 to to are recomputed. The output layer is never part of a segment.<br>
+ * For a ComputationGraph, segments are specified as sets of vertex names. The output of a vertex in a segment is
+ * recomputed if all of the vertices it feeds into are in the same segment (and it isn't a network output). The
+ * vertices in each segment must be contiguous in the topological order of the graph, relative to the other
+ * segments - for example, the vertices of one residual block.<br>
+ * <br>
+ * Notes:<br>
+ * - Memory is only saved with {@link WorkspaceMode#SEPARATE} or {@link WorkspaceMode#NONE}: with
+ * {@link WorkspaceMode#SINGLE} all activations share one workspace, so checkpointing is disabled<br>
+ * - Dropout and DropConnect masks are reproduced during recomputation by reseeding a dedicated random number
+ * generator (owned by the network) before each layer with dropout or weight noise. The global RNG ({@code Nd4j.getRandom()}) is not reseeded<br>
+ * - The activations inside each segment are not retained, so {@code TrainingListener.onForwardPass} receives null
+ * for those activations during training<br>
+ * - Checkpointing is not used for truncated BPTT<br>
+ */
+@Data
+public class ActivationCheckpointing implements Serializable {
+
+    private final List<int[]> layerRanges;
+    private final List<Set<String>> vertexSets;
+
+    protected ActivationCheckpointing(List<int[]> layerRanges, List<Set<String>> vertexSets) {
+        this.layerRanges = layerRanges;
+        this.vertexSets = vertexSets;
+    }
+
+    /**
+     * Checkpoint segments for a MultiLayerNetwork, as inclusive layer index ranges
+     *
+     * @param ranges Layer ranges, each of the form {from, to} (inclusive). Ranges must not overlap
+     */
+    public static ActivationCheckpointing layerRanges(@NonNull int[]... ranges) {
+        List<int[]> list = new ArrayList<>();
+        for (int[] r : ranges) {
+            if (r == null || r.length != 2 || r[0] < 0 || r[1] < r[0]) {
+                throw new IllegalArgumentException("Invalid layer range: expected {from, to} with 0 <= from <= to, got "
+                                + Arrays.toString(r));
+            }
+            list.add(new int[] {r[0], r[1]});
+        }
+        Collections.sort(list, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] o1, int[] o2) {
+                return Integer.compare(o1[0], o2[0]);
+            }
+        });
+        for (int i = 1; i < list.size(); i++) {
+            if (list.get(i)[0] <= list.get(i - 1)[1]) {
+                throw new IllegalArgumentException("Layer ranges must not overlap: got "
+                                + Arrays.toString(list.get(i - 1)) + " and " + Arrays.toString(list.get(i)));
+            }
+        }
+        return new ActivationCheckpointing(list, null);
+    }
+
+    /**
+     * Checkpoint segments for a MultiLayerNetwork, of (up to) segmentSize layers each
+     *
+     * @param numLayers   Number of layers in the network
+     * @param segmentSize Number of layers per segment. Must be 2 or more
+     */
+    public static ActivationCheckpointing everyNLayers(int numLayers, int segmentSize) {
+        if (segmentSize < 2)
+            throw new IllegalArgumentException("Segment size must be 2 or more: got " + segmentSize);
+        List<int[]> ranges = new ArrayList<>();
+        for (int i = 0; i < numLayers; i += segmentSize) {
+            ranges.add(new int[] {i, Math.min(numLayers, i + segmentSize) - 1});
+        }
+        return layerRanges(ranges.toArray(new int[ranges.size()][0]));
+    }
+
+    /**
+     * Checkpoint segments for a ComputationGraph, as sets of vertex names
+     *
+     * @param segments Vertex names for each segment. A vertex may be in at most one segment
+     */
+    public static ActivationCheckpointing vertexSets(@NonNull List<? extends Collection<String>> segments) {
+        List<Set<String>> list = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Collection<String> c : segments) {
+            Set<String> s = new LinkedHashSet<>(c);
+            for (String name : s) {
+                if (!seen.add(name))
+                    throw new IllegalArgumentException("Vertex \"" + name + "\" is in more than one segment");
+            }
+            list.add(s);
+        }
+        return new ActivationCheckpointing(null, list);
+    }
+
+    /**
+     * Checkpoint segments for a ComputationGraph, as arrays of vertex names
+     *
+     * @param segments Vertex names for each segment. A vertex may be in at most one segment
+     */
+    public static ActivationCheckpointing vertexSets(@NonNull String[]... segments) {
+        List<List<String>> list = new ArrayList<>();
+        for (String[] s : segments) {
+            list.add(Arrays.asList(s));
+        }
+        return vertexSets(list);
+    }
+
+    /**
+     * Resolve the layer ranges for a MultiLayerNetwork with the given number of layers. The output layer is removed
+     * from any range, and ranges with fewer than 2 layers (for which there is nothing to recompute) are dropped.
+     *
+     * @param numLayers Number of layers in the network
+     * @return Resolved ranges, as {from, to} (inclusive)
+     */
+    public List<int[]> resolveLayerRanges(int numLayers) {
+        if (layerRanges == null)
+            throw new IllegalStateException("No layer ranges are defined: vertex sets can only be used with a "
+                            + "ComputationGraph");
+        List<int[]> out = new ArrayList<>();
+        for (int[] r : layerRanges) {
+            if (r[0] >= numLayers)
+                throw new IllegalStateException("Invalid layer range " + Arrays.toString(r) + " for network with "
+                                + numLayers + " layers");
+            int to = Math.min(r[1], numLayers - 2);
+            if (to > r[0])
+                out.add(new int[] {r[0], to});
+        }
+        return out;
+    }
+
+    /**
+     * @return True if the layer output is random at training time (dropout, or weight noise such as DropConnect), and
+     * hence the random number generator needs to be reseeded for the recomputed activations to match
+     */
+    public static boolean isStochastic(Layer layer) {
+        return hasDropout(layer) || hasWeightNoise(layer);
+    }
+
+    /**
+     * @return True if the layer applies dropout to its input at training time. Dropout is applied when the layer is
+     * activated, so the input of such a layer is only ready for backprop once the layer has been activated
+     */
+    public static boolean hasDropout(Layer layer) {
+        return layer != null && layer.conf() != null && layer.conf().getLayer() != null
+                        && layer.conf().getLayer().getIDropout() != null;
+    }
+
+    /**
+     * @return True if the layer applies weight noise ({@link org.deeplearning4j.nn.conf.weightnoise.IWeightNoise})
+     * to its parameters at training time
+     */
+    public static boolean hasWeightNoise(Layer layer) {
+        return layer != null && layer.conf() != null
+                        && layer.conf().getLayer() instanceof org.deeplearning4j.nn.conf.layers.BaseLayer
+                        && ((org.deeplearning4j.nn.conf.layers.BaseLayer) layer.conf().getLayer())
+                                        .getWeightNoise() != null;
+    }
+}
@@ -110,7 +110,7 @@ public class AlphaDropout implements IDropout {
         lastPValue = pValue;
 
         INDArray result = inPlace ? inputActivations : inputActivations.dup(inputActivations.ordering());
-        Nd4j.getExecutioner().exec(new AlphaDropOut(result, p, a, alphaPrime, b));
+        Nd4j.getExecutioner().exec(new AlphaDropOut(result, p, a, alphaPrime, b), DropoutRandom.get());
 
         return result;
     }
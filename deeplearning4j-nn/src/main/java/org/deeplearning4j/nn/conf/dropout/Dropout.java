@@ -81,7 +81,7 @@ public class Dropout implements IDropout {
         }
 
         INDArray result = inPlace ? inputActivations : inputActivations.dup(inputActivations.ordering());
-        Nd4j.getExecutioner().exec(new DropOutInverted(result, currP));
+        Nd4j.getExecutioner().exec(new DropOutInverted(result, currP), DropoutRandom.get());
 
         return result;
     }
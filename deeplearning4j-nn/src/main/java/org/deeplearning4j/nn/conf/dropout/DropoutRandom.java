@@ -0,0 +1,40 @@
+package org.deeplearning4j.nn.conf.dropout;
+
+import org.nd4j.linalg.api.rng.Random;
+import org.nd4j.linalg.factory.Nd4j;
+
+/**
+ * Source of the random number generator used by the {@link IDropout} implementations, and by
+ * {@link org.deeplearning4j.nn.conf.weightnoise.DropConnect}.<br>
+ * By default this is the global RNG ({@link Nd4j#getRandom()}). A different RNG can be set for the current thread -
+ * for example, activation checkpointing uses a dedicated RNG so that dropout (and DropConnect) masks can be reproduced
+ * when activations are recomputed, without reseeding the global RNG.
+ */
+public class DropoutRandom {
+
+    private static final ThreadLocal<Random> override = new ThreadLocal<>();
+
+    private DropoutRandom() {}
+
+    /**
+     * @return The RNG to use for dropout on the current thread
+     */
+    public static Random get() {
+        Random r = override.get();
+        return r != null ? r : Nd4j.getRandom();
+    }
+
+    /**
+     * Set the RNG to use for dropout on the current thread, until {@link #clear()} is called
+     */
+    public static void set(Random random) {
+        override.set(random);
+    }
+
+    /**
+     * Revert to using the global RNG for dropout on the current thread
+     */
+    public static void clear() {
+        override.remove();
+    }
+}
@@ -63,7 +63,7 @@ public class GaussianDropout implements IDropout {
         double stdev = Math.sqrt(r / (1.0 - r));
 
         INDArray noise = Nd4j.createUninitialized(inputActivations.shape(), inputActivations.ordering());
-        Nd4j.getExecutioner().exec(new GaussianDistribution(noise, 1.0, stdev));
+        Nd4j.getExecutioner().exec(new GaussianDistribution(noise, 1.0, stdev), DropoutRandom.get());
 
         if(inPlace){
             return inputActivations.muli(noise);
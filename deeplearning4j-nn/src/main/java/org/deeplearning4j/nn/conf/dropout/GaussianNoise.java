@@ -50,7 +50,7 @@ public class GaussianNoise implements IDropout {
 
         INDArray result = inPlace ? inputActivations : inputActivations.dup(inputActivations.ordering());
         INDArray noise = Nd4j.createUninitialized(inputActivations.shape(), inputActivations.ordering());
-        Nd4j.getExecutioner().exec(new GaussianDistribution(noise, 0, currS));
+        Nd4j.getExecutioner().exec(new GaussianDistribution(noise, 0, currS), DropoutRandom.get());
 
         result.addi(noise);
 
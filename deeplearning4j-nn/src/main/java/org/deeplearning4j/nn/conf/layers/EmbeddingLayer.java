@@ -25,7 +25,9 @@ import java.util.Map;
  * with all but one value being zero).<br>
  * <b>Note</b>: can only be used as the first layer for a network<br>
  * <b>Note 2</b>: For a given example index i, the output is activationFunction(weights.getRow(i) + bias), hence the
- * weight rows can be considered a vector/embedding for each example.
+ * weight rows can be considered a vector/embedding for each example.<br>
+ * <b>Note 3</b>: With {@link Builder#sparseGradients(boolean)} enabled, the weight gradients are row-sparse, and the
+ * updater is applied lazily: only the rows present in the minibatch (and their updater state) are updated.
  *
  * @author Alex Black
  */
@@ -35,10 +37,12 @@ import java.util.Map;
 @EqualsAndHashCode(callSuper = true)
 public class EmbeddingLayer extends FeedForwardLayer {
     private boolean hasBias = true; //Default for pre-0.9.2 implementations
+    private boolean sparseGradients = false;
 
     private EmbeddingLayer(Builder builder) {
         super(builder);
         this.hasBias = builder.hasBias;
+        this.sparseGradients = builder.sparseGradients;
         initializeConstraints(builder);
     }
 
@@ -88,6 +92,7 @@ public class EmbeddingLayer extends FeedForwardLayer {
     public static class Builder extends FeedForwardLayer.Builder<Builder> {
 
         private boolean hasBias = false;
+        private boolean sparseGradients = false;
 
         /**
          * If true: include bias parameters in the layer. False (default): no bias.
@@ -99,6 +104,22 @@ public class EmbeddingLayer extends FeedForwardLayer {
             return this;
         }
 
+        /**
+         * If true: weight gradients are row-sparse, and lazy (sparse) updates are used for the weights. That is, the
+         * updater (Adam, AdaGrad, etc), its state and L1/L2 regularization are only applied to the rows of the
+         * weight matrix that are present in the minibatch, and the updates for all other rows are exactly zero.
+         * This is much faster for large embedding tables, but note that (for updaters with state such as momentum
+         * or Adam) it is not equivalent to the standard (dense) updater, which also updates rows not in the
+         * minibatch. Sparse updates are not applied with mixed precision training.<br>
+         * False (default): standard dense gradients and updates.
+         *
+         * @param sparseGradients If true: use sparse weight gradients and lazy updates
+         */
+        public Builder sparseGradients(boolean sparseGradients){
+            this.sparseGradients = sparseGradients;
+            return this;
+        }
+
         @Override
         @SuppressWarnings("unchecked")
         public EmbeddingLayer build() {
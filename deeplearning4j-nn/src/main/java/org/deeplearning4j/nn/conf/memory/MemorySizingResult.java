@@ -0,0 +1,80 @@
+package org.deeplearning4j.nn.conf.memory;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
+import org.nd4j.linalg.api.memory.enums.ResetPolicy;
+import org.nd4j.linalg.api.memory.enums.SpillPolicy;
+
+import java.text.DecimalFormat;
+
+/**
+ * The result of sizing a network against a memory budget, as produced by
+ * {@link org.deeplearning4j.util.MemorySizingUtils}.<br>
+ * Contains the maximal training and inference minibatch sizes that fit within the budget, the estimated total memory
+ * use at those minibatch sizes, and the recommended initial sizes for the external (loop) and feed-forward
+ * workspaces, so that the workspaces don't need to grow and reallocate during the first iterations.
+ */
+@Data
+@AllArgsConstructor
+public class MemorySizingResult {
+
+    private static final DecimalFormat BYTES_FORMAT = new DecimalFormat("#,###");
+
+    private final long memoryBudgetBytes;
+    private final int trainingBatchSize;
+    private final int inferenceBatchSize;
+    private final long trainingTotalBytes;
+    private final long inferenceTotalBytes;
+    private final long trainingExternalWorkspaceBytes;
+    private final long inferenceExternalWorkspaceBytes;
+    private final long feedForwardWorkspaceBytes;
+
+    /**
+     * @return Workspace configuration for the external (loop) workspace during training, with the initial size set
+     */
+    public WorkspaceConfiguration getTrainingExternalWorkspaceConfiguration() {
+        return workspaceConfigurationFor(trainingExternalWorkspaceBytes);
+    }
+
+    /**
+     * @return Workspace configuration for the external (loop) workspace during inference, with the initial size set
+     */
+    public WorkspaceConfiguration getInferenceExternalWorkspaceConfiguration() {
+        return workspaceConfigurationFor(inferenceExternalWorkspaceBytes);
+    }
+
+    /**
+     * @return Workspace configuration for the feed-forward workspace, with the initial size set for the training
+     * minibatch size
+     */
+    public WorkspaceConfiguration getFeedForwardWorkspaceConfiguration() {
+        return workspaceConfigurationFor(feedForwardWorkspaceBytes);
+    }
+
+    protected static WorkspaceConfiguration workspaceConfigurationFor(long initialSize) {
+        //Learning is still enabled: if the estimate is too low, the workspace can still grow
+        return WorkspaceConfiguration.builder().initialSize(initialSize).overallocationLimit(0.2)
+                        .policyReset(ResetPolicy.BLOCK_LEFT).policyLearning(LearningPolicy.OVER_TIME)
+                        .policySpill(SpillPolicy.REALLOCATE).policyAllocation(AllocationPolicy.OVERALLOCATE)
+                        .build();
+    }
+
+    @Override
+    public String toString() {
+        return "----- Memory Sizing -----\n"
+                        + "  Memory budget (bytes):                " + BYTES_FORMAT.format(memoryBudgetBytes) + "\n"
+                        + "  Max training batch size:              " + trainingBatchSize + "\n"
+                        + "  Estimated training memory (bytes):    " + BYTES_FORMAT.format(trainingTotalBytes) + "\n"
+                        + "  Max inference batch size:             " + inferenceBatchSize + "\n"
+                        + "  Estimated inference memory (bytes):   " + BYTES_FORMAT.format(inferenceTotalBytes) + "\n"
+                        + "  External workspace, training (bytes): "
+                        + BYTES_FORMAT.format(trainingExternalWorkspaceBytes) + "\n"
+                        + "  External workspace, inference (bytes): "
+                        + BYTES_FORMAT.format(inferenceExternalWorkspaceBytes) + "\n"
+                        + "  Feed forward workspace (bytes):       " + BYTES_FORMAT.format(feedForwardWorkspaceBytes)
+                        + "\n";
+    }
+}
@@ -3,6 +3,7 @@ package org.deeplearning4j.nn.conf.weightnoise;
 import lombok.Data;
 import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.api.ParamInitializer;
+import org.deeplearning4j.nn.conf.dropout.DropoutRandom;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.random.impl.DropOut;
 import org.nd4j.linalg.factory.Nd4j;
@@ -75,7 +76,7 @@ public class DropConnect implements IWeightNoise {
         if (train && init.isWeightParam(layer.conf().getLayer(), paramKey)
                 || (applyToBiases && init.isBiasParam(layer.conf().getLayer(), paramKey))) {
             INDArray out = Nd4j.createUninitialized(param.shape(), param.ordering());
-            Nd4j.getExecutioner().exec(new DropOut(param, out, p));
+            Nd4j.getExecutioner().exec(new DropOut(param, out, p), DropoutRandom.get());
             return out;
         }
         return param;
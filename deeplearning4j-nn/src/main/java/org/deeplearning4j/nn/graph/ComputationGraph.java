@@ -19,6 +19,7 @@
 package org.deeplearning4j.nn.graph;
 
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ArrayUtils;
@@ -36,6 +37,7 @@ import org.deeplearning4j.nn.api.NeuralNetwork;
 import org.deeplearning4j.nn.api.layers.IOutputLayer;
 import org.deeplearning4j.nn.api.layers.RecurrentLayer;
 import org.deeplearning4j.nn.conf.*;
+import org.deeplearning4j.nn.conf.dropout.DropoutRandom;
 import org.deeplearning4j.nn.conf.inputs.InputType;
 import org.deeplearning4j.nn.conf.layers.FeedForwardLayer;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
@@ -47,6 +49,10 @@ import org.deeplearning4j.nn.graph.vertex.impl.InputVertex;
 import org.deeplearning4j.nn.graph.vertex.impl.LayerVertex;
 import org.deeplearning4j.nn.layers.FrozenLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.plan.ExecutionPlan;
+import org.deeplearning4j.nn.plan.ExecutionPlanCache;
+import org.deeplearning4j.nn.plan.ExecutionPlanKey;
+import org.deeplearning4j.nn.updater.MixedPrecision;
 import org.deeplearning4j.nn.updater.graph.ComputationGraphUpdater;
 import org.deeplearning4j.optimize.Solver;
 import org.deeplearning4j.optimize.api.ConvexOptimizer;
@@ -60,6 +66,7 @@ import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
 import org.nd4j.linalg.api.memory.enums.*;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.rng.Random;
 import org.nd4j.linalg.dataset.api.DataSet;
 import org.nd4j.linalg.dataset.api.MultiDataSet;
 import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
@@ -108,6 +115,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
     public final static String workspacePretrain = "LOOP_PTR";
     public final static String workspaceTBPTT = "LOOP_TBPTT";
     public final static String workspaceLSTM = "LOOP_LSTM";
+    public final static String workspaceCheckpoint = "LOOP_CHECKPOINT";
 
     public final static WorkspaceConfiguration workspaceConfigurationFeedForward = WorkspaceConfiguration.builder()
             .initialSize(0).overallocationLimit(0.2).policyReset(ResetPolicy.BLOCK_LEFT)
@@ -133,6 +141,12 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
             .policyMirroring(MirroringPolicy.FULL).policySpill(SpillPolicy.REALLOCATE)
             .policyLearning(LearningPolicy.OVER_TIME).build();
 
+    //Workspace configurations used by this graph: the shared configurations above, unless set for this instance
+    protected WorkspaceConfiguration workspaceConfigExternal = workspaceConfigurationExternal;
+    protected WorkspaceConfiguration workspaceConfigFeedForward = workspaceConfigurationFeedForward;
+    //External workspace configuration for output/evaluation. If null: workspaceConfigExternal is used
+    protected WorkspaceConfiguration workspaceConfigInference;
+
     protected transient ThreadLocal<Long> lastEtlTime = new ThreadLocal<>();
 
     /**
@@ -175,6 +189,22 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
     private Collection<IterationListener> listeners = new ArrayList<>();
     private Collection<TrainingListener> trainingListeners = new ArrayList<>();
 
+    @Getter
+    protected transient ExecutionPlanCache executionPlanCache; //Null: execution plans disabled
+
+    @Getter
+    protected transient MixedPrecision mixedPrecision; //Null: mixed precision training disabled
+
+    @Getter
+    protected transient ActivationCheckpointing activationCheckpointing; //Null: activation checkpointing disabled
+    protected transient int[] checkpointSegmentOfVertex; //Per vertex index: checkpoint segment, or -1
+    protected transient boolean[] checkpointInterior; //Per vertex index: true if output is recomputed in backprop
+    protected transient boolean[] checkpointRecompute; //Per vertex index: true if the vertex is recomputed in backprop
+    protected transient int[] checkpointFirstPos; //Per segment: first position in the topological order
+    protected transient int[] checkpointLastPos; //Per segment: last position in the topological order
+    protected transient boolean checkpointedForward; //True if the last forward pass only retained segment boundaries
+    protected transient long checkpointSeed;
+    protected transient Random checkpointRandom; //Dedicated RNG for dropout in checkpoint segments. Created lazily
 
     public ComputationGraph(ComputationGraphConfiguration configuration) {
         this.configuration = configuration;
@@ -185,6 +215,93 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         this.defaultConfiguration = configuration.getDefaultConfiguration();
     }
 
+    /**
+     * Set the execution plan cache to use for the public feedForward methods.<br>
+     * When an execution plan cache is set, the network compiles one reusable plan per (input shapes, training mode,
+     * mask presence) combination, with preallocated activation buffers, resolved workspaces and no per-call
+     * collections. Plan hits and misses are reported by the cache.<br>
+     * <b>Note</b>: when execution plans are enabled, the activation arrays (and map) returned by the feedForward
+     * methods are reused and overwritten by the next call with the same plan. Use dup() if they need to be retained.
+     *
+     * @param executionPlanCache Cache to use. May be null, to disable execution plans (default)
+     */
+    public void setExecutionPlanCache(ExecutionPlanCache executionPlanCache) {
+        this.executionPlanCache = executionPlanCache;
+    }
+
+    /**
+     * Set the configuration for the external (loop) workspace used by this graph. This is mainly used to set the
+     * workspace initial size (see {@link org.deeplearning4j.util.MemorySizingUtils}). By default, the shared
+     * {@link #workspaceConfigurationExternal} is used.<br>
+     * Note that the configuration is only used when the workspace is first created for a given thread: it should be
+     * set before the first call to fit or output.
+     *
+     * @param workspaceConfigurationExternal Configuration for the external workspace
+     */
+    public void setWorkspaceConfigurationExternal(@NonNull WorkspaceConfiguration workspaceConfigurationExternal) {
+        this.workspaceConfigExternal = workspaceConfigurationExternal;
+    }
+
+    /**
+     * Set the configuration for the feed-forward workspace used by this graph (WorkspaceMode.SEPARATE only). By
+     * default, the shared {@link #workspaceConfigurationFeedForward} is used. As per
+     * {@link #setWorkspaceConfigurationExternal(WorkspaceConfiguration)}, this should be set before the first call to
+     * fit or output.
+     *
+     * @param workspaceConfigurationFeedForward Configuration for the feed-forward workspace
+     */
+    public void setWorkspaceConfigurationFeedForward(@NonNull WorkspaceConfiguration workspaceConfigurationFeedForward) {
+        this.workspaceConfigFeedForward = workspaceConfigurationFeedForward;
+    }
+
+    /**
+     * Set the configuration for the external (loop) workspace when it is created by output or evaluation. By default,
+     * the same configuration as for training is used.<br>
+     * Note that training and inference share the external workspace on a given thread: this configuration is only used
+     * if output or evaluation is the first use of the workspace on that thread (for example, on inference-only
+     * threads).
+     *
+     * @param workspaceConfigurationInference Configuration for the external workspace, for inference. May be null
+     */
+    public void setWorkspaceConfigurationInference(WorkspaceConfiguration workspaceConfigurationInference) {
+        this.workspaceConfigInference = workspaceConfigurationInference;
+    }
+
+    protected WorkspaceConfiguration inferenceWorkspaceConfiguration() {
+        return workspaceConfigInference != null ? workspaceConfigInference : workspaceConfigExternal;
+    }
+
+    /**
+     * Enable (or disable) mixed precision training for this network: half precision storage, with a single precision
+     * master copy of the parameters and updater state, and dynamic loss scaling. See {@link MixedPrecision} for
+     * details. The ND4J data type should be set to HALF before the network is created.<br>
+     * With mixed precision, the single precision updater state is held by the {@link MixedPrecision} instance rather
+     * than the network's updater. If this network already has an updater and mixed precision is enabled or disabled,
+     * the updater is re-created: any existing updater state is discarded.
+     *
+     * @param mixedPrecision Mixed precision configuration. May be null, to disable mixed precision training (default)
+     */
+    public void setMixedPrecision(MixedPrecision mixedPrecision) {
+        boolean changed = (this.mixedPrecision == null) != (mixedPrecision == null);
+        this.mixedPrecision = mixedPrecision;
+        if (changed && solver != null) {
+            solver.getOptimizer().setUpdaterComputationGraph(new ComputationGraphUpdater(this));
+        }
+    }
+
+    /**
+     * Enable (or disable) activation checkpointing for this network. With activation checkpointing, the outputs of
+     * the vertices inside each configured vertex set are not retained during the forward pass: they are recomputed
+     * during backprop. See {@link ActivationCheckpointing} for details.
+     * Note that {@link TrainingListener#onForwardPass} receives null for the activations that are not retained.
+     *
+     * @param activationCheckpointing Checkpoint configuration, with vertex sets. May be null, to disable (default)
+     */
+    public void setActivationCheckpointing(ActivationCheckpointing activationCheckpointing) {
+        this.activationCheckpointing = activationCheckpointing;
+        this.checkpointSegmentOfVertex = null;
+    }
+
     /**
      * This method allows to set ETL field time, useful for performance tracking
      *
@@ -763,7 +880,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         MemoryWorkspace workspace =
                 configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
                         : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
-                        ComputationGraph.workspaceConfigurationExternal,
+                        workspaceConfigExternal,
                         ComputationGraph.workspaceExternal);
         MemoryWorkspace cache =
                 configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
@@ -783,8 +900,8 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
                 wsPTR = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceExternal);
                 break;
             case SEPARATE:
-                wsFF = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceConfigurationFeedForward, workspaceFeedForward);
-                wsPTR = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceConfigurationFeedForward, workspacePretrain);
+                wsFF = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceConfigFeedForward, workspaceFeedForward);
+                wsPTR = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceConfigFeedForward, workspacePretrain);
                 break;
             default:
                 throw new RuntimeException();
@@ -908,7 +1025,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         MemoryWorkspace workspace =
                 configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
                         : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
-                        workspaceConfigurationExternal, workspaceExternal);
+                        workspaceConfigExternal, workspaceExternal);
         MemoryWorkspace cache = configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
                 : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceConfigurationCache,
                 workspaceCache);
@@ -1018,7 +1135,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         MemoryWorkspace workspace =
                 configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
                         : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
-                        workspaceConfigurationExternal, workspaceExternal);
+                        workspaceConfigExternal, workspaceExternal);
 
         MemoryWorkspace cache = configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
                 : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceConfigurationCache,
@@ -1148,7 +1265,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         MemoryWorkspace workspace =
                 configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
                         : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
-                        workspaceConfigurationExternal, workspaceExternal);
+                        workspaceConfigExternal, workspaceExternal);
         MemoryWorkspace cache = configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
                 : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceConfigurationCache,
                 workspaceCache);
@@ -1312,7 +1429,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         MemoryWorkspace wsExternal = null;
         boolean shouldCloseWorkspace = false;
         if(configuration.getTrainingWorkspaceMode() != WorkspaceMode.NONE) {
-            wsExternal = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceConfigurationExternal, workspaceExternal);
+            wsExternal = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceConfigExternal, workspaceExternal);
             if(!wsExternal.isScopeActive()){
                 wsExternal.notifyScopeEntered();
                 shouldCloseWorkspace = true;
@@ -1332,7 +1449,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
                 }
                 calcBackpropGradients(true);
             } else {
-                Map<String, INDArray> activations = feedForward(true, true, false, false);
+                Map<String, INDArray> activations = feedForward(true, true, false, false, true);
                 if (trainingListeners.size() > 0) {
                     try (MemoryWorkspace workspace = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
                         for (TrainingListener tl : trainingListeners) {
@@ -1469,6 +1586,29 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
      */
     protected Map<String, INDArray> feedForward(boolean train, boolean excludeOutputLayers,
                                                 boolean includeNonLayerVertexActivations, boolean publicApi) {
+        return feedForward(train, excludeOutputLayers, includeNonLayerVertexActivations, publicApi, false);
+    }
+
+    /**
+     * Feed forward through the network.
+     *
+     * @param checkpoint If true, and activation checkpointing is enabled: the outputs of the vertices inside each
+     *                   checkpoint segment are not retained (and are not included in the returned map). Only used for
+     *                   training, with publicApi false
+     */
+    protected Map<String, INDArray> feedForward(boolean train, boolean excludeOutputLayers,
+                                                boolean includeNonLayerVertexActivations, boolean publicApi,
+                                                boolean checkpoint) {
+        if (publicApi && executionPlanCache != null) {
+            return feedForwardWithPlan(train, excludeOutputLayers, includeNonLayerVertexActivations);
+        }
+
+        checkpoint = checkpoint && train && !publicApi && resolveCheckpointSegments();
+        checkpointedForward = checkpoint;
+        if (checkpoint) {
+            checkpointSeed = Nd4j.getRandom().nextLong();
+        }
+
         Map<String, INDArray> layerActivations = new HashMap<>();
 
         MemoryWorkspace workspace;
@@ -1480,15 +1620,31 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
                 workspace = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceExternal);
                 break;
             case SEPARATE:
-                workspace = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceConfigurationFeedForward, workspaceFeedForward);
+                workspace = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceConfigFeedForward, workspaceFeedForward);
                 break;
             default:
                 throw new RuntimeException();
         }
 
+        MemoryWorkspace wsCheckpoint = null;
+        int openSegment = -1;
+
         //Do forward pass according to the topological ordering of the network
         for (int i = 0; i < topologicalOrder.length; i++) {
             GraphVertex current = vertices[topologicalOrder[i]];
+            int segment = checkpoint ? checkpointSegmentOfVertex[current.getVertexIndex()] : -1;
+            if (openSegment >= 0 && i > checkpointLastPos[openSegment]) {
+                closeCheckpointSegment(wsCheckpoint, openSegment);
+                wsCheckpoint = null;
+                openSegment = -1;
+            }
+            if (segment >= 0 && segment != openSegment) {
+                wsCheckpoint = openCheckpointWorkspace();
+                openSegment = segment;
+            }
+            //Outputs of interior vertices are only needed until the rest of the segment has been computed
+            boolean segmentInterior = segment >= 0 && checkpointInterior[current.getVertexIndex()];
+
             try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
 
                 if (current.isInputVertex()) {
@@ -1527,15 +1683,25 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
                         // we only need to ensure the input to the output layers is set properly
                         continue;
                     }
+                    boolean checkpointRng = segment >= 0 && reseedForCheckpoint(current);
+
                     // once again, pushing stuff out of this workspace
                     INDArray out;
-                    if (publicApi) {
-                        out = current.doForward(train).detach();
-                    } else {
-                        out = current.doForward(train).leverageTo(workspaceExternal);
+                    try {
+                        if (publicApi) {
+                            out = current.doForward(train).detach();
+                        } else if (segmentInterior) {
+                            out = current.doForward(train).leverageTo(workspaceCheckpoint);
+                        } else {
+                            out = current.doForward(train).leverageTo(workspaceExternal);
+                        }
+                    } finally {
+                        if (checkpointRng)
+                            DropoutRandom.clear();
                     }
 
-                    if (includeNonLayerVertexActivations || current.hasLayer() || current.isOutputVertex()) {
+                    if (!segmentInterior && (includeNonLayerVertexActivations || current.hasLayer()
+                                    || current.isOutputVertex())) {
                         layerActivations.put(current.getVertexName(), out);
                     }
 
@@ -1565,6 +1731,10 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
             }
         }
 
+        if (wsCheckpoint != null) {
+            closeCheckpointSegment(wsCheckpoint, openSegment);
+        }
+
         if (!train)
             if (configuration.getTrainingWorkspaceMode() == WorkspaceMode.SEPARATE)
                 Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceFeedForward).initializeWorkspace();
@@ -1576,6 +1746,77 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         return layerActivations;
     }
 
+    /**
+     * Feed forward using a cached {@link ExecutionPlan}, compiling one if required. Activations are copied into the
+     * plan's preallocated buffers instead of being detached, and the returned map is owned by the plan.
+     */
+    protected Map<String, INDArray> feedForwardWithPlan(boolean train, boolean excludeOutputLayers,
+                    boolean includeNonLayerVertexActivations) {
+        WorkspaceMode workspaceMode = configuration.getTrainingWorkspaceMode();
+        int target = (excludeOutputLayers ? 1 : 0) | (includeNonLayerVertexActivations ? 2 : 0);
+        boolean hasMasks = inputMaskArrays != null || labelMaskArrays != null;
+        ExecutionPlanKey key = ExecutionPlanKey.of(inputs, train, hasMasks, workspaceMode, target);
+
+        ExecutionPlan plan = executionPlanCache.get(key);
+        if (plan == null) {
+            if (workspaceMode == WorkspaceMode.SINGLE) {
+                plan = new ExecutionPlan(key, vertices.length, null, workspaceExternal, null);
+            } else {
+                plan = new ExecutionPlan(key, vertices.length, null, workspaceFeedForward,
+                                workspaceConfigFeedForward);
+            }
+            executionPlanCache.put(plan);
+        }
+
+        Map<String, INDArray> layerActivations = plan.getActivationMap();
+        MemoryWorkspace workspace = plan.getWorkspace();
+        boolean externalActive = Nd4j.getWorkspaceManager().checkIfWorkspaceExistsAndActive(workspaceExternal);
+
+        for (int i = 0; i < topologicalOrder.length; i++) {
+            GraphVertex current = vertices[topologicalOrder[i]];
+            try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
+                INDArray out;
+                if (current.isInputVertex()) {
+                    out = inputs[current.getVertexIndex()].leverageTo(workspaceExternal);
+                    layerActivations.put(current.getVertexName(), out);
+                } else {
+                    if (excludeOutputLayers && current.isOutputVertex() && current.hasLayer()
+                                    && current.getLayer() instanceof IOutputLayer) {
+                        continue;
+                    }
+                    out = plan.store(current.getVertexIndex(), current.doForward(train));
+                    if (includeNonLayerVertexActivations || current.hasLayer() || current.isOutputVertex()) {
+                        layerActivations.put(current.getVertexName(), out);
+                    }
+                }
+
+                //Set the inputs for the next vertices:
+                VertexIndices[] outputsTo = current.getOutputVertices();
+                if (outputsTo != null) {
+                    for (VertexIndices v : outputsTo) {
+                        if (externalActive && Nd4j.getMemoryManager().getCurrentWorkspace() != Nd4j
+                                        .getWorkspaceManager().getWorkspaceForCurrentThread(workspaceExternal)) {
+                            try (MemoryWorkspace wsB = Nd4j.getWorkspaceManager()
+                                            .getWorkspaceForCurrentThread(workspaceExternal).notifyScopeBorrowed()) {
+                                vertices[v.getVertexIndex()].setInput(v.getVertexEdgeNumber(), out);
+                            }
+                        } else {
+                            vertices[v.getVertexIndex()].setInput(v.getVertexEdgeNumber(), out);
+                        }
+                    }
+                }
+            }
+        }
+
+        if (!train && workspaceMode == WorkspaceMode.SEPARATE)
+            Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceFeedForward).initializeWorkspace();
+
+        clearLayersStates();    //Ensure INDArrays in layer input fields don't leak out of workspace (via .input() etc)
+        plan.markUsed();
+
+        return layerActivations;
+    }
+
     /**
      * Return an array of network outputs (predictions) at test time, given the specified network inputs
      * Network outputs are for output layers only.
@@ -1613,7 +1854,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         MemoryWorkspace workspace =
                 configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
                         : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
-                        workspaceConfigurationExternal, workspaceExternal);
+                        inferenceWorkspaceConfiguration(), workspaceExternal);
 
         try (MemoryWorkspace wsE = workspace.notifyScopeEntered()) {
             INDArray[] tmp = silentOutput(train, input);
@@ -1695,7 +1936,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
                 workspace = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceExternal);
                 break;
             case SEPARATE:
-                workspace = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceConfigurationFeedForward,workspaceFeedForward);
+                workspace = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceConfigFeedForward,workspaceFeedForward);
                 break;
             default:
                 throw new RuntimeException();
@@ -1704,9 +1945,27 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
 
         LinkedList<Triple<String, INDArray, Character>> gradients = new LinkedList<>();
 
+        //Activation checkpointing: the outputs inside each segment are recomputed just before the segment is
+        // backpropagated, in the checkpoint workspace - which is then closed once the segment is done
+        boolean checkpoint = checkpointedForward && !truncatedBPTT;
+        checkpointedForward = false;
+        MemoryWorkspace wsCheckpoint = null;
+        int openSegment = -1;
+
         //Do backprop according to the reverse of the topological ordering of the network
         boolean[] setVertexEpsilon = new boolean[topologicalOrder.length]; //If true: already set epsilon for this vertex; later epsilons should be *added* to the existing one, not set
         for (int i = topologicalOrder.length - 1; i >= 0; i--) {
+            if (openSegment >= 0 && i < checkpointFirstPos[openSegment]) {
+                closeCheckpointSegment(wsCheckpoint, openSegment);
+                wsCheckpoint = null;
+                openSegment = -1;
+            }
+            int segment = checkpoint ? checkpointSegmentOfVertex[topologicalOrder[i]] : -1;
+            if (segment >= 0 && segment != openSegment) {
+                wsCheckpoint = recomputeCheckpointSegment(segment, workspace);
+                openSegment = segment;
+            }
+
             try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
                 GraphVertex current = vertices[topologicalOrder[i]];
 
@@ -1744,6 +2003,21 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
                 Pair<Gradient, INDArray[]> pair = current.doBackward(truncatedBPTT);
                 INDArray[] epsilons = pair.getSecond();
 
+                if (mixedPrecision != null && current.isOutputVertex()) {
+                    //Mixed precision: scale the output gradients, so that small gradients don't underflow. The
+                    // gradients are unscaled by the updater
+                    double scale = mixedPrecision.getLossScale();
+                    if (pair.getFirst() != null) {
+                        for (INDArray g : pair.getFirst().gradientForVariable().values()) {
+                            g.muli(scale);
+                        }
+                    }
+                    for (INDArray e : epsilons) {
+                        if (e != null)
+                            e.muli(scale);
+                    }
+                }
+
                 for (int x = 0; x < epsilons.length; x++) {
                     if (epsilons[x] == null) {
                         continue;
@@ -1796,6 +2070,10 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
                 }
             }
         }
+        if (wsCheckpoint != null) {
+            //Backprop stopped early (frozen layers), or the segment contains the first vertex
+            closeCheckpointSegment(wsCheckpoint, openSegment);
+        }
 
         //Now, add the gradients in the order we need them in for flattening (same as params order)
         Gradient gradient = new DefaultGradient(flattenedGradients);
@@ -1809,11 +2087,186 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         this.gradient = gradient;
     }
 
+    /**
+     * Resolve the activation checkpoint segments for this network, if required
+     *
+     * @return True if activation checkpointing should be used
+     */
+    protected boolean resolveCheckpointSegments() {
+        if (activationCheckpointing == null)
+            return false;
+        if (configuration.getTrainingWorkspaceMode() == WorkspaceMode.SINGLE) {
+            OneTimeLogger.warn(log, "Activation checkpointing is not supported with WorkspaceMode.SINGLE (all "
+                            + "activations share one workspace): checkpointing is disabled");
+            return false;
+        }
+        if (checkpointSegmentOfVertex != null)
+            return true;
+
+        List<Set<String>> sets = activationCheckpointing.getVertexSets();
+        if (sets == null) {
+            throw new IllegalStateException("No vertex sets are defined: layer ranges can only be used with a "
+                            + "MultiLayerNetwork");
+        }
+        int[] topoPos = new int[vertices.length];
+        for (int i = 0; i < topologicalOrder.length; i++) {
+            topoPos[topologicalOrder[i]] = i;
+        }
+
+        int[] segmentOf = new int[vertices.length];
+        Arrays.fill(segmentOf, -1);
+        int[] first = new int[sets.size()];
+        int[] last = new int[sets.size()];
+        for (int s = 0; s < sets.size(); s++) {
+            first[s] = Integer.MAX_VALUE;
+            last[s] = -1;
+            for (String name : sets.get(s)) {
+                GraphVertex gv = verticesMap.get(name);
+                if (gv == null)
+                    throw new IllegalStateException(
+                                    "Invalid checkpoint segment: no vertex with name \"" + name + "\"");
+                if (gv.isInputVertex())
+                    throw new IllegalStateException("Invalid checkpoint segment: vertex \"" + name
+                                    + "\" is a network input");
+                segmentOf[gv.getVertexIndex()] = s;
+                first[s] = Math.min(first[s], topoPos[gv.getVertexIndex()]);
+                last[s] = Math.max(last[s], topoPos[gv.getVertexIndex()]);
+            }
+        }
+        for (int s = 0; s < sets.size(); s++) {
+            for (int t = s + 1; t < sets.size(); t++) {
+                if (last[s] >= 0 && last[t] >= 0 && first[s] <= last[t] && first[t] <= last[s]) {
+                    throw new IllegalStateException("Invalid checkpoint segments: segments " + sets.get(s) + " and "
+                                    + sets.get(t) + " overlap in the topological order of the network");
+                }
+            }
+        }
+
+        //Interior vertex: all outputs feed into the same segment. These outputs are recomputed
+        boolean[] interior = new boolean[vertices.length];
+        for (GraphVertex gv : vertices) {
+            int s = segmentOf[gv.getVertexIndex()];
+            VertexIndices[] outputsTo = gv.getOutputVertices();
+            if (s < 0 || gv.isOutputVertex() || outputsTo == null || outputsTo.length == 0)
+                continue;
+            boolean allInSegment = true;
+            for (VertexIndices v : outputsTo) {
+                allInSegment &= segmentOf[v.getVertexIndex()] == s;
+            }
+            interior[gv.getVertexIndex()] = allInSegment;
+        }
+        //Recompute interior vertices, and any vertex with an interior input - except output layers, which
+        // set their input during backprop
+        boolean[] recompute = new boolean[vertices.length];
+        for (GraphVertex gv : vertices) {
+            if (!interior[gv.getVertexIndex()])
+                continue;
+            recompute[gv.getVertexIndex()] = true;
+            for (VertexIndices v : gv.getOutputVertices()) {
+                GraphVertex out = vertices[v.getVertexIndex()];
+                if (!(out.hasLayer() && out.getLayer() instanceof IOutputLayer))
+                    recompute[v.getVertexIndex()] = true;
+            }
+        }
+
+        checkpointInterior = interior;
+        checkpointRecompute = recompute;
+        checkpointFirstPos = first;
+        checkpointLastPos = last;
+        checkpointSegmentOfVertex = segmentOf;
+        return true;
+    }
+
+    protected MemoryWorkspace openCheckpointWorkspace() {
+        if (configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE)
+            return new DummyWorkspace();
+        return Nd4j.getWorkspaceManager().getAndActivateWorkspace(workspaceConfigFeedForward,
+                        workspaceCheckpoint);
+    }
+
+    /**
+     * Release the outputs of the interior vertices of a checkpoint segment: clear the vertex (and layer) inputs that
+     * reference them, and close the checkpoint workspace scope so that its memory is reused by the next segment
+     */
+    protected void closeCheckpointSegment(MemoryWorkspace wsCheckpoint, int segment) {
+        for (GraphVertex gv : vertices) {
+            if (checkpointSegmentOfVertex[gv.getVertexIndex()] != segment || !checkpointInterior[gv.getVertexIndex()])
+                continue;
+            for (VertexIndices v : gv.getOutputVertices()) {
+                GraphVertex out = vertices[v.getVertexIndex()];
+                out.setInput(v.getVertexEdgeNumber(), null);
+                if (out.hasLayer())
+                    out.getLayer().setInput(null);
+            }
+        }
+        wsCheckpoint.close();
+    }
+
+    /**
+     * Recompute the outputs of the interior vertices of a checkpoint segment, in topological order, from the
+     * (retained) segment inputs. This sets the inputs of the vertices in the segment, as required for backprop.
+     * The outputs of the other vertices that take an interior output as input are retained from the forward pass:
+     * these vertices are only activated again if they have a layer with dropout (which is applied to the layer input
+     * during activation). Otherwise the vertex input alone is sufficient, as the layer input is set during backprop
+     *
+     * @return The open checkpoint workspace holding the recomputed activations
+     */
+    protected MemoryWorkspace recomputeCheckpointSegment(int segment, MemoryWorkspace workspace) {
+        MemoryWorkspace wsCheckpoint = openCheckpointWorkspace();
+        for (int i = checkpointFirstPos[segment]; i <= checkpointLastPos[segment]; i++) {
+            GraphVertex current = vertices[topologicalOrder[i]];
+            if (checkpointSegmentOfVertex[current.getVertexIndex()] != segment
+                            || !checkpointRecompute[current.getVertexIndex()])
+                continue;
+            if (!checkpointInterior[current.getVertexIndex()]
+                            && !(current.hasLayer() && ActivationCheckpointing.hasDropout(current.getLayer())))
+                continue;
+            try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
+                boolean checkpointRng = reseedForCheckpoint(current);
+                INDArray out;
+                try {
+                    out = current.doForward(true);
+                } finally {
+                    if (checkpointRng)
+                        DropoutRandom.clear();
+                }
+                if (checkpointInterior[current.getVertexIndex()]) {
+                    out = out.leverageTo(workspaceCheckpoint);
+                    for (VertexIndices v : current.getOutputVertices()) {
+                        vertices[v.getVertexIndex()].setInput(v.getVertexEdgeNumber(), out);
+                    }
+                }
+            }
+        }
+        return wsCheckpoint;
+    }
+
+    /**
+     * Before a layer vertex with dropout inside a checkpoint segment: reseed the graph's dedicated checkpoint RNG, and
+     * use it for dropout on this thread - so that the same dropout mask is used in the forward pass and when the
+     * activations are recomputed. The global RNG is not reseeded. If this returns true, {@link DropoutRandom#clear()}
+     * must be called once the vertex has been activated
+     *
+     * @return True if the checkpoint RNG is now used for dropout
+     */
+    protected boolean reseedForCheckpoint(GraphVertex vertex) {
+        if (!vertex.hasLayer() || !ActivationCheckpointing.isStochastic(vertex.getLayer())) {
+            return false;
+        }
+        if (checkpointRandom == null) {
+            checkpointRandom = Nd4j.getRandomFactory().getNewRandomInstance(checkpointSeed);
+        }
+        checkpointRandom.setSeed(checkpointSeed + vertex.getVertexIndex());
+        DropoutRandom.set(checkpointRandom);
+        return true;
+    }
+
     @Override
     public ComputationGraph clone() {
         ComputationGraph cg = new ComputationGraph(configuration.clone());
         cg.init(params().dup(), false);
-        if (solver != null) {
+        //With mixed precision, the updater state is held by MixedPrecision (which is not cloned)
+        if (solver != null && mixedPrecision == null) {
             //If  solver is null: updater hasn't been initialized -> getUpdater call will force initialization, however
             ComputationGraphUpdater u = this.getUpdater();
             INDArray updaterState = u.getStateViewArray();
@@ -2040,7 +2493,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         MemoryWorkspace workspace =
                 configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
                         : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
-                        workspaceConfigurationExternal, workspaceExternal);
+                        workspaceConfigExternal, workspaceExternal);
         try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
 
             setInputs(dataSet.getFeatures());
@@ -2234,6 +2687,10 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
     public void setParams(INDArray params) {
         if (params == flattenedParams)
             return; //No op
+        if (mixedPrecision != null) {
+            //Master parameters are re-initialized from the new parameters on the next update
+            mixedPrecision.reset();
+        }
 
         if (this.flattenedParams != null && this.flattenedParams.length() == params.length()) {
             this.flattenedParams.assign(params);
@@ -2634,8 +3091,8 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
 
         rnnClearPreviousState();
 
-        workspaceConfigurationExternal.setCyclesBeforeInitialization(0);
-        workspaceConfigurationExternal.setPolicyLearning(LearningPolicy.OVER_TIME);
+        workspaceConfigExternal.setCyclesBeforeInitialization(0);
+        workspaceConfigExternal.setPolicyLearning(LearningPolicy.OVER_TIME);
 
         MemoryWorkspace workspaceT =
                 configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
@@ -2644,7 +3101,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         MemoryWorkspace workspace =
                 configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
                         : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
-                        workspaceConfigurationExternal, workspaceExternal);
+                        workspaceConfigExternal, workspaceExternal);
 
         try (MemoryWorkspace wsT = workspaceT.notifyScopeEntered()) {
             for (int i = 0; i < nSubsets; i++) {
@@ -3084,6 +3541,22 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
      * @return The input IEvaluation instance, after performing evaluation on the test data
      */
     public <T extends IEvaluation> T[] doEvaluation(MultiDataSetIterator iterator, T... evaluations) {
+        return doEvaluation(iterator, 0, evaluations);
+    }
+
+    /**
+     * Perform evaluation on the given data (MultiDataSetIterator) with the given {@link IEvaluation} instances,
+     * optionally accumulating the evaluation metrics on separate threads - so that network output and metric
+     * accumulation overlap. See {@link ShardedEvaluator}.
+     *
+     * @param iterator       Test data to evaluate on
+     * @param numEvalThreads Number of threads for metric accumulation. If 0: accumulate on the calling thread
+     * @param evaluations    IEvaluation instances
+     * @param <T>            Type of the IEvaluation instance
+     * @return The input IEvaluation instances, after performing evaluation on the test data
+     */
+    public <T extends IEvaluation> T[] doEvaluation(MultiDataSetIterator iterator, int numEvalThreads,
+                    T... evaluations) {
         if (layers == null || !(getOutputLayer(0) instanceof IOutputLayer)) {
             throw new IllegalStateException("Cannot evaluate network with no output layer");
         }
@@ -3104,7 +3577,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         MemoryWorkspace workspace =
                 configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
                         : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
-                        workspaceConfigurationExternal, workspaceExternal);
+                        inferenceWorkspaceConfiguration(), workspaceExternal);
 
         MemoryWorkspace workspaceT =
                 configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
@@ -3113,80 +3586,100 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
 
         boolean useRnnSegments = (configuration.getBackpropType() == BackpropType.TruncatedBPTT);
 
-        while (iter.hasNext()) {
-            MultiDataSet next = iter.next();
+        ShardedEvaluator<T> evaluator = null;
+        if (numEvalThreads > 0)
+            evaluator = new ShardedEvaluator<>(evaluations, numEvalThreads);
 
-            if (next.getFeatures() == null || next.getLabels() == null)
-                break;
+        try {
+            while (iter.hasNext()) {
+                MultiDataSet next = iter.next();
 
-            try (MemoryWorkspace wsB = workspace.notifyScopeEntered()) {
+                if (next.getFeatures() == null || next.getLabels() == null)
+                    break;
 
-                if(!useRnnSegments){
-                    //Standard/non-RNN case
+                try (MemoryWorkspace wsB = workspace.notifyScopeEntered()) {
 
-                    //Assuming single output here
-                    INDArray[] features = next.getFeatures();
-                    INDArray[] featuresMasks = next.getFeaturesMaskArrays();
-                    INDArray labels = next.getLabels(0);
-                    INDArray[] labelMasks = next.getLabelsMaskArrays();
-                    INDArray labelMask = next.getLabelsMaskArray(0);
+                    if(!useRnnSegments){
+                        //Standard/non-RNN case
 
-                    setLayerMaskArrays(featuresMasks, labelMasks);
-                    INDArray[] out = silentOutput(false, features);
+                        //Assuming single output here
+                        INDArray[] features = next.getFeatures();
+                        INDArray[] featuresMasks = next.getFeaturesMaskArrays();
+                        INDArray labels = next.getLabels(0);
+                        INDArray[] labelMasks = next.getLabelsMaskArrays();
+                        INDArray labelMask = next.getLabelsMaskArray(0);
 
-                    try (MemoryWorkspace wsO = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
-                        for (T evaluation : evaluations)
-                            evaluation.eval(labels, out[0], labelMask);
-                    }
-                } else {
-                    rnnClearPreviousState();
-
-                    int fwdLen = configuration.getTbpttFwdLength();
-                    int tsLength = -1;
-                    int nF = next.getFeatures().length;
-                    for( int i=0; i<nF; i++ ){
-                        if(next.getFeatures(i).rank() == 3){
-                            tsLength = next.getFeatures(i).size(2);
+                        setLayerMaskArrays(featuresMasks, labelMasks);
+                        INDArray[] out = silentOutput(false, features);
+
+                        try (MemoryWorkspace wsO = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                            if (evaluator != null) {
+                                evaluator.eval(labels, out[0], labelMask);
+                            } else {
+                                for (T evaluation : evaluations)
+                                    evaluation.eval(labels, out[0], labelMask);
+                            }
+                        }
+                    } else {
+                        rnnClearPreviousState();
+
+                        int fwdLen = configuration.getTbpttFwdLength();
+                        int tsLength = -1;
+                        int nF = next.getFeatures().length;
+                        for( int i=0; i<nF; i++ ){
+                            if(next.getFeatures(i).rank() == 3){
+                                tsLength = next.getFeatures(i).size(2);
+                            }
+                        }
+                        if(tsLength < 0){
+                            throw new IllegalStateException("Invalid configuration: detected TBPTT backprop type without" +
+                                    " time series features");
                         }
-                    }
-                    if(tsLength < 0){
-                        throw new IllegalStateException("Invalid configuration: detected TBPTT backprop type without" +
-                                " time series features");
-                    }
 
-                    int nSubsets = tsLength / fwdLen;
-                    if( tsLength % fwdLen != 0)
-                        nSubsets++; //Example: 100 fwdLen with timeSeriesLength=120 -> want 2 subsets (1 of size 100, 1 of size 20)
-                    for( int i=0; i<nSubsets; i++ ){
-                        int startTimeIdx = i * fwdLen;
-                        int endTimeIdx = Math.min(startTimeIdx + fwdLen, tsLength);
+                        int nSubsets = tsLength / fwdLen;
+                        if( tsLength % fwdLen != 0)
+                            nSubsets++; //Example: 100 fwdLen with timeSeriesLength=120 -> want 2 subsets (1 of size 100, 1 of size 20)
+                        for( int i=0; i<nSubsets; i++ ){
+                            int startTimeIdx = i * fwdLen;
+                            int endTimeIdx = Math.min(startTimeIdx + fwdLen, tsLength);
 
-                        List<INDArray[]> subset = getSubsetsForTbptt(startTimeIdx, endTimeIdx, next.getFeatures(),
-                                next.getLabels(), next.getFeaturesMaskArrays(), next.getLabelsMaskArrays());
-                        try(MemoryWorkspace wsT = workspaceT.notifyScopeEntered()) {
-                            setLayerMaskArrays(subset.get(2), subset.get(3));
+                            List<INDArray[]> subset = getSubsetsForTbptt(startTimeIdx, endTimeIdx, next.getFeatures(),
+                                    next.getLabels(), next.getFeaturesMaskArrays(), next.getLabelsMaskArrays());
+                            try(MemoryWorkspace wsT = workspaceT.notifyScopeEntered()) {
+                                setLayerMaskArrays(subset.get(2), subset.get(3));
 
-                            INDArray[] outSub = rnnTimeStep(subset.get(0));
+                                INDArray[] outSub = rnnTimeStep(subset.get(0));
 
-                            INDArray maskSub = subset.get(3) == null ? null : subset.get(3)[0];
+                                INDArray maskSub = subset.get(3) == null ? null : subset.get(3)[0];
 
 
-                            try (MemoryWorkspace wsO = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
-                                for (T evaluation : evaluations)
-                                    evaluation.eval(subset.get(1)[0], outSub[0], maskSub);
+                                try (MemoryWorkspace wsO = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                                    if (evaluator != null) {
+                                        evaluator.eval(subset.get(1)[0], outSub[0], maskSub);
+                                    } else {
+                                        for (T evaluation : evaluations)
+                                            evaluation.eval(subset.get(1)[0], outSub[0], maskSub);
+                                    }
+                                }
                             }
                         }
                     }
                 }
+
+                clearLayerMaskArrays();
             }
 
-            clearLayerMaskArrays();
-        }
+            if (iterator.asyncSupported())
+                ((AsyncMultiDataSetIterator) iter).shutdown();
 
-        if (iterator.asyncSupported())
-            ((AsyncMultiDataSetIterator) iter).shutdown();
+            configuration.setTrainingWorkspaceMode(cMode);
 
-        configuration.setTrainingWorkspaceMode(cMode);
+            if (evaluator != null)
+                evaluator.finish();
+        } finally {
+            if (evaluator != null)
+                evaluator.shutdown();
+        }
 
         return evaluations;
     }
@@ -28,6 +28,8 @@ import org.deeplearning4j.nn.params.PretrainParamInitializer;
 import org.deeplearning4j.optimize.Solver;
 import org.deeplearning4j.optimize.api.ConvexOptimizer;
 import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.activations.IActivation;
+import org.nd4j.linalg.activations.impl.*;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.indexing.NDArrayIndex;
@@ -345,6 +347,10 @@ public abstract class BaseLayer<LayerConfT extends org.deeplearning4j.nn.conf.la
 
     @Override
     public INDArray activate(boolean training) {
+        if (!training && isFusedInferenceEnabled() && canActivateFusedInternal(input)) {
+            return activateFusedInternal(null);
+        }
+
         INDArray z = preOutput(training);
         INDArray ret = layerConf().getActivationFn().getActivation(z, training);
 
@@ -355,6 +361,71 @@ public abstract class BaseLayer<LayerConfT extends org.deeplearning4j.nn.conf.la
         return ret;
     }
 
+    /**
+     * Whether this layer type supports the fused inference path. Only layers that compute
+     * activationFn(input * W + b) with no additional steps should return true here.
+     */
+    protected boolean isFusedInferenceEnabled() {
+        return false;
+    }
+
+    /**
+     * @return True if the activation function can be applied in-place on the output buffer by the fused path
+     */
+    protected static boolean isFusedActivation(IActivation activation) {
+        return activation instanceof ActivationReLU || activation instanceof ActivationTanH
+                        || activation instanceof ActivationSigmoid || activation instanceof ActivationSoftmax
+                        || activation instanceof ActivationIdentity;
+    }
+
+    protected boolean canActivateFusedInternal(INDArray input) {
+        if (input == null || input.rank() != 2 || maskArray != null)
+            return false;
+        if (!isFusedActivation(layerConf().getActivationFn()))
+            return false;
+        INDArray W = getParam(DefaultParamInitializer.WEIGHT_KEY);
+        return W != null && input.columns() == W.rows();
+    }
+
+    /**
+     * Fused inference forward pass: out = activationFn(input * W + b), computed in the output buffer.
+     * The bias is written to the output buffer first and then accumulated into by the GEMM (beta = 1), so the bias
+     * addition happens as part of the matrix multiply instead of as a separate broadcast pass over a temporary array.
+     * The activation function is then applied in-place on the same buffer.
+     *
+     * @param out Output buffer. If null or the wrong shape, a new (uninitialized) array is allocated. The GEMM is only
+     *            done directly into a buffer that is 'f' order and not a view; for any other buffer of the correct
+     *            shape, the result is computed in a temporary array and then assigned to the buffer
+     * @return Activations
+     */
+    protected INDArray activateFusedInternal(INDArray out) {
+        INDArray W = getParamWithNoise(DefaultParamInitializer.WEIGHT_KEY, false);
+        int miniBatch = input.size(0);
+        int nOut = W.size(1);
+        if (out == null || out.rank() != 2 || out.size(0) != miniBatch || out.size(1) != nOut) {
+            out = Nd4j.createUninitialized(new int[] {miniBatch, nOut}, 'f');
+        }
+        //Gemm requires a contiguous, column-major result buffer
+        INDArray target = out.ordering() == 'f' && !out.isView() ? out
+                        : Nd4j.createUninitialized(new int[] {miniBatch, nOut}, 'f');
+
+        double beta = 0.0;
+        if (hasBias()) {
+            INDArray b = getParamWithNoise(DefaultParamInitializer.BIAS_KEY, false);
+            target.putiRowVector(b);
+            beta = 1.0;
+        }
+        Nd4j.gemm(input, W, target, false, false, 1.0, beta);
+
+        //Supported activation functions (see isFusedActivation) all operate in-place on the output buffer
+        INDArray ret = layerConf().getActivationFn().getActivation(target, false);
+        if (target != out) {
+            out.assign(ret);
+            return out;
+        }
+        return ret;
+    }
+
     @Override
     public double calcL2(boolean backpropParamsOnly) {
         double l2Sum = 0.0;
@@ -18,6 +18,7 @@
 
 package org.deeplearning4j.nn.layers;
 
+import org.deeplearning4j.nn.api.layers.FusedInferenceLayer;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.nd4j.linalg.api.ndarray.INDArray;
 
@@ -29,7 +30,8 @@ import org.nd4j.linalg.api.ndarray.INDArray;
  * @author Adam Gibson
  *
  */
-public class OutputLayer extends BaseOutputLayer<org.deeplearning4j.nn.conf.layers.OutputLayer> {
+public class OutputLayer extends BaseOutputLayer<org.deeplearning4j.nn.conf.layers.OutputLayer>
+                implements FusedInferenceLayer {
 
     public OutputLayer(NeuralNetConfiguration conf) {
         super(conf);
@@ -39,4 +41,19 @@ public class OutputLayer extends BaseOutputLayer<org.deeplearning4j.nn.conf.laye
         super(conf, input);
     }
 
+    @Override
+    protected boolean isFusedInferenceEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean canActivateFused(INDArray input) {
+        return canActivateFusedInternal(input);
+    }
+
+    @Override
+    public INDArray activateFused(INDArray input, INDArray output) {
+        setInput(input);
+        return activateFusedInternal(output);
+    }
 }
@@ -91,6 +91,14 @@ public class ConvolutionLayer extends BaseLayer<org.deeplearning4j.nn.conf.layer
                 }
             }
         }
+
+        if (helper == null && CpuConvolutionHelper.isEnabled()) {
+            //No cuDNN: use the CPU helper (Winograd/direct convolution where faster than im2col), if enabled
+            ConvolutionHelper cpuHelper = new CpuConvolutionHelper();
+            if (cpuHelper.checkSupported()) {
+                helper = cpuHelper;
+            }
+        }
     }
 
     @Override
@@ -184,6 +192,10 @@ public class ConvolutionLayer extends BaseLayer<org.deeplearning4j.nn.conf.layer
                             biasGradView, weightGradView, afn, layerConf().getCudnnAlgoMode(),
                             layerConf().getCudnnBwdFilterAlgo(), layerConf().getCudnnBwdDataAlgo(), convolutionMode, dilation);
             if (ret != null) {
+                if (!hasBias()) {
+                    //Helpers return a gradient for the dummy bias
+                    ret.getFirst().gradientForVariable().remove(ConvolutionParamInitializer.BIAS_KEY);
+                }
                 return ret;
             }
         }
@@ -0,0 +1,502 @@
+/*-
+ *
+ *  * Copyright 2017 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+package org.deeplearning4j.nn.layers.convolution;
+
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.conf.ConvolutionMode;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer.AlgoMode;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer.BwdDataAlgo;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer.BwdFilterAlgo;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer.FwdAlgo;
+import org.deeplearning4j.nn.gradient.DefaultGradient;
+import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.params.ConvolutionParamInitializer;
+import org.deeplearning4j.util.ConvolutionUtils;
+import org.nd4j.linalg.activations.IActivation;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.impl.broadcast.BroadcastAddOp;
+import org.nd4j.linalg.api.shape.Shape;
+import org.nd4j.linalg.convolution.Convolution;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.primitives.Pair;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.nd4j.linalg.indexing.NDArrayIndex.all;
+import static org.nd4j.linalg.indexing.NDArrayIndex.interval;
+
+/**
+ * CPU implementation of {@link ConvolutionHelper}. For each convolution configuration (input size and depth, kernel
+ * size, strides, padding, dilation and convolution mode), the forward pass uses one of the following algorithms:<br>
+ * - {@link Algorithm#IM2COL}: the standard im2col + gemm implementation in {@link ConvolutionLayer}<br>
+ * - {@link Algorithm#WINOGRAD}: Winograd F(2x2,3x3) convolution, for 3x3 kernels with stride 1 and no dilation. The
+ * padded input is split into overlapping 4x4 tiles, and the convolution is computed as 16 independent
+ * [outDepth,inDepth] x [inDepth,numTiles] matrix multiplications in the transformed domain. This requires 2.25x fewer
+ * multiplications than im2col, and the transformed input is approximately 4x the size of the input (vs. 9x for
+ * im2col)<br>
+ * - {@link Algorithm#DIRECT_1X1}: for 1x1 kernels without padding, one [outDepth,inDepth] x [inDepth,outH*outW] matrix
+ * multiplication per example, directly on the input (no im2col buffer). This is also used for backprop, but only
+ * when the forward pass uses it (i.e., when it was specified in the constructor, or selected by benchmarking)<br>
+ * <br>
+ * Unless an algorithm is specified in the constructor, the algorithm is selected by a one-time micro-benchmark of each
+ * of the supported algorithms, on the first forward pass for a given configuration. The selection is shared by all
+ * layers (and networks) with the same configuration.<br>
+ * Depthwise convolution ({@link SeparableConvolution2DLayer}) is implemented by the native sconv2d op and does not
+ * use this helper.<br>
+ * The helper is not used by default: to use it for convolution layers when cuDNN is not available, set the system
+ * property {@link #ENABLE_HELPER_PROPERTY} to "true" before the network is initialized.
+ */
+@Slf4j
+public class CpuConvolutionHelper implements ConvolutionHelper {
+
+    public static final String ENABLE_HELPER_PROPERTY = "org.deeplearning4j.convolution.cpuhelper.enable";
+    public static final int BENCHMARK_ITERATIONS = 3;
+
+    public enum Algorithm {
+        IM2COL, WINOGRAD, DIRECT_1X1
+    }
+
+    //Winograd F(2x2,3x3) transform matrices: Y = A^T [(G g G^T) .* (B^T d B)] A
+    private static final double[][] BT = {{1, 0, -1, 0}, {0, 1, 1, 0}, {0, -1, 1, 0}, {0, 1, 0, -1}};
+    private static final double[][] G = {{1, 0, 0}, {0.5, 0.5, 0.5}, {0.5, -0.5, 0.5}, {0, 0, 1}};
+    private static final double[][] AT = {{1, 1, 1, 0}, {0, 1, -1, -1}};
+
+    private static final Map<String, Algorithm> selectedAlgorithms = new ConcurrentHashMap<>();
+
+    private final Algorithm algorithm;
+
+    /**
+     * Create a helper that selects the algorithm for each configuration by benchmarking
+     */
+    public CpuConvolutionHelper() {
+        this(null);
+    }
+
+    /**
+     * @param algorithm Algorithm to use when supported for a configuration (im2col otherwise). If null: select the
+     *                  algorithm by benchmarking
+     */
+    public CpuConvolutionHelper(Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * @return The algorithms selected by benchmarking so far, keyed by configuration
+     */
+    public static Map<String, Algorithm> getSelectedAlgorithms() {
+        return Collections.unmodifiableMap(new HashMap<>(selectedAlgorithms));
+    }
+
+    /**
+     * Clear the algorithms selected by benchmarking: the benchmark will be repeated for each configuration
+     */
+    public static void clearSelectedAlgorithms() {
+        selectedAlgorithms.clear();
+    }
+
+    /**
+     * @return True if the helper has been enabled via the {@link #ENABLE_HELPER_PROPERTY} system property
+     */
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty(ENABLE_HELPER_PROPERTY, "false"));
+    }
+
+    @Override
+    public boolean checkSupported() {
+        Properties p = Nd4j.getExecutioner().getEnvironmentInformation();
+        return !"CUDA".equals(p.getProperty("backend"));
+    }
+
+    /**
+     * @return True if the given algorithm can be used for the given configuration
+     */
+    public static boolean isSupported(Algorithm algorithm, int[] kernel, int[] strides, int[] pad, int[] dilation) {
+        switch (algorithm) {
+            case WINOGRAD:
+                return kernel[0] == 3 && kernel[1] == 3 && strides[0] == 1 && strides[1] == 1 && dilation[0] == 1
+                                && dilation[1] == 1;
+            case DIRECT_1X1:
+                return kernel[0] == 1 && kernel[1] == 1 && pad[0] == 0 && pad[1] == 0;
+            case IM2COL:
+            default:
+                return true;
+        }
+    }
+
+    @Override
+    public Pair<Gradient, INDArray> backpropGradient(INDArray input, INDArray weights, INDArray delta, int[] kernel,
+                    int[] strides, int[] pad, INDArray biasGradView, INDArray weightGradView, IActivation afn,
+                    AlgoMode mode, BwdFilterAlgo bwdFilterAlgo, BwdDataAlgo bwdDataAlgo,
+                    ConvolutionMode convolutionMode, int[] dilation) {
+        if ((algorithm != null && algorithm != Algorithm.DIRECT_1X1)
+                        || !isSupported(Algorithm.DIRECT_1X1, kernel, strides, pad, dilation)) {
+            //Use the im2col/col2im implementation in ConvolutionLayer
+            return null;
+        }
+        if (algorithm == null && selectedAlgorithms.get(configurationKey(input, weights, kernel, strides, pad,
+                        dilation, convolutionMode)) != Algorithm.DIRECT_1X1) {
+            //Direct 1x1 was not selected by the forward pass benchmark (or no forward pass yet): use im2col/col2im
+            return null;
+        }
+
+        int miniBatch = input.size(0);
+        int inDepth = input.size(1);
+        int inH = input.size(2);
+        int inW = input.size(3);
+        int outDepth = weights.size(0);
+        int outH = delta.size(2);
+        int outW = delta.size(3);
+
+        INDArray in3d = subsampledInput3d(input, strides, outH, outW);
+        INDArray delta3d = as3d(delta, miniBatch, outDepth, outH * outW);
+        INDArray w2d = weights.reshape('c', outDepth, inDepth);
+        INDArray wGrad2d = Shape.newShapeNoCopy(weightGradView, new int[] {outDepth, inDepth}, false);
+
+        //Weight gradients: sum_i delta_i * x_i^T. Output is c order, hence calculate dW^T = sum_i x_i * delta_i^T
+        for (int i = 0; i < miniBatch; i++) {
+            Nd4j.gemm(in3d.tensorAlongDimension(i, 1, 2), delta3d.tensorAlongDimension(i, 1, 2),
+                            wGrad2d.transpose(), false, true, 1.0, (i == 0 ? 0.0 : 1.0));
+        }
+        biasGradView.assign(delta.sum(0, 2, 3));
+
+        INDArray epsNext = createOutput(new int[] {miniBatch, inDepth, inH, inW}, true);
+        boolean strided = strides[0] > 1 || strides[1] > 1;
+        INDArray eps = (strided ? Nd4j.create(new int[] {miniBatch, inDepth, outH, outW}, 'c') : epsNext);
+        INDArray eps3d = Shape.newShapeNoCopy(eps, new int[] {miniBatch, inDepth, outH * outW}, false);
+
+        //Epsilons: eps_i = W^T * delta_i. Again, calculate the transpose for c order output
+        for (int i = 0; i < miniBatch; i++) {
+            Nd4j.gemm(delta3d.tensorAlongDimension(i, 1, 2), w2d, eps3d.tensorAlongDimension(i, 1, 2).transpose(),
+                            true, false, 1.0, 0.0);
+        }
+        if (strided) {
+            //Inputs not used in the forward pass (due to the strides) have zero gradient
+            epsNext.assign(0);
+            epsNext.get(all(), all(), interval(0, strides[0], inH), interval(0, strides[1], inW)).assign(eps);
+        }
+
+        Gradient retGradient = new DefaultGradient();
+        retGradient.setGradientFor(ConvolutionParamInitializer.BIAS_KEY, biasGradView);
+        retGradient.setGradientFor(ConvolutionParamInitializer.WEIGHT_KEY, weightGradView, 'c');
+        return new Pair<>(retGradient, epsNext);
+    }
+
+    @Override
+    public INDArray preOutput(INDArray input, INDArray weights, INDArray bias, int[] kernel, int[] strides, int[] pad,
+                    AlgoMode mode, FwdAlgo fwdAlgo, ConvolutionMode convolutionMode, int[] dilation) {
+        int[] outSize = ConvolutionUtils.getOutputSize(input, kernel, strides,
+                        (convolutionMode == ConvolutionMode.Same ? null : pad), convolutionMode, dilation);
+
+        Algorithm a = selectAlgorithm(input, weights, bias, kernel, strides, pad, convolutionMode, dilation, outSize);
+        if (a == Algorithm.IM2COL) {
+            //Use the implementation in ConvolutionLayer, which can also cache the im2col array for backprop
+            return null;
+        }
+        return preOutput(a, input, weights, bias, kernel, strides, pad, convolutionMode, dilation, outSize, true);
+    }
+
+    @Override
+    public INDArray activate(INDArray z, IActivation afn) {
+        return null;
+    }
+
+    private static String configurationKey(INDArray input, INDArray weights, int[] kernel, int[] strides, int[] pad,
+                    int[] dilation, ConvolutionMode convolutionMode) {
+        return "inDepth=" + input.size(1) + ",outDepth=" + weights.size(0) + ",in=" + input.size(2) + "x"
+                        + input.size(3) + ",kernel=" + Arrays.toString(kernel) + ",strides="
+                        + Arrays.toString(strides) + ",pad=" + Arrays.toString(pad) + ",dilation="
+                        + Arrays.toString(dilation) + "," + convolutionMode;
+    }
+
+    protected Algorithm selectAlgorithm(INDArray input, INDArray weights, INDArray bias, int[] kernel, int[] strides,
+                    int[] pad, ConvolutionMode convolutionMode, int[] dilation, int[] outSize) {
+        if (algorithm != null) {
+            return isSupported(algorithm, kernel, strides, pad, dilation) ? algorithm : Algorithm.IM2COL;
+        }
+
+        List<Algorithm> candidates = new ArrayList<>();
+        for (Algorithm a : Algorithm.values()) {
+            if (isSupported(a, kernel, strides, pad, dilation)) {
+                candidates.add(a);
+            }
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        String key = configurationKey(input, weights, kernel, strides, pad, dilation, convolutionMode);
+        Algorithm selected = selectedAlgorithms.get(key);
+        if (selected != null) {
+            return selected;
+        }
+
+        long bestTime = Long.MAX_VALUE;
+        selected = Algorithm.IM2COL;
+        StringBuilder sb = new StringBuilder();
+        //Benchmark outside of any workspaces, so that the benchmark allocations don't increase the workspace sizes
+        try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            for (Algorithm a : candidates) {
+                //First iteration: warm-up
+                preOutput(a, input, weights, bias, kernel, strides, pad, convolutionMode, dilation, outSize, false);
+                long time = Long.MAX_VALUE;
+                for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                    long start = System.nanoTime();
+                    preOutput(a, input, weights, bias, kernel, strides, pad, convolutionMode, dilation, outSize,
+                                    false);
+                    time = Math.min(time, System.nanoTime() - start);
+                }
+                sb.append(a).append("=").append(time / 1000).append("us ");
+                if (time < bestTime) {
+                    bestTime = time;
+                    selected = a;
+                }
+            }
+        }
+        log.debug("Selected convolution algorithm {} for configuration ({}): {}", selected, key, sb);
+        selectedAlgorithms.put(key, selected);
+        return selected;
+    }
+
+    protected INDArray preOutput(Algorithm a, INDArray input, INDArray weights, INDArray bias, int[] kernel,
+                    int[] strides, int[] pad, ConvolutionMode convolutionMode, int[] dilation, int[] outSize,
+                    boolean useExternalWorkspace) {
+        switch (a) {
+            case WINOGRAD:
+                return winogradPreOutput(input, weights, bias, pad, outSize, useExternalWorkspace);
+            case DIRECT_1X1:
+                return direct1x1PreOutput(input, weights, bias, strides, outSize, useExternalWorkspace);
+            case IM2COL:
+            default:
+                return im2colPreOutput(input, weights, bias, kernel, strides, pad, convolutionMode, dilation, outSize);
+        }
+    }
+
+    /**
+     * Winograd F(2x2,3x3) forward pass. Each 2x2 output tile is calculated from a 4x4 input tile d and 3x3 filter g as
+     * Y = A^T [(G g G^T) .* (B^T d B)] A. The elementwise product, summed over input channels, becomes 16 matrix
+     * multiplications when the tiles of all examples are batched together.
+     */
+    protected INDArray winogradPreOutput(INDArray input, INDArray weights, INDArray bias, int[] pad, int[] outSize,
+                    boolean useExternalWorkspace) {
+        int miniBatch = input.size(0);
+        int inDepth = input.size(1);
+        int inH = input.size(2);
+        int inW = input.size(3);
+        int outDepth = weights.size(0);
+        int outH = outSize[0];
+        int outW = outSize[1];
+        int tilesH = (outH + 1) / 2;
+        int tilesW = (outW + 1) / 2;
+        int nTiles = miniBatch * tilesH * tilesW;
+
+        //Zero padded input, covering all (possibly partial) tiles
+        int paddedH = Math.max(2 * tilesH + 2, pad[0] + inH);
+        int paddedW = Math.max(2 * tilesW + 2, pad[1] + inW);
+        INDArray padded = Nd4j.create(new int[] {miniBatch, inDepth, paddedH, paddedW}, 'c');
+        padded.get(all(), all(), interval(pad[0], pad[0] + inH), interval(pad[1], pad[1] + inW)).assign(input);
+
+        //Input transform, V = B^T d B. Element (i,j) of every tile is a strided view, [miniBatch,inDepth,tilesH,tilesW]
+        INDArray[][] d = new INDArray[4][4];
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                d[i][j] = padded.get(all(), all(), interval(i, 2, i + 2 * tilesH - 1),
+                                interval(j, 2, j + 2 * tilesW - 1));
+            }
+        }
+        int[] tileShape = new int[] {miniBatch, inDepth, tilesH, tilesW};
+        INDArray[] v = new INDArray[16];
+        for (int k = 0; k < 4; k++) {
+            //Row k of B^T d, for each column j
+            INDArray[] t = new INDArray[4];
+            for (int j = 0; j < 4; j++) {
+                t[j] = linearCombination(BT[k], new INDArray[] {d[0][j], d[1][j], d[2][j], d[3][j]},
+                                Nd4j.createUninitialized(tileShape, 'c'));
+            }
+            for (int l = 0; l < 4; l++) {
+                //Layout [inDepth,miniBatch,tilesH,tilesW] so that the 2d [inDepth,nTiles] reshape is zero-copy
+                INDArray vkl = Nd4j.createUninitialized(new int[] {inDepth, miniBatch, tilesH, tilesW}, 'c');
+                linearCombination(BT[l], t, vkl.permute(1, 0, 2, 3));
+                v[4 * k + l] = Shape.newShapeNoCopy(vkl, new int[] {inDepth, nTiles}, false);
+            }
+        }
+
+        //Filter transform, U = G g G^T. Element (a,b) of every filter: column of the [outDepth*inDepth,9] weights
+        INDArray w2d = weights.reshape('c', outDepth * inDepth, 9);
+        INDArray[][] g = new INDArray[3][3];
+        for (int a = 0; a < 3; a++) {
+            for (int b = 0; b < 3; b++) {
+                g[a][b] = w2d.getColumn(3 * a + b);
+            }
+        }
+        INDArray[] u = new INDArray[16];
+        for (int i = 0; i < 4; i++) {
+            INDArray[] s = new INDArray[3];
+            for (int b = 0; b < 3; b++) {
+                s[b] = linearCombination(G[i], new INDArray[] {g[0][b], g[1][b], g[2][b]},
+                                Nd4j.createUninitialized(new int[] {outDepth * inDepth, 1}, 'c'));
+            }
+            for (int j = 0; j < 4; j++) {
+                INDArray uij = linearCombination(G[j], s,
+                                Nd4j.createUninitialized(new int[] {outDepth * inDepth, 1}, 'c'));
+                u[4 * i + j] = uij.reshape('c', outDepth, inDepth);
+            }
+        }
+
+        //Batched matrix multiplications: [outDepth,inDepth] x [inDepth,nTiles] for each of the 16 tile elements
+        INDArray[] m = new INDArray[16];
+        for (int p = 0; p < 16; p++) {
+            m[p] = u[p].mmul(v[p]);
+        }
+
+        //Output transform, Y = A^T M A, written to the 2x2 output tiles
+        INDArray z = createOutput(new int[] {miniBatch, outDepth, 2 * tilesH, 2 * tilesW}, useExternalWorkspace);
+        for (int a = 0; a < 2; a++) {
+            INDArray[] r = new INDArray[4];
+            for (int j = 0; j < 4; j++) {
+                r[j] = linearCombination(AT[a], new INDArray[] {m[j], m[4 + j], m[8 + j], m[12 + j]},
+                                Nd4j.createUninitialized(new int[] {outDepth, nTiles}, 'c'));
+            }
+            for (int b = 0; b < 2; b++) {
+                INDArray yab = linearCombination(AT[b], r,
+                                Nd4j.createUninitialized(new int[] {outDepth, nTiles}, 'c'));
+                z.get(all(), all(), interval(a, 2, 2 * tilesH), interval(b, 2, 2 * tilesW))
+                                .assign(yab.reshape('c', outDepth, miniBatch, tilesH, tilesW).permute(1, 0, 2, 3));
+            }
+        }
+        Nd4j.getExecutioner().exec(new BroadcastAddOp(z, bias, z, 1));
+
+        if (outH != 2 * tilesH || outW != 2 * tilesW) {
+            //Odd output size: last row/column of tiles is only partially used
+            z = z.get(all(), all(), interval(0, outH), interval(0, outW));
+        }
+        return z;
+    }
+
+    /**
+     * Direct forward pass for 1x1 kernels: one [outDepth,inDepth] x [inDepth,outH*outW] gemm per example
+     */
+    protected INDArray direct1x1PreOutput(INDArray input, INDArray weights, INDArray bias, int[] strides,
+                    int[] outSize, boolean useExternalWorkspace) {
+        int miniBatch = input.size(0);
+        int inDepth = input.size(1);
+        int outDepth = weights.size(0);
+        int outH = outSize[0];
+        int outW = outSize[1];
+
+        INDArray in3d = subsampledInput3d(input, strides, outH, outW);
+        INDArray w2d = weights.reshape('c', outDepth, inDepth);
+
+        INDArray z = createOutput(new int[] {miniBatch, outDepth, outH, outW}, useExternalWorkspace);
+        INDArray z3d = Shape.newShapeNoCopy(z, new int[] {miniBatch, outDepth, outH * outW}, false);
+        for (int i = 0; i < miniBatch; i++) {
+            //z_i = W * x_i. Output is c order, hence calculate z_i^T = x_i^T * W^T
+            Nd4j.gemm(in3d.tensorAlongDimension(i, 1, 2), w2d, z3d.tensorAlongDimension(i, 1, 2).transpose(), true,
+                            true, 1.0, 0.0);
+        }
+        Nd4j.getExecutioner().exec(new BroadcastAddOp(z, bias, z, 1));
+        return z;
+    }
+
+    /**
+     * im2col forward pass, as per {@link ConvolutionLayer}. Used only for benchmarking
+     */
+    protected INDArray im2colPreOutput(INDArray input, INDArray weights, INDArray bias, int[] kernel, int[] strides,
+                    int[] pad, ConvolutionMode convolutionMode, int[] dilation, int[] outSize) {
+        int miniBatch = input.size(0);
+        int outDepth = weights.size(0);
+        int inDepth = weights.size(1);
+        int kH = weights.size(2);
+        int kW = weights.size(3);
+        int outH = outSize[0];
+        int outW = outSize[1];
+
+        INDArray col = Nd4j.createUninitialized(new int[] {miniBatch, outH, outW, inDepth, kH, kW}, 'c');
+        INDArray col2 = col.permute(0, 3, 4, 5, 1, 2);
+        Convolution.im2col(input, kH, kW, strides[0], strides[1], pad[0], pad[1], dilation[0], dilation[1],
+                        convolutionMode == ConvolutionMode.Same, col2);
+        INDArray im2col2d = Shape.newShapeNoCopy(col, new int[] {miniBatch * outH * outW, inDepth * kH * kW}, false);
+        INDArray reshapedW = weights.permute(3, 2, 1, 0).reshape('f', kW * kH * inDepth, outDepth);
+
+        INDArray z = im2col2d.mmul(reshapedW);
+        z.addiRowVector(bias);
+        z = Shape.newShapeNoCopy(z, new int[] {outW, outH, miniBatch, outDepth}, true);
+        return z.permute(2, 3, 1, 0);
+    }
+
+    /**
+     * Input for 1x1 convolution, as [miniBatch,inDepth,outH*outW]: only every strides[0]'th row and strides[1]'th
+     * column of the input is used
+     */
+    private static INDArray subsampledInput3d(INDArray input, int[] strides, int outH, int outW) {
+        INDArray in = input;
+        if (strides[0] > 1 || strides[1] > 1) {
+            in = input.get(all(), all(), interval(0, strides[0], input.size(2)),
+                            interval(0, strides[1], input.size(3)));
+        }
+        return as3d(in, input.size(0), input.size(1), outH * outW);
+    }
+
+    private static INDArray as3d(INDArray arr, int d0, int d1, int d2) {
+        INDArray out = Shape.newShapeNoCopy(arr, new int[] {d0, d1, d2}, false);
+        if (out == null) {
+            out = arr.dup('c').reshape('c', d0, d1, d2);
+        }
+        return out;
+    }
+
+    /**
+     * out = sum_i coeffs[i] * arrays[i]. Coefficients of 0 are skipped
+     */
+    private static INDArray linearCombination(double[] coeffs, INDArray[] arrays, INDArray out) {
+        boolean first = true;
+        for (int i = 0; i < coeffs.length; i++) {
+            double c = coeffs[i];
+            if (c == 0.0) {
+                continue;
+            }
+            if (first) {
+                out.assign(arrays[i]);
+                if (c != 1.0) {
+                    out.muli(c);
+                }
+                first = false;
+            } else if (c == 1.0) {
+                out.addi(arrays[i]);
+            } else if (c == -1.0) {
+                out.subi(arrays[i]);
+            } else {
+                out.addi(arrays[i].mul(c));
+            }
+        }
+        return out;
+    }
+
+    private static INDArray createOutput(int[] shape, boolean useExternalWorkspace) {
+        if (useExternalWorkspace && Nd4j.getWorkspaceManager()
+                        .checkIfWorkspaceExistsAndActive(ComputationGraph.workspaceExternal)) {
+            try (MemoryWorkspace workspace = Nd4j.getWorkspaceManager()
+                            .getWorkspaceForCurrentThread(ComputationGraph.workspaceExternal).notifyScopeBorrowed()) {
+                return Nd4j.createUninitialized(shape, 'c');
+            }
+        }
+        return Nd4j.createUninitialized(shape, 'c');
+    }
+}
@@ -51,6 +51,14 @@ public class SeparableConvolution2DLayer extends ConvolutionLayer {
         super(conf, input);
     }
 
+    @Override
+    void initializeHelper() {
+        super.initializeHelper();
+        if (helper instanceof CpuConvolutionHelper) {
+            //CPU helper implements standard convolution only; separable convolution uses the native sconv2d op
+            helper = null;
+        }
+    }
 
     @Override
     public Pair<Gradient, INDArray> backpropGradient(INDArray epsilon) {
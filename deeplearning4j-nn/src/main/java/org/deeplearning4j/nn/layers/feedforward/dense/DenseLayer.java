@@ -1,5 +1,6 @@
 package org.deeplearning4j.nn.layers.feedforward.dense;
 
+import org.deeplearning4j.nn.api.layers.FusedInferenceLayer;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.layers.BaseLayer;
 import org.nd4j.linalg.api.ndarray.INDArray;
@@ -7,7 +8,8 @@ import org.nd4j.linalg.api.ndarray.INDArray;
 /**
  * @author Adam Gibson
  */
-public class DenseLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.DenseLayer> {
+public class DenseLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.DenseLayer>
+                implements FusedInferenceLayer {
     public DenseLayer(NeuralNetConfiguration conf) {
         super(conf);
     }
@@ -28,4 +30,20 @@ public class DenseLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.Dens
     public boolean hasBias(){
         return layerConf().hasBias();
     }
+
+    @Override
+    protected boolean isFusedInferenceEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean canActivateFused(INDArray input) {
+        return canActivateFusedInternal(input);
+    }
+
+    @Override
+    public INDArray activateFused(INDArray input, INDArray output) {
+        setInput(input);
+        return activateFusedInternal(output);
+    }
 }
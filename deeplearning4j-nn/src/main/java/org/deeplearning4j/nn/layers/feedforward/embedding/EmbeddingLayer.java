@@ -19,8 +19,8 @@
 package org.deeplearning4j.nn.layers.feedforward.embedding;
 
 import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.api.layers.SparseGradientLayer;
 import org.nd4j.linalg.api.ops.custom.ScatterUpdate;
-import org.nd4j.linalg.primitives.Pair;
 import org.deeplearning4j.exception.DL4JInvalidInputException;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
@@ -31,6 +31,8 @@ import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.primitives.Pair;
 
+import java.util.Arrays;
+
 /**Embedding layer: feed-forward layer that expects single integers per example as input (class numbers, in range 0 to numClass-1)
  * as input. This input has shape [numExamples,1] instead of [numExamples,numClasses] for the equivalent one-hot representation.
  * Mathematically, EmbeddingLayer is equivalent to using a DenseLayer with a one-hot representation for the input; however,
@@ -38,13 +40,21 @@ import org.nd4j.linalg.primitives.Pair;
  * with all but one value being zero).<br>
  * <b>Note</b>: can only be used as the first layer for a network<br>
  * <b>Note 2</b>: For a given example index i, the output is activationFunction(weights.getRow(i) + bias), hence the
- * weight rows can be considered a vector/embedding for each example.
+ * weight rows can be considered a vector/embedding for each example.<br>
+ * <b>Note 3</b>: If sparse gradients are enabled in the configuration, only the weight gradient rows for the indices
+ * in the current minibatch are non-zero (and only the rows from the previous minibatch are zeroed before backprop,
+ * unless the gradient view has been modified externally - see {@link SparseGradientLayer#invalidateGradientRows()}),
+ * and the updater applies lazy updates to those rows only. See {@link SparseGradientLayer}
  * @author Alex Black
  */
 @Slf4j
-public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.EmbeddingLayer> {
+public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.EmbeddingLayer>
+                implements SparseGradientLayer {
     private static final int[] DIM_1 = new int[]{1};
 
+    //Rows of the weight gradient that are (potentially) non-zero, as of the last backprop call
+    private int[] gradientRows;
+
     public EmbeddingLayer(NeuralNetConfiguration conf) {
         super(conf);
     }
@@ -61,13 +71,23 @@ public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.
         }
 
         INDArray weightGradients = gradientViews.get(DefaultParamInitializer.WEIGHT_KEY);
-        weightGradients.assign(0);
 
         int[] indexes = new int[input.length()];
         for (int i = 0; i < indexes.length; i++) {
             indexes[i] = input.getInt(i, 0);
         }
 
+        if (layerConf().isSparseGradients() && gradientRows != null) {
+            //Only the rows from the last minibatch can be non-zero: with lazy updates, the updater doesn't modify
+            // any other rows of the gradient view
+            for (int row : gradientRows) {
+                weightGradients.getRow(row).assign(0);
+            }
+        } else {
+            weightGradients.assign(0);
+        }
+        gradientRows = uniqueSorted(indexes);
+
         ScatterUpdate op = new ScatterUpdate(weightGradients, delta, indexes, DIM_1, ScatterUpdate.UpdateOp.ADD);
         Nd4j.getExecutioner().exec(op);
 
@@ -83,6 +103,43 @@ public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.
         return new Pair<>(ret, null); //Don't bother returning epsilons: no layer below this one...
     }
 
+    private static int[] uniqueSorted(int[] indexes) {
+        int[] sorted = Arrays.copyOf(indexes, indexes.length);
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    @Override
+    public boolean isSparseGradient(String paramName) {
+        return layerConf().isSparseGradients() && DefaultParamInitializer.WEIGHT_KEY.equals(paramName);
+    }
+
+    @Override
+    public int[] getGradientRows(String paramName) {
+        if (!isSparseGradient(paramName)) {
+            return null;
+        }
+        return gradientRows;
+    }
+
+    @Override
+    public void invalidateGradientRows() {
+        gradientRows = null;
+    }
+
+    @Override
+    public void setBackpropGradientsViewArray(INDArray gradients) {
+        super.setBackpropGradientsViewArray(gradients);
+        //New gradient view: contents are unknown
+        gradientRows = null;
+    }
+
     @Override
     public INDArray preOutput(boolean training) {
         if (input.columns() != 1) {
@@ -0,0 +1,337 @@
+/*-
+ *
+ *  * Copyright 2017 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+package org.deeplearning4j.nn.layers.recurrent;
+
+import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.gradient.DefaultGradient;
+import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.nd4j.linalg.activations.IActivation;
+import org.nd4j.linalg.activations.impl.ActivationSigmoid;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.impl.transforms.TimesOneMinus;
+import org.nd4j.linalg.api.ops.impl.transforms.arithmetic.OldMulOp;
+import org.nd4j.linalg.api.shape.Shape;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.primitives.Pair;
+
+import java.util.Map;
+import java.util.Properties;
+
+import static org.nd4j.linalg.indexing.NDArrayIndex.all;
+import static org.nd4j.linalg.indexing.NDArrayIndex.interval;
+
+/**
+ * CPU implementation of {@link LSTMHelper}, for LSTM layers without peephole connections and with sigmoid gate
+ * activations. Compared to the default implementation in {@link LSTMHelpers}:<br>
+ * - Forward pass: the input projection (input weights and biases) is calculated for all time steps in a single
+ * [miniBatch*timeSeriesLength,nIn] x [nIn,4*hiddenLayerSize] gemm, leaving only the recurrent gemm inside the time
+ * loop. The forget, output and input modulation gate activations are applied as a single op on the contiguous
+ * [miniBatch,3*hiddenLayerSize] block, and the outputs are written directly to the output array<br>
+ * - Backprop through time: the sigmoid derivatives for the three gates are calculated with a single op per time
+ * step, and the gate deltas for all time steps are stored, so that the input weight gradients, bias gradients and
+ * epsilons for the layer below are each calculated once (single gemm/reduction over all time steps) after the time
+ * loop, instead of once per time step<br>
+ * <br>
+ * The helper is not used by default: to use it for LSTM layers when cuDNN is not available, set the system property
+ * {@link #ENABLE_HELPER_PROPERTY} to "true" before the network is initialized.
+ */
+public class CpuLSTMHelper implements LSTMHelper {
+
+    public static final String ENABLE_HELPER_PROPERTY = "org.deeplearning4j.lstm.cpuhelper.enable";
+
+    /**
+     * @return True if the helper has been enabled via the {@link #ENABLE_HELPER_PROPERTY} system property
+     */
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty(ENABLE_HELPER_PROPERTY, "false"));
+    }
+
+    @Override
+    public boolean checkSupported(IActivation gateActivationFn, IActivation activationFn,
+                    boolean hasPeepholeConnections) {
+        Properties p = Nd4j.getExecutioner().getEnvironmentInformation();
+        return !"CUDA".equals(p.getProperty("backend")) && gateActivationFn instanceof ActivationSigmoid
+                        && !hasPeepholeConnections;
+    }
+
+    @Override
+    public FwdPassReturn activate(final Layer layer, final NeuralNetConfiguration conf,
+                    final IActivation gateActivationFn, final INDArray input, final INDArray recurrentWeights,
+                    final INDArray inputWeights, final INDArray biases, final boolean training,
+                    final INDArray prevOutputActivations, final INDArray prevMemCellState, boolean forBackprop,
+                    boolean forwards, final String inputWeightKey, INDArray maskArray,
+                    final boolean hasPeepholeConnections) {
+        if (hasPeepholeConnections || !(gateActivationFn instanceof ActivationSigmoid)) {
+            return null;
+        }
+
+        boolean is2dInput = input.rank() < 3; //Edge case of T=1, may have shape [m,nIn], equiv. to [m,nIn,1]
+        int timeSeriesLength = (is2dInput ? 1 : input.size(2));
+        int hiddenLayerSize = recurrentWeights.size(0);
+        int miniBatchSize = input.size(0);
+        IActivation afn = ((org.deeplearning4j.nn.conf.layers.BaseLayer) conf.getLayer()).getActivationFn();
+
+        INDArray recurrentWeightsIFOG = recurrentWeights.get(all(), interval(0, 4 * hiddenLayerSize)).dup('f');
+
+        //Input projection for all time steps: one gemm, rows ordered by time step then example
+        INDArray input2d = inputAs2d(input, is2dInput);
+        INDArray inputProjection = input2d.mmul(inputWeights); //Shape: [T*m,4*layerSize]
+        inputProjection.addiRowVector(biases);
+
+        FwdPassReturn toReturn = new FwdPassReturn();
+        if (forBackprop) {
+            toReturn.fwdPassOutputAsArrays = new INDArray[timeSeriesLength];
+            toReturn.memCellState = new INDArray[timeSeriesLength];
+            toReturn.memCellActivations = new INDArray[timeSeriesLength];
+            toReturn.iz = new INDArray[timeSeriesLength];
+            toReturn.ia = new INDArray[timeSeriesLength];
+            toReturn.fa = new INDArray[timeSeriesLength];
+            toReturn.oa = new INDArray[timeSeriesLength];
+            toReturn.ga = new INDArray[timeSeriesLength];
+            toReturn.ifogActivations = new INDArray[timeSeriesLength];
+        }
+        //F order to keep time steps together. Time step slices are also used as fwdPassOutputAsArrays
+        INDArray outputActivations = Nd4j.create(new int[] {miniBatchSize, hiddenLayerSize, timeSeriesLength}, 'f');
+        toReturn.fwdPassOutput = outputActivations;
+
+        INDArray prevAct = prevOutputActivations;
+        INDArray prevMemCell = prevMemCellState;
+        for (int iTimeIndex = 0; iTimeIndex < timeSeriesLength; iTimeIndex++) {
+            int time = (forwards ? iTimeIndex : timeSeriesLength - iTimeIndex - 1);
+
+            INDArray ifogActivations = inputProjection
+                            .get(interval(time * miniBatchSize, (time + 1) * miniBatchSize), all()).dup('f');
+            Nd4j.gemm(prevAct, recurrentWeightsIFOG, ifogActivations, false, false, 1.0, 1.0);
+
+            INDArray inputActivations = ifogActivations.get(all(), interval(0, hiddenLayerSize));
+            if (forBackprop) {
+                toReturn.iz[time] = inputActivations.dup('f');
+            }
+            afn.getActivation(inputActivations, training);
+            //Forget, output and input modulation gates: one contiguous block, one op
+            gateActivationFn.getActivation(ifogActivations.get(all(), interval(hiddenLayerSize, 4 * hiddenLayerSize)),
+                            training);
+
+            INDArray forgetGateActivations =
+                            ifogActivations.get(all(), interval(hiddenLayerSize, 2 * hiddenLayerSize));
+            INDArray outputGateActivations =
+                            ifogActivations.get(all(), interval(2 * hiddenLayerSize, 3 * hiddenLayerSize));
+            INDArray inputModGateActivations =
+                            ifogActivations.get(all(), interval(3 * hiddenLayerSize, 4 * hiddenLayerSize));
+
+            //Memory cell state: c = f .* cPrev + g .* i
+            INDArray currentMemoryCellState = Nd4j.createUninitialized(new int[] {miniBatchSize, hiddenLayerSize}, 'f');
+            Nd4j.getExecutioner().exec(new OldMulOp(forgetGateActivations, prevMemCell, currentMemoryCellState));
+            INDArray inputModMulInput;
+            if (forBackprop) {
+                inputModMulInput = Nd4j.getExecutioner().execAndReturn(new OldMulOp(inputModGateActivations,
+                                inputActivations, Nd4j.createUninitialized(inputActivations.shape(), 'f')));
+            } else {
+                inputModMulInput = inputModGateActivations.muli(inputActivations);
+            }
+            currentMemoryCellState.addi(inputModMulInput);
+
+            //LSTM unit outputs, written directly to the output array
+            INDArray currMemoryCellActivation = afn.getActivation(currentMemoryCellState.dup('f'), training);
+            INDArray currHiddenUnitActivations = outputActivations.tensorAlongDimension(time, 1, 0);
+            Nd4j.getExecutioner().exec(new OldMulOp(currMemoryCellActivation, outputGateActivations,
+                            currHiddenUnitActivations));
+
+            if (maskArray != null) {
+                //Mask array is present: bidirectional RNN -> need to zero out these activations to avoid
+                // incorrectly using activations from masked time steps (i.e., want 0 initialization in both directions)
+                INDArray timeStepMaskColumn = maskArray.getColumn(time);
+                currHiddenUnitActivations.muliColumnVector(timeStepMaskColumn);
+                currentMemoryCellState.muliColumnVector(timeStepMaskColumn);
+            }
+
+            if (forBackprop) {
+                toReturn.ia[time] = inputActivations;
+                toReturn.fa[time] = forgetGateActivations;
+                toReturn.oa[time] = outputGateActivations;
+                toReturn.ga[time] = inputModGateActivations;
+                toReturn.ifogActivations[time] = ifogActivations;
+                toReturn.fwdPassOutputAsArrays[time] = currHiddenUnitActivations;
+                toReturn.memCellState[time] = currentMemoryCellState;
+                toReturn.memCellActivations[time] = currMemoryCellActivation;
+            }
+
+            prevAct = currHiddenUnitActivations;
+            prevMemCell = currentMemoryCellState;
+        }
+
+        toReturn.lastAct = prevAct;
+        toReturn.lastMemCell = prevMemCell;
+        toReturn.prevAct = prevOutputActivations;
+        toReturn.prevMemCell = prevMemCellState;
+        return toReturn;
+    }
+
+    @Override
+    public Pair<Gradient, INDArray> backpropGradient(final NeuralNetConfiguration conf,
+                    final IActivation gateActivationFn, final INDArray input, final INDArray recurrentWeights,
+                    final INDArray inputWeights, final INDArray epsilon, final boolean truncatedBPTT,
+                    final int tbpttBackwardLength, final FwdPassReturn fwdPass, final boolean forwards,
+                    final String inputWeightKey, final String recurrentWeightKey, final String biasWeightKey,
+                    final Map<String, INDArray> gradientViews, INDArray maskArray,
+                    final boolean hasPeepholeConnections) {
+        if (hasPeepholeConnections || !(gateActivationFn instanceof ActivationSigmoid)
+                        || fwdPass.ifogActivations == null) {
+            //Forward pass was not done by this helper
+            return null;
+        }
+
+        int hiddenLayerSize = recurrentWeights.size(0);
+        int prevLayerSize = inputWeights.size(0);
+        int miniBatchSize = epsilon.size(0);
+        boolean is2dInput = epsilon.rank() < 3;
+        int timeSeriesLength = (is2dInput ? 1 : epsilon.size(2));
+        IActivation afn = ((org.deeplearning4j.nn.conf.layers.BaseLayer) conf.getLayer()).getActivationFn();
+
+        INDArray wIFOG = recurrentWeights.get(all(), interval(0, 4 * hiddenLayerSize));
+        INDArray iwGradientsOut = gradientViews.get(inputWeightKey);
+        INDArray rwGradientsOut = gradientViews.get(recurrentWeightKey);
+        INDArray bGradientsOut = gradientViews.get(biasWeightKey);
+        INDArray rwGradientsIFOG = rwGradientsOut.get(all(), interval(0, 4 * hiddenLayerSize));
+
+        //Gate deltas for all time steps, rows ordered by time step then example (as per the forward pass input
+        // projection). Zeros for time steps not reached in truncated BPTT
+        INDArray deltaifogAll = Nd4j.create(new int[] {timeSeriesLength * miniBatchSize, 4 * hiddenLayerSize}, 'f');
+
+        INDArray deltaifogNext = Nd4j.create(new int[] {miniBatchSize, 4 * hiddenLayerSize}, 'f');
+        INDArray deltai = deltaifogNext.get(all(), interval(0, hiddenLayerSize));
+        INDArray deltaf = deltaifogNext.get(all(), interval(hiddenLayerSize, 2 * hiddenLayerSize));
+        INDArray deltao = deltaifogNext.get(all(), interval(2 * hiddenLayerSize, 3 * hiddenLayerSize));
+        INDArray deltag = deltaifogNext.get(all(), interval(3 * hiddenLayerSize, 4 * hiddenLayerSize));
+        INDArray deltafog = deltaifogNext.get(all(), interval(hiddenLayerSize, 4 * hiddenLayerSize));
+
+        int endIdx = (truncatedBPTT ? Math.max(0, timeSeriesLength - tbpttBackwardLength) : 0);
+
+        MemoryWorkspace workspace = Nd4j.getMemoryManager().getCurrentWorkspace() != null && !Nd4j.getMemoryManager()
+                        .getCurrentWorkspace().getId().equals(ComputationGraph.workspaceExternal)
+                                        ? Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
+                                                        ComputationGraph.workspaceConfigurationLSTM,
+                                                        ComputationGraph.workspaceLSTM)
+                                        : null;
+
+        INDArray nablaCellStateNext = null;
+        for (int iTimeIndex = timeSeriesLength - 1; iTimeIndex >= endIdx; iTimeIndex--) {
+            if (workspace != null)
+                workspace.notifyScopeEntered();
+
+            int time = iTimeIndex;
+            int inext = 1;
+            if (!forwards) {
+                time = timeSeriesLength - iTimeIndex - 1;
+                inext = -1;
+            }
+
+            INDArray prevMemCellState = (iTimeIndex == 0 ? fwdPass.prevMemCell : fwdPass.memCellState[time - inext]);
+            INDArray prevHiddenUnitActivation =
+                            (iTimeIndex == 0 ? fwdPass.prevAct : fwdPass.fwdPassOutputAsArrays[time - inext]);
+            INDArray currMemCellState = fwdPass.memCellState[time];
+
+            //LSTM unit output errors: from the layer above, plus from the gates at the next time step
+            INDArray epsilonSlice = (is2dInput ? epsilon : epsilon.tensorAlongDimension(time, 1, 0));
+            INDArray nablaOut = Shape.toOffsetZeroCopy(epsilonSlice, 'f'); //Shape: [m,n^L]
+            if (iTimeIndex != timeSeriesLength - 1) {
+                Nd4j.gemm(deltaifogNext, wIFOG, nablaOut, false, true, 1.0, 1.0);
+            }
+
+            //Sigmoid derivative for the forget, output and input modulation gates, in one op: sigma' = a * (1-a)
+            INDArray ifogActivations = fwdPass.ifogActivations[time];
+            Nd4j.getExecutioner().exec(new TimesOneMinus(
+                            ifogActivations.get(all(), interval(hiddenLayerSize, 4 * hiddenLayerSize)), deltafog));
+
+            //Output gate delta
+            INDArray ao = fwdPass.oa[time];
+            deltao.muli(nablaOut).muli(fwdPass.memCellActivations[time]);
+
+            //Memory cell error
+            INDArray nablaCellState = afn.backprop(currMemCellState.dup('f'), ao.mul(nablaOut)).getFirst();
+            if (iTimeIndex != timeSeriesLength - 1) {
+                nablaCellState.addi(fwdPass.fa[time + inext].mul(nablaCellStateNext));
+            }
+            nablaCellStateNext = (workspace == null ? nablaCellState : nablaCellState.leverage());
+
+            //Forget gate delta. Previous memory cell state may be null at t=0 (no stored state)
+            if (prevMemCellState != null) {
+                deltaf.muli(nablaCellState).muli(prevMemCellState);
+            } else {
+                deltaf.assign(0);
+            }
+
+            //Input modulation gate delta
+            deltag.muli(nablaCellState).muli(fwdPass.ia[time]);
+
+            //Network input delta
+            INDArray temp = Nd4j.getExecutioner().execAndReturn(new OldMulOp(fwdPass.ga[time], nablaCellState,
+                            Nd4j.createUninitialized(deltai.shape(), 'f')));
+            deltai.assign(afn.backprop(fwdPass.iz[time], temp).getFirst());
+
+            if (maskArray != null) {
+                //Mask array is present: bidirectional RNN -> need to zero out these errors to avoid using errors from
+                // a masked time step to calculate the parameter gradients and epsilons
+                deltaifogNext.muliColumnVector(maskArray.getColumn(time));
+            }
+
+            //Recurrent weight gradients: these depend on the previous time step activations, so are done per step
+            if (prevHiddenUnitActivation != null) {
+                Nd4j.gemm(prevHiddenUnitActivation, deltaifogNext, rwGradientsIFOG, true, false, 1.0, 1.0);
+            }
+
+            deltaifogAll.get(interval(time * miniBatchSize, (time + 1) * miniBatchSize), all()).assign(deltaifogNext);
+
+            if (workspace != null)
+                workspace.close();
+        }
+
+        //Input weight gradients, bias gradients and epsilons: once for all time steps
+        INDArray input2d = inputAs2d(input, is2dInput);
+        Nd4j.gemm(input2d, deltaifogAll, iwGradientsOut, true, false, 1.0, 0.0);
+        bGradientsOut.assign(deltaifogAll.sum(0));
+
+        INDArray epsilonNext2d = deltaifogAll.mmul(inputWeights.transpose()); //Shape: [T*m,n^(L-1)]
+        INDArray epsilonNext = Nd4j.create(new int[] {miniBatchSize, prevLayerSize, timeSeriesLength}, 'f');
+        epsilonNext.assign(epsilonNext2d.reshape('c', timeSeriesLength, miniBatchSize, prevLayerSize).permute(1, 2,
+                        0));
+
+        Gradient retGradient = new DefaultGradient();
+        retGradient.gradientForVariable().put(inputWeightKey, iwGradientsOut);
+        retGradient.gradientForVariable().put(recurrentWeightKey, rwGradientsOut);
+        retGradient.gradientForVariable().put(biasWeightKey, bGradientsOut);
+
+        return new Pair<>(retGradient, epsilonNext);
+    }
+
+    /**
+     * Input as a 2d array of shape [T*m,nIn], with rows ordered by time step then example
+     */
+    private static INDArray inputAs2d(INDArray input, boolean is2dInput) {
+        if (is2dInput) {
+            return input;
+        }
+        int miniBatchSize = input.size(0);
+        int nIn = input.size(1);
+        int timeSeriesLength = input.size(2);
+        return input.permute(2, 0, 1).dup('c').reshape('c', timeSeriesLength * miniBatchSize, nIn);
+    }
+}
@@ -3,6 +3,9 @@ package org.deeplearning4j.nn.layers.recurrent;
 import lombok.extern.slf4j.Slf4j;
 import org.nd4j.linalg.api.ndarray.INDArray;
 
+import static org.nd4j.linalg.indexing.NDArrayIndex.all;
+import static org.nd4j.linalg.indexing.NDArrayIndex.interval;
+
 /**
  * Created by benny on 12/31/15.
  */
@@ -23,6 +26,9 @@ public class FwdPassReturn {
     public INDArray[] fz;
     public INDArray[] oz;
     public INDArray[] gz;
+    //All gate activations (post nonlinearity) as one [m,4*hiddenLayerSize] array per time step: [ia,fa,oa,ga]. Only
+    // set by CpuLSTMHelper, where ia, fa, oa and ga are views of these arrays
+    public INDArray[] ifogActivations;
     //Next 2: needed for rnnTimeStep only
     public INDArray lastAct;
     public INDArray lastMemCell;
@@ -40,6 +46,12 @@ public class FwdPassReturn {
         if (fwdPassOutput != null)
             fwdPassOutput = fwdPassOutput.leverageTo(id);
 
+        if (ifogActivations != null) {
+            //CpuLSTMHelper: gate activations and outputs per time step are views - leverage only the backing arrays
+            leverageViewsTo(id);
+            return;
+        }
+
         if (fwdPassOutputAsArrays != null)
             for (int i = 0; i < fwdPassOutputAsArrays.length; i++)
                 fwdPassOutputAsArrays[i] = fwdPassOutputAsArrays[i].leverageTo(id);
@@ -97,4 +109,41 @@ public class FwdPassReturn {
         //Don't want to leverage previous activations if present - assume that has already happened (either passed
         // externally, or was originally a lastAct/lastMemCell)
     }
+
+    private void leverageViewsTo(String id) {
+        //Last activations/memory cell state are the arrays for the last time step processed, if set
+        int lastActIdx = -1;
+        int lastMemCellIdx = -1;
+        for (int i = 0; i < ifogActivations.length; i++) {
+            if (lastAct == fwdPassOutputAsArrays[i])
+                lastActIdx = i;
+            if (lastMemCell == memCellState[i])
+                lastMemCellIdx = i;
+        }
+
+        for (int i = 0; i < ifogActivations.length; i++) {
+            ifogActivations[i] = ifogActivations[i].leverageTo(id);
+            int hiddenLayerSize = ifogActivations[i].size(1) / 4;
+            ia[i] = ifogActivations[i].get(all(), interval(0, hiddenLayerSize));
+            fa[i] = ifogActivations[i].get(all(), interval(hiddenLayerSize, 2 * hiddenLayerSize));
+            oa[i] = ifogActivations[i].get(all(), interval(2 * hiddenLayerSize, 3 * hiddenLayerSize));
+            ga[i] = ifogActivations[i].get(all(), interval(3 * hiddenLayerSize, 4 * hiddenLayerSize));
+
+            //Outputs for each time step are views of fwdPassOutput, shape [m,hiddenLayerSize,T]
+            fwdPassOutputAsArrays[i] = fwdPassOutput.tensorAlongDimension(i, 1, 0);
+            memCellState[i] = memCellState[i].leverageTo(id);
+            memCellActivations[i] = memCellActivations[i].leverageTo(id);
+            iz[i] = iz[i].leverageTo(id);
+        }
+
+        if (lastActIdx >= 0)
+            lastAct = fwdPassOutputAsArrays[lastActIdx];
+        else if (lastAct != null)
+            lastAct = lastAct.leverageTo(id);
+
+        if (lastMemCellIdx >= 0)
+            lastMemCell = memCellState[lastMemCellIdx];
+        else if (lastMemCell != null)
+            lastMemCell = lastMemCell.leverageTo(id);
+    }
 }
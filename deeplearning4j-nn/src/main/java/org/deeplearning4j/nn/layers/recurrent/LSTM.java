@@ -81,6 +81,14 @@ public class LSTM extends BaseRecurrentLayer<org.deeplearning4j.nn.conf.layers.L
                 }
             }
         }
+
+        if (helper == null && CpuLSTMHelper.isEnabled()) {
+            //No cuDNN: use the CPU helper (batched input projection and fused gates), if enabled and supported
+            LSTMHelper cpuHelper = new CpuLSTMHelper();
+            if (cpuHelper.checkSupported(layerConf().getGateActivationFn(), layerConf().getActivationFn(), false)) {
+                helper = cpuHelper;
+            }
+        }
     }
 
     @Override
@@ -20,6 +20,7 @@ package org.deeplearning4j.nn.multilayer;
 
 
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ArrayUtils;
@@ -31,9 +32,11 @@ import org.deeplearning4j.exception.DL4JException;
 import org.deeplearning4j.exception.DL4JInvalidInputException;
 import org.deeplearning4j.nn.api.*;
 import org.deeplearning4j.nn.api.Updater;
+import org.deeplearning4j.nn.api.layers.FusedInferenceLayer;
 import org.deeplearning4j.nn.api.layers.IOutputLayer;
 import org.deeplearning4j.nn.api.layers.RecurrentLayer;
 import org.deeplearning4j.nn.conf.*;
+import org.deeplearning4j.nn.conf.dropout.DropoutRandom;
 import org.deeplearning4j.nn.conf.inputs.InputType;
 import org.deeplearning4j.nn.conf.layers.BaseLayer;
 import org.deeplearning4j.nn.conf.layers.FeedForwardLayer;
@@ -43,6 +46,10 @@ import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.layers.FrozenLayer;
 import org.deeplearning4j.nn.layers.recurrent.RnnLossLayer;
 import org.deeplearning4j.nn.layers.recurrent.RnnOutputLayer;
+import org.deeplearning4j.nn.plan.ExecutionPlan;
+import org.deeplearning4j.nn.plan.ExecutionPlanCache;
+import org.deeplearning4j.nn.plan.ExecutionPlanKey;
+import org.deeplearning4j.nn.updater.MixedPrecision;
 import org.deeplearning4j.nn.updater.MultiLayerUpdater;
 import org.deeplearning4j.nn.updater.UpdaterCreator;
 import org.deeplearning4j.nn.weights.WeightInit;
@@ -58,6 +65,7 @@ import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
 import org.nd4j.linalg.api.memory.enums.*;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.rng.Random;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.dataset.api.MultiDataSet;
 import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
@@ -128,12 +136,27 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
 
     protected transient Solver solver; //Used to call optimizers during backprop
 
+    @Getter
+    protected transient ExecutionPlanCache executionPlanCache; //Null: execution plans disabled
+
+    @Getter
+    protected transient MixedPrecision mixedPrecision; //Null: mixed precision training disabled
+
+    @Getter
+    protected transient ActivationCheckpointing activationCheckpointing; //Null: activation checkpointing disabled
+    protected transient int[] checkpointSegmentEnd; //Per layer: end of the segment starting at that layer, or -1
+    protected transient int[] checkpointSegmentStart; //Per layer: start of the segment ending at that layer, or -1
+    protected transient boolean checkpointedForward; //True if the last forward pass only retained segment boundaries
+    protected transient long checkpointSeed;
+    protected transient Random checkpointRandom; //Dedicated RNG for dropout in checkpoint segments. Created lazily
+
     protected final static String workspaceExternal = "LOOP_EXTERNAL";
     protected final static String workspaceFeedForward = "LOOP_FF";
     protected final static String workspaceBackProp = "LOOP_BP";
     public final static String workspaceTBPTT = "LOOP_TBPTT";
+    protected final static String workspaceCheckpoint = "LOOP_CHECKPOINT";
 
-    protected final static WorkspaceConfiguration workspaceConfigurationExternal = WorkspaceConfiguration.builder()
+    protected WorkspaceConfiguration workspaceConfigurationExternal = WorkspaceConfiguration.builder()
                     .initialSize(0).overallocationLimit(0.3).policyLearning(LearningPolicy.FIRST_LOOP)
                     .policyReset(ResetPolicy.BLOCK_LEFT).policySpill(SpillPolicy.REALLOCATE)
                     .policyAllocation(AllocationPolicy.OVERALLOCATE).build();
@@ -143,6 +166,9 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
                     .policyLearning(LearningPolicy.OVER_TIME).policySpill(SpillPolicy.REALLOCATE)
                     .policyAllocation(AllocationPolicy.OVERALLOCATE).build();
 
+    //External workspace configuration for output/evaluation. If null: workspaceConfigurationExternal is used
+    protected WorkspaceConfiguration workspaceConfigurationInference;
+
     protected final static WorkspaceConfiguration workspaceConfigurationTBPTT = WorkspaceConfiguration.builder()
                     .initialSize(0).overallocationLimit(0.2).policyReset(ResetPolicy.BLOCK_LEFT)
                     .policyAllocation(AllocationPolicy.OVERALLOCATE).policySpill(SpillPolicy.REALLOCATE)
@@ -167,6 +193,93 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         }
     }
 
+    /**
+     * Set the execution plan cache to use for the public feed forward methods (feedForward, feedForwardToLayer).<br>
+     * When an execution plan cache is set, the network compiles one reusable plan per (input shape, training mode,
+     * mask presence) combination, with preallocated activation buffers, resolved workspaces and preprocessors, and
+     * no per-call collections. Plan hits and misses are reported by the cache.<br>
+     * <b>Note</b>: when execution plans are enabled, the activation arrays (and list) returned by the feed forward
+     * methods are reused and overwritten by the next call with the same plan. Use dup() if they need to be retained.
+     *
+     * @param executionPlanCache Cache to use. May be null, to disable execution plans (default)
+     */
+    public void setExecutionPlanCache(ExecutionPlanCache executionPlanCache) {
+        this.executionPlanCache = executionPlanCache;
+    }
+
+    /**
+     * Enable (or disable) mixed precision training for this network: half precision storage, with a single precision
+     * master copy of the parameters and updater state, and dynamic loss scaling. See {@link MixedPrecision} for
+     * details. The ND4J data type should be set to HALF before the network is created.<br>
+     * With mixed precision, the single precision updater state is held by the {@link MixedPrecision} instance rather
+     * than the network's updater. If this network already has an updater and mixed precision is enabled or disabled,
+     * the updater is re-created: any existing updater state is discarded.
+     *
+     * @param mixedPrecision Mixed precision configuration. May be null, to disable mixed precision training (default)
+     */
+    public void setMixedPrecision(MixedPrecision mixedPrecision) {
+        boolean changed = (this.mixedPrecision == null) != (mixedPrecision == null);
+        this.mixedPrecision = mixedPrecision;
+        if (changed && solver != null) {
+            solver.getOptimizer().setUpdater(UpdaterCreator.getUpdater(this));
+        }
+    }
+
+    /**
+     * Enable (or disable) activation checkpointing for this network. With activation checkpointing, only the
+     * activations at the boundaries of the configured layer ranges are retained during the forward pass: the
+     * activations inside each range are recomputed during backprop. See {@link ActivationCheckpointing} for details.
+     * Note that {@link TrainingListener#onForwardPass} receives null for the activations that are not retained.
+     *
+     * @param activationCheckpointing Checkpoint configuration, with layer ranges. May be null, to disable (default)
+     */
+    public void setActivationCheckpointing(ActivationCheckpointing activationCheckpointing) {
+        this.activationCheckpointing = activationCheckpointing;
+        this.checkpointSegmentStart = null;
+        this.checkpointSegmentEnd = null;
+    }
+
+    /**
+     * Set the configuration for the external (loop) workspace used by this network. This is mainly used to set the
+     * workspace initial size (see {@link org.deeplearning4j.util.MemorySizingUtils}).<br>
+     * Note that the configuration is only used when the workspace is first created for a given thread: it should be
+     * set before the first call to fit or output.
+     *
+     * @param workspaceConfigurationExternal Configuration for the external workspace
+     */
+    public void setWorkspaceConfigurationExternal(@NonNull WorkspaceConfiguration workspaceConfigurationExternal) {
+        this.workspaceConfigurationExternal = workspaceConfigurationExternal;
+    }
+
+    /**
+     * Set the configuration for the feed-forward workspace used by this network (WorkspaceMode.SEPARATE only).
+     * As per {@link #setWorkspaceConfigurationExternal(WorkspaceConfiguration)}, this should be set before the first
+     * call to fit or output.
+     *
+     * @param workspaceConfigurationFeedForward Configuration for the feed-forward workspace
+     */
+    public void setWorkspaceConfigurationFeedForward(@NonNull WorkspaceConfiguration workspaceConfigurationFeedForward) {
+        this.workspaceConfigurationFeedForward = workspaceConfigurationFeedForward;
+    }
+
+    /**
+     * Set the configuration for the external (loop) workspace when it is created by output or evaluation. By default,
+     * the same configuration as for training is used.<br>
+     * Note that training and inference share the external workspace on a given thread: this configuration is only used
+     * if output or evaluation is the first use of the workspace on that thread (for example, on inference-only
+     * threads).
+     *
+     * @param workspaceConfigurationInference Configuration for the external workspace, for inference. May be null
+     */
+    public void setWorkspaceConfigurationInference(WorkspaceConfiguration workspaceConfigurationInference) {
+        this.workspaceConfigurationInference = workspaceConfigurationInference;
+    }
+
+    protected WorkspaceConfiguration inferenceWorkspaceConfiguration() {
+        return workspaceConfigurationInference != null ? workspaceConfigurationInference
+                        : workspaceConfigurationExternal;
+    }
+
     public void setLastEtlTime(long time) {
         lastEtlTime.set(time);
     }
@@ -268,8 +381,7 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         MemoryWorkspace workspace =
                         layerWiseConfigurations.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
                                         : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
-                                                        ComputationGraph.workspaceConfigurationExternal,
-                                                        ComputationGraph.workspaceExternal);
+                                                        workspaceConfigurationExternal, workspaceExternal);
         MemoryWorkspace cache =
                         layerWiseConfigurations.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
                                         : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
@@ -787,7 +899,33 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
      * @return the activation from the previous layer
      */
     public INDArray activationFromPrevLayer(int curr, INDArray input, boolean training) {
-        if (getLayerWiseConfigurations().getInputPreProcess(curr) != null) {
+        return activationFromPrevLayer(curr, input, training, getLayerWiseConfigurations().getInputPreProcess(curr));
+    }
+
+    /**
+     * Calculate activation from previous layer, using the specified (already resolved) preprocessor
+     *
+     * @param curr         the current layer
+     * @param input        the input
+     * @param training     training or test mode
+     * @param preProcessor the input preprocessor for the current layer. May be null.
+     * @return the activation from the previous layer
+     */
+    protected INDArray activationFromPrevLayer(int curr, INDArray input, boolean training,
+                    InputPreProcessor preProcessor) {
+        INDArray ret = layers[curr].activate(preProcessInput(input, preProcessor), training);
+        return ret;
+    }
+
+    /**
+     * Apply the input preprocessor (if any) for a layer to its input
+     *
+     * @param input        the input
+     * @param preProcessor the input preprocessor for the layer. May be null.
+     * @return the preprocessed input
+     */
+    protected INDArray preProcessInput(INDArray input, InputPreProcessor preProcessor) {
+        if (preProcessor != null) {
             if (Nd4j.getWorkspaceManager().checkIfWorkspaceExistsAndActive(workspaceExternal)
                     && Nd4j.getMemoryManager().getCurrentWorkspace() != Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceExternal)) {
                 //WS single, or FF as part of backprop
@@ -795,15 +933,13 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
                 //allocate 1 array (i.e., the new output), so this is usually preferable in practice
                 try (MemoryWorkspace wsB = Nd4j.getWorkspaceManager()
                         .getWorkspaceForCurrentThread(workspaceExternal).notifyScopeBorrowed()) {
-                    input = getLayerWiseConfigurations().getInputPreProcess(curr).preProcess(input, getInputMiniBatchSize());
+                    input = preProcessor.preProcess(input, getInputMiniBatchSize());
                 }
             } else {
-                input = getLayerWiseConfigurations().getInputPreProcess(curr).preProcess(input, getInputMiniBatchSize());
+                input = preProcessor.preProcess(input, getInputMiniBatchSize());
             }
         }
-
-        INDArray ret = layers[curr].activate(input, training);
-        return ret;
+        return input;
     }
 
     /**
@@ -943,6 +1079,27 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
     }
 
     protected List<INDArray> feedForwardToLayer(int layerNum, boolean train, boolean publicApi) {
+        return feedForwardToLayer(layerNum, train, publicApi, false);
+    }
+
+    /**
+     * Feed forward to the specified layer.
+     *
+     * @param checkpoint If true, and activation checkpointing is enabled: only the activations at the checkpoint
+     *                   segment boundaries are retained (as required for backprop). The returned list contains null
+     *                   entries for the activations inside each segment. Only used for training, with publicApi false
+     */
+    protected List<INDArray> feedForwardToLayer(int layerNum, boolean train, boolean publicApi, boolean checkpoint) {
+        if (publicApi && executionPlanCache != null) {
+            return feedForwardToLayerWithPlan(layerNum, train);
+        }
+
+        checkpoint = checkpoint && train && !publicApi && resolveCheckpointSegments();
+        checkpointedForward = checkpoint;
+        if (checkpoint) {
+            checkpointSeed = Nd4j.getRandom().nextLong();
+        }
+
         // TODO: maybe remove that?
         INDArray currInput =
                         layerWiseConfigurations.getTrainingWorkspaceMode() == WorkspaceMode.NONE || !input.isAttached()
@@ -958,17 +1115,43 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
                                         : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
                                                         workspaceConfigurationFeedForward, workspaceFeedForward);
 
+        MemoryWorkspace wsCheckpoint = null;
+        int segmentStart = -1;
+        int segmentEnd = -1;
         for (int i = 0; i <= layerNum; i++) {
+            if (checkpoint && checkpointSegmentEnd[i] > i && checkpointSegmentEnd[i] <= layerNum) {
+                segmentStart = i;
+                segmentEnd = checkpointSegmentEnd[i];
+                wsCheckpoint = openCheckpointWorkspace();
+            }
+            //Activations inside a checkpoint segment are only needed until the next layer has been computed
+            boolean segmentInterior = i >= segmentStart && i < segmentEnd;
+
             // log.info("Activating layer: {}", i);
             try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
-                currInput = activationFromPrevLayer(i, currInput, train);
+                boolean checkpointRng = segmentStart >= 0 && i > segmentStart && reseedForCheckpoint(i);
+                try {
+                    currInput = activationFromPrevLayer(i, currInput, train);
+                } finally {
+                    if (checkpointRng)
+                        DropoutRandom.clear();
+                }
 
                 if(publicApi){
                     currInput = currInput.detach();
+                } else if (segmentInterior) {
+                    currInput = currInput.leverageTo(workspaceCheckpoint);
                 } else {
                     currInput = currInput.leverageTo(workspaceExternal);
                 }
-                activations.add(currInput);
+                activations.add(segmentInterior ? null : currInput);
+            }
+
+            if (i == segmentEnd) {
+                closeCheckpointSegment(wsCheckpoint, segmentStart, segmentEnd);
+                wsCheckpoint = null;
+                segmentStart = -1;
+                segmentEnd = -1;
             }
         }
 
@@ -983,6 +1166,65 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         return activations;
     }
 
+    /**
+     * Feed forward to the specified layer using a cached {@link ExecutionPlan}, compiling one if required.
+     * Activations are copied into the plan's preallocated buffers instead of being detached, and the returned list
+     * is owned by the plan.
+     */
+    protected List<INDArray> feedForwardToLayerWithPlan(int layerNum, boolean train) {
+        WorkspaceMode workspaceMode = layerWiseConfigurations.getTrainingWorkspaceMode();
+        INDArray currInput = workspaceMode == WorkspaceMode.NONE || !input.isAttached() ? input : input.migrate();
+
+        ExecutionPlanKey key = ExecutionPlanKey.of(currInput, train, hasLayerMaskArrays(), workspaceMode, layerNum);
+        ExecutionPlan plan = executionPlanCache.get(key);
+        if (plan == null) {
+            InputPreProcessor[] preProcessors = new InputPreProcessor[layerNum + 1];
+            for (int i = 0; i <= layerNum; i++) {
+                preProcessors[i] = layerWiseConfigurations.getInputPreProcess(i);
+            }
+            if (workspaceMode == WorkspaceMode.SINGLE) {
+                plan = new ExecutionPlan(key, layerNum + 2, preProcessors, workspaceExternal, null);
+            } else {
+                plan = new ExecutionPlan(key, layerNum + 2, preProcessors, workspaceFeedForward,
+                                workspaceConfigurationFeedForward);
+            }
+            executionPlanCache.put(plan);
+        }
+
+        plan.set(0, currInput);
+        MemoryWorkspace workspace = plan.getWorkspace();
+        InputPreProcessor[] preProcessors = plan.getPreProcessors();
+        for (int i = 0; i <= layerNum; i++) {
+            try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
+                if (!train && preProcessors[i] == null && plan.getBuffer(i + 1) != null
+                                && layers[i] instanceof FusedInferenceLayer
+                                && ((FusedInferenceLayer) layers[i]).canActivateFused(currInput)) {
+                    //Write directly into the plan's buffer: no intermediate arrays, no copy
+                    currInput = ((FusedInferenceLayer) layers[i]).activateFused(currInput, plan.getBuffer(i + 1));
+                } else {
+                    currInput = activationFromPrevLayer(i, currInput, train, preProcessors[i]);
+                }
+                currInput = plan.store(i + 1, currInput);
+            }
+        }
+
+        if (!train && workspaceMode == WorkspaceMode.SEPARATE)
+            Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceFeedForward).initializeWorkspace();
+
+        clearLayersStates();    //Ensure INDArrays in layer input fields don't leak out of workspace (via .input() etc)
+        plan.markUsed();
+
+        return plan.getActivationList();
+    }
+
+    protected boolean hasLayerMaskArrays() {
+        for (Layer l : layers) {
+            if (l.getMaskArray() != null)
+                return true;
+        }
+        return false;
+    }
+
     /**
      * Compute activations from input to output of the output layer
      *
@@ -1044,7 +1286,8 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         MultiLayerNetwork ret = new MultiLayerNetwork(conf);
         ret.init(this.params().dup(), false);
 
-        if (solver != null) {
+        //With mixed precision, the updater state is held by MixedPrecision (which is not cloned)
+        if (solver != null && mixedPrecision == null) {
             //If  solver is null: updater hasn't been initialized -> getUpdater call will force initialization, however
             Updater u = this.getUpdater();
             INDArray updaterState = u.getStateViewArray();
@@ -1122,6 +1365,10 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         if (flattenedParams == params) {
             return; //No op
         }
+        if (mixedPrecision != null) {
+            //Master parameters are re-initialized from the new parameters on the next update
+            mixedPrecision.reset();
+        }
 
         if (flattenedParams != null && params.length() == flattenedParams.length()) {
             if (params != flattenedParams) {
@@ -1355,6 +1602,7 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
                 throw new IllegalStateException("No labels found");
             outputLayer.setLabels(labels);
             currPair = outputLayer.backpropGradient(null);
+            applyLossScale(currPair);
 
             for (Map.Entry<String, INDArray> entry : currPair.getFirst().gradientForVariable().entrySet()) {
                 String origName = entry.getKey();
@@ -1383,8 +1631,22 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
                                                                         workspaceConfigurationFeedForward,
                                                                         workspaceFeedForward);
 
+        //Activation checkpointing: the activations inside each segment are recomputed just before the segment is
+        // backpropagated, in the checkpoint workspace - which is then closed once the segment is done
+        boolean checkpoint = checkpointedForward && withOutputLayer;
+        checkpointedForward = false;
+        MemoryWorkspace wsCheckpoint = null;
+        int segmentStart = -1;
+        int segmentEnd = -1;
+
         // Calculate gradients for previous layers & drops output layer in count
         for (int j = layerFrom; j >= 0; j--) {
+            if (checkpoint && checkpointSegmentStart[j] >= 0 && checkpointSegmentStart[j] < j) {
+                segmentStart = checkpointSegmentStart[j];
+                segmentEnd = j;
+                wsCheckpoint = recomputeCheckpointSegment(segmentStart, segmentEnd, workspace);
+            }
+
             try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
                 currLayer = getLayer(j);
                 if (currLayer instanceof FrozenLayer) {
@@ -1415,6 +1677,16 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
+
+            if (j == segmentStart) {
+                closeCheckpointSegment(wsCheckpoint, segmentStart, segmentEnd);
+                wsCheckpoint = null;
+                segmentStart = -1;
+            }
+        }
+        if (wsCheckpoint != null) {
+            //Backprop stopped early (frozen layers)
+            closeCheckpointSegment(wsCheckpoint, segmentStart, segmentEnd);
         }
 
         if (layerWiseConfigurations.getTrainingWorkspaceMode() == WorkspaceMode.SEPARATE) {
@@ -1534,6 +1806,131 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         }
     }
 
+    /**
+     * Resolve the activation checkpoint segments for this network, if required
+     *
+     * @return True if activation checkpointing should be used
+     */
+    protected boolean resolveCheckpointSegments() {
+        if (activationCheckpointing == null)
+            return false;
+        if (layerWiseConfigurations.getTrainingWorkspaceMode() == WorkspaceMode.SINGLE) {
+            OneTimeLogger.warn(log, "Activation checkpointing is not supported with WorkspaceMode.SINGLE (all "
+                            + "activations share one workspace): checkpointing is disabled");
+            return false;
+        }
+        if (checkpointSegmentEnd == null) {
+            int[] start = new int[layers.length];
+            int[] end = new int[layers.length];
+            Arrays.fill(start, -1);
+            Arrays.fill(end, -1);
+            for (int[] r : activationCheckpointing.resolveLayerRanges(layers.length)) {
+                end[r[0]] = r[1];
+                start[r[1]] = r[0];
+            }
+            checkpointSegmentStart = start;
+            checkpointSegmentEnd = end;
+        }
+        return true;
+    }
+
+    protected MemoryWorkspace openCheckpointWorkspace() {
+        if (layerWiseConfigurations.getTrainingWorkspaceMode() == WorkspaceMode.NONE)
+            return new DummyWorkspace();
+        return Nd4j.getWorkspaceManager().getAndActivateWorkspace(workspaceConfigurationFeedForward,
+                        workspaceCheckpoint);
+    }
+
+    /**
+     * Release the activations inside a checkpoint segment: clear the layer inputs that reference them, and close the
+     * checkpoint workspace scope so that its memory is reused by the next segment
+     */
+    protected void closeCheckpointSegment(MemoryWorkspace wsCheckpoint, int segmentStart, int segmentEnd) {
+        for (int k = segmentStart + 1; k <= segmentEnd; k++) {
+            layers[k].setInput(null);
+        }
+        wsCheckpoint.close();
+    }
+
+    /**
+     * Recompute the activations inside a checkpoint segment, from the (retained) input of the first layer in the
+     * segment. This sets the input of each layer in the segment, as required for backprop. The output of the last
+     * layer in the segment is retained from the forward pass, so that layer is only activated again if it has
+     * dropout (which is applied to its input during activation); otherwise only its input is set.
+     *
+     * @return The open checkpoint workspace holding the recomputed activations
+     */
+    protected MemoryWorkspace recomputeCheckpointSegment(int segmentStart, int segmentEnd, MemoryWorkspace workspace) {
+        MemoryWorkspace wsCheckpoint = openCheckpointWorkspace();
+        INDArray curr;
+        try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
+            //Input for the first layer is retained, including any dropout already applied to it
+            curr = layers[segmentStart].activate(true).leverageTo(workspaceCheckpoint);
+        }
+        for (int k = segmentStart + 1; k < segmentEnd; k++) {
+            try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
+                boolean checkpointRng = reseedForCheckpoint(k);
+                try {
+                    curr = activationFromPrevLayer(k, curr, true).leverageTo(workspaceCheckpoint);
+                } finally {
+                    if (checkpointRng)
+                        DropoutRandom.clear();
+                }
+            }
+        }
+
+        InputPreProcessor preProcessor = getLayerWiseConfigurations().getInputPreProcess(segmentEnd);
+        try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
+            if (ActivationCheckpointing.hasDropout(layers[segmentEnd])) {
+                boolean checkpointRng = reseedForCheckpoint(segmentEnd);
+                try {
+                    activationFromPrevLayer(segmentEnd, curr, true, preProcessor);
+                } finally {
+                    if (checkpointRng)
+                        DropoutRandom.clear();
+                }
+            } else {
+                layers[segmentEnd].setInput(preProcessInput(curr, preProcessor));
+            }
+        }
+        return wsCheckpoint;
+    }
+
+    /**
+     * Before a layer with dropout inside a checkpoint segment: reseed the network's dedicated checkpoint RNG, and use
+     * it for dropout on this thread - so that the same dropout mask is used in the forward pass and when the
+     * activations are recomputed. The global RNG is not reseeded. If this returns true, {@link DropoutRandom#clear()}
+     * must be called once the layer has been activated
+     *
+     * @return True if the checkpoint RNG is now used for dropout
+     */
+    protected boolean reseedForCheckpoint(int layerIdx) {
+        if (!ActivationCheckpointing.isStochastic(layers[layerIdx])) {
+            return false;
+        }
+        if (checkpointRandom == null) {
+            checkpointRandom = Nd4j.getRandomFactory().getNewRandomInstance(checkpointSeed);
+        }
+        checkpointRandom.setSeed(checkpointSeed + layerIdx);
+        DropoutRandom.set(checkpointRandom);
+        return true;
+    }
+
+    /**
+     * Mixed precision training: multiply the output layer gradients and epsilon by the current loss scale, so that
+     * small gradients don't underflow during backprop. The gradients are unscaled by the updater.
+     */
+    protected void applyLossScale(Pair<Gradient, INDArray> outputLayerPair) {
+        if (mixedPrecision == null)
+            return;
+        double scale = mixedPrecision.getLossScale();
+        for (INDArray g : outputLayerPair.getFirst().gradientForVariable().values()) {
+            g.muli(scale);
+        }
+        if (outputLayerPair.getSecond() != null)
+            outputLayerPair.getSecond().muli(scale);
+    }
+
     /** Equivalent to backprop(), but calculates gradient for truncated BPTT instead. */
     protected void truncatedBPTTGradient() {
         synchronizeIterEpochCounts();
@@ -1565,6 +1962,7 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         LinkedList<Pair<String, INDArray>> gradientList = new LinkedList<>();
 
         Pair<Gradient, INDArray> currPair = outputLayer.backpropGradient(null);
+        applyLossScale(currPair);
 
         for (Map.Entry<String, INDArray> entry : currPair.getFirst().gradientForVariable().entrySet()) {
             multiGradientKey = String.valueOf(numLayers - 1) + "_" + entry.getKey();
@@ -1941,7 +2339,7 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         MemoryWorkspace workspace =
                 layerWiseConfigurations.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
                         : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
-                        workspaceConfigurationExternal, workspaceExternal);
+                        inferenceWorkspaceConfiguration(), workspaceExternal);
 
         INDArray ret = null;
         try (MemoryWorkspace wsE = workspace.notifyScopeEntered()) {
@@ -1973,7 +2371,7 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         MemoryWorkspace workspace =
                         layerWiseConfigurations.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
                                         : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
-                                                        workspaceConfigurationExternal, workspaceExternal);
+                                                        inferenceWorkspaceConfiguration(), workspaceExternal);
 
         try (MemoryWorkspace wsE = workspace.notifyScopeEntered()) {
             INDArray ret = silentOutput(input, train, featuresMask, labelsMask).detach();
@@ -2295,7 +2693,7 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
                 //First: do a feed-forward through the network
                 //Note that we don't actually need to do the full forward pass through the output layer right now; but we do
                 // need the input to the output layer to be set (such that backprop can be done)
-                List<INDArray> activations = feedForwardToLayer(layers.length - 2, true, false);
+                List<INDArray> activations = feedForwardToLayer(layers.length - 2, true, false, true);
                 if (trainingListeners.size() > 0) {
                     //TODO: We possibly do want output layer activations in some cases here...
                     for (TrainingListener tl : trainingListeners) {
@@ -2456,6 +2854,10 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
 
     public void setLayers(Layer[] layers) {
         this.layers = layers;
+        if (executionPlanCache != null)
+            executionPlanCache.clear();
+        checkpointSegmentStart = null;
+        checkpointSegmentEnd = null;
     }
 
     public INDArray getMask() {
@@ -2913,6 +3315,18 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
      * @param iterator   data to evaluate on
      */
     public <T extends IEvaluation> T[] doEvaluation(DataSetIterator iterator, T... evaluations) {
+        return doEvaluation(iterator, 0, evaluations);
+    }
+
+    /**
+     * Perform evaluation using arbitrary IEvaluation instances, optionally accumulating the evaluation metrics on
+     * separate threads - so that network output and metric accumulation overlap. See {@link ShardedEvaluator}.
+     *
+     * @param iterator       data to evaluate on
+     * @param numEvalThreads number of threads for metric accumulation. If 0: accumulate on the calling thread
+     * @param evaluations    IEvaluation instances
+     */
+    public <T extends IEvaluation> T[] doEvaluation(DataSetIterator iterator, int numEvalThreads, T... evaluations) {
         if (!iterator.hasNext() && iterator.resetSupported()) {
             iterator.reset();
         }
@@ -2925,7 +3339,7 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         MemoryWorkspace workspace =
                         layerWiseConfigurations.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
                                         : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
-                                                        workspaceConfigurationExternal, workspaceExternal);
+                                                        inferenceWorkspaceConfiguration(), workspaceExternal);
 
         //First: let's determine if we should do 'split feed forward' for long time series
         //The idea: RNN 20k time steps. Train using TBPTT length 100 -> 200 segments of length 100. If we naively
@@ -2935,74 +3349,94 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         // to test without splitting also
         boolean useRnnSegments = (layerWiseConfigurations.getBackpropType() == BackpropType.TruncatedBPTT);
 
-        while (iter.hasNext()) {
-            DataSet next = iter.next();
-
-            if (next.getFeatureMatrix() == null || next.getLabels() == null)
-                break;
-
-            MemoryWorkspace workspaceT =
-                    layerWiseConfigurations.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
-                            : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
-                            workspaceConfigurationTBPTT, workspaceTBPTT);
+        ShardedEvaluator<T> evaluator = null;
+        if (numEvalThreads > 0)
+            evaluator = new ShardedEvaluator<>(evaluations, numEvalThreads);
 
-            try (MemoryWorkspace wsB = workspace.notifyScopeEntered()) {
-
-                INDArray features = next.getFeatures();
-                INDArray labels = next.getLabels();
-                INDArray fMask = next.getFeaturesMaskArray();
-                INDArray lMask = next.getLabelsMaskArray();
+        try {
+            while (iter.hasNext()) {
+                DataSet next = iter.next();
 
+                if (next.getFeatureMatrix() == null || next.getLabels() == null)
+                    break;
 
+                MemoryWorkspace workspaceT =
+                        layerWiseConfigurations.getTrainingWorkspaceMode() == WorkspaceMode.NONE ? new DummyWorkspace()
+                                : Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
+                                workspaceConfigurationTBPTT, workspaceTBPTT);
 
-                if(!useRnnSegments){
-                    //Standard/non-RNN case:
-                    INDArray out;
-                    if (next.hasMaskArrays()) {
-                        out = this.silentOutput(features, false, fMask, lMask);
-                    } else {
-                        out = this.silentOutput(features, false);
-                    }
+                try (MemoryWorkspace wsB = workspace.notifyScopeEntered()) {
 
-                    try (MemoryWorkspace wsO = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
-                        for (T evaluation : evaluations)
-                            evaluation.eval(labels, out, lMask);
-                    }
-                } else {
-                    rnnClearPreviousState();
+                    INDArray features = next.getFeatures();
+                    INDArray labels = next.getLabels();
+                    INDArray fMask = next.getFeaturesMaskArray();
+                    INDArray lMask = next.getLabelsMaskArray();
 
 
-                    //Get subset of features and labels:
-                    int fwdLen = layerWiseConfigurations.getTbpttFwdLength();
-                    int tsLength = features.size(2);
-                    int nSubsets = tsLength / fwdLen;
-                    if (tsLength % fwdLen != 0)
-                        nSubsets++; //Example: 100 fwdLen with timeSeriesLength=120 -> want 2 subsets (1 of size 100, 1 of size 20)
-                    for (int i = 0; i < nSubsets; i++) {
-                        int startTimeIdx = i * fwdLen;
-                        int endTimeIdx = Math.min(startTimeIdx + fwdLen, tsLength);
-                        INDArray[] subsets = getSubsetsForTbptt(startTimeIdx, endTimeIdx, features, labels, fMask, lMask);
 
-                        try (MemoryWorkspace wsT = workspaceT.notifyScopeEntered()) {
-                            setLayerMaskArrays(subsets[2], subsets[3]);
+                    if(!useRnnSegments){
+                        //Standard/non-RNN case:
+                        INDArray out;
+                        if (next.hasMaskArrays()) {
+                            out = this.silentOutput(features, false, fMask, lMask);
+                        } else {
+                            out = this.silentOutput(features, false);
+                        }
 
-                            INDArray outSub = rnnTimeStep(subsets[0]);
-                            try (MemoryWorkspace wsO = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                        try (MemoryWorkspace wsO = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                            if (evaluator != null) {
+                                evaluator.eval(labels, out, lMask);
+                            } else {
                                 for (T evaluation : evaluations)
-                                    evaluation.eval(subsets[1], outSub, subsets[3]);
+                                    evaluation.eval(labels, out, lMask);
+                            }
+                        }
+                    } else {
+                        rnnClearPreviousState();
+
+
+                        //Get subset of features and labels:
+                        int fwdLen = layerWiseConfigurations.getTbpttFwdLength();
+                        int tsLength = features.size(2);
+                        int nSubsets = tsLength / fwdLen;
+                        if (tsLength % fwdLen != 0)
+                            nSubsets++; //Example: 100 fwdLen with timeSeriesLength=120 -> want 2 subsets (1 of size 100, 1 of size 20)
+                        for (int i = 0; i < nSubsets; i++) {
+                            int startTimeIdx = i * fwdLen;
+                            int endTimeIdx = Math.min(startTimeIdx + fwdLen, tsLength);
+                            INDArray[] subsets = getSubsetsForTbptt(startTimeIdx, endTimeIdx, features, labels, fMask, lMask);
+
+                            try (MemoryWorkspace wsT = workspaceT.notifyScopeEntered()) {
+                                setLayerMaskArrays(subsets[2], subsets[3]);
+
+                                INDArray outSub = rnnTimeStep(subsets[0]);
+                                try (MemoryWorkspace wsO = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                                    if (evaluator != null) {
+                                        evaluator.eval(subsets[1], outSub, subsets[3]);
+                                    } else {
+                                        for (T evaluation : evaluations)
+                                            evaluation.eval(subsets[1], outSub, subsets[3]);
+                                    }
+                                }
                             }
                         }
                     }
                 }
+
+                clearLayerMaskArrays();
             }
 
-            clearLayerMaskArrays();
-        }
+            if (iterator.asyncSupported())
+                ((AsyncDataSetIterator) iter).shutdown();
 
-        if (iterator.asyncSupported())
-            ((AsyncDataSetIterator) iter).shutdown();
+            layerWiseConfigurations.setTrainingWorkspaceMode(cMode);
 
-        layerWiseConfigurations.setTrainingWorkspaceMode(cMode);
+            if (evaluator != null)
+                evaluator.finish();
+        } finally {
+            if (evaluator != null)
+                evaluator.shutdown();
+        }
 
         return evaluations;
     }
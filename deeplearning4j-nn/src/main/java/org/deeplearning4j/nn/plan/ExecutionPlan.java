@@ -0,0 +1,151 @@
+package org.deeplearning4j.nn.plan;
+
+import lombok.Getter;
+import org.deeplearning4j.nn.conf.InputPreProcessor;
+import org.deeplearning4j.nn.conf.WorkspaceMode;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.memory.abstracts.DummyWorkspace;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An ExecutionPlan is a reusable, compiled description of a forward pass for one {@link ExecutionPlanKey}.<br>
+ * It holds:<br>
+ * - The resolved workspace (name and configuration) to use for each layer/vertex scope<br>
+ * - The resolved input preprocessors (MultiLayerNetwork only)<br>
+ * - Preallocated (detached) activation buffers, one per layer/vertex<br>
+ * - The activations list/map returned to the caller, created once and reused on every call<br>
+ * <br>
+ * The activation buffers are allocated on the first call (the plan "miss") and are then reused via
+ * {@link INDArray#assign(INDArray)} on subsequent calls. Consequently, the arrays returned by a plan-based forward
+ * pass are overwritten by the next forward pass that uses the same plan: callers that need to retain activations
+ * across calls should dup() them.
+ */
+public class ExecutionPlan {
+
+    @Getter
+    private final ExecutionPlanKey key;
+    @Getter
+    private final InputPreProcessor[] preProcessors;
+    private final String workspaceName;
+    private final WorkspaceConfiguration workspaceConfiguration;
+    private final MemoryWorkspace dummyWorkspace;
+
+    private final INDArray[] buffers;
+    private final List<INDArray> activationList;
+    private final Map<String, INDArray> activationMap;
+    @Getter
+    private long useCount;
+
+    /**
+     * @param key                    Key for this plan
+     * @param numBuffers             Number of activation buffers (including any input entries)
+     * @param preProcessors          Resolved preprocessors, one per layer. May be null.
+     * @param workspaceName          Name of the workspace to use for each scope. Null for WorkspaceMode.NONE
+     * @param workspaceConfiguration Configuration for the workspace. Null to use the workspace manager default
+     */
+    public ExecutionPlan(ExecutionPlanKey key, int numBuffers, InputPreProcessor[] preProcessors,
+                    String workspaceName, WorkspaceConfiguration workspaceConfiguration) {
+        this.key = key;
+        this.preProcessors = preProcessors;
+        this.workspaceName = (key.getWorkspaceMode() == WorkspaceMode.NONE ? null : workspaceName);
+        this.workspaceConfiguration = workspaceConfiguration;
+        this.dummyWorkspace = (this.workspaceName == null ? new DummyWorkspace() : null);
+        this.buffers = new INDArray[numBuffers];
+        this.activationList = Arrays.asList(buffers);
+        this.activationMap = new HashMap<>();
+    }
+
+    /**
+     * @return The workspace to use for each layer/vertex scope in this plan, for the current thread
+     */
+    public MemoryWorkspace getWorkspace() {
+        if (workspaceName == null)
+            return dummyWorkspace;
+        if (workspaceConfiguration == null)
+            return Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceName);
+        return Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceConfiguration, workspaceName);
+    }
+
+    /**
+     * Store the given activations in the buffer with the specified index, returning the buffer.<br>
+     * On the first call for a given index (or if the shape has changed) a detached copy is made; on subsequent calls
+     * the values are assigned to the existing buffer, with no allocation.
+     *
+     * @param idx        Index of the buffer
+     * @param activation Activations to store. May be in a workspace
+     * @return The (detached) buffer containing the activations
+     */
+    public INDArray store(int idx, INDArray activation) {
+        INDArray buffer = buffers[idx];
+        if (buffer == null || !Arrays.equals(buffer.shape(), activation.shape())) {
+            //Always copy on first use: a layer may return its input unmodified (dropout at test time, for example),
+            // and we must never assign into arrays that the user (or another buffer) owns
+            buffer = activation.isAttached() ? activation.detach() : activation.dup();
+            buffers[idx] = buffer;
+        } else if (buffer != activation) {
+            buffer.assign(activation);
+        }
+        return buffer;
+    }
+
+    /**
+     * @return The buffer with the specified index, or null if it has not yet been allocated
+     */
+    public INDArray getBuffer(int idx) {
+        return buffers[idx];
+    }
+
+    /**
+     * Set the buffer with the specified index directly, without copying. Used for the network input entries.
+     */
+    public void set(int idx, INDArray array) {
+        buffers[idx] = array;
+    }
+
+    /**
+     * @return The (fixed size) activations list backed by this plan's buffers
+     */
+    public List<INDArray> getActivationList() {
+        return activationList;
+    }
+
+    /**
+     * @return The activations map for this plan. Entries are replaced in place on each call
+     */
+    public Map<String, INDArray> getActivationMap() {
+        return activationMap;
+    }
+
+    /**
+     * @return True if the plan has been executed at least once (i.e., buffers are allocated)
+     */
+    public boolean isCompiled() {
+        return useCount > 0;
+    }
+
+    /**
+     * Record one use of this plan. Should be called by the network at the end of each forward pass.
+     */
+    public void markUsed() {
+        useCount++;
+    }
+
+    /**
+     * @return Number of bytes currently held by this plan's activation buffers
+     */
+    public long getBufferBytes() {
+        long bytes = 0;
+        for (INDArray b : buffers) {
+            if (b != null)
+                bytes += b.length() * Nd4j.sizeOfDataType();
+        }
+        return bytes;
+    }
+}
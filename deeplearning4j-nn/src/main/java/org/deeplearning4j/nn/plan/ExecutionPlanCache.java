@@ -0,0 +1,142 @@
+package org.deeplearning4j.nn.plan;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded (least recently used) cache of {@link ExecutionPlan}s, used by
+ * {@link org.deeplearning4j.nn.multilayer.MultiLayerNetwork} and {@link org.deeplearning4j.nn.graph.ComputationGraph}
+ * to avoid re-deciding workspace scopes and re-allocating activation containers and arrays on every forward pass.<br>
+ * Plan hits, misses and evictions are counted, and can be obtained via {@link #getHits()}, {@link #getMisses()},
+ * {@link #getEvictions()} or {@link #stats()}.
+ */
+@Slf4j
+public class ExecutionPlanCache {
+
+    public static final int DEFAULT_MAX_PLANS = 8;
+
+    @Getter
+    private final int maxPlans;
+    private final LinkedHashMap<ExecutionPlanKey, ExecutionPlan> plans;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ExecutionPlanCache() {
+        this(DEFAULT_MAX_PLANS);
+    }
+
+    /**
+     * @param maxPlans Maximum number of plans to retain. Least recently used plans are evicted first
+     */
+    public ExecutionPlanCache(final int maxPlans) {
+        if (maxPlans <= 0)
+            throw new IllegalArgumentException("Maximum number of plans must be positive: got " + maxPlans);
+        this.maxPlans = maxPlans;
+        this.plans = new LinkedHashMap<ExecutionPlanKey, ExecutionPlan>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ExecutionPlanKey, ExecutionPlan> eldest) {
+                if (size() > ExecutionPlanCache.this.maxPlans) {
+                    evictions.incrementAndGet();
+                    log.debug("Evicting execution plan for key {}", eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get the plan for the given key, if one exists. Records a hit or a miss.
+     *
+     * @param key Plan key
+     * @return The plan, or null if no plan exists for this key
+     */
+    public synchronized ExecutionPlan get(ExecutionPlanKey key) {
+        ExecutionPlan plan = plans.get(key);
+        if (plan == null) {
+            misses.incrementAndGet();
+            log.debug("Execution plan miss for key {}", key);
+        } else {
+            hits.incrementAndGet();
+        }
+        return plan;
+    }
+
+    /**
+     * Add a newly compiled plan to the cache
+     */
+    public synchronized void put(ExecutionPlan plan) {
+        plans.put(plan.getKey(), plan);
+    }
+
+    /**
+     * Remove all plans (and their buffers) from the cache. Statistics are not reset.
+     */
+    public synchronized void clear() {
+        plans.clear();
+    }
+
+    /**
+     * Reset the hit/miss/eviction counters
+     */
+    public void resetStats() {
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized int size() {
+        return plans.size();
+    }
+
+    /**
+     * @return Fraction of lookups that were plan hits, or 0.0 if no lookups have been made
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : h / (double) total;
+    }
+
+    /**
+     * @return Total number of bytes held in activation buffers by all cached plans
+     */
+    public synchronized long getBufferBytes() {
+        long bytes = 0;
+        for (ExecutionPlan p : plans.values()) {
+            bytes += p.getBufferBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return A human readable summary of the cache statistics
+     */
+    public String stats() {
+        return "ExecutionPlanCache(plans=" + size() + "/" + maxPlans + ", hits=" + getHits() + ", misses="
+                        + getMisses() + ", evictions=" + getEvictions() + ", hitRate="
+                        + String.format("%.4f", getHitRate()) + ", bufferBytes=" + getBufferBytes() + ")";
+    }
+
+    @Override
+    public String toString() {
+        return stats();
+    }
+}
@@ -0,0 +1,52 @@
+package org.deeplearning4j.nn.plan;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.deeplearning4j.nn.conf.WorkspaceMode;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.Serializable;
+
+/**
+ * Key used to look up a compiled {@link ExecutionPlan} in an {@link ExecutionPlanCache}.<br>
+ * Two forward passes can share the same plan if they have the same input shapes, the same training flag, the same
+ * mask presence and the same workspace mode. The "target" field is used by the network to distinguish between
+ * different forward pass variants (for example, feed forward up to layer X in a MultiLayerNetwork, or the
+ * excludeOutputLayers/includeNonLayerVertexActivations flags in a ComputationGraph)
+ */
+@Data
+@AllArgsConstructor
+public class ExecutionPlanKey implements Serializable {
+
+    private final int[][] inputShapes;
+    private final boolean train;
+    private final boolean hasMasks;
+    private final WorkspaceMode workspaceMode;
+    private final int target;
+
+    /**
+     * Create a key for the given input arrays
+     *
+     * @param inputs        Network inputs
+     * @param train         Training mode
+     * @param hasMasks      Whether any mask arrays are present
+     * @param workspaceMode Workspace mode used for the forward pass
+     * @param target        Network-specific forward pass target (last layer index, flags, etc)
+     */
+    public static ExecutionPlanKey of(INDArray[] inputs, boolean train, boolean hasMasks, WorkspaceMode workspaceMode,
+                    int target) {
+        int[][] shapes = new int[inputs.length][0];
+        for (int i = 0; i < inputs.length; i++) {
+            shapes[i] = inputs[i].shape();
+        }
+        return new ExecutionPlanKey(shapes, train, hasMasks, workspaceMode, target);
+    }
+
+    /**
+     * Create a key for a single input array
+     */
+    public static ExecutionPlanKey of(INDArray input, boolean train, boolean hasMasks, WorkspaceMode workspaceMode,
+                    int target) {
+        return new ExecutionPlanKey(new int[][] {input.shape()}, train, hasMasks, workspaceMode, target);
+    }
+}
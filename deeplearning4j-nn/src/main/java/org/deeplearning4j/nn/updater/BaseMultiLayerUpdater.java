@@ -16,6 +16,7 @@ import org.nd4j.linalg.api.ops.DynamicCustomOp;
 import org.nd4j.linalg.api.ops.impl.accum.Norm2;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.learning.config.IUpdater;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -41,6 +42,9 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
     protected Map<String, Layer> layersByName;
     protected final List<UpdaterBlock> updaterBlocks;
     protected INDArray updaterStateViewArray;
+    protected double gradientScale = 1.0;
+    //True if the state for updaters with a single precision implementation is held by MixedPrecision, not here
+    protected final boolean mixedPrecisionState;
 
     public BaseMultiLayerUpdater(T network) {
         this(network, null);
@@ -53,6 +57,7 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
      */
     public BaseMultiLayerUpdater(T network, INDArray updaterState) {
         this.network = network;
+        this.mixedPrecisionState = getMixedPrecision() != null;
         Layer[] layers = getOrderedLayers();
 
         int updaterStateSize = 0;
@@ -76,8 +81,11 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
                 for (int j = 0; j < variables.size(); j++) {
                     String var = variables.get(j);
                     int paramSizeThisVariable = layerParamTable.get(var).length();
-                    int updaterStateSizeThisVariable = (int) layers[i].conf().getLayer().getUpdaterByParam(var)
-                                    .stateSize(paramSizeThisVariable);
+                    IUpdater u = layers[i].conf().getLayer().getUpdaterByParam(var);
+                    //With mixed precision, the state for most updaters is held (in single precision) by MixedPrecision
+                    int updaterStateSizeThisVariable =
+                                    mixedPrecisionState && MixedPrecision.hasSinglePrecisionUpdater(u) ? 0
+                                                    : (int) u.stateSize(paramSizeThisVariable);
 
                     INDArray gradientViewSubset = null;
                     INDArray paramsViewSubset = null;
@@ -89,8 +97,11 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
                     }
 
                     //First: decide whether to add to the existing updater block, or create a new one
-                    if (currentBlock == null || !UpdaterUtils.updaterConfigurationsEquals(lastLayer, lastVariable,
-                                    layers[i], var)) {
+                    //Params with sparse gradients always get a block of their own, for lazy updates
+                    if (currentBlock == null || UpdaterUtils.isSparseGradientParam(layers[i], var)
+                                    || UpdaterUtils.isSparseGradientParam(lastLayer, lastVariable)
+                                    || !UpdaterUtils.updaterConfigurationsEquals(lastLayer, lastVariable, layers[i],
+                                                    var)) {
                         //Create a new block
                         List<UpdaterBlock.ParamState> list = new ArrayList<>();
                         list.add(new UpdaterBlock.ParamState(layers[i], var, paramsViewSoFar,
@@ -153,7 +164,10 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
                 ub.setGradientView(gradientViewSubset);
             }
 
-            ub.init();
+            if (!mixedPrecisionState || !MixedPrecision.hasSinglePrecisionUpdater(ub)) {
+                //Otherwise: no updater state here, and the updater is only instantiated if required
+                ub.init();
+            }
 
             updaterViewSoFar += viewStateSize;
             paramsViewSoFar += gradSize;
@@ -182,6 +196,13 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
      */
     protected abstract boolean isMiniBatch();
 
+    /**
+     * @return The mixed precision configuration for the model, or null if mixed precision training is not enabled
+     */
+    protected MixedPrecision getMixedPrecision() {
+        return null;
+    }
+
     /**
      * Set the view array. Note that this does an assign operation - the provided array is not stored internally.
      *
@@ -215,6 +236,8 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
      * 1. Pre-apply: gradient clipping, etc on a per-layer basis
      * 2. Execute the updater (Adam, Nesterov momentum, etc) - in blocks of layers at a time
      * 3. Divide by minibatch size
+     * If mixed precision training is enabled (see {@link MixedPrecision}), steps 2 and 3 are performed in single
+     * precision on the master copy of the parameters instead.
      *
      * @param gradient  Gradient to updater
      * @param iteration The current iteration (i.e., number of parameter updates so far)
@@ -227,6 +250,26 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
         // hence should be the same object under normal circumstances
         boolean isExternal = gradient.gradient() != getFlattenedGradientsView();
 
+        MixedPrecision mixedPrecision = getMixedPrecision();
+        if (mixedPrecisionState != (mixedPrecision != null)) {
+            throw new IllegalStateException("Mixed precision training was "
+                            + (mixedPrecisionState ? "enabled" : "disabled") + " when this updater was created, but is "
+                            + "now " + (mixedPrecisionState ? "disabled" : "enabled") + ": a new updater is required");
+        }
+        if (mixedPrecision != null && isExternal) {
+            //External gradients are loss-scaled, and would have to be applied to this network's master parameters
+            throw new IllegalStateException("Mixed precision training does not support external gradients");
+        }
+        gradientScale = 1.0;
+        if (mixedPrecision != null) {
+            if (!mixedPrecision.checkGradients(getFlattenedGradientsView())) {
+                //Overflow in the loss-scaled gradients: skip this update entirely (the loss scale has been reduced)
+                getFlattenedGradientsView().assign(0);
+                return;
+            }
+            gradientScale = mixedPrecision.getLossScale();
+        }
+
         //Split up the gradients on a per-layer basis, for pre-apply
         Map<String, Gradient> layerGradients = new HashMap<>();
 
@@ -261,6 +304,11 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
             preApply(layer, layerGradients.get(layerName), iteration);
         }
 
+        if (mixedPrecision != null) {
+            mixedPrecision.step(this, iteration, epoch, batchSize);
+            return;
+        }
+
 
         //Apply the updaters in blocks. This also applies LR and momentum schedules, L1 and L2
         //
@@ -297,6 +345,11 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
             //OK even with pretrain layers: their gradients will get modified during next backprop iteration
             if (isExternal) {
                 gradient.gradient().divi(batchSize);
+            } else if (hasSparseUpdaterBlocks()) {
+                //Only divide the updated rows for sparse blocks: all other rows are zero
+                for (UpdaterBlock ub : updaterBlocks) {
+                    ub.divideGradient(batchSize);
+                }
             } else {
                 //Standard case
                 getFlattenedGradientsView().divi(batchSize);
@@ -304,6 +357,15 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
         }
     }
 
+    protected boolean hasSparseUpdaterBlocks() {
+        for (UpdaterBlock ub : updaterBlocks) {
+            if (ub.isSparseUpdaterBlock()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     protected boolean isSingleLayerUpdater() {
         return false;
     }
@@ -327,20 +389,21 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
         if (normalization == null || normalization == GradientNormalization.None || layer.conf().isPretrain())
             return; //no op
 
-        final double threshold = bLayer.getGradientNormalizationThreshold();
+        //Gradients may be loss-scaled (mixed precision training): thresholds and normalized values are scaled to match
+        final double threshold = bLayer.getGradientNormalizationThreshold() * gradientScale;
         INDArray layerGradientView = layer.getGradientsViewArray();
 
         switch (normalization) {
             case RenormalizeL2PerLayer:
                 if (layerGradientView != null) {
                     double l2 = layerGradientView.norm2Number().doubleValue();
-                    layerGradientView.divi(l2);
+                    layerGradientView.divi(l2 / gradientScale);
                 }
                 break;
             case RenormalizeL2PerParamType:
                 for (INDArray g : gradient.gradientForVariable().values()) {
                     double l2 = Nd4j.getExecutioner().execAndReturn(new Norm2(g)).getFinalResult().doubleValue();
-                    g.divi(l2);
+                    g.divi(l2 / gradientScale);
                 }
                 break;
             case ClipElementWiseAbsoluteValue:
@@ -0,0 +1,106 @@
+package org.deeplearning4j.nn.updater;
+
+import lombok.Getter;
+
+/**
+ * Dynamic loss scaling for mixed precision training (see {@link MixedPrecision}).<br>
+ * With half precision gradients, small gradient values underflow to zero. To avoid this, the gradients at the
+ * network output are multiplied by a loss scale S before backpropagation, and the parameter gradients are divided by S
+ * (in single precision) before the updater is applied.<br>
+ * The loss scale is adjusted dynamically:<br>
+ * - If the (scaled) gradients contain NaN or infinite values, the parameter update is skipped and the loss scale is
+ * multiplied by the backoff factor<br>
+ * - After growthInterval consecutive updates without overflow, the loss scale is multiplied by the growth factor<br>
+ */
+@Getter
+public class LossScaler {
+
+    public static final double DEFAULT_INITIAL_SCALE = 32768.0;
+    public static final double DEFAULT_GROWTH_FACTOR = 2.0;
+    public static final double DEFAULT_BACKOFF_FACTOR = 0.5;
+    public static final int DEFAULT_GROWTH_INTERVAL = 1000;
+    public static final double DEFAULT_MIN_SCALE = 1.0;
+    public static final double DEFAULT_MAX_SCALE = 1 << 24;
+
+    private final double growthFactor;
+    private final double backoffFactor;
+    private final int growthInterval;
+    private final double minScale;
+    private final double maxScale;
+
+    private double scale;
+    private int stepsSinceOverflow;
+    private long overflowCount;
+
+    /**
+     * Create a loss scaler with the default configuration
+     */
+    public LossScaler() {
+        this(DEFAULT_INITIAL_SCALE, DEFAULT_GROWTH_FACTOR, DEFAULT_BACKOFF_FACTOR, DEFAULT_GROWTH_INTERVAL);
+    }
+
+    /**
+     * @param initialScale   Initial loss scale. Must be in range [DEFAULT_MIN_SCALE, DEFAULT_MAX_SCALE]
+     * @param growthFactor   Factor to multiply the loss scale by after growthInterval updates without overflow
+     * @param backoffFactor  Factor to multiply the loss scale by after an overflow. Must be in range (0,1)
+     * @param growthInterval Number of consecutive updates without overflow before the loss scale is increased
+     */
+    public LossScaler(double initialScale, double growthFactor, double backoffFactor, int growthInterval) {
+        this(initialScale, growthFactor, backoffFactor, growthInterval, DEFAULT_MIN_SCALE, DEFAULT_MAX_SCALE);
+    }
+
+    /**
+     * @param initialScale   Initial loss scale. Must be in range [minScale, maxScale]
+     * @param growthFactor   Factor to multiply the loss scale by after growthInterval updates without overflow
+     * @param backoffFactor  Factor to multiply the loss scale by after an overflow. Must be in range (0,1)
+     * @param growthInterval Number of consecutive updates without overflow before the loss scale is increased
+     * @param minScale       Minimum loss scale. Must be positive
+     * @param maxScale       Maximum loss scale
+     */
+    public LossScaler(double initialScale, double growthFactor, double backoffFactor, int growthInterval,
+                    double minScale, double maxScale) {
+        if (minScale <= 0.0 || maxScale < minScale)
+            throw new IllegalArgumentException("Invalid loss scale range: expected 0 < minScale <= maxScale, got "
+                            + "minScale=" + minScale + ", maxScale=" + maxScale);
+        if (initialScale < minScale || initialScale > maxScale)
+            throw new IllegalArgumentException("Initial loss scale must be in range [" + minScale + ", " + maxScale
+                            + "]: got " + initialScale);
+        if (growthFactor < 1.0)
+            throw new IllegalArgumentException("Growth factor must be >= 1.0: got " + growthFactor);
+        if (backoffFactor <= 0.0 || backoffFactor >= 1.0)
+            throw new IllegalArgumentException("Backoff factor must be in range (0,1): got " + backoffFactor);
+        if (growthInterval <= 0)
+            throw new IllegalArgumentException("Growth interval must be positive: got " + growthInterval);
+        this.scale = initialScale;
+        this.growthFactor = growthFactor;
+        this.backoffFactor = backoffFactor;
+        this.growthInterval = growthInterval;
+        this.minScale = minScale;
+        this.maxScale = maxScale;
+    }
+
+    /**
+     * Record an overflow (NaN or infinite gradients): reduce the loss scale
+     */
+    public void onOverflow() {
+        overflowCount++;
+        stepsSinceOverflow = 0;
+        scale = Math.max(minScale, scale * backoffFactor);
+    }
+
+    /**
+     * Record a successful (applied) update: increase the loss scale every growthInterval updates
+     */
+    public void onSuccessfulStep() {
+        stepsSinceOverflow++;
+        if (stepsSinceOverflow >= growthInterval) {
+            scale = Math.min(maxScale, scale * growthFactor);
+            stepsSinceOverflow = 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LossScaler(scale=" + scale + ", overflowCount=" + overflowCount + ")";
+    }
+}
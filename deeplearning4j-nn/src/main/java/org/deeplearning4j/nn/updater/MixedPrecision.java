@@ -0,0 +1,462 @@
+package org.deeplearning4j.nn.updater;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.conf.CacheMode;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.memory.MemoryReport;
+import org.deeplearning4j.nn.conf.memory.MemoryType;
+import org.deeplearning4j.nn.conf.memory.MemoryUseMode;
+import org.deeplearning4j.nn.layers.FrozenLayer;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.buffer.util.DataTypeUtil;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.BooleanIndexing;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.indexing.conditions.Conditions;
+import org.nd4j.linalg.learning.config.*;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Mixed precision training: half precision (fp16) storage for parameters, activations and gradients, with a single
+ * precision (fp32) master copy of the parameters and updater state, and dynamic loss scaling.<br>
+ * <br>
+ * Usage: set the ND4J data type to {@link DataBuffer.Type#HALF} before creating the network, and then call
+ * {@code setMixedPrecision(new MixedPrecision())} on the MultiLayerNetwork or ComputationGraph before training.<br>
+ * During each iteration:<br>
+ * 1. The gradients at the network output(s) are multiplied by the current loss scale (see {@link LossScaler}) before
+ * backpropagation, so that small gradients don't underflow in half precision<br>
+ * 2. If the scaled gradients contain NaN or infinite values, the update is skipped and the loss scale is reduced<br>
+ * 3. Otherwise, the gradients are converted to single precision and unscaled, the updater (Sgd, Nesterovs, Adam,
+ * RmsProp, AdaGrad, NoOp) is applied using the single precision updater state, L1/L2 and minibatch division are
+ * applied, and the master parameters are updated<br>
+ * 4. The master parameters are copied (rounded) to the network's half precision parameters<br>
+ * <br>
+ * Other updaters fall back to the network's standard (half precision) updater state: the unscaled gradients are
+ * passed to the standard updater, and the resulting update is applied to the single precision master parameters.<br>
+ * <br>
+ * The master parameters, gradients and updater state are single precision INDArrays (FLOAT data buffers). Conversion
+ * between the network's data type and single precision is done with a single native conversion op per array. As ND4J
+ * ops require all arrays to be of the global data type, the global data type is set to FLOAT while the update is
+ * applied, and restored afterwards: other networks should not be trained concurrently (in other threads) during the
+ * update. For the supported updaters, no updater state is allocated in the network's data type: the network
+ * must have mixed precision enabled when its updater is created (i.e., before training).<br>
+ * If the network parameters are set externally after training has started, {@link #reset()} should be called so the
+ * master copy is re-initialized from them: {@code setParams} on the network does this automatically.<br>
+ * Mixed precision training does not support external gradients (i.e., gradients calculated by a different
+ * network).<br>
+ * <br>
+ * Gradient normalization and clipping are applied to the loss-scaled gradients, with the thresholds scaled
+ * accordingly.
+ */
+@Slf4j
+public class MixedPrecision {
+
+    @Getter
+    private final LossScaler lossScaler;
+
+    private INDArray masterParams;
+    private INDArray gradients;
+    private final Map<UpdaterBlock, INDArray> updaterState = new IdentityHashMap<>();
+    private final Map<UpdaterBlock, Boolean> loggedFallback = new IdentityHashMap<>();
+
+    @Getter
+    private long appliedSteps;
+    @Getter
+    private long skippedSteps;
+    private long firstStepNanos;
+    private long lastStepNanos;
+    private long examplesSinceFirstStep;
+
+    /**
+     * Mixed precision with the default loss scaling configuration
+     */
+    public MixedPrecision() {
+        this(new LossScaler());
+    }
+
+    /**
+     * @param lossScaler Loss scaler to use
+     */
+    public MixedPrecision(@NonNull LossScaler lossScaler) {
+        this.lossScaler = lossScaler;
+        if (DataTypeUtil.getDtypeFromContext() != DataBuffer.Type.HALF) {
+            log.warn("Mixed precision training is enabled, but the ND4J data type is {}, not HALF: parameters, "
+                            + "activations and gradients will be stored in {}", DataTypeUtil.getDtypeFromContext(),
+                            DataTypeUtil.getDtypeFromContext());
+        }
+    }
+
+    /**
+     * @param updater Updater configuration
+     * @return True if the updater has a single precision implementation (Sgd, Nesterovs, Adam, RmsProp, AdaGrad,
+     * NoOp). Updater state for these is held here, and not in the network's updater state array
+     */
+    public static boolean hasSinglePrecisionUpdater(IUpdater updater) {
+        return updater instanceof NoOp || updater instanceof Sgd || updater instanceof Nesterovs
+                        || updater instanceof Adam || updater instanceof RmsProp || updater instanceof AdaGrad;
+    }
+
+    protected static boolean hasSinglePrecisionUpdater(UpdaterBlock ub) {
+        UpdaterBlock.ParamState ps0 = ub.getLayersAndVariablesInBlock().get(0);
+        return hasSinglePrecisionUpdater(ps0.getLayer().conf().getLayer().getUpdaterByParam(ps0.getParamName()));
+    }
+
+    /**
+     * @return The current loss scale
+     */
+    public double getLossScale() {
+        return lossScaler.getScale();
+    }
+
+    /**
+     * Discard the master parameters and updater state. They are re-initialized from the network parameters on the
+     * next update.
+     */
+    public void reset() {
+        masterParams = null;
+        gradients = null;
+        updaterState.clear();
+    }
+
+    /**
+     * @return A copy of the single precision master parameters, or null if not yet initialized
+     */
+    public float[] getMasterParams() {
+        return masterParams == null ? null : masterParams.data().asFloat();
+    }
+
+    /**
+     * Check the (loss-scaled) gradients for overflow. If the gradients contain NaN or infinite values, the loss scale
+     * is reduced and the step is recorded as skipped.
+     *
+     * @param gradients Flattened gradients view
+     * @return True if the gradients are finite, and the update should be applied
+     */
+    public boolean checkGradients(INDArray gradients) {
+        if (BooleanIndexing.or(gradients, Conditions.isNan())
+                        || BooleanIndexing.or(gradients, Conditions.isInfinite())) {
+            lossScaler.onOverflow();
+            skippedSteps++;
+            log.debug("Overflow in loss-scaled gradients: skipping update. New loss scale: {}", lossScaler.getScale());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Apply the update to the master parameters, and copy the result to the network parameters. On return, the
+     * flattened gradients view is zeroed, as the update has already been applied.
+     *
+     * @param updater   Updater for the network
+     * @param iteration Current iteration
+     * @param epoch     Current epoch
+     * @param batchSize Minibatch size
+     */
+    public void step(BaseMultiLayerUpdater<?> updater, int iteration, int epoch, int batchSize) {
+        INDArray gradientView = updater.getFlattenedGradientsView();
+        INDArray params = updater.getParams();
+        if (masterParams == null || masterParams.length() != params.length()) {
+            reset();
+            masterParams = createFloat(params.length());
+            gradients = createFloat(params.length());
+            convert(params, masterParams);
+        }
+
+        convert(gradientView, gradients);
+        float invScale = (float) (1.0 / lossScaler.getScale());
+        float divisor = updater.isMiniBatch() ? batchSize : 1.0f;
+
+        //ND4J ops require all arrays to be of the global data type: switch to single precision for the update
+        DataBuffer.Type globalType = DataTypeUtil.getDtypeFromContext();
+        if (globalType != DataBuffer.Type.FLOAT)
+            DataTypeUtil.setDTypeForContext(DataBuffer.Type.FLOAT);
+        try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            for (UpdaterBlock ub : updater.getUpdaterBlocks()) {
+                if (ub.skipDueToPretrainConfig())
+                    continue;
+                UpdaterBlock.ParamState ps0 = ub.getLayersAndVariablesInBlock().get(0);
+                if (ps0.getLayer().numParams() == 0)
+                    continue;
+
+                INDArray g = subset(gradients, ub.getParamOffsetStart(), ub.getParamOffsetEnd());
+                INDArray w = subset(masterParams, ub.getParamOffsetStart(), ub.getParamOffsetEnd());
+                g.muli(invScale);
+
+                IUpdater u = ps0.getLayer().conf().getLayer().getUpdaterByParam(ps0.getParamName());
+                if (!applyUpdater(ub, u, g, iteration, epoch)) {
+                    applyStandardUpdater(ub, g, globalType, iteration, epoch);
+                }
+
+                for (UpdaterBlock.ParamState p : ub.getLayersAndVariablesInBlock()) {
+                    applyL1L2(p, gradients, masterParams);
+                }
+
+                w.subi(g.divi(divisor));
+            }
+        } finally {
+            if (globalType != DataBuffer.Type.FLOAT)
+                DataTypeUtil.setDTypeForContext(globalType);
+        }
+
+        convert(masterParams, params);
+        //The step function subtracts the gradient view from the parameters: the update has already been applied
+        gradientView.assign(0);
+
+        lossScaler.onSuccessfulStep();
+        appliedSteps++;
+        long now = System.nanoTime();
+        if (firstStepNanos == 0) {
+            firstStepNanos = now;
+        } else {
+            examplesSinceFirstStep += batchSize;
+        }
+        lastStepNanos = now;
+    }
+
+    /**
+     * Apply the single precision updater for the supported updater types. Must be called with FLOAT as the global
+     * data type
+     *
+     * @param g Single precision gradients for the updater block, modified in place
+     * @return False if the updater type is not supported
+     */
+    protected boolean applyUpdater(UpdaterBlock ub, IUpdater u, INDArray g, int iteration, int epoch) {
+        int n = g.length();
+        if (u instanceof NoOp) {
+            g.assign(0);
+        } else if (u instanceof Sgd) {
+            g.muli(u.getLearningRate(iteration, epoch));
+        } else if (u instanceof Nesterovs) {
+            Nesterovs nu = (Nesterovs) u;
+            double lr = u.getLearningRate(iteration, epoch);
+            double mu = nu.getMomentumISchedule() != null ? nu.getMomentumISchedule().valueAt(iteration, epoch)
+                            : nu.getMomentum();
+            INDArray v = state(ub, n, 0.0f);
+            INDArray vPrev = v.dup();
+            v.muli(mu).subi(g.mul(lr));
+            g.assign(vPrev.muli(mu).subi(v.mul(1 + mu)));
+        } else if (u instanceof Adam) {
+            Adam a = (Adam) u;
+            double lr = u.getLearningRate(iteration, epoch);
+            double beta1 = a.getBeta1();
+            double beta2 = a.getBeta2();
+            double eps = a.getEpsilon();
+            double beta1t = Math.pow(beta1, iteration + 1);
+            double beta2t = Math.pow(beta2, iteration + 1);
+            double alphat = lr * Math.sqrt(1 - beta2t) / (1 - beta1t);
+            if (Double.isNaN(alphat) || alphat == 0.0)
+                alphat = eps;
+            //State layout: [m, v], as per the standard Adam updater
+            INDArray s = state(ub, 2 * n, 0.0f);
+            INDArray m = subset(s, 0, n);
+            INDArray v = subset(s, n, 2 * n);
+            m.muli(beta1).addi(g.mul(1 - beta1));
+            v.muli(beta2).addi(g.mul(g).muli(1 - beta2));
+            g.assign(m).muli(alphat).divi(Transforms.sqrt(v, true).addi(eps));
+        } else if (u instanceof RmsProp) {
+            RmsProp r = (RmsProp) u;
+            double lr = u.getLearningRate(iteration, epoch);
+            double decay = r.getRmsDecay();
+            double eps = r.getEpsilon();
+            INDArray cache = state(ub, n, (float) eps);
+            cache.muli(decay).addi(g.mul(g).muli(1 - decay));
+            //As per the standard RmsProp updater: lr * g / sqrt(cache + eps)
+            g.muli(lr).divi(Transforms.sqrt(cache.add(eps), false));
+        } else if (u instanceof AdaGrad) {
+            double lr = u.getLearningRate(iteration, epoch);
+            double eps = ((AdaGrad) u).getEpsilon();
+            INDArray hist = state(ub, n, (float) eps);
+            hist.addi(g.mul(g));
+            g.muli(lr).divi(Transforms.sqrt(hist, true).addi(eps));
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Fallback for updaters without a single precision implementation: apply the standard updater to the unscaled
+     * gradients (in the global data type), and read back the resulting update. Must be called with FLOAT as the
+     * global data type; the global data type is temporarily restored for the standard updater
+     */
+    protected void applyStandardUpdater(UpdaterBlock ub, INDArray g, DataBuffer.Type globalType, int iteration,
+                    int epoch) {
+        if (!loggedFallback.containsKey(ub)) {
+            log.warn("No single precision implementation for updater {}: updater state for parameters {} to {} is "
+                            + "stored in the global data type", ub.getGradientUpdater().getClass().getSimpleName(),
+                            ub.getParamOffsetStart(), ub.getParamOffsetEnd());
+            loggedFallback.put(ub, Boolean.TRUE);
+        }
+        INDArray blockGrad = ub.getGradientView();
+        INDArray tmp = create(globalType, g.length());
+        convert(g, tmp);
+        DataTypeUtil.setDTypeForContext(globalType);
+        try {
+            blockGrad.assign(tmp);
+            ub.getGradientUpdater().applyUpdater(blockGrad, iteration, epoch);
+            tmp.assign(blockGrad);
+        } finally {
+            DataTypeUtil.setDTypeForContext(DataBuffer.Type.FLOAT);
+        }
+        convert(tmp, g);
+    }
+
+    protected void applyL1L2(UpdaterBlock.ParamState p, INDArray g, INDArray w) {
+        Layer layer = p.getLayer();
+        if (layer instanceof FrozenLayer || p.getParamOffsetEnd() <= p.getParamOffsetStart())
+            return; //Consistent with UpdaterBlock.postApply
+        NeuralNetConfiguration conf = layer.conf();
+        double l2 = conf.getL2ByParam(p.getParamName());
+        double l1 = conf.getL1ByParam(p.getParamName());
+        if (l2 <= 0 && l1 <= 0)
+            return;
+        INDArray gp = subset(g, p.getParamOffsetStart(), p.getParamOffsetEnd());
+        INDArray wp = subset(w, p.getParamOffsetStart(), p.getParamOffsetEnd());
+        if (l2 > 0) {
+            gp.addi(wp.mul(l2));
+        }
+        if (l1 > 0) {
+            gp.addi(Transforms.sign(wp, true).muli(l1));
+        }
+    }
+
+    private INDArray state(UpdaterBlock ub, int length, float initialValue) {
+        INDArray s = updaterState.get(ub);
+        if (s == null || s.length() != length) {
+            s = createFloat(length);
+            if (initialValue != 0.0f)
+                s.assign(initialValue);
+            updaterState.put(ub, s);
+        }
+        return s;
+    }
+
+    private static INDArray subset(INDArray rowVector, int from, int to) {
+        return rowVector.get(NDArrayIndex.point(0), NDArrayIndex.interval(from, to));
+    }
+
+    /**
+     * Create a (zero initialized) single precision row vector, regardless of the global data type, outside of any
+     * workspace
+     */
+    private static INDArray createFloat(int length) {
+        return create(DataBuffer.Type.FLOAT, length);
+    }
+
+    /**
+     * Create a (zero initialized) row vector of the specified data type, regardless of the global data type, outside
+     * of any workspace
+     */
+    private static INDArray create(DataBuffer.Type type, int length) {
+        try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            switch (type) {
+                case HALF:
+                    return Nd4j.create(Nd4j.getDataBufferFactory().createHalf(length));
+                case DOUBLE:
+                    return Nd4j.create(Nd4j.getDataBufferFactory().createDouble(length));
+                default:
+                    return Nd4j.create(Nd4j.getDataBufferFactory().createFloat(length));
+            }
+        }
+    }
+
+    /**
+     * Convert the contents of one array to the data type of another, using a single native conversion op. The arrays
+     * must have the same length.
+     */
+    private static void convert(INDArray from, INDArray to) {
+        if (!isWholeBuffer(from))
+            from = from.dup();
+        INDArray target = isWholeBuffer(to) ? to : Nd4j.createUninitialized(to.shape(), to.ordering());
+        Nd4j.getNDArrayFactory().convertDataEx(typeEx(from), from.data(), typeEx(target), target.data());
+        if (target != to)
+            to.assign(target);
+    }
+
+    private static boolean isWholeBuffer(INDArray arr) {
+        return arr.offset() == 0 && arr.length() == arr.data().length() && arr.elementWiseStride() == 1;
+    }
+
+    private static DataBuffer.TypeEx typeEx(INDArray arr) {
+        switch (arr.data().dataType()) {
+            case HALF:
+                return DataBuffer.TypeEx.FLOAT16;
+            case FLOAT:
+                return DataBuffer.TypeEx.FLOAT;
+            case DOUBLE:
+                return DataBuffer.TypeEx.DOUBLE;
+            default:
+                throw new UnsupportedOperationException("Unsupported data type for mixed precision training: "
+                                + arr.data().dataType());
+        }
+    }
+
+    /**
+     * @return Training throughput (examples per second) measured over the updates applied so far, or 0 if fewer
+     * than 2 updates have been applied
+     */
+    public double getExamplesPerSecond() {
+        long nanos = lastStepNanos - firstStepNanos;
+        if (examplesSinceFirstStep == 0 || nanos <= 0)
+            return 0.0;
+        return examplesSinceFirstStep / (nanos / 1e9);
+    }
+
+    /**
+     * @return Number of bytes used by the single precision master parameters and updater state. This does not include
+     * the single precision gradients work array, which is the same size as the master parameters
+     */
+    public long getMasterCopyBytes() {
+        long floats = masterParams == null ? 0 : masterParams.length();
+        for (INDArray s : updaterState.values()) {
+            floats += s.length();
+        }
+        return 4 * floats;
+    }
+
+    /**
+     * Estimate the training memory use (in bytes) for pure single precision training, based on the memory report
+     * for the network
+     */
+    public static long estimateFp32TrainingBytes(@NonNull MemoryReport report, int minibatch,
+                    @NonNull CacheMode cacheMode) {
+        return report.getTotalMemoryBytes(minibatch, MemoryUseMode.TRAINING, cacheMode, DataBuffer.Type.FLOAT);
+    }
+
+    /**
+     * Estimate the training memory use (in bytes) for mixed precision training, based on the memory report for the
+     * network: all arrays in half precision, plus the single precision master parameters and updater state
+     */
+    public static long estimateMixedPrecisionTrainingBytes(@NonNull MemoryReport report, int minibatch,
+                    @NonNull CacheMode cacheMode) {
+        return report.getTotalMemoryBytes(minibatch, MemoryUseMode.TRAINING, cacheMode, DataBuffer.Type.HALF)
+                        + report.getMemoryBytes(MemoryType.PARAMETERS, minibatch, MemoryUseMode.TRAINING, cacheMode,
+                                        DataBuffer.Type.FLOAT)
+                        + report.getMemoryBytes(MemoryType.UPDATER_STATE, minibatch, MemoryUseMode.TRAINING,
+                                        cacheMode, DataBuffer.Type.FLOAT);
+    }
+
+    /**
+     * Estimate the training memory saved (in bytes) by mixed precision training, vs. pure single precision training
+     */
+    public static long estimateMemorySavedBytes(@NonNull MemoryReport report, int minibatch,
+                    @NonNull CacheMode cacheMode) {
+        return estimateFp32TrainingBytes(report, minibatch, cacheMode)
+                        - estimateMixedPrecisionTrainingBytes(report, minibatch, cacheMode);
+    }
+
+    @Override
+    public String toString() {
+        return "MixedPrecision(lossScale=" + lossScaler.getScale() + ", appliedSteps=" + appliedSteps
+                        + ", skippedSteps=" + skippedSteps + ", examplesPerSecond="
+                        + String.format("%.1f", getExamplesPerSecond()) + ")";
+    }
+}
@@ -57,6 +57,11 @@ public class MultiLayerUpdater extends BaseMultiLayerUpdater<MultiLayerNetwork>
         return network.conf().isMiniBatch();
     }
 
+    @Override
+    protected MixedPrecision getMixedPrecision() {
+        return network.getMixedPrecision();
+    }
+
     @Override
     public Updater clone() {
         return new MultiLayerUpdater(network, null);
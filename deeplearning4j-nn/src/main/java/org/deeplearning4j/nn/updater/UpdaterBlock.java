@@ -3,6 +3,7 @@ package org.deeplearning4j.nn.updater;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.api.layers.SparseGradientLayer;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.layers.BaseLayer;
 import org.deeplearning4j.nn.layers.FrozenLayer;
@@ -10,6 +11,7 @@ import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.learning.GradientUpdater;
+import org.nd4j.linalg.learning.config.IUpdater;
 import org.nd4j.linalg.ops.transforms.Transforms;
 
 import java.util.ArrayList;
@@ -17,7 +19,9 @@ import java.util.List;
 
 /**
  * UpdaterBlock: used in {@link BaseMultiLayerUpdater}, this class implements updating (i.e., Adam, RMSProp, Momentum,
- * etc) across multiple contiguous layers/parameters, as described in the {@link BaseMultiLayerUpdater} javadoc.
+ * etc) across multiple contiguous layers/parameters, as described in the {@link BaseMultiLayerUpdater} javadoc.<br>
+ * Parameters with row-sparse gradients (see {@link SparseGradientLayer}) are always in a block of their own: for these,
+ * the updater is applied lazily, to the rows with non-zero gradients (and the corresponding updater state) only.
  *
  * @author Alex Black
  */
@@ -34,6 +38,8 @@ public class UpdaterBlock {
     private boolean updaterViewRequiresInitialization;
 
     private GradientUpdater gradientUpdater;
+    //Rows updated in the last call to update, for sparse blocks. Null if a dense update was applied
+    private transient int[] lastSparseRows; //transient: excluded from equals/hashCode
 
 
     @AllArgsConstructor
@@ -90,6 +96,17 @@ public class UpdaterBlock {
         return !vs.getLayer().conf().isPretrain(); //Skip if not pretrain
     }
 
+    /**
+     * @return True if this block contains a single parameter with row-sparse gradients, for which lazy updates are
+     * applied
+     */
+    public boolean isSparseUpdaterBlock() {
+        if (layersAndVariablesInBlock.size() != 1)
+            return false;
+        ParamState vs = layersAndVariablesInBlock.get(0);
+        return UpdaterUtils.isSparseGradientParam(vs.getLayer(), vs.getParamName());
+    }
+
     public GradientUpdater getGradientUpdater() {
         if (gradientUpdater == null) {
             init();
@@ -118,6 +135,7 @@ public class UpdaterBlock {
         if (gradientUpdater == null) {
             init();
         }
+        lastSparseRows = null;
 
         INDArray blockGradViewArray;
         if (externalGradient) {
@@ -138,6 +156,10 @@ public class UpdaterBlock {
             return;
         }
 
+        if (!externalGradient && isSparseUpdaterBlock() && updateSparse(iteration, epoch)) {
+            return;
+        }
+
         //Apply the updater itself
         gradientUpdater.applyUpdater(blockGradViewArray, iteration, epoch);
 
@@ -159,6 +181,101 @@ public class UpdaterBlock {
         }
     }
 
+    /**
+     * Lazy update for a single parameter with row-sparse gradients: the rows with non-zero gradients are gathered
+     * (along with the corresponding rows of the updater state and parameters), the updater and L1/L2 are applied to
+     * those rows only, and the results are scattered back. All other rows (and their updater state) are unmodified.
+     * This relies on the updater state being made up of one or more blocks, each with the same layout as the
+     * gradients - as is the case for all standard updaters (SGD, Nesterov momentum, AdaGrad, Adam, RMSProp etc).
+     *
+     * @return False if the non-zero rows are not known, in which case the standard (dense) update should be applied
+     */
+    private boolean updateSparse(int iteration, int epoch) {
+        ParamState p = layersAndVariablesInBlock.get(0);
+        SparseGradientLayer layer = (SparseGradientLayer) p.getLayer();
+        int[] rows = layer.getGradientRows(p.getParamName());
+        if (rows == null) {
+            return false;
+        }
+        lastSparseRows = rows;
+        if (rows.length == 0) {
+            return true;
+        }
+
+        INDArray param = layer.getParam(p.getParamName());
+        int paramLength = paramOffsetEnd - paramOffsetStart;
+        int stateLength = updaterViewOffsetEnd - updaterViewOffsetStart;
+        int numStateBlocks = stateLength / paramLength;
+        int subsetLength = rows.length * param.columns();
+
+        INDArray gradRows = pullRowsFlat(asMatrix(gradientView, param), rows);
+        INDArray[] stateMatrices = new INDArray[numStateBlocks];
+        INDArray stateRows = null;
+        if (numStateBlocks > 0) {
+            stateRows = Nd4j.createUninitialized(new int[] {1, numStateBlocks * subsetLength}, 'c');
+            for (int i = 0; i < numStateBlocks; i++) {
+                stateMatrices[i] = asMatrix(updaterView.get(NDArrayIndex.point(0),
+                                NDArrayIndex.interval(i * paramLength, (i + 1) * paramLength)), param);
+                stateRows.get(NDArrayIndex.point(0), NDArrayIndex.interval(i * subsetLength, (i + 1) * subsetLength))
+                                .assign(pullRowsFlat(stateMatrices[i], rows));
+            }
+        }
+
+        //Updater for the subset only: state has already been initialized (if required) for the full view array
+        IUpdater u = layer.conf().getLayer().getUpdaterByParam(p.getParamName());
+        GradientUpdater subsetUpdater = u.instantiate(stateRows, false);
+        subsetUpdater.applyUpdater(gradRows, iteration, epoch);
+
+        postApply(layer, p.getParamName(), gradRows, pullRowsFlat(asMatrix(p.getParamView(), param), rows));
+
+        scatterRows(gradRows, asMatrix(gradientView, param), rows);
+        for (int i = 0; i < numStateBlocks; i++) {
+            scatterRows(stateRows.get(NDArrayIndex.point(0),
+                            NDArrayIndex.interval(i * subsetLength, (i + 1) * subsetLength)), stateMatrices[i], rows);
+        }
+        return true;
+    }
+
+    /**
+     * Divide the gradients (updates) for this block by the specified value, as is done for minibatch averaging. For
+     * sparse blocks, only the rows modified in the last update are divided.
+     *
+     * @param divisor Value to divide by
+     */
+    public void divideGradient(double divisor) {
+        if (gradientView == null)
+            return;
+        if (lastSparseRows == null) {
+            gradientView.divi(divisor);
+        } else {
+            ParamState p = layersAndVariablesInBlock.get(0);
+            INDArray grad = asMatrix(gradientView, p.getLayer().getParam(p.getParamName()));
+            for (int row : lastSparseRows) {
+                grad.getRow(row).divi(divisor);
+            }
+        }
+    }
+
+    //Row vector view (params, gradients or a block of updater state) -> matrix view with the same shape as the param
+    private static INDArray asMatrix(INDArray flatView, INDArray param) {
+        return flatView.reshape(param.ordering(), param.rows(), param.columns());
+    }
+
+    private static INDArray pullRowsFlat(INDArray matrix, int[] rows) {
+        INDArray pulled = Nd4j.pullRows(matrix, 1, rows);
+        if (pulled.ordering() != 'c') {
+            pulled = pulled.dup('c');
+        }
+        return pulled.reshape('c', 1, pulled.length());
+    }
+
+    private static void scatterRows(INDArray flat, INDArray matrix, int[] rows) {
+        INDArray m = flat.reshape('c', rows.length, matrix.columns());
+        for (int i = 0; i < rows.length; i++) {
+            matrix.getRow(rows[i]).assign(m.getRow(i));
+        }
+    }
+
     /**
      * Apply L1 and L2 regularization, if necessary. Note that L1/L2 may differ for different layers in the same block
      *
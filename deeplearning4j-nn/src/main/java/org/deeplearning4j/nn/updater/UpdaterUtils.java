@@ -1,6 +1,7 @@
 package org.deeplearning4j.nn.updater;
 
 import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.api.layers.SparseGradientLayer;
 import org.nd4j.linalg.learning.config.IUpdater;
 
 /**
@@ -36,4 +37,13 @@ public class UpdaterUtils {
 
         return true;
     }
+
+    /**
+     * @return True if the specified parameter has row-sparse gradients, and hence should have lazy updates applied
+     * in an updater block of its own
+     * @see SparseGradientLayer
+     */
+    public static boolean isSparseGradientParam(Layer layer, String param) {
+        return layer instanceof SparseGradientLayer && ((SparseGradientLayer) layer).isSparseGradient(param);
+    }
 }
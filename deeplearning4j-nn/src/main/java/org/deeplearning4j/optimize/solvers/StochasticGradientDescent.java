@@ -19,9 +19,13 @@
 package org.deeplearning4j.optimize.solvers;
 
 import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.api.layers.SparseGradientLayer;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.optimize.api.IterationListener;
 import org.deeplearning4j.optimize.api.StepFunction;
 import org.deeplearning4j.optimize.api.TerminationCondition;
@@ -72,6 +76,9 @@ public class StochasticGradientDescent extends BaseOptimizer {
             //stepFunction.step(params, pendingUpdate);
             accumulator.applyUpdate(stepFunction, params, gradient.gradient());
 
+            // gradient view now contains updates from all workers: sparse gradient layers can't rely on their own rows
+            invalidateSparseGradientRows(model);
+
             // if there's no update available - just go on then
         } else {
             // if accumulator isn't used - we just to for direct updates application
@@ -97,6 +104,25 @@ public class StochasticGradientDescent extends BaseOptimizer {
         return true;
     }
 
+    protected static void invalidateSparseGradientRows(Model model) {
+        Layer[] layers;
+        if (model instanceof MultiLayerNetwork) {
+            layers = ((MultiLayerNetwork) model).getLayers();
+        } else if (model instanceof ComputationGraph) {
+            layers = ((ComputationGraph) model).getLayers();
+        } else if (model instanceof Layer) {
+            layers = new Layer[] {(Layer) model};
+        } else {
+            return;
+        }
+
+        for (Layer l : layers) {
+            if (l instanceof SparseGradientLayer) {
+                ((SparseGradientLayer) l).invalidateGradientRows();
+            }
+        }
+    }
+
     @Override
     public void preProcessLine() {}
 
@@ -0,0 +1,268 @@
+package org.deeplearning4j.util;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.conf.CacheMode;
+import org.deeplearning4j.nn.conf.inputs.InputType;
+import org.deeplearning4j.nn.conf.memory.*;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.buffer.util.DataTypeUtil;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.factory.Nd4j;
+
+/**
+ * Utilities for sizing networks against a memory budget, using the estimates from {@link NetworkMemoryReport}.<br>
+ * Given a network, its input type(s) and a memory budget (in bytes), {@link #size(MultiLayerNetwork, long, InputType)}
+ * and {@link #size(ComputationGraph, long, InputType...)} return the maximal training and inference minibatch sizes
+ * that fit within the budget, along with the recommended workspace initial sizes at those minibatch sizes.<br>
+ * These workspace sizes can be applied to a network using
+ * {@link #applyWorkspaceSizes(MultiLayerNetwork, MemorySizingResult)} or
+ * {@link #applyWorkspaceSizes(ComputationGraph, MemorySizingResult)}, before the first call to fit or output, so that
+ * the workspaces are allocated once at the correct size instead of growing and reallocating over the first few
+ * iterations.<br>
+ * <br>
+ * Note that the memory report is an estimate only; the network input/label arrays are included, but other sources of
+ * memory use (for example, data pipelines and garbage collection delays) are not. For this reason, the budget should
+ * be set somewhat below the physical memory limit. {@link #measureWorkspaceBytes(String)} can be used to compare the
+ * predicted workspace sizes against the actual sizes after a few iterations.
+ */
+@Slf4j
+public class MemorySizingUtils {
+
+    /**
+     * Upper limit for the minibatch size search
+     */
+    public static final int MAX_BATCH_SIZE = 1 << 20;
+
+    /**
+     * Additional fraction added to the estimated workspace sizes
+     */
+    public static final double WORKSPACE_MARGIN = 0.1;
+
+    private MemorySizingUtils() {}
+
+    /**
+     * Size the given MultiLayerNetwork against the memory budget, using the network's cache mode and the current
+     * ND4J data type
+     *
+     * @param net               Network to size
+     * @param memoryBudgetBytes Memory budget, in bytes
+     * @param inputType         Network input type
+     */
+    public static MemorySizingResult size(@NonNull MultiLayerNetwork net, long memoryBudgetBytes,
+                    @NonNull InputType inputType) {
+        NetworkMemoryReport report = net.getLayerWiseConfigurations().getMemoryReport(inputType);
+        return size(report, memoryBudgetBytes, cacheModeOrNone(net.getLayerWiseConfigurations().getCacheMode()),
+                        DataTypeUtil.getDtypeFromContext(), inputType);
+    }
+
+    /**
+     * Size the given ComputationGraph against the memory budget, using the network's cache mode and the current
+     * ND4J data type
+     *
+     * @param net               Network to size
+     * @param memoryBudgetBytes Memory budget, in bytes
+     * @param inputTypes        Network input types
+     */
+    public static MemorySizingResult size(@NonNull ComputationGraph net, long memoryBudgetBytes,
+                    @NonNull InputType... inputTypes) {
+        NetworkMemoryReport report = net.getConfiguration().getMemoryReport(inputTypes);
+        return size(report, memoryBudgetBytes, cacheModeOrNone(net.getConfiguration().getCacheMode()),
+                        DataTypeUtil.getDtypeFromContext(), inputTypes);
+    }
+
+    /**
+     * Size a network from its memory report
+     *
+     * @param report            Memory report for the network
+     * @param memoryBudgetBytes Memory budget, in bytes
+     * @param cacheMode         Cache mode used for training
+     * @param dataType          Data type for the network
+     * @param inputTypes        Network input types. Used to account for the input arrays
+     */
+    public static MemorySizingResult size(@NonNull MemoryReport report, long memoryBudgetBytes,
+                    @NonNull CacheMode cacheMode, @NonNull DataBuffer.Type dataType, InputType... inputTypes) {
+        if (memoryBudgetBytes <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive: got " + memoryBudgetBytes);
+        }
+        long inputBytesPerEx = inputBytesPerExample(dataType, inputTypes);
+
+        int trainBatch = maxBatchSize(report, MemoryUseMode.TRAINING, cacheMode, dataType, inputBytesPerEx,
+                        memoryBudgetBytes);
+        int inferenceBatch = maxBatchSize(report, MemoryUseMode.INFERENCE, CacheMode.NONE, dataType,
+                        inputBytesPerEx, memoryBudgetBytes);
+
+        if (trainBatch == 0) {
+            log.warn("Memory budget of {} bytes is insufficient for training with minibatch size 1",
+                            memoryBudgetBytes);
+        }
+
+        long trainTotal = totalBytes(report, trainBatch, MemoryUseMode.TRAINING, cacheMode, dataType,
+                        inputBytesPerEx);
+        long inferenceTotal = totalBytes(report, inferenceBatch, MemoryUseMode.INFERENCE, CacheMode.NONE, dataType,
+                        inputBytesPerEx);
+
+        long trainExternal = withMargin(externalWorkspaceBytes(report, trainBatch, MemoryUseMode.TRAINING, cacheMode,
+                        dataType));
+        long inferenceExternal = withMargin(externalWorkspaceBytes(report, inferenceBatch, MemoryUseMode.INFERENCE,
+                        CacheMode.NONE, dataType));
+        //Sized for training: the workspace can still grow (learning policy) for larger inference minibatches
+        long ff = withMargin(feedForwardWorkspaceBytes(report, trainBatch, cacheMode, dataType));
+
+        return new MemorySizingResult(memoryBudgetBytes, trainBatch, inferenceBatch, trainTotal, inferenceTotal,
+                        trainExternal, inferenceExternal, ff);
+    }
+
+    /**
+     * Find the maximal minibatch size such that the estimated total memory is within the budget. The total memory
+     * estimate is non-decreasing in the minibatch size, hence a binary search is used.
+     *
+     * @return Maximal minibatch size, or 0 if even a minibatch size of 1 does not fit
+     */
+    public static int maxBatchSize(MemoryReport report, MemoryUseMode mode, CacheMode cacheMode,
+                    DataBuffer.Type dataType, long inputBytesPerExample, long memoryBudgetBytes) {
+        if (totalBytes(report, 1, mode, cacheMode, dataType, inputBytesPerExample) > memoryBudgetBytes)
+            return 0;
+
+        int lo = 1;
+        int hi = MAX_BATCH_SIZE;
+        if (totalBytes(report, hi, mode, cacheMode, dataType, inputBytesPerExample) <= memoryBudgetBytes)
+            return hi;
+
+        //Invariant: lo fits, hi does not
+        while (hi - lo > 1) {
+            int mid = lo + (hi - lo) / 2;
+            if (totalBytes(report, mid, mode, cacheMode, dataType, inputBytesPerExample) <= memoryBudgetBytes) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Apply the workspace sizes from the sizing result to the given network: the training external workspace
+     * configuration is used by fit (and pretraining), and the inference external workspace configuration by output and
+     * evaluation. This must be done before the workspaces are first created on a thread (i.e., before the first call
+     * to fit or output): existing workspaces are not resized.
+     *
+     * @param net    Network to apply the sizes to
+     * @param result Sizing result
+     */
+    public static void applyWorkspaceSizes(@NonNull MultiLayerNetwork net, @NonNull MemorySizingResult result) {
+        net.setWorkspaceConfigurationExternal(result.getTrainingExternalWorkspaceConfiguration());
+        net.setWorkspaceConfigurationInference(result.getInferenceExternalWorkspaceConfiguration());
+        net.setWorkspaceConfigurationFeedForward(result.getFeedForwardWorkspaceConfiguration());
+    }
+
+    /**
+     * Apply the workspace sizes from the sizing result to the given graph. As per
+     * {@link #applyWorkspaceSizes(MultiLayerNetwork, MemorySizingResult)}, this must be done before the first call to
+     * fit or output.
+     *
+     * @param net    Graph to apply the sizes to
+     * @param result Sizing result
+     */
+    public static void applyWorkspaceSizes(@NonNull ComputationGraph net, @NonNull MemorySizingResult result) {
+        net.setWorkspaceConfigurationExternal(result.getTrainingExternalWorkspaceConfiguration());
+        net.setWorkspaceConfigurationInference(result.getInferenceExternalWorkspaceConfiguration());
+        net.setWorkspaceConfigurationFeedForward(result.getFeedForwardWorkspaceConfiguration());
+    }
+
+    /**
+     * Get the current size (in bytes) of the workspace with the given id for the current thread, or 0 if no such
+     * workspace exists. Useful to compare the predicted workspace sizes against the actual sizes after training.
+     *
+     * @param workspaceId Workspace id, for example {@link ComputationGraph#workspaceExternal}
+     */
+    public static long measureWorkspaceBytes(@NonNull String workspaceId) {
+        if (!Nd4j.getWorkspaceManager().checkIfWorkspaceExists(workspaceId))
+            return 0;
+        MemoryWorkspace ws = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceId);
+        return ws.getCurrentSize();
+    }
+
+    protected static long totalBytes(MemoryReport report, int batchSize, MemoryUseMode mode, CacheMode cacheMode,
+                    DataBuffer.Type dataType, long inputBytesPerExample) {
+        return report.getTotalMemoryBytes(batchSize, mode, cacheMode, dataType)
+                        + batchSize * inputBytesPerExample;
+    }
+
+    /**
+     * Estimate the size of the external (loop) workspace, without any margin. Activations (and, for training,
+     * activation gradients and cached memory) live in the external workspace, along with the working memory of the
+     * largest layer
+     *
+     * @param report    Memory report for the network
+     * @param batchSize Minibatch size
+     * @param mode      Training or inference
+     * @param cacheMode Cache mode
+     * @param dataType  Data type for the network
+     * @return Estimated workspace size, in bytes
+     */
+    public static long externalWorkspaceBytes(MemoryReport report, int batchSize, MemoryUseMode mode,
+                    CacheMode cacheMode, DataBuffer.Type dataType) {
+        if (batchSize <= 0)
+            return 0;
+        long bytes = 0;
+        for (MemoryType mt : MemoryType.values()) {
+            if (mode == MemoryUseMode.INFERENCE && !mt.isInference())
+                continue;
+            switch (mt) {
+                case PARAMETERS:
+                case PARAMATER_GRADIENTS:
+                case UPDATER_STATE:
+                    //Allocated once, outside of workspaces
+                    continue;
+                default:
+                    bytes += report.getMemoryBytes(mt, batchSize, mode, cacheMode, dataType);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * The feed-forward workspace is scoped per layer: it needs to hold the largest single-layer activations plus
+     * working memory
+     */
+    protected static long feedForwardWorkspaceBytes(MemoryReport report, int batchSize, CacheMode cacheMode,
+                    DataBuffer.Type dataType) {
+        if (batchSize <= 0)
+            return 0;
+        if (!(report instanceof NetworkMemoryReport)) {
+            return externalWorkspaceBytes(report, batchSize, MemoryUseMode.INFERENCE, cacheMode, dataType);
+        }
+        long max = 0;
+        for (MemoryReport r : ((NetworkMemoryReport) report).getLayerAndVertexReports().values()) {
+            long bytes = 0;
+            for (MemoryType mt : new MemoryType[] {MemoryType.ACTIVATIONS, MemoryType.WORKING_MEMORY_FIXED,
+                            MemoryType.WORKING_MEMORY_VARIABLE}) {
+                bytes += r.getMemoryBytes(mt, batchSize, MemoryUseMode.TRAINING, cacheMode, dataType);
+            }
+            max = Math.max(max, bytes);
+        }
+        return max;
+    }
+
+    protected static long inputBytesPerExample(DataBuffer.Type dataType, InputType... inputTypes) {
+        if (inputTypes == null)
+            return 0;
+        long bytesPerElement = dataType == DataBuffer.Type.DOUBLE ? 8 : (dataType == DataBuffer.Type.HALF ? 2 : 4);
+        long elements = 0;
+        for (InputType it : inputTypes) {
+            elements += it.arrayElementsPerExample();
+        }
+        return elements * bytesPerElement;
+    }
+
+    private static long withMargin(long bytes) {
+        return (long) (bytes * (1.0 + WORKSPACE_MARGIN));
+    }
+
+    private static CacheMode cacheModeOrNone(CacheMode cacheMode) {
+        return cacheMode == null ? CacheMode.NONE : cacheMode;
+    }
+}
@@ -0,0 +1,78 @@
+package org.deeplearning4j.zoo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.layers.convolution.CpuConvolutionHelper;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.zoo.model.Darknet19;
+import org.deeplearning4j.zoo.model.ResNet50;
+import org.deeplearning4j.zoo.model.VGG16;
+import org.junit.After;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Inference time for zoo CNNs, with and without the CPU convolution helper (im2col only)
+ */
+@Slf4j
+public class TestConvolutionHelperBenchmark {
+
+    private static final int MINIBATCH = 8;
+    private static final int WARMUP = 2;
+    private static final int ITERATIONS = 5;
+
+    @After
+    public void after() {
+        System.clearProperty(CpuConvolutionHelper.ENABLE_HELPER_PROPERTY);
+        Nd4j.getWorkspaceManager().destroyAllWorkspacesForCurrentThread();
+    }
+
+    @Test
+    @Ignore("Benchmark - run manually")
+    public void benchmarkZooModels() {
+        ZooModel[] models = new ZooModel[] {new VGG16(10, 12345), new ResNet50(10, 12345), new Darknet19(10, 12345)};
+        for (ZooModel m : models) {
+            int[] s = m.metaData().getInputShape()[0];
+            INDArray in = Nd4j.rand(new int[] {MINIBATCH, s[0], s[1], s[2]});
+
+            System.setProperty(CpuConvolutionHelper.ENABLE_HELPER_PROPERTY, "false");
+            double im2colMs = timeInference(m.init(), in);
+
+            System.setProperty(CpuConvolutionHelper.ENABLE_HELPER_PROPERTY, "true");
+            CpuConvolutionHelper.clearSelectedAlgorithms();
+            double helperMs = timeInference(m.init(), in);
+
+            log.info("{}: im2col {} ms/minibatch, CPU helper {} ms/minibatch (speedup {}x), minibatch {}",
+                            m.getClass().getSimpleName(), im2colMs, helperMs, im2colMs / helperMs, MINIBATCH);
+            log.info("{}: selected algorithms {}", m.getClass().getSimpleName(),
+                            CpuConvolutionHelper.getSelectedAlgorithms());
+            assertTrue(helperMs > 0);
+        }
+    }
+
+    private static double timeInference(Model model, INDArray in) {
+        //First iterations also include the one-time algorithm benchmarking
+        for (int i = 0; i < WARMUP; i++) {
+            output(model, in);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            output(model, in);
+        }
+        return (System.nanoTime() - start) / 1e6 / ITERATIONS;
+    }
+
+    private static INDArray output(Model model, INDArray in) {
+        if (model instanceof MultiLayerNetwork) {
+            MultiLayerNetwork net = (MultiLayerNetwork) model;
+            //VGG16 is configured for flattened input
+            return net.output(in.reshape('c', in.size(0), in.length() / in.size(0)));
+        }
+        return ((ComputationGraph) model).outputSingle(in);
+    }
+}
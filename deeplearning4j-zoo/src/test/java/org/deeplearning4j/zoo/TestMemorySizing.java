@@ -0,0 +1,178 @@
+package org.deeplearning4j.zoo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.datasets.iterator.impl.BenchmarkDataSetIterator;
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.conf.CacheMode;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.WorkspaceMode;
+import org.deeplearning4j.nn.conf.graph.ElementWiseVertex;
+import org.deeplearning4j.nn.conf.inputs.InputType;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.conf.layers.SubsamplingLayer;
+import org.deeplearning4j.nn.conf.memory.MemoryReport;
+import org.deeplearning4j.nn.conf.memory.MemorySizingResult;
+import org.deeplearning4j.nn.conf.memory.MemoryUseMode;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.MemorySizingUtils;
+import org.deeplearning4j.zoo.model.Darknet19;
+import org.deeplearning4j.zoo.model.LeNet;
+import org.deeplearning4j.zoo.model.ResNet50;
+import org.deeplearning4j.zoo.model.SimpleCNN;
+import org.deeplearning4j.zoo.model.VGG16;
+import org.junit.After;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Predicted (memory report based) vs. measured memory use for zoo models
+ */
+@Slf4j
+public class TestMemorySizing {
+
+    private static final long BUDGET = 2L * 1024 * 1024 * 1024;
+    //Maximum factor between the predicted and measured (learned) workspace sizes
+    private static final double TOLERANCE = 2.0;
+
+    @After
+    public void after() {
+        Nd4j.getWorkspaceManager().destroyAllWorkspacesForCurrentThread();
+    }
+
+    @Test
+    public void testSizingZooGraphs() {
+        ZooModel[] models = new ZooModel[] {new VGG16(10, 12345), new ResNet50(10, 12345), new Darknet19(10, 12345)};
+        for (ZooModel m : models) {
+            int[] s = m.metaData().getInputShape()[0];
+            Model model = m.init();
+            MemorySizingResult r;
+            if (model instanceof MultiLayerNetwork) {
+                //VGG16 is a MultiLayerNetwork, configured for flattened input
+                r = MemorySizingUtils.size((MultiLayerNetwork) model, BUDGET,
+                                InputType.convolutionalFlat(s[1], s[2], s[0]));
+            } else {
+                r = MemorySizingUtils.size((ComputationGraph) model, BUDGET,
+                                InputType.convolutional(s[1], s[2], s[0]));
+            }
+            log.info("{}: {}", m.getClass().getSimpleName(), r);
+
+            assertTrue(r.getTrainingBatchSize() <= r.getInferenceBatchSize());
+            assertTrue(r.getInferenceBatchSize() > 0);
+            assertTrue(r.getTrainingTotalBytes() <= BUDGET);
+            assertTrue(r.getInferenceTotalBytes() <= BUDGET);
+        }
+    }
+
+    /**
+     * Train for a few iterations with the default (not pre-sized) workspace configuration, so the external workspace
+     * learns its size, and compare that size against the prediction from the memory report
+     */
+    private static void assertPredictionWithinTolerance(String name, Model model, MemoryReport report,
+                    CacheMode cacheMode, int[] featuresShape, int numLabels) {
+        Nd4j.getWorkspaceManager().destroyAllWorkspacesForCurrentThread();
+        DataSetIterator iter = new BenchmarkDataSetIterator(featuresShape, numLabels, 5);
+        if (model instanceof MultiLayerNetwork) {
+            ((MultiLayerNetwork) model).fit(iter);
+        } else {
+            ((ComputationGraph) model).fit(iter);
+        }
+
+        long measured = MemorySizingUtils.measureWorkspaceBytes(ComputationGraph.workspaceExternal);
+        long predicted = MemorySizingUtils.externalWorkspaceBytes(report, featuresShape[0], MemoryUseMode.TRAINING,
+                        cacheMode == null ? CacheMode.NONE : cacheMode, Nd4j.dataType());
+        double ratio = measured / (double) predicted;
+        log.info("{}: external workspace predicted {} bytes, measured {} bytes (minibatch {}), ratio {}", name,
+                        predicted, measured, featuresShape[0], ratio);
+
+        assertTrue(name, predicted > 0);
+        assertTrue(name, measured > 0);
+        assertTrue(name + ": measured/predicted = " + ratio, ratio >= 1.0 / TOLERANCE && ratio <= TOLERANCE);
+    }
+
+    @Test
+    public void testPredictedVsMeasuredMLN() {
+        LeNet lenet = new LeNet(10, 12345, WorkspaceMode.SEPARATE);
+        lenet.setInputShape(new int[][] {{1, 28, 28}});
+        MultiLayerNetwork net = (MultiLayerNetwork) lenet.init();
+        MultiLayerConfiguration conf = net.getLayerWiseConfigurations();
+        assertPredictionWithinTolerance("LeNet", net, conf.getMemoryReport(InputType.convolutionalFlat(28, 28, 1)),
+                        conf.getCacheMode(), new int[] {32, 28 * 28}, 10);
+
+        SimpleCNN simpleCNN = new SimpleCNN(10, 12345, WorkspaceMode.SEPARATE);
+        simpleCNN.setInputShape(new int[][] {{3, 32, 32}});
+        net = (MultiLayerNetwork) simpleCNN.init();
+        conf = net.getLayerWiseConfigurations();
+        assertPredictionWithinTolerance("SimpleCNN", net, conf.getMemoryReport(InputType.convolutional(32, 32, 3)),
+                        conf.getCacheMode(), new int[] {16, 3, 32, 32}, 10);
+    }
+
+    @Test
+    public void testPredictedVsMeasuredGraph() {
+        ComputationGraph cg = getGraph();
+        ComputationGraphConfiguration conf = cg.getConfiguration();
+        assertPredictionWithinTolerance("Graph", cg, conf.getMemoryReport(InputType.convolutional(16, 16, 3)),
+                        conf.getCacheMode(), new int[] {32, 3, 16, 16}, 10);
+    }
+
+    @Test
+    public void testApplyWorkspaceSizes() {
+        LeNet lenet = new LeNet(10, 12345, WorkspaceMode.SEPARATE);
+        lenet.setInputShape(new int[][] {{1, 28, 28}});
+        MultiLayerNetwork net = (MultiLayerNetwork) lenet.init();
+        MemorySizingResult r = MemorySizingUtils.size(net, 256L * 1024 * 1024, InputType.convolutionalFlat(28, 28, 1));
+        log.info("LeNet: {}", r);
+        assertTrue(r.getTrainingBatchSize() > 0);
+        MemorySizingUtils.applyWorkspaceSizes(net, r);
+        net.fit(new BenchmarkDataSetIterator(new int[] {Math.min(32, r.getTrainingBatchSize()), 28 * 28}, 10, 1));
+        //Workspace was created with the predicted (maximal minibatch) size, rather than learned from this minibatch
+        assertTrue(MemorySizingUtils.measureWorkspaceBytes(ComputationGraph.workspaceExternal)
+                        >= r.getTrainingExternalWorkspaceBytes());
+        //Feed-forward workspace is sized for training, and must fit within the training estimate
+        assertTrue(r.getFeedForwardWorkspaceBytes() <= r.getTrainingTotalBytes());
+
+        //Inference only thread: external workspace is created by output, with the inference size
+        Nd4j.getWorkspaceManager().destroyAllWorkspacesForCurrentThread();
+        net.output(Nd4j.rand(4, 28 * 28));
+        assertTrue(MemorySizingUtils.measureWorkspaceBytes(ComputationGraph.workspaceExternal)
+                        >= r.getInferenceExternalWorkspaceBytes());
+
+        Nd4j.getWorkspaceManager().destroyAllWorkspacesForCurrentThread();
+        ComputationGraph cg = getGraph();
+        r = MemorySizingUtils.size(cg, 256L * 1024 * 1024, InputType.convolutional(16, 16, 3));
+        log.info("Graph: {}", r);
+        assertTrue(r.getTrainingBatchSize() > 0);
+        MemorySizingUtils.applyWorkspaceSizes(cg, r);
+        cg.fit(new BenchmarkDataSetIterator(new int[] {Math.min(32, r.getTrainingBatchSize()), 3, 16, 16}, 10, 1));
+        assertTrue(MemorySizingUtils.measureWorkspaceBytes(ComputationGraph.workspaceExternal)
+                        >= r.getTrainingExternalWorkspaceBytes());
+    }
+
+    private static ComputationGraph getGraph() {
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                        .trainingWorkspaceMode(WorkspaceMode.SEPARATE).inferenceWorkspaceMode(WorkspaceMode.SEPARATE)
+                        .graphBuilder().addInputs("in")
+                        .addLayer("c0", new ConvolutionLayer.Builder().kernelSize(3, 3).padding(1, 1).nOut(16)
+                                        .activation(Activation.RELU).build(), "in")
+                        .addLayer("c1", new ConvolutionLayer.Builder().kernelSize(3, 3).padding(1, 1).nOut(16)
+                                        .activation(Activation.RELU).build(), "c0")
+                        .addVertex("add", new ElementWiseVertex(ElementWiseVertex.Op.Add), "c0", "c1")
+                        .addLayer("pool", new SubsamplingLayer.Builder().kernelSize(2, 2).stride(2, 2).build(), "add")
+                        .addLayer("d0", new DenseLayer.Builder().nOut(64).activation(Activation.RELU).build(), "pool")
+                        .addLayer("out", new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nOut(10)
+                                        .activation(Activation.SOFTMAX).build(), "d0")
+                        .setOutputs("out").setInputTypes(InputType.convolutional(16, 16, 3)).build();
+        ComputationGraph cg = new ComputationGraph(conf);
+        cg.init();
+        return cg;
+    }
+}